@@ -82,11 +82,11 @@ public class LocalFileSystem implements WrappedFileSystem {
     return getChangedTime(Paths.get(filePath.getAbsolutePath()));
   }
 
-  private long getLastModifiedTime(Path filePath) throws IOException {
+  long getLastModifiedTime(Path filePath) throws IOException {
     return Files.getLastModifiedTime(filePath).toMillis();
   }
 
-  private long getChangedTime(Path filePath) throws IOException {
+  long getChangedTime(Path filePath) throws IOException {
     return ((FileTime) Files.getAttribute(filePath, "unix:ctime")).toMillis();
   }
 
@@ -265,4 +265,8 @@ public class LocalFileSystem implements WrappedFileSystem {
     DirectoryPathCreationWatcher watcher = new DirectoryPathCreationWatcher(files, 0);
     return !watcher.find().isEmpty();
   }
+
+  public WrappedFileWatcher createWatcher(WrappedFile dirPath, boolean processSubdirectories) throws IOException {
+    return new LocalFileWatcher(this, Paths.get(dirPath.getAbsolutePath()), processSubdirectories);
+  }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.dirspooler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Watches a local directory with a {@link WatchService}, reporting the created (or moved in) files.
+ * <p/>
+ * When subdirectories are processed, new subdirectories are watched as they are created. Files may be created in
+ * them before they are watched, so the creation of a subdirectory, as a lost event, requests a directory scan.
+ */
+public class LocalFileWatcher implements WrappedFileWatcher {
+  private final static Logger LOG = LoggerFactory.getLogger(LocalFileWatcher.class);
+
+  private final LocalFileSystem fs;
+  private final boolean processSubdirectories;
+  private final WatchService watchService;
+  // created files that were still being modified the last time they were checked
+  private final Set<Path> candidates;
+  private boolean lostEvents;
+
+  public LocalFileWatcher(LocalFileSystem fs, Path dir, boolean processSubdirectories) throws IOException {
+    this.fs = fs;
+    this.processSubdirectories = processSubdirectories;
+    watchService = dir.getFileSystem().newWatchService();
+    candidates = new LinkedHashSet<>();
+    try {
+      register(dir);
+    } catch (IOException ex) {
+      watchService.close();
+      throw ex;
+    }
+  }
+
+  private void register(Path dir) throws IOException {
+    if (processSubdirectories) {
+      Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attributes) throws IOException {
+          path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } else {
+      dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+    }
+  }
+
+  @Override
+  public synchronized List<WrappedFile> poll() throws IOException {
+    WatchKey key;
+    while ((key = watchService.poll()) != null) {
+      Path dir = (Path) key.watchable();
+      try {
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            lostEvents = true;
+            continue;
+          }
+          Path path = dir.resolve((Path) event.context());
+          if (Files.isDirectory(path)) {
+            if (processSubdirectories) {
+              // files created in the new subdirectory before it is watched are only found by a directory scan
+              lostEvents = true;
+              try {
+                register(path);
+              } catch (IOException ex) {
+                LOG.warn("Could not watch subdirectory '{}', its files are found by full scans only: {}", path, ex.toString(), ex);
+              }
+            }
+          } else if (fs.patternMatches(path.getFileName().toString())) {
+            candidates.add(path);
+          }
+        }
+      } finally {
+        if (!key.reset()) {
+          LOG.debug("Directory '{}' is no longer watched", dir);
+        }
+      }
+    }
+
+    if (lostEvents) {
+      lostEvents = false;
+      candidates.clear();
+      return null;
+    }
+
+    // SDC-3551: as the directory scan, pick up only files with mtime strictly less than the current time.
+    final long now = System.currentTimeMillis();
+    List<WrappedFile> files = new ArrayList<>();
+    Iterator<Path> iterator = candidates.iterator();
+    while (iterator.hasNext()) {
+      Path path = iterator.next();
+      try {
+        if (Math.max(fs.getLastModifiedTime(path), fs.getChangedTime(path)) < now) {
+          files.add(fs.getFile(path.toString()));
+          iterator.remove();
+        }
+      } catch (NoSuchFileException ex) {
+        LOG.debug("File '{}' was removed before being picked up", path);
+        iterator.remove();
+      }
+    }
+    return files;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    candidates.clear();
+    watchService.close();
+  }
+}
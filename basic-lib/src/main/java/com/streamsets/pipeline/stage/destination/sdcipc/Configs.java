@@ -22,6 +22,7 @@ import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.credential.CredentialValue;
 import com.streamsets.pipeline.api.ConfigDef;
 import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.api.ValueChooserModel;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.tls.TlsConfigBean;
 import com.streamsets.pipeline.lib.util.ThreadUtil;
@@ -142,6 +143,19 @@ public class Configs {
   )
   public boolean compression;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.MODEL,
+      defaultValue = "JSON1",
+      label = "Record Format",
+      description = "Encoding of the records sent to the SDC RPC origin. Kryo is more compact but the Data Collector" +
+          " record format must be set to KRYO1 as well.",
+      displayPosition = 120,
+      group = "ADVANCED"
+  )
+  @ValueChooserModel(RecordFormatChooserValues.class)
+  public RecordFormat recordFormat = RecordFormat.JSON1;
+
   // This flag indicates that connection validation must apply the retry and backoff.
   boolean retryDuringValidation = false;
 
@@ -24,6 +24,7 @@ public interface Constants {
   String CONTENT_TYPE_HEADER = "Content-Type";
   String APPLICATION_BINARY = "application/binary";
   String X_SDC_JSON1_FRAGMENTABLE_HEADER = "X-SDC-JSON1-FRAGMENTABLE";
+  String X_SDC_RECORD_FORMAT_HEADER = "X-SDC-RECORD-FORMAT";
 
   String PING_PATH = "/ping";
 
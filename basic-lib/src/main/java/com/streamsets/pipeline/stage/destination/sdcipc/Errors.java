@@ -35,6 +35,8 @@ public enum Errors implements ErrorCode {
   IPC_DEST_11("Configuration value is empty"),
 
   IPC_DEST_12("HOST:PORT '{}' is not an SDC RPC end point"),
+  IPC_DEST_13("Record format '{}' does not match the '{}' record format of the Data Collector"),
+  IPC_DEST_14("Could not determine the record format of the Data Collector: {}"),
 
   IPC_DEST_15("Could not connect to any SDC RPC destination: {}"),
 
@@ -15,7 +15,11 @@
  */
 package com.streamsets.pipeline.stage.destination.sdcipc;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
 import com.streamsets.pipeline.api.Batch;
 import com.streamsets.pipeline.api.OnRecordError;
 import com.streamsets.pipeline.api.Record;
@@ -29,7 +33,9 @@ import org.iq80.snappy.SnappyFramedOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
@@ -45,6 +51,9 @@ public class SdcIpcTarget extends BaseTarget {
   final List<String> standByHostPorts;
   final List<String> activeHostPorts;
   int lastActive;
+  private Meter recordsMeter;
+  private Meter bytesMeter;
+  private Timer requestTimer;
 
   public SdcIpcTarget(Configs config) {
     this.config = config;
@@ -60,10 +69,43 @@ public class SdcIpcTarget extends BaseTarget {
     issues.addAll(config.init(getContext()));
     if (issues.isEmpty()) {
       initializeHostPortsLists();
+      validateRecordFormat(issues);
+      LOG.debug("Sending records in '{}' format", config.recordFormat);
+      recordsMeter = getContext().createMeter("records");
+      bytesMeter = getContext().createMeter("bytes");
+      requestTimer = getContext().createTimer("requests");
     }
     return issues;
   }
 
+  /**
+   * Records are encoded by the Data Collector, make sure that it uses the format the stage is configured to send.
+   */
+  private void validateRecordFormat(List<ConfigIssue> issues) {
+    ContextExtensions ext = (ContextExtensions) getContext();
+    try {
+      RecordWriter writer = ext.createRecordWriter(new ByteArrayOutputStream());
+      String encoding = writer.getEncoding();
+      writer.close();
+      if (!config.recordFormat.name().equals(encoding)) {
+        issues.add(getContext().createConfigIssue(
+            Groups.ADVANCED.name(),
+            "config.recordFormat",
+            Errors.IPC_DEST_13,
+            config.recordFormat,
+            encoding
+        ));
+      }
+    } catch (IOException ex) {
+      issues.add(getContext().createConfigIssue(
+          Groups.ADVANCED.name(),
+          "config.recordFormat",
+          Errors.IPC_DEST_14,
+          ex.toString()
+      ));
+    }
+  }
+
   int getActiveConnectionsNumber() {
     int count = (int) Math.log(config.hostPorts.size()) + 1;
     return (count < 2) ? 2 : count;
@@ -117,13 +159,38 @@ public class SdcIpcTarget extends BaseTarget {
     HttpURLConnection  conn = config.createConnection(getHostPort(isRetry));
     conn.setRequestMethod("POST");
     conn.setRequestProperty(Constants.CONTENT_TYPE_HEADER, Constants.APPLICATION_BINARY);
-    conn.setRequestProperty(Constants.X_SDC_JSON1_FRAGMENTABLE_HEADER, "true");
+    // Only JSON1 payloads can be split at record boundaries by the receiving end
+    conn.setRequestProperty(
+        Constants.X_SDC_JSON1_FRAGMENTABLE_HEADER,
+        String.valueOf(config.recordFormat == RecordFormat.JSON1)
+    );
+    conn.setRequestProperty(Constants.X_SDC_RECORD_FORMAT_HEADER, config.recordFormat.name());
     conn.setDefaultUseCaches(false);
     conn.setDoOutput(true);
     conn.setDoInput(true);
+    // Stream the records rather than buffering the whole batch in memory to compute its length
+    conn.setChunkedStreamingMode(0);
     return conn;
   }
 
+  /**
+   * Reads the response fully and closes it, which allows the underlying connection to be kept alive and reused for
+   * the next batch. Connections whose response can't be consumed are closed.
+   */
+  void releaseConnection(HttpURLConnection conn, boolean ok) {
+    try {
+      InputStream is = ok ? conn.getInputStream() : conn.getErrorStream();
+      if (is != null) {
+        try (InputStream toClose = is) {
+          ByteStreams.exhaust(toClose);
+        }
+      }
+    } catch (IOException ex) {
+      LOG.debug("Could not consume response, closing connection: {}", ex.toString());
+      conn.disconnect();
+    }
+  }
+
   @Override
   public void write(Batch batch) throws StageException {
     ContextExtensions ext = (ContextExtensions) getContext();
@@ -136,28 +203,35 @@ public class SdcIpcTarget extends BaseTarget {
       LOG.debug("Writing out batch for entity '{}' and offset '{}' retry '{}'", batch.getSourceEntity(), batch.getSourceOffset(), retryCount);
       config.backOffWait(retryCount);
 
-      try {
+      try (Timer.Context ignored = requestTimer.time()) {
         conn = createWriteConnection(retryCount > 0);
         if (config.compression) {
           conn.setRequestProperty(Constants.X_SDC_COMPRESSION_HEADER, Constants.SNAPPY_COMPRESSION);
         }
-        OutputStream os = conn.getOutputStream();
+        CountingOutputStream countingOs = new CountingOutputStream(conn.getOutputStream());
+        OutputStream os = countingOs;
         if (config.compression) {
           os = new SnappyFramedOutputStream(os);
         }
         RecordWriter writer = ext.createRecordWriter(os);
         Iterator<Record> it = batch.getRecords();
+        int count = 0;
         while (it.hasNext()) {
           Record record = it.next();
           writer.write(record);
+          count++;
         }
         writer.close();
         os.close();
         ok = conn.getResponseCode() == HttpURLConnection.HTTP_OK;
         if (!ok) {
           errorReason = conn.getResponseMessage();
+          releaseConnection(conn, false);
           LOG.warn("Batch for entity '{}' and offset '{}' could not be written out: {}", batch.getSourceEntity(), batch.getSourceOffset(), errorReason);
         } else {
+          releaseConnection(conn, true);
+          recordsMeter.mark(count);
+          bytesMeter.mark(countingOs.getCount());
           LOG.debug("Batch for entity '{}' and offset '{}' written out on retry '{}'", batch.getSourceEntity(), batch.getSourceOffset(), retryCount);
         }
       } catch (IOException ex) {
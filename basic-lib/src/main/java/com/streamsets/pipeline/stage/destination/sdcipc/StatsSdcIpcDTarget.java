@@ -29,7 +29,7 @@ import com.streamsets.pipeline.configurablestage.DTarget;
 import java.util.Arrays;
 
 @StageDef(
-    version = 2,
+    version = 3,
     label = "Write to SDC RPC",
     description = "Writes pipeline Statistic records to another pipeline over SDC RPC",
     icon="sdcipc.png",
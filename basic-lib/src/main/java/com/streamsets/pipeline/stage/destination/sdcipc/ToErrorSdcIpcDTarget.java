@@ -24,7 +24,7 @@ import com.streamsets.pipeline.api.StageDef;
 @StageDef(
   // We're reusing upgrader for both ToErrorSdcIpcDTarget and SdcIpcDTarget, make sure that you
   // upgrade both versions at the same time when changing.
-    version = 2,
+    version = 3,
     label = "Write to Another Pipeline",
     description = "",
     icon = "",
@@ -15,6 +15,8 @@
  */
 package com.streamsets.pipeline.stage.origin.sdcipc;
 
+import com.codahale.metrics.Meter;
+import com.google.common.io.CountingInputStream;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.StageException;
@@ -34,6 +36,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 
 @SuppressWarnings({"squid:S2226", "squid:S1989", "squid:S1948"})
@@ -44,6 +47,9 @@ public class IpcServlet extends HttpServlet {
   private final Configs configs;
   private final int maxObjectLen;
   private final BlockingQueue<List<Record>> queue;
+  private final Meter recordsMeter;
+  private final Meter bytesMeter;
+  private final Map<String, Object> recordFormatGauge;
   private volatile boolean batchDone;
   private volatile boolean batchCancelled;
   private volatile boolean shuttingDown;
@@ -54,6 +60,15 @@ public class IpcServlet extends HttpServlet {
     this.configs = configs;
     maxObjectLen = this.configs.maxRecordSize * 1000 * 1000;
     this.queue = queue;
+    recordsMeter = context.createMeter("records");
+    bytesMeter = context.createMeter("bytes");
+    recordFormatGauge = context.createGauge("recordFormat").getValue();
+  }
+
+  // Number of requests received in each record format
+  private void countRecordFormat(String recordFormat) {
+    Object count = recordFormatGauge.get(recordFormat);
+    recordFormatGauge.put(recordFormat, (count == null) ? 1L : (long) count + 1);
   }
 
   private String resolveAppId() throws IOException {
@@ -99,7 +114,7 @@ public class IpcServlet extends HttpServlet {
           LOG.warn("IPC from '{}' invalid appId '{}', rejected", req.getRemoteAddr(), appId);
           resp.sendError(HttpServletResponse.SC_FORBIDDEN, "Invalid 'appId'");
         } else {
-          try (InputStream in = req.getInputStream()) {
+          try (CountingInputStream in = new CountingInputStream(req.getInputStream())) {
             InputStream is = in;
             boolean processRequest = true;
             if (compression != null) {
@@ -124,6 +139,9 @@ public class IpcServlet extends HttpServlet {
                 record = reader.readRecord();
               }
               LOG.debug("Got '{}' records from '{}'", records.size(), req.getRemoteAddr());
+              recordsMeter.mark(records.size());
+              bytesMeter.mark(in.getCount());
+              countRecordFormat(reader.getEncoding());
               batchDone = false;
               batchCancelled = false;
               queue.add(records);
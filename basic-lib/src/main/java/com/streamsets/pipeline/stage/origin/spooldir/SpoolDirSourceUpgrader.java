@@ -93,6 +93,12 @@ public class SpoolDirSourceUpgrader implements StageUpgrader {
         // fall through
       case 9:
         upgradeV9ToV10(configs);
+        if (toVersion == 10) {
+          break;
+        }
+        // fall through
+      case 10:
+        upgradeV10ToV11(configs);
         break;
       default:
         throw new IllegalStateException(Utils.format("Unexpected fromVersion {}", fromVersion));
@@ -100,6 +106,10 @@ public class SpoolDirSourceUpgrader implements StageUpgrader {
     return configs;
   }
 
+  private void upgradeV10ToV11(List<Config> configs) {
+    configs.add(new Config(joiner.join(CONF, "watchForNewFiles"), false));
+  }
+
   private void upgradeV9ToV10(List<Config> configs) {
     configs.add(new Config(joiner.join(CONF, "spoolingPeriod"), 5));
   }
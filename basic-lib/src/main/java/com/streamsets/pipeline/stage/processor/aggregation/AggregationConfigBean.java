@@ -112,6 +112,31 @@ public class AggregationConfigBean {
   @ListBeanModel
   public List<AggregatorConfig> aggregatorConfigs;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "0",
+      label = "Max Groups per Aggregation",
+      description = "Maximum number of group-by values tracked by each group-by aggregation per time window, " +
+          "not counting the other group. Use 0 for no limit",
+      group = "AGGREGATIONS",
+      displayPosition = 50,
+      min = 0
+  )
+  public int maxGroups;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.MODEL,
+      defaultValue = "OTHER",
+      label = "Group Limit Policy",
+      description = "What to do with the values of new groups once the maximum number of groups has been reached",
+      group = "AGGREGATIONS",
+      displayPosition = 60
+  )
+  @ValueChooserModel(GroupLimitPolicyChooserValues.class)
+  public GroupLimitPolicy groupLimitPolicy;
+
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.BOOLEAN,
@@ -38,6 +38,8 @@ public class AggregationEvaluator {
   private final String timeWindowLabel;
   private final AggregatorConfig config;
   private final Aggregators aggregators;
+  private final int maxGroups;
+  private final GroupLimitPolicy groupLimitPolicy;
 
   private ELEval filterEval;
   private ELEval valueEval;
@@ -52,12 +54,26 @@ public class AggregationEvaluator {
       String timeWindowLabel,
       AggregatorConfig config,
       Aggregators aggregators
+  ) {
+    this(context, windowType, timeWindowLabel, config, aggregators, 0, GroupLimitPolicy.OTHER);
+  }
+
+  public AggregationEvaluator(
+      Processor.Context context,
+      WindowType windowType,
+      String timeWindowLabel,
+      AggregatorConfig config,
+      Aggregators aggregators,
+      int maxGroups,
+      GroupLimitPolicy groupLimitPolicy
   ) {
     this.context = context;
     this.windowType = windowType;
     this.timeWindowLabel = timeWindowLabel;
     this.config = config;
     this.aggregators = aggregators;
+    this.maxGroups = maxGroups;
+    this.groupLimitPolicy = groupLimitPolicy;
     init();
   }
 
@@ -74,7 +90,12 @@ public class AggregationEvaluator {
     groupBy = config.groupBy;
     if (groupBy) {
       groupByEval = context.createELEval("groupByExpression");
-      aggregator = aggregators.createGroupBy(config.aggregationName, function.getAggregatorClass());
+      aggregator = aggregators.createGroupBy(
+          config.aggregationName,
+          function.getAggregatorClass(),
+          maxGroups,
+          groupLimitPolicy
+      );
     } else {
       aggregator = aggregators.createSimple(config.aggregationName, function.getAggregatorClass());
     }
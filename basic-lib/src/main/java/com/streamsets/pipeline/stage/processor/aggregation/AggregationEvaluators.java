@@ -94,7 +94,9 @@ public class AggregationEvaluators {
             config.windowType,
             config.getTimeWindowLabel(),
             aggregatorConfig,
-            aggregators
+            aggregators,
+            config.maxGroups,
+            config.groupLimitPolicy
         ));
       }
     }
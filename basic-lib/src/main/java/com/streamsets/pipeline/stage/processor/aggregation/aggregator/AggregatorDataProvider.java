@@ -42,6 +42,9 @@ import java.util.concurrent.ConcurrentHashMap;
  * <p/>
  * By providing the AggregatorData to a set of Aggregators, the AggregatorDataProvider has the capability of
  * atomically replacing the AggregatorData for all registered Aggregators with no contention.
+ * <p/>
+ * For sliding windows, the closed data windows are aggregated incrementally by a {@link SlidingWindowAggregation},
+ * only the live data window is remembered as a DataWindow.
  */
 public class AggregatorDataProvider {
 
@@ -114,11 +117,13 @@ public class AggregatorDataProvider {
   }
 
   private final WindowType windowType;
+  private final int windowsToKeep;
   private final Set<Aggregator> aggregators;
   private volatile Map<Aggregator, AggregatorData> data;
   private EvictingQueue<DataWindow> dataWindowQueue;
   private volatile List<DataWindow> dataWindowList;
   private DataWindow currentDataWindow;
+  private SlidingWindowAggregation slidingWindowAggregation;
   private boolean started;
   private boolean stopped;
 
@@ -130,9 +135,10 @@ public class AggregatorDataProvider {
   public AggregatorDataProvider(int windowsToKeep, WindowType windowType) {
     Utils.checkArgument(windowsToKeep > 0, "windows to keep must be greater than zero");
     aggregators = new HashSet<>();
-    dataWindowQueue = EvictingQueue.create(windowsToKeep);
+    dataWindowQueue = EvictingQueue.create((WindowType.SLIDING == windowType) ? 1 : windowsToKeep);
     dataWindowList = Collections.emptyList();
     this.windowType = windowType;
+    this.windowsToKeep = windowsToKeep;
   }
 
   @VisibleForTesting
@@ -160,6 +166,10 @@ public class AggregatorDataProvider {
    */
   public void start(long newDataWindowEndTimeMillis) {
     started = true;
+    if (WindowType.SLIDING == windowType) {
+      // the live data window is aggregated on demand with the closed ones
+      slidingWindowAggregation = new SlidingWindowAggregation(aggregators, windowsToKeep - 1);
+    }
     roll(newDataWindowEndTimeMillis);
   }
 
@@ -175,7 +185,9 @@ public class AggregatorDataProvider {
       e.getValue().setTime(currentTimeMillis);
     }
     Map<Aggregator, AggregatorData> result = data;
-    result = aggregateDataWindows(result);
+    if (WindowType.SLIDING == windowType) {
+      result = aggregateWithClosedDataWindows(result, currentDataWindow.getEndTimeMillis());
+    }
     return result;
   }
 
@@ -196,11 +208,13 @@ public class AggregatorDataProvider {
     }
     data = newData;
 
-    Map<Aggregator, AggregatorData> oldData = result;
-    // In case of sliding window, aggregate the data windows to get the result
-    result = aggregateDataWindows(result);
-
     if (currentDataWindow != null) {
+      Map<Aggregator, AggregatorData> oldData = result;
+      if (WindowType.SLIDING == windowType) {
+        // In case of sliding window, the result is the closing data window aggregated with the previous ones
+        result = aggregateWithClosedDataWindows(oldData, currentDataWindow.getEndTimeMillis());
+        slidingWindowAggregation.push(oldData);
+      }
       currentDataWindow.setDataAndClose(oldData);
     }
     DataWindow newDataWindow = createDataWindow(newDataWindowEndTimeMillis);
@@ -250,18 +264,36 @@ public class AggregatorDataProvider {
     return data.get(aggregator);
   }
 
-  private Map<Aggregator, AggregatorData> aggregateDataWindows(Map<Aggregator, AggregatorData> result) {
-    int windowSize = dataWindowList.size();
-    if (WindowType.SLIDING == windowType && windowSize > 0) {
-      result = new HashMap<>();
-      List<DataWindow> oldDataWindowList = new ArrayList<>(dataWindowList);
-      for (Aggregator aggregator : aggregators) {
-        AggregatorData aggregatorData = aggregator.createAggregatorData(oldDataWindowList.get(windowSize-1).getEndTimeMillis());
-        for (DataWindow dataWindow : oldDataWindowList) {
-          aggregatorData.aggregate(dataWindow.getData(aggregator).getAggregatable());
-        }
-        result.put(aggregator, aggregatorData);
-      }
+  /**
+   * Returns the AggregatorData of an Aggregator aggregated over all the DataWindows, live one included.
+   * <p/>
+   * For sliding windows the closed DataWindows are already aggregated, so this costs a single aggregation regardless
+   * of the number of DataWindows.
+   *
+   * @param aggregator Aggregator to get the AggregatorData for.
+   * @return the aggregated AggregatorData, with the end time of the live DataWindow as time.
+   */
+  public AggregatorData getWindowsAggregate(Aggregator aggregator) {
+    Utils.checkState(started, "Not started");
+    List<DataWindow> dataWindows = dataWindowList;
+    long endTimeMillis = dataWindows.get(dataWindows.size() - 1).getEndTimeMillis();
+    if (slidingWindowAggregation != null) {
+      return slidingWindowAggregation.aggregateWith(aggregator, data.get(aggregator), endTimeMillis);
+    }
+    AggregatorData aggregatorData = aggregator.createAggregatorData(endTimeMillis);
+    for (DataWindow dataWindow : dataWindows) {
+      aggregatorData.aggregate(dataWindow.getData(aggregator).getAggregatable());
+    }
+    return aggregatorData;
+  }
+
+  private Map<Aggregator, AggregatorData> aggregateWithClosedDataWindows(
+      Map<Aggregator, AggregatorData> data,
+      long endTimeMillis
+  ) {
+    Map<Aggregator, AggregatorData> result = new HashMap<>();
+    for (Aggregator aggregator : aggregators) {
+      result.put(aggregator, slidingWindowAggregation.aggregateWith(aggregator, data.get(aggregator), endTimeMillis));
     }
     return result;
   }
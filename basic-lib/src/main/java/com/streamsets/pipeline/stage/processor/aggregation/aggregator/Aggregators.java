@@ -17,6 +17,7 @@ package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
 
 import com.google.common.collect.ImmutableSet;
 import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.stage.processor.aggregation.GroupLimitPolicy;
 import com.streamsets.pipeline.stage.processor.aggregation.WindowType;
 
 import java.lang.reflect.Constructor;
@@ -145,12 +146,28 @@ public class Aggregators {
    * @param aKlass simple aggregator class backing each group-by element.
    * @return a group-by aggregator.
    */
-  @SuppressWarnings("unchecked")
   public <A extends SimpleAggregator, N extends Number> GroupByAggregator<A, N> createGroupBy(
       String name, Class<? extends Aggregator> aKlass
+  ) {
+    return createGroupBy(name, aKlass, 0, GroupLimitPolicy.OTHER);
+  }
+
+  /**
+   * Creates a group-by Agregator with a maximum number of group-by elements per data window.
+   *
+   * @param name name of the group-by Aggregator.
+   * @param aKlass simple aggregator class backing each group-by element.
+   * @param maxGroups maximum number of group-by elements per data window, zero for no limit.
+   * @param groupLimitPolicy what to do with new group-by elements once the maximum has been reached.
+   * @return a group-by aggregator.
+   */
+  @SuppressWarnings("unchecked")
+  public <A extends SimpleAggregator, N extends Number> GroupByAggregator<A, N> createGroupBy(
+      String name, Class<? extends Aggregator> aKlass, int maxGroups, GroupLimitPolicy groupLimitPolicy
   ) {
     Utils.checkState(!started, "Already started");
-    GroupByAggregator<A, N> aggregator = new GroupByAggregator(name, aKlass, this);
+    Utils.checkArgument(maxGroups >= 0, "max groups cannot be negative");
+    GroupByAggregator<A, N> aggregator = new GroupByAggregator(name, aKlass, this, maxGroups, groupLimitPolicy);
     dataProvider.addAggregator(aggregator);
     aggregator.setDataProvider(dataProvider);
     return aggregator;
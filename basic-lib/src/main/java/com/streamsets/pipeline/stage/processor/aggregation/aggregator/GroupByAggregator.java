@@ -15,20 +15,25 @@
  */
 package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
 
-import com.google.common.collect.ImmutableMap;
 import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.stage.processor.aggregation.GroupLimitPolicy;
 
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Group-by Aggregator supporting all Simple Aggregators as group-by element.
  */
 public class GroupByAggregator<A extends SimpleAggregator, T> extends Aggregator<GroupByAggregator, Map<String, T>> {
 
+  /**
+   * Group-by element aggregating the values of the groups exceeding the maximum number of groups.
+   */
+  public static final String OTHER_GROUP = "__other__";
+
   public static class GroupByAggregatable implements Aggregatable<GroupByAggregator> {
     private String name;
     private Map<String, Aggregatable> groups;
@@ -55,12 +60,10 @@ public class GroupByAggregator<A extends SimpleAggregator, T> extends Aggregator
 
   class Data extends AggregatorData<GroupByAggregator<A, T>, Map<String, T>> {
     private final Map<String, AggregatorData<SimpleAggregator, Number>> groups;
-    private final ReentrantReadWriteLock rwLock;
 
     public Data(String name, long time) {
       super(name, time);
-      groups = new HashMap<>();
-      rwLock = new ReentrantReadWriteLock(true);
+      groups = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -77,71 +80,103 @@ public class GroupByAggregator<A extends SimpleAggregator, T> extends Aggregator
 
     @SuppressWarnings("unchecked")
     protected void process(String group, T value) {
-      AggregatorData aggregatorData;
-      rwLock.writeLock().lock();
-      try {
-        aggregatorData = groups.computeIfAbsent(group,
-            k -> GroupByAggregator.this.createElementAggregatorData(group, getTime())
-        );
-      } finally {
-        rwLock.writeLock().unlock();
+      AggregatorData aggregatorData = getGroupData(group);
+      if (aggregatorData != null) {
+        aggregatorData.process(value);
+      }
+    }
+
+    /**
+     * Returns the AggregatorData of a group-by element, creating it if it does not exist yet.
+     * <p/>
+     * Existing group-by elements are looked up without locking, only the creation of a new one is serialized so the
+     * maximum number of groups is enforced. The other group does not count towards the maximum, once it exists the
+     * data window holds the maximum number of groups plus the other group.
+     *
+     * @param group the group-by element.
+     * @return the AggregatorData of the group-by element, of the other group if the maximum number of groups has been
+     * reached, <b>NULL</b> if the values of the group-by element must be discarded.
+     */
+    private AggregatorData<SimpleAggregator, Number> getGroupData(String group) {
+      AggregatorData<SimpleAggregator, Number> aggregatorData = groups.get(group);
+      if (aggregatorData == null) {
+        synchronized (groups) {
+          aggregatorData = groups.get(group);
+          if (aggregatorData == null) {
+            if (maxGroups > 0 && groups.size() - (groups.containsKey(OTHER_GROUP) ? 1 : 0) >= maxGroups) {
+              if (groupLimitPolicy == GroupLimitPolicy.DISCARD) {
+                return null;
+              }
+              group = OTHER_GROUP;
+            }
+            aggregatorData = createGroupData(group);
+          }
+        }
+      }
+      return aggregatorData;
+    }
+
+    /**
+     * Returns the AggregatorData of a group-by element, creating it regardless of the maximum number of groups if it
+     * does not exist yet. Used when merging data windows, each of them already capped, so that the groups of the
+     * merged data windows are kept as they are.
+     *
+     * @param group the group-by element.
+     * @return the AggregatorData of the group-by element.
+     */
+    private AggregatorData<SimpleAggregator, Number> getOrCreateGroupData(String group) {
+      AggregatorData<SimpleAggregator, Number> aggregatorData = groups.get(group);
+      if (aggregatorData == null) {
+        synchronized (groups) {
+          aggregatorData = createGroupData(group);
+        }
       }
-      aggregatorData.process(value);
+      return aggregatorData;
     }
 
+    // must be called holding the groups lock
+    @SuppressWarnings("unchecked")
+    private AggregatorData<SimpleAggregator, Number> createGroupData(String group) {
+      AggregatorData<SimpleAggregator, Number> aggregatorData = groups.get(group);
+      if (aggregatorData == null) {
+        aggregatorData = GroupByAggregator.this.createElementAggregatorData(group, getTime());
+        groups.put(group, aggregatorData);
+      }
+      return aggregatorData;
+    }
 
     @Override
     @SuppressWarnings("unchecked")
     public Map<String, T> get() {
-      rwLock.readLock().lock();
-      try {
-        Map<String, T> map = new HashMap<>();
-        for (Map.Entry<String, AggregatorData<SimpleAggregator, Number>> group : groups.entrySet()) {
-          map.put(group.getKey(), (T) group.getValue().get());
-        }
-        return map;
-      } finally {
-        rwLock.readLock().unlock();
+      Map<String, T> map = new HashMap<>();
+      for (Map.Entry<String, AggregatorData<SimpleAggregator, Number>> group : groups.entrySet()) {
+        map.put(group.getKey(), (T) group.getValue().get());
       }
+      return map;
     }
 
-    @SuppressWarnings("unchecked")
     public AggregatorData<SimpleAggregator, Number> getGroupByElementData(String groupName) {
-      rwLock.readLock().lock();
-      try {
-        return groups.get(groupName);
-      } finally {
-        rwLock.readLock().unlock();
-      }
+      return groups.get(groupName);
     }
 
     public Set<String> getGroupByElements() {
-      rwLock.readLock().lock();
-      try {
-        return new HashSet<>(groups.keySet());
-      } finally {
-        rwLock.readLock().unlock();
-      }
+      return new HashSet<>(groups.keySet());
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public Aggregatable<GroupByAggregator<A, T>> getAggregatable() {
       GroupByAggregatable aggregatable = new GroupByAggregatable().setName(getName());
-      rwLock.readLock().lock();
-      try {
-        Map<String, Aggregatable> aggregatableGroups = new HashMap<>();
-        for (Map.Entry<String, AggregatorData<SimpleAggregator, Number>> group : groups.entrySet()) {
-          aggregatableGroups.put(group.getKey(), group.getValue().getAggregatable());
-        }
-        aggregatable.setGroups(aggregatableGroups);
-      } finally {
-        rwLock.readLock().unlock();
+      Map<String, Aggregatable> aggregatableGroups = new HashMap<>();
+      for (Map.Entry<String, AggregatorData<SimpleAggregator, Number>> group : groups.entrySet()) {
+        aggregatableGroups.put(group.getKey(), group.getValue().getAggregatable());
       }
+      aggregatable.setGroups(aggregatableGroups);
       return (Aggregatable) aggregatable;
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public void aggregate(Aggregatable aggregatable) {
       Utils.checkNotNull(aggregatable, "aggregatable");
       Utils.checkArgument(getName().equals(aggregatable.getName()),
@@ -154,36 +189,39 @@ public class GroupByAggregator<A extends SimpleAggregator, T> extends Aggregator
           GroupByAggregatable.class.getSimpleName()
       ));
 
-      rwLock.writeLock().lock();
-      try {
-        for (Map.Entry<String, Aggregatable> entry : ((GroupByAggregatable) aggregatable).getGroups().entrySet()) {
-          AggregatorData aggregatorData = groups.computeIfAbsent(entry.getKey(),
-              groupByElementName -> GroupByAggregator.this.createElementAggregatorData(groupByElementName, getTime())
-          );
-          aggregatorData.aggregate(entry.getValue());
-        }
-      } finally {
-        rwLock.writeLock().unlock();
+      for (Map.Entry<String, Aggregatable> entry : ((GroupByAggregatable) aggregatable).getGroups().entrySet()) {
+        getOrCreateGroupData(entry.getKey()).aggregate(entry.getValue());
       }
     }
   }
 
   private final Class<A> aggregatorKlass;
   private final Aggregators aggregators;
+  private final int maxGroups;
+  private final GroupLimitPolicy groupLimitPolicy;
 
   /**
    * Group-by Aggregator constructor.
    *  @param name name of the aggregator.
    * @param aggregatorKlass Aggregator type to use with each group-by element.
    * @param aggregators Aggregators that is creating the group-by aggregator.
+   * @param maxGroups maximum number of group-by elements per data window, zero for no limit. Not applied when
+   * aggregating data windows, and the other group comes on top of it.
+   * @param groupLimitPolicy what to do with new group-by elements once the maximum has been reached.
    */
   @SuppressWarnings("unchecked")
   GroupByAggregator(
-      String name, Class<A> aggregatorKlass, Aggregators aggregators
+      String name,
+      Class<A> aggregatorKlass,
+      Aggregators aggregators,
+      int maxGroups,
+      GroupLimitPolicy groupLimitPolicy
   ) {
     super(aggregators.getAggregatorUnit(aggregatorKlass), name);
     this.aggregators = aggregators;
     this.aggregatorKlass = aggregatorKlass;
+    this.maxGroups = maxGroups;
+    this.groupLimitPolicy = groupLimitPolicy;
   }
 
   /**
@@ -224,8 +262,9 @@ public class GroupByAggregator<A extends SimpleAggregator, T> extends Aggregator
    * @param group the group-by element.
    * @param value the value to process.
    */
+  @SuppressWarnings("unchecked")
   public void process(String group, T value) {
-    getData().process(ImmutableMap.of(group, value));
+    ((Data) getData()).process(group, value);
   }
 
 }
@@ -47,6 +47,9 @@ public class GroupByValueGaugeList extends AbstractSequentialList {
 
   @Override
   public ListIterator listIterator(int index) {
+    if (windowType == WindowType.SLIDING) {
+      return slidingListIterator();
+    }
     Set<String> elements = new HashSet<>();
 
     List<AggregatorDataProvider.DataWindow> dataWindows = aggregator.getDataProvider().getDataWindows();
@@ -73,43 +76,38 @@ public class GroupByValueGaugeList extends AbstractSequentialList {
     return groupByElementGauges.listIterator();
   }
 
+  @SuppressWarnings("unchecked")
+  private ListIterator slidingListIterator() {
+    // all microwindows aggregated into one, keyed by the time of current open timewindow
+    GroupByAggregator.Data aggregatorData =
+        (GroupByAggregator.Data) aggregator.getDataProvider().getWindowsAggregate(aggregator);
+    String key = Long.toString(aggregatorData.getTime());
+
+    // we need to sort them so they always show up orderly
+    List<String> elementsSorted = new ArrayList<>(aggregatorData.getGroupByElements());
+    Collections.sort(elementsSorted);
+
+    List<Map<String, Map<String, Number>>> groupByElementGauges = new ArrayList<>();
+    for (String element : elementsSorted) {
+      Number value = (Number) aggregatorData.getGroupByElementData(element).get();
+      groupByElementGauges.add(ImmutableMap.of(element, Collections.singletonMap(key, value)));
+    }
+    return groupByElementGauges.listIterator();
+  }
+
   protected Map<String, Number> createGroupByElementEntry(
       GroupByAggregator aggregator, String elementName, List<AggregatorDataProvider.DataWindow> dataWindows
   ) {
     Map<String, Number> data = new LinkedHashMap<>();
 
-    if (windowType == WindowType.ROLLING) {
-      //scanning all datawindows (they are in time order) and creating the structure for metrics UI
-      for (AggregatorDataProvider.DataWindow dataWindow : dataWindows) {
-        GroupByAggregator.Data aggregatorData = (GroupByAggregator.Data)dataWindow.getData(aggregator);
-        AggregatorData<SimpleAggregator, Number> groupByElementData = aggregatorData.getGroupByElementData(elementName);
-        if (groupByElementData != null) {
-          // added it to the result map
-          data.put(Long.toString(dataWindow.getEndTimeMillis()), groupByElementData.get());
-        }
-      }
-    } else {
-      //time of current open timewindow
-      long endTimeMillis= dataWindows.get(dataWindows.size() - 1).getEndTimeMillis();
-
-      // we need to aggregate all microwindows to produce one
-      AggregatorData aggregatorDataForElement = null;
-
-      //scanning all datawindows (they are in time order) and creating the structure for metrics UI
-      for (AggregatorDataProvider.DataWindow dataWindow : dataWindows) {
-        GroupByAggregator.Data aggregatorData = (GroupByAggregator.Data) dataWindow.getData(aggregator);
-        AggregatorData<SimpleAggregator, Number> groupByElementData = aggregatorData.getGroupByElementData(elementName);
-        if (groupByElementData != null) {
-          if (aggregatorDataForElement == null) {
-            aggregatorDataForElement = aggregator.createElementAggregatorData(elementName, endTimeMillis);
-          }
-          aggregatorDataForElement.aggregate(groupByElementData.getAggregatable());
-        }
+    //scanning all datawindows (they are in time order) and creating the structure for metrics UI
+    for (AggregatorDataProvider.DataWindow dataWindow : dataWindows) {
+      GroupByAggregator.Data aggregatorData = (GroupByAggregator.Data)dataWindow.getData(aggregator);
+      AggregatorData<SimpleAggregator, Number> groupByElementData = aggregatorData.getGroupByElementData(elementName);
+      if (groupByElementData != null) {
+        // added it to the result map
+        data.put(Long.toString(dataWindow.getEndTimeMillis()), groupByElementData.get());
       }
-
-      Number value = (Number) aggregatorDataForElement.get();
-      // added it to the result map
-      data.put(Long.toString(endTimeMillis), value);
     }
     return data;
   }
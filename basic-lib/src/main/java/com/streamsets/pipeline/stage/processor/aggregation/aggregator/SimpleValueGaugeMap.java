@@ -75,21 +75,14 @@ public class SimpleValueGaugeMap extends AbstractMap {
 
   @Override
   public Set<Entry> entrySet() {
-    List<AggregatorDataProvider.DataWindow> list = aggregator.getDataProvider().getDataWindows();
     Set<Entry> entrySet;
     if (windowType == WindowType.ROLLING) {
+      List<AggregatorDataProvider.DataWindow> list = aggregator.getDataProvider().getDataWindows();
       entrySet = new LinkedHashSet<>(Lists.transform(list, input -> new GaugeMapEntry(input, aggregator)));
     } else {
-      // we need to aggregate all microwindows to produce one
-
-      //time of current open timewindow
-      long endTimeMillis= list.get(list.size() - 1).getEndTimeMillis();
-
-      AggregatorData aggregatorData = aggregator.createAggregatorData(endTimeMillis);
-      for (AggregatorDataProvider.DataWindow dataWindow : list) {
-        aggregatorData.aggregate(dataWindow.getData(aggregator).getAggregatable());
-      }
-      String key = Long.toString(endTimeMillis);
+      // all microwindows aggregated into one, keyed by the time of current open timewindow
+      AggregatorData aggregatorData = aggregator.getDataProvider().getWindowsAggregate(aggregator);
+      String key = Long.toString(aggregatorData.getTime());
       Object value = aggregatorData.get();
       entrySet = ImmutableSet.of(new GaugeMapEntry(key, value));
     }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Incremental aggregation of the last closed data windows (panes) of a sliding window.
+ * <p/>
+ * It uses the two-stacks algorithm: closed panes are pushed into a back stack that keeps a running aggregate of all its
+ * panes, the front stack keeps for each pane the aggregate of that pane and all the newer panes of the front stack.
+ * When the oldest pane has to be evicted and the front stack is empty, the back stack is flipped into the front stack.
+ * Each pane is then aggregated a constant number of times (amortized) instead of re-aggregating all the panes on every
+ * roll.
+ * <p/>
+ * Once a pane is moved to the front stack, only its suffix aggregate is kept, the pane data itself is released.
+ * <p/>
+ * This class is not thread safe, it is used from the AggregatorDataProvider roll, which is not invoked concurrently.
+ */
+class SlidingWindowAggregation {
+  private final Set<Aggregator> aggregators;
+  private final int maxPanes;
+  private final Deque<Map<Aggregator, AggregatorData>> front;
+  private final Deque<Map<Aggregator, AggregatorData>> back;
+  private Map<Aggregator, AggregatorData> backAggregate;
+  private volatile Map<Aggregator, AggregatorData> aggregate;
+
+  /**
+   * Creates a SlidingWindowAggregation.
+   *
+   * @param aggregators aggregators to aggregate.
+   * @param maxPanes number of closed panes to aggregate, zero if only the live data window is considered.
+   */
+  SlidingWindowAggregation(Set<Aggregator> aggregators, int maxPanes) {
+    this.aggregators = aggregators;
+    this.maxPanes = maxPanes;
+    front = new ArrayDeque<>();
+    back = new ArrayDeque<>();
+    aggregate = Collections.emptyMap();
+  }
+
+  /**
+   * Adds a closed pane, evicting the oldest pane if the maximum number of panes has been reached.
+   *
+   * @param pane data of the pane that closed.
+   */
+  void push(Map<Aggregator, AggregatorData> pane) {
+    if (maxPanes == 0) {
+      return;
+    }
+    if (front.size() + back.size() == maxPanes) {
+      evict();
+    }
+    back.push(pane);
+    backAggregate = combine(backAggregate, pane);
+    aggregate = combine(front.peek(), backAggregate);
+  }
+
+  /**
+   * Returns the aggregate of all the closed panes.
+   *
+   * @return the aggregate of all the closed panes, an empty Map if there are none.
+   */
+  Map<Aggregator, AggregatorData> getAggregate() {
+    return aggregate;
+  }
+
+  /**
+   * Returns the aggregate of all the closed panes and the given data for an Aggregator.
+   *
+   * @param aggregator the Aggregator.
+   * @param data data to aggregate with the closed panes, typically the live data window.
+   * @param timeMillis time to set to the resulting AggregatorData.
+   * @return the aggregated AggregatorData.
+   */
+  AggregatorData aggregateWith(Aggregator aggregator, AggregatorData data, long timeMillis) {
+    AggregatorData result = aggregator.createAggregatorData(timeMillis);
+    AggregatorData closed = aggregate.get(aggregator);
+    if (closed != null) {
+      result.aggregate(closed.getAggregatable());
+    }
+    if (data != null) {
+      result.aggregate(data.getAggregatable());
+    }
+    return result;
+  }
+
+  private void evict() {
+    if (front.isEmpty()) {
+      Map<Aggregator, AggregatorData> suffix = null;
+      while (!back.isEmpty()) {
+        suffix = combine(back.pop(), suffix);
+        front.push(suffix);
+      }
+      backAggregate = null;
+    }
+    front.pop();
+  }
+
+  private Map<Aggregator, AggregatorData> combine(
+      Map<Aggregator, AggregatorData> left,
+      Map<Aggregator, AggregatorData> right
+  ) {
+    Map<Aggregator, AggregatorData> result = new HashMap<>();
+    for (Aggregator aggregator : aggregators) {
+      AggregatorData leftData = (left != null) ? left.get(aggregator) : null;
+      AggregatorData rightData = (right != null) ? right.get(aggregator) : null;
+      long timeMillis = (rightData != null) ? rightData.getTime() : (leftData != null) ? leftData.getTime() : 0;
+      AggregatorData data = aggregator.createAggregatorData(timeMillis);
+      if (leftData != null) {
+        data.aggregate(leftData.getAggregatable());
+      }
+      if (rightData != null) {
+        data.aggregate(rightData.getAggregatable());
+      }
+      result.put(aggregator, data);
+    }
+    return result;
+  }
+
+}
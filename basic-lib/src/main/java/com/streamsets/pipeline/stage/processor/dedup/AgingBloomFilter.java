@@ -0,0 +1,211 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashCode;
+import com.google.common.primitives.Longs;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Bounded memory membership filter used by the probabilistic deduplication mode.
+ * <p/>
+ * The filter is a ring of Bloom filter generations. New hashes always go into the youngest generation, lookups
+ * consult all of them. Once the youngest generation has received its share of the record window (or its share of
+ * the time window elapsed) the oldest generation is dropped and a fresh one is started. Hashes are therefore never
+ * forgotten before the configured window has passed, and are forgotten at most one generation after it.
+ * <p/>
+ * Memory is fixed at construction time, regardless of how many records flow through.
+ */
+class AgingBloomFilter {
+  static final int GENERATIONS = 4;
+
+  private static final double LN2 = Math.log(2);
+
+  private final long bitsPerGeneration;
+  private final int hashFunctions;
+  private final long insertsPerGeneration;
+  private final long millisPerGeneration;
+  private final Deque<Generation> generations;
+
+  /**
+   * @param recordWindow minimum number of unique records to remember.
+   * @param timeWindowSecs minimum time to remember a record for, zero for no time window.
+   * @param falsePositiveRate target probability of reporting a unique record as a duplicate.
+   */
+  AgingBloomFilter(int recordWindow, int timeWindowSecs, double falsePositiveRate) {
+    Preconditions.checkArgument(recordWindow > 0, "recordWindow must be greater than zero");
+    Preconditions.checkArgument(falsePositiveRate > 0 && falsePositiveRate < 1, "falsePositiveRate must be in (0, 1)");
+    insertsPerGeneration = insertsPerGeneration(recordWindow);
+    millisPerGeneration = timeWindowSecs * 1000L / (GENERATIONS - 1);
+    bitsPerGeneration = optimalBits(insertsPerGeneration, falsePositiveRate / GENERATIONS);
+    hashFunctions = optimalHashFunctions(insertsPerGeneration, bitsPerGeneration);
+    generations = new ArrayDeque<>(GENERATIONS);
+    generations.addFirst(new Generation(bitsPerGeneration, System.currentTimeMillis()));
+  }
+
+  /**
+   * Returns the heap required by a filter for the given configuration, in bytes.
+   */
+  static long estimateMemory(int recordWindow, double falsePositiveRate) {
+    long inserts = insertsPerGeneration(recordWindow);
+    return GENERATIONS * (optimalBits(inserts, falsePositiveRate / GENERATIONS) / Long.SIZE + 1) * Long.BYTES;
+  }
+
+  // Record window spread over all generations but the youngest, rounded up (in long, windows close to
+  // Integer.MAX_VALUE must not overflow)
+  private static long insertsPerGeneration(int recordWindow) {
+    return (recordWindow + GENERATIONS - 2L) / (GENERATIONS - 1);
+  }
+
+  private static long optimalBits(long inserts, double falsePositiveRate) {
+    long bits = (long) Math.ceil(-inserts * Math.log(falsePositiveRate) / (LN2 * LN2));
+    return Math.max(Long.SIZE, bits);
+  }
+
+  private static int optimalHashFunctions(long inserts, long bits) {
+    return Math.max(1, (int) Math.round((double) bits / inserts * LN2));
+  }
+
+  /**
+   * Records the given hash, returning <code>true</code> if it (probably) has been seen before within the window.
+   * Hashes reported as seen are not recorded again, matching the exact mode which does not refresh duplicates.
+   */
+  synchronized boolean checkAndPut(HashCode hash) {
+    long now = System.currentTimeMillis();
+    expire(now);
+    byte[] bytes = hash.asBytes();
+    long hash1 = Longs.fromBytes(bytes[7], bytes[6], bytes[5], bytes[4], bytes[3], bytes[2], bytes[1], bytes[0]);
+    long hash2 = (bytes.length >= 16) ?
+        Longs.fromBytes(bytes[15], bytes[14], bytes[13], bytes[12], bytes[11], bytes[10], bytes[9], bytes[8]) :
+        Long.rotateLeft(hash1, 32) * 0x9E3779B97F4A7C15L;
+
+    for (Generation generation : generations) {
+      if (generation.mightContain(hash1, hash2, hashFunctions)) {
+        return true;
+      }
+    }
+    Generation youngest = generations.peekFirst();
+    youngest.put(hash1, hash2, hashFunctions);
+    if (youngest.inserts >= insertsPerGeneration) {
+      rotate(now);
+    }
+    return false;
+  }
+
+  /**
+   * Rotates generations whose share of the time window has elapsed.
+   */
+  synchronized void expire(long now) {
+    if (millisPerGeneration > 0) {
+      long youngestCreated = generations.peekFirst().createdMillis;
+      long elapsed = (now - youngestCreated) / millisPerGeneration;
+      if (elapsed >= GENERATIONS) {
+        // idle for longer than the whole window, nothing is worth keeping
+        generations.clear();
+        generations.addFirst(new Generation(bitsPerGeneration, now));
+      } else {
+        for (int i = 1; i <= elapsed; i++) {
+          rotate(youngestCreated + i * millisPerGeneration);
+        }
+      }
+    }
+  }
+
+  private void rotate(long now) {
+    if (generations.size() == GENERATIONS) {
+      generations.removeLast();
+    }
+    generations.addFirst(new Generation(bitsPerGeneration, now));
+  }
+
+  /**
+   * Fraction of bits set in the youngest generation, the generation that fills up next.
+   */
+  synchronized double getFillRatio() {
+    return generations.peekFirst().fillRatio();
+  }
+
+  /**
+   * Current probability of a unique record being reported as a duplicate, based on how full each generation is.
+   */
+  synchronized double getEstimatedFalsePositiveRate() {
+    double allMiss = 1;
+    for (Generation generation : generations) {
+      allMiss *= 1 - Math.pow(generation.fillRatio(), hashFunctions);
+    }
+    return 1 - allMiss;
+  }
+
+  synchronized int getGenerationCount() {
+    return generations.size();
+  }
+
+  long getBitsPerGeneration() {
+    return bitsPerGeneration;
+  }
+
+  int getHashFunctions() {
+    return hashFunctions;
+  }
+
+  private static class Generation {
+    private final long[] words;
+    private final long bits;
+    private final long createdMillis;
+    private long setBits;
+    private long inserts;
+
+    Generation(long bits, long createdMillis) {
+      this.words = new long[(int) (bits / Long.SIZE + 1)];
+      this.bits = bits;
+      this.createdMillis = createdMillis;
+    }
+
+    boolean mightContain(long hash1, long hash2, int hashFunctions) {
+      long combined = hash1;
+      for (int i = 0; i < hashFunctions; i++) {
+        long index = (combined & Long.MAX_VALUE) % bits;
+        if ((words[(int) (index >>> 6)] & (1L << index)) == 0) {
+          return false;
+        }
+        combined += hash2;
+      }
+      return true;
+    }
+
+    void put(long hash1, long hash2, int hashFunctions) {
+      long combined = hash1;
+      for (int i = 0; i < hashFunctions; i++) {
+        long index = (combined & Long.MAX_VALUE) % bits;
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        if ((words[word] & mask) == 0) {
+          words[word] |= mask;
+          setBits++;
+        }
+        combined += hash2;
+      }
+      inserts++;
+    }
+
+    double fillRatio() {
+      return (double) setBits / bits;
+    }
+  }
+}
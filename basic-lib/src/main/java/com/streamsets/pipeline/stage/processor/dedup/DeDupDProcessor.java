@@ -29,12 +29,13 @@ import com.streamsets.pipeline.configurablestage.DProcessor;
 import java.util.List;
 
 @StageDef(
-    version = 1,
+    version = 2,
     label = "Record Deduplicator",
     description = "Separates unique and duplicate records based on field comparison",
     icon="dedup.png",
     outputStreams = OutputStreams.class,
     execution = ExecutionMode.STANDALONE,
+    upgrader = DeDupProcessorUpgrader.class,
     onlineHelpRefUrl ="index.html#datacollector/UserGuide/Processors/RDeduplicator.html#task_ikr_c2f_zq"
 )
 @ConfigGroups(Groups.class)
@@ -90,9 +91,42 @@ public class DeDupDProcessor extends DProcessor {
   @FieldSelectorModel
   public List<String> fieldsToCompare;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.MODEL,
+      defaultValue = "EXACT",
+      label = "Deduplication Mode",
+      description = "Exact mode keeps every record hash in memory. Probabilistic mode uses a fixed size Bloom filter " +
+          "that can occasionally report a unique record as a duplicate.",
+      displayPosition = 50,
+      group = "DE_DUP"
+  )
+  @ValueChooserModel(DedupModeChooserValues.class)
+  public DedupMode dedupMode;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "0.01",
+      label = "False Positive Rate",
+      description = "Probability of a unique record being sent to the duplicate stream. Lower values use more memory.",
+      displayPosition = 60,
+      group = "DE_DUP",
+      dependsOn = "dedupMode",
+      triggeredByValue = "PROBABILISTIC"
+  )
+  public double falsePositiveRate;
+
   @Override
   protected Processor createProcessor() {
-    return new DeDupProcessor(recordCountWindow, timeWindowSecs, compareFields, fieldsToCompare);
+    return new DeDupProcessor(
+        recordCountWindow,
+        timeWindowSecs,
+        compareFields,
+        fieldsToCompare,
+        dedupMode,
+        falsePositiveRate
+    );
   }
 
 }
@@ -15,12 +15,14 @@
  */
 package com.streamsets.pipeline.stage.processor.dedup;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.HashFunction;
 import com.streamsets.pipeline.api.Batch;
 import com.streamsets.pipeline.api.BatchMaker;
+import com.streamsets.pipeline.api.Gauge;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.base.OnRecordErrorException;
@@ -40,20 +42,34 @@ import java.util.concurrent.TimeUnit;
 public class DeDupProcessor extends RecordProcessor {
   private static final long MEMORY_USAGE_PER_HASH = 85;
   private static final String CACHE_KEY = "cache";
+  private static final String BLOOM_FILTER_KEY = "bloomFilter";
+  private static final String BLOOM_FILTER_GAUGE = "Bloom Filter";
+  private static final String FILL_RATIO = "Fill Ratio";
+  private static final String ESTIMATED_FALSE_POSITIVE_RATE = "Estimated False Positive Rate";
+  private static final String GENERATIONS = "Generations";
   private static final Logger LOG = LoggerFactory.getLogger(DeDupProcessor.class);
 
   private final  int recordCountWindow;
   private final  int timeWindowSecs;
   private final  SelectFields compareFields;
   private final  List<String> fieldsToCompare;
+  private final  DedupMode dedupMode;
+  private final  double falsePositiveRate;
   private CacheCleaner cacheCleaner;
 
   public DeDupProcessor(int recordCountWindow, int timeWindowSecs,
       SelectFields compareFields, List<String> fieldsToCompare) {
+    this(recordCountWindow, timeWindowSecs, compareFields, fieldsToCompare, DedupMode.EXACT, 0.01);
+  }
+
+  public DeDupProcessor(int recordCountWindow, int timeWindowSecs,
+      SelectFields compareFields, List<String> fieldsToCompare, DedupMode dedupMode, double falsePositiveRate) {
     this.recordCountWindow = recordCountWindow;
     this.timeWindowSecs = timeWindowSecs;
     this.compareFields = compareFields;
     this.fieldsToCompare = fieldsToCompare;
+    this.dedupMode = dedupMode;
+    this.falsePositiveRate = falsePositiveRate;
   }
 
   private static final Object VOID = new Object();
@@ -62,6 +78,8 @@ public class DeDupProcessor extends RecordProcessor {
   private HashingUtil.RecordFunnel funnel;
   private Cache<HashCode, HashCode> hashCache;
   private XEvictingQueue<HashCode> hashBuffer;
+  private AgingBloomFilter bloomFilter;
+  private Gauge<Map<String, Object>> bloomFilterGauge;
   private String uniqueLane;
   private String duplicateLane;
 
@@ -83,12 +101,21 @@ public class DeDupProcessor extends RecordProcessor {
       issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "compareFields", Errors.DEDUP_02));
     }
 
-    long estimatedMemory = MEMORY_USAGE_PER_HASH * recordCountWindow;
-    long maxPipelineMemoryBytes = getContext().getPipelineMaxMemory() * 1000 * 1000;
-    if (estimatedMemory > maxPipelineMemoryBytes) {
-      issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "recordCountWindow", Errors.DEDUP_03,
-        recordCountWindow, estimatedMemory / (1000 * 1000), getContext().getPipelineMaxMemory()));
-        //MiB to bytes conversion, use  1000 * 1000 instead of 1024 * 1024
+    boolean probabilistic = dedupMode == DedupMode.PROBABILISTIC;
+    if (probabilistic && !(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+      issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "falsePositiveRate", Errors.DEDUP_05,
+                                                falsePositiveRate));
+    }
+
+    if (recordCountWindow > 0 && (!probabilistic || issues.isEmpty())) {
+      long estimatedMemory = probabilistic ? AgingBloomFilter.estimateMemory(recordCountWindow, falsePositiveRate) :
+          MEMORY_USAGE_PER_HASH * recordCountWindow;
+      long maxPipelineMemoryBytes = getPipelineMaxMemory() * 1000 * 1000;
+      if (estimatedMemory > maxPipelineMemoryBytes) {
+        issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "recordCountWindow", Errors.DEDUP_03,
+          recordCountWindow, estimatedMemory / (1000 * 1000), getPipelineMaxMemory()));
+          //MiB to bytes conversion, use  1000 * 1000 instead of 1024 * 1024
+      }
     }
     if (issues.isEmpty()) {
       hasher = HashingUtil.getHasher(HashingUtil.HashType.MURMUR3_128);
@@ -96,6 +123,15 @@ public class DeDupProcessor extends RecordProcessor {
       funnel = (compareFields == SelectFields.ALL_FIELDS) ? HashingUtil.getRecordFunnel(Collections.EMPTY_LIST, false, true) :
           HashingUtil.getRecordFunnel(fieldsToCompare, false, true);
 
+      hashAttrName = getInfo() + ".hash";
+      uniqueLane = getContext().getOutputLanes().get(OutputStreams.UNIQUE.ordinal());
+      duplicateLane = getContext().getOutputLanes().get(OutputStreams.DUPLICATE.ordinal());
+
+      if (probabilistic) {
+        initBloomFilter();
+        return issues;
+      }
+
       Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
       synchronized (runnerSharedMap) {
         if(!runnerSharedMap.containsKey(CACHE_KEY)) {
@@ -116,17 +152,50 @@ public class DeDupProcessor extends RecordProcessor {
       cacheCleaner = new CacheCleaner(hashCache, "DeDupProcessor", 10 * 60 * 1000);
 
       hashBuffer = XEvictingQueue.create(recordCountWindow);
-      hashAttrName = getInfo() + ".hash";
-      uniqueLane = getContext().getOutputLanes().get(OutputStreams.UNIQUE.ordinal());
-      duplicateLane = getContext().getOutputLanes().get(OutputStreams.DUPLICATE.ordinal());
     }
     return issues;
   }
 
+  // Pipeline memory limit in MiB
+  @VisibleForTesting
+  long getPipelineMaxMemory() {
+    return getContext().getPipelineMaxMemory();
+  }
+
+  private void initBloomFilter() {
+    Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
+    synchronized (runnerSharedMap) {
+      bloomFilter = (AgingBloomFilter) runnerSharedMap.get(BLOOM_FILTER_KEY);
+      if (bloomFilter == null) {
+        bloomFilter = new AgingBloomFilter(recordCountWindow, timeWindowSecs, falsePositiveRate);
+        runnerSharedMap.put(BLOOM_FILTER_KEY, bloomFilter);
+        LOG.debug(
+            "Created Bloom filter with {} generations of {} bits and {} hash functions",
+            AgingBloomFilter.GENERATIONS,
+            bloomFilter.getBitsPerGeneration(),
+            bloomFilter.getHashFunctions()
+        );
+      }
+    }
+    bloomFilterGauge = getContext().createGauge(BLOOM_FILTER_GAUGE);
+    updateBloomFilterGauge();
+  }
+
+  private void updateBloomFilterGauge() {
+    Map<String, Object> gaugeValue = bloomFilterGauge.getValue();
+    gaugeValue.put(FILL_RATIO, bloomFilter.getFillRatio());
+    gaugeValue.put(ESTIMATED_FALSE_POSITIVE_RATE, bloomFilter.getEstimatedFalsePositiveRate());
+    gaugeValue.put(GENERATIONS, bloomFilter.getGenerationCount());
+  }
+
   boolean duplicateCheck(Record record) throws ExecutionException {
     HashCode hash = hasher.hashObject(record, funnel);
     record.getHeader().setAttribute(hashAttrName, hash.toString());
 
+    if (bloomFilter != null) {
+      return bloomFilter.checkAndPut(hash);
+    }
+
     HashCode hashInstance = hashCache.get(hash, () -> hash);
     // We are riding on the fact that if the instance is the same we just added and it is not a dup
     boolean dup = hashInstance != hash;
@@ -145,6 +214,13 @@ public class DeDupProcessor extends RecordProcessor {
 
   @Override
   public void process(Batch batch, BatchMaker batchMaker) throws StageException {
+    if (bloomFilter != null) {
+      // Expire generations even when idle so that the time window is honored for the next records
+      bloomFilter.expire(System.currentTimeMillis());
+      super.process(batch, batchMaker);
+      updateBloomFilterGauge();
+      return;
+    }
     if (!batch.getRecords().hasNext()) {
       // No records - take the opportunity to clean up the cache so that we don't hold on to memory indefinitely
       cacheCleaner.periodicCleanUp();
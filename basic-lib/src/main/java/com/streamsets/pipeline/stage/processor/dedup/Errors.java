@@ -31,6 +31,7 @@ public enum Errors implements ErrorCode {
   DEDUP_03("The estimated required memory for '{}' records is '{}'. The current maximum heap is '{}'. The " +
            "required memory must not exceed the maximum heap."),
   DEDUP_04("Error processing record. Reason: {}"),
+  DEDUP_05("False positive rate must be greater than zero and less than one, it is '{}'"),
   ;
 
 
@@ -15,6 +15,7 @@
  */
 package com.streamsets.pipeline.stage.processor.http;
 
+import com.codahale.metrics.Timer;
 import com.google.common.util.concurrent.RateLimiter;
 import com.streamsets.pipeline.api.Batch;
 import com.streamsets.pipeline.api.Field;
@@ -40,21 +41,31 @@ import org.glassfish.jersey.client.oauth1.OAuth1ClientSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.client.AsyncInvoker;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.InvocationCallback;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -66,6 +77,7 @@ public class HttpProcessor extends SingleLaneProcessor {
 
   private static final Logger LOG = LoggerFactory.getLogger(HttpProcessor.class);
   private static final String REQUEST_BODY_CONFIG_NAME = "requestBody";
+  private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
 
   private HttpProcessorConfig conf;
   private final HttpClientCommon httpClientCommon;
@@ -76,6 +88,15 @@ public class HttpProcessor extends SingleLaneProcessor {
   private ELVars bodyVars;
   private ELEval bodyEval;
 
+  // Bounds requests in flight, null if not limited
+  private Semaphore requestPermits;
+  // Bounds requests in flight per host (host:port)
+  private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+  // Responses shared by coalesced requests, closed at the end of the batch
+  private final Set<Response> sharedResponses = Collections.newSetFromMap(new IdentityHashMap<>());
+  private Timer[] latencyTimers;
+  private Timer failedRequestsTimer;
+
   private class HeadersAndBody {
     final MultivaluedMap<String, Object> resolvedHeaders;
     final String requestBody;
@@ -136,6 +157,15 @@ public class HttpProcessor extends SingleLaneProcessor {
       parserFactory = conf.dataFormatConfig.getParserFactory();
     }
 
+    if (conf.maxConcurrentRequests > 0) {
+      requestPermits = new Semaphore(conf.maxConcurrentRequests);
+    }
+    latencyTimers = new Timer[STATUS_CLASSES.length];
+    for (int i = 0; i < STATUS_CLASSES.length; i++) {
+      latencyTimers[i] = getContext().createTimer("Request Latency " + STATUS_CLASSES[i]);
+    }
+    failedRequestsTimer = getContext().createTimer("Request Latency Failed");
+
     return issues;
   }
 
@@ -150,6 +180,8 @@ public class HttpProcessor extends SingleLaneProcessor {
   @Override
   public void process(Batch batch, SingleLaneBatchMaker batchMaker) throws StageException {
     List<Future<Response>> responses = new ArrayList<>();
+    // Requests that can be shared by records of this batch, keyed by method, resolved URL and headers
+    Map<List<Object>, Future<Response>> coalescedRequests = new HashMap<>();
     resolvedRecords.clear();
 
     Iterator<Record> records = batch.getRecords();
@@ -177,37 +209,163 @@ public class HttpProcessor extends SingleLaneProcessor {
 
       HttpMethod method = httpClientCommon.getHttpMethod(conf.httpMethod, conf.methodExpression, record);
 
-      rateLimiter.acquire();
       if (conf.requestBody != null && !conf.requestBody.isEmpty() && method != HttpMethod.GET) {
         RecordEL.setRecordInContext(bodyVars, record);
         final String requestBody = bodyEval.eval(bodyVars, conf.requestBody, String.class);
         resolvedRecords.put(record, new HeadersAndBody(resolvedHeaders, requestBody, contentType, method, target));
-        responses.add(asyncInvoker.method(method.getLabel(), Entity.entity(requestBody, contentType)));
+        rateLimiter.acquire();
+        responses.add(sendRequest(asyncInvoker, method, Entity.entity(requestBody, contentType), target.getUri()));
       } else {
         resolvedRecords.put(record, new HeadersAndBody(resolvedHeaders, null, null, method, target));
-        responses.add(asyncInvoker.method(method.getLabel()));
+        if (conf.coalesceRequests && (method == HttpMethod.GET || method == HttpMethod.HEAD)) {
+          List<Object> requestKey = Arrays.asList(method, resolvedUrl, resolvedHeaders);
+          Future<Response> response = coalescedRequests.get(requestKey);
+          if (response == null) {
+            rateLimiter.acquire();
+            response = sendRequest(asyncInvoker, method, null, target.getUri());
+            coalescedRequests.put(requestKey, response);
+          }
+          responses.add(response);
+        } else {
+          rateLimiter.acquire();
+          responses.add(sendRequest(asyncInvoker, method, null, target.getUri()));
+        }
       }
     }
 
     records = batch.getRecords();
     int recordNum = 0;
-    while (records.hasNext()) {
-      try {
-        Record record = processResponse(records.next(), responses.get(recordNum), conf.maxRequestCompletionSecs, false);
-        if (record != null) {
-          batchMaker.addRecord(record);
+    try {
+      while (records.hasNext()) {
+        try {
+          Record record = processResponse(records.next(), responses.get(recordNum), conf.maxRequestCompletionSecs, false);
+          if (record != null) {
+            batchMaker.addRecord(record);
+          }
+        } catch (OnRecordErrorException e) {
+          errorRecordHandler.onError(e);
+        } finally {
+          ++recordNum;
         }
-      } catch (OnRecordErrorException e) {
-        errorRecordHandler.onError(e);
-      } finally {
-        ++recordNum;
       }
+    } finally {
+      for (Response response : sharedResponses) {
+        response.close();
+      }
+      sharedResponses.clear();
     }
     if (!resolvedRecords.isEmpty()) {
       reprocessIfRequired(batchMaker);
     }
   }
 
+  /**
+   * Sends the request once there is a free slot for it (when the number of concurrent requests is limited).
+   *
+   * When the concurrency is limited or requests are coalesced, the response entity is buffered as soon as the
+   * response arrives, so that the connection is released right away and the entity can be read by several records.
+   *
+   * @param asyncInvoker invoker of the request
+   * @param method HTTP method
+   * @param entity request entity, null if the request has no body
+   * @param uri resolved URI, used to limit the number of requests per host
+   * @return future of the response
+   */
+  private Future<Response> sendRequest(
+      AsyncInvoker asyncInvoker,
+      HttpMethod method,
+      Entity<String> entity,
+      URI uri
+  ) {
+    final String host = uri.getHost() + ":" + uri.getPort();
+    final CompletableFuture<Response> future = new CompletableFuture<>();
+    try {
+      if (!acquirePermits(host)) {
+        future.completeExceptionally(new TimeoutException("Timed out waiting for requests in flight to complete"));
+        return future;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.completeExceptionally(e);
+      return future;
+    }
+
+    final boolean bufferEntity = requestPermits != null || conf.maxRequestsPerHost > 0 || conf.coalesceRequests;
+    final long start = System.nanoTime();
+    InvocationCallback<Response> callback = new InvocationCallback<Response>() {
+      @Override
+      public void completed(Response response) {
+        try {
+          if (bufferEntity) {
+            response.bufferEntity();
+          }
+          future.complete(response);
+        } catch (ProcessingException e) {
+          response.close();
+          future.completeExceptionally(e);
+        } finally {
+          int statusClass = response.getStatus() / 100 - 1;
+          if (statusClass >= 0 && statusClass < latencyTimers.length) {
+            latencyTimers[statusClass].update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+          }
+          releasePermits(host);
+        }
+      }
+
+      @Override
+      public void failed(Throwable throwable) {
+        failedRequestsTimer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        releasePermits(host);
+        future.completeExceptionally(throwable);
+      }
+    };
+
+    try {
+      if (entity != null) {
+        asyncInvoker.method(method.getLabel(), entity, callback);
+      } else {
+        asyncInvoker.method(method.getLabel(), callback);
+      }
+    } catch (RuntimeException e) {
+      releasePermits(host);
+      throw e;
+    }
+    return future;
+  }
+
+  /**
+   * Waits for a free slot for a request to given host.
+   *
+   * @return false if no slot got free within the maximum request time
+   */
+  private boolean acquirePermits(String host) throws InterruptedException {
+    if (requestPermits != null && !requestPermits.tryAcquire(conf.maxRequestCompletionSecs, TimeUnit.SECONDS)) {
+      return false;
+    }
+    if (conf.maxRequestsPerHost > 0) {
+      Semaphore permits = hostPermits.computeIfAbsent(host, key -> new Semaphore(conf.maxRequestsPerHost));
+      boolean acquired = false;
+      try {
+        acquired = permits.tryAcquire(conf.maxRequestCompletionSecs, TimeUnit.SECONDS);
+      } finally {
+        if (!acquired && requestPermits != null) {
+          requestPermits.release();
+        }
+      }
+      return acquired;
+    }
+    return true;
+  }
+
+  private void releasePermits(String host) {
+    if (conf.maxRequestsPerHost > 0) {
+      hostPermits.get(host).release();
+    }
+    if (requestPermits != null) {
+      requestPermits.release();
+    }
+  }
+
   private void reprocessIfRequired(SingleLaneBatchMaker batchMaker) throws StageException {
     Map<Record, Future<Response>> responses = new HashMap<>(resolvedRecords.size());
     for(Map.Entry<Record, HeadersAndBody> entry : resolvedRecords.entrySet()) {
@@ -216,9 +374,14 @@ public class HttpProcessor extends SingleLaneProcessor {
       final AsyncInvoker asyncInvoker = hb.target.request()
           .headers(hb.resolvedHeaders).async();
       if (hb.requestBody != null) {
-        responseFuture = asyncInvoker.method(hb.method.getLabel(), Entity.entity(hb.requestBody, hb.contentType));
+        responseFuture = sendRequest(
+            asyncInvoker,
+            hb.method,
+            Entity.entity(hb.requestBody, hb.contentType),
+            hb.target.getUri()
+        );
       } else {
-        responseFuture = asyncInvoker.method(hb.method.getLabel());
+        responseFuture = sendRequest(asyncInvoker, hb.method, null, hb.target.getUri());
       }
       responses.put(entry.getKey(), responseFuture);
     }
@@ -249,8 +412,14 @@ public class HttpProcessor extends SingleLaneProcessor {
   ) throws StageException {
 
     Response response = null;
+    boolean shared = false;
     try {
       response = responseFuture.get(maxRequestCompletionSecs, TimeUnit.SECONDS);
+      // Coalesced requests share one buffered response which is closed at the end of the batch
+      shared = conf.coalesceRequests && !failOn403;
+      if (shared) {
+        sharedResponses.add(response);
+      }
       InputStream responseBody = null;
       if (response.hasEntity()) {
         responseBody = response.readEntity(InputStream.class);
@@ -280,7 +449,7 @@ public class HttpProcessor extends SingleLaneProcessor {
       LOG.error("HTTP request future timed out", e.toString(), e);
       throw new OnRecordErrorException(record, Errors.HTTP_03, e.toString());
     } finally {
-      if (response != null) {
+      if (response != null && !shared) {
         response.close();
       }
     }
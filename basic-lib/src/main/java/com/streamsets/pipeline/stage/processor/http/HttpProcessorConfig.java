@@ -196,6 +196,44 @@ public class HttpProcessorConfig {
   )
   public int rateLimit;
 
+  @ConfigDef(
+      required = false,
+      type = ConfigDef.Type.NUMBER,
+      label = "Max Concurrent Requests",
+      defaultValue = "0",
+      description = "Maximum number of requests in flight at the same time, further records wait for a free slot. " +
+          "Use 0 for unlimited.",
+      displayPosition = 170,
+      group = "HTTP",
+      min = 0
+  )
+  public int maxConcurrentRequests;
+
+  @ConfigDef(
+      required = false,
+      type = ConfigDef.Type.NUMBER,
+      label = "Max Concurrent Requests per Host",
+      defaultValue = "0",
+      description = "Maximum number of requests in flight to a single host, bounding the connections kept open to it. " +
+          "Use 0 for unlimited.",
+      displayPosition = 180,
+      group = "HTTP",
+      min = 0
+  )
+  public int maxRequestsPerHost;
+
+  @ConfigDef(
+      required = false,
+      type = ConfigDef.Type.BOOLEAN,
+      label = "Coalesce Identical Requests",
+      defaultValue = "false",
+      description = "Sends GET and HEAD requests with the same resolved URL and headers only once per batch and " +
+          "shares the response among all records that issued them",
+      displayPosition = 190,
+      group = "HTTP"
+  )
+  public boolean coalesceRequests;
+
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.NUMBER,
@@ -17,6 +17,7 @@ package com.streamsets.pipeline.lib.dirspooler;
 
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableList;
 import com.streamsets.pipeline.api.OnRecordError;
 import com.streamsets.pipeline.api.PushSource;
@@ -815,4 +816,63 @@ public class TestDirectorySpooler {
 
     spooler.destroy();
   }
+
+  @Test
+  public void testWatchedSpoolDir() throws Exception {
+    assertTrue(spoolDir.mkdirs());
+
+    File logFile1 = new File(spoolDir, "x1.log").getAbsoluteFile();
+    new FileWriter(logFile1).close();
+
+    DirectorySpooler.Builder builder = initializeAndGetBuilder()
+        .setMaxSpoolFiles(5)
+        .setFullScanPeriodSec(3600);
+    DirectorySpooler spooler = builder.build();
+
+    spooler.init("x1.log");
+    Assert.assertEquals(logFile1.getAbsolutePath(), spooler.poolForFile(0, TimeUnit.MILLISECONDS).getAbsolutePath());
+
+    File logFile2 = new File(spoolDir, "x2.log").getAbsoluteFile();
+    new FileWriter(logFile2).close();
+    // does not match the file pattern
+    new FileWriter(new File(spoolDir, "y2.log")).close();
+
+    // the watcher is notified asynchronously
+    WrappedFile file = null;
+    for (int i = 0; file == null && i < 200; i++) {
+      Thread.sleep(100L);
+      spooler.finder.run();
+      file = spooler.poolForFile(0, TimeUnit.MILLISECONDS);
+    }
+    Assert.assertNotNull(file);
+    Assert.assertEquals(logFile2.getAbsolutePath(), file.getAbsolutePath());
+    Assert.assertNull(spooler.poolForFile(0, TimeUnit.MILLISECONDS));
+
+    // the spool directory was scanned only at start, the new file was reported by the watcher
+    Timer scanTimer = (Timer) Whitebox.getInternalState(spooler, "scanTimer");
+    Assert.assertEquals(1L, scanTimer.getCount());
+    spooler.destroy();
+  }
+
+  @Test
+  public void testPendingFileQueue() throws Exception {
+    PendingFileQueue queue = new PendingFileQueue(fs.getComparator(false));
+    WrappedFile file1 = fs.getFile("/tmp", "x1.log");
+    WrappedFile file2 = fs.getFile("/tmp", "x2.log");
+
+    assertTrue(queue.add(file2));
+    assertTrue(queue.add(file1));
+    assertFalse(queue.add(fs.getFile("/tmp", "x2.log")));
+    Assert.assertEquals(2, queue.size());
+    assertTrue(queue.contains(file2));
+
+    Assert.assertEquals(file1, queue.poll(0, TimeUnit.MILLISECONDS));
+    assertFalse(queue.contains(file1));
+    Assert.assertEquals(file2, queue.poll(0, TimeUnit.MILLISECONDS));
+    Assert.assertNull(queue.poll(0, TimeUnit.MILLISECONDS));
+
+    // a polled file can be queued again
+    assertTrue(queue.add(file1));
+    Assert.assertEquals(1, queue.size());
+  }
 }
@@ -16,8 +16,10 @@
 package com.streamsets.pipeline.stage.destination.sdcipc;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.streamsets.pipeline.api.OnRecordError;
 import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.ext.ContextExtensions;
 import com.streamsets.pipeline.api.ext.RecordReader;
@@ -181,6 +183,89 @@ public class TestSdcIpcTarget {
     }
   }
 
+  @Test
+  public void testWriteDrainsResponseForConnectionReuse() throws Exception {
+    HttpURLConnection conn = Mockito.mock(MockHttpURLConnection.class);
+    Configs config = new ForTestConfigs(conn);
+    config.appId = () -> "appId";
+    config.connectionTimeOutMs = 100;
+    config.readTimeOutMs = 200;
+    config.hostPorts = ImmutableList.of("localhost:10000");
+    config.retriesPerBatch = 2;
+    config.tlsConfigBean.tlsEnabled = false;
+    config.tlsConfigBean.trustStoreFilePath = "";
+    config.tlsConfigBean.trustStorePassword = () -> "";
+    config.hostVerification = true;
+
+    SdcIpcTarget target = new SdcIpcTarget(config);
+
+    TargetRunner runner = new TargetRunner.Builder(SdcIpcDTarget.class, target).build();
+
+    InputStream response = Mockito.spy(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+    Mockito.when(conn.getResponseCode()).thenReturn(HttpURLConnection.HTTP_OK);
+    Mockito.when(conn.getHeaderField(Mockito.eq(Constants.X_SDC_PING_HEADER))).thenReturn(Constants.X_SDC_PING_VALUE);
+    Mockito.when(conn.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+    Mockito.when(conn.getInputStream()).thenReturn(response);
+
+    try {
+      runner.runInit();
+      runner.runWrite(ImmutableList.of(RecordCreator.create(), RecordCreator.create()));
+      Assert.assertTrue(runner.getErrors().isEmpty());
+
+      Mockito.verify(conn).setChunkedStreamingMode(0);
+      Mockito.verify(conn).setRequestProperty(Constants.X_SDC_RECORD_FORMAT_HEADER, RecordFormat.JSON1.name());
+      Mockito.verify(conn).setRequestProperty(Constants.X_SDC_JSON1_FRAGMENTABLE_HEADER, "true");
+      // response fully consumed and closed so the connection can go back to the keep-alive cache
+      Assert.assertEquals(-1, response.read());
+      Mockito.verify(response).close();
+      Mockito.verify(conn, Mockito.never()).disconnect();
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testKryoRecordFormat() throws Exception {
+    HttpURLConnection conn = Mockito.mock(MockHttpURLConnection.class);
+    Configs config = new ForTestConfigs(conn);
+    config.appId = () -> "appId";
+    config.connectionTimeOutMs = 100;
+    config.readTimeOutMs = 200;
+    config.hostPorts = ImmutableList.of("localhost:10000");
+    config.retriesPerBatch = 2;
+    config.tlsConfigBean.tlsEnabled = false;
+    config.tlsConfigBean.trustStoreFilePath = "";
+    config.tlsConfigBean.trustStorePassword = () -> "";
+    config.hostVerification = true;
+    config.recordFormat = RecordFormat.KRYO1;
+
+    Mockito.when(conn.getResponseCode()).thenReturn(HttpURLConnection.HTTP_OK);
+    Mockito.when(conn.getHeaderField(Mockito.eq(Constants.X_SDC_PING_HEADER))).thenReturn(Constants.X_SDC_PING_VALUE);
+    Mockito.when(conn.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+    Mockito.when(conn.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
+
+    // the Data Collector encodes records in JSON1 unless told otherwise
+    TargetRunner runner = new TargetRunner.Builder(SdcIpcDTarget.class, new SdcIpcTarget(config)).build();
+    List<Stage.ConfigIssue> issues = runner.runValidateConfigs();
+    Assert.assertEquals(1, issues.size());
+    Assert.assertTrue(issues.get(0).toString().contains(Errors.IPC_DEST_13.name()));
+
+    runner = new TargetRunner.Builder(SdcIpcDTarget.class, new SdcIpcTarget(config))
+        .addConstants(ImmutableMap.of("DATA_COLLECTOR_RECORD_FORMAT", "KRYO1"))
+        .build();
+    try {
+      runner.runInit();
+      runner.runWrite(ImmutableList.of(RecordCreator.create()));
+      Assert.assertTrue(runner.getErrors().isEmpty());
+
+      Mockito.verify(conn).setRequestProperty(Constants.X_SDC_RECORD_FORMAT_HEADER, RecordFormat.KRYO1.name());
+      // Kryo payloads can't be split at record boundaries
+      Mockito.verify(conn).setRequestProperty(Constants.X_SDC_JSON1_FRAGMENTABLE_HEADER, "false");
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
   private void testWriteError(boolean connectionError, boolean badResponse) throws Exception {
     int writeResponseCode = (badResponse) ? HttpURLConnection.HTTP_BAD_REQUEST : HttpURLConnection.HTTP_OK;
 
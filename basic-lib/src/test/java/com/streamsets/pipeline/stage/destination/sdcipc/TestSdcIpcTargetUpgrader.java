@@ -15,9 +15,14 @@
  */
 package com.streamsets.pipeline.stage.destination.sdcipc;
 
+import com.streamsets.pipeline.api.Config;
+import com.streamsets.pipeline.config.upgrade.UpgraderTestUtils;
 import com.streamsets.pipeline.stage.util.tls.TlsConfigBeanUpgraderTestUtil;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class TestSdcIpcTargetUpgrader {
 
   @Test
@@ -28,4 +33,11 @@ public class TestSdcIpcTargetUpgrader {
         2
     );
   }
+
+  @Test
+  public void testV2ToV3() throws Exception {
+    List<Config> configs = new ArrayList<>();
+    new SdcIpcTargetUpgrader().upgrade("lib", "stage", "stageInst", 2, 3, configs);
+    UpgraderTestUtils.assertExists(configs, "config.recordFormat", RecordFormat.JSON1);
+  }
 }
@@ -931,6 +931,81 @@ public class TestSpoolDirSource {
 
   }
 
+  @Test
+  public void testWithMultipleThreadsArchive() throws Exception {
+    File spoolDir = new File("target", UUID.randomUUID().toString());
+    Assert.assertTrue(spoolDir.mkdirs());
+    File archiveDir = new File("target", UUID.randomUUID().toString());
+    Assert.assertTrue(archiveDir.mkdirs());
+
+    final int numFiles = 10;
+    for (int i = 0; i < numFiles; i++) {
+      FileOutputStream outputStream = new FileOutputStream(new File(spoolDir, "file-" + i + ".log"));
+      // each file has 5 lines
+      IOUtils.writeLines(ImmutableList.of("1", "2", "3", "4", "5"), "\n", outputStream);
+      outputStream.close();
+    }
+
+    SpoolDirConfigBean conf = new SpoolDirConfigBean();
+    conf.dataFormat = DataFormat.TEXT;
+    conf.spoolDir = spoolDir.getAbsolutePath();
+    conf.batchSize = 2;
+    conf.overrunLimit = 100;
+    conf.poolingTimeoutSecs = 1;
+    conf.filePattern = "file-[0-9].log";
+    conf.pathMatcherMode = PathMatcherMode.GLOB;
+    conf.maxSpoolFiles = 10;
+    conf.initialFileToProcess = null;
+    conf.dataFormatConfig.compression = Compression.NONE;
+    conf.dataFormatConfig.filePatternInArchive = "*";
+    conf.errorArchiveDir = null;
+    conf.postProcessing = PostProcessingOptions.ARCHIVE;
+    conf.archiveDir = archiveDir.getAbsolutePath();
+    conf.retentionTimeMins = 10;
+    conf.dataFormatConfig.textMaxLineLen = 10;
+    conf.dataFormatConfig.onParseError = OnParseError.ERROR;
+    conf.dataFormatConfig.maxStackTraceLines = 0;
+    conf.allowLateDirectory = false;
+    conf.numberOfThreads = 4;
+
+    SpoolDirSource source = new SpoolDirSource(conf);
+    PushSourceRunner runner = new PushSourceRunner.Builder(SpoolDirDSource.class, source).addOutputLane("lane").build();
+
+    AtomicInteger batchCount = new AtomicInteger(0);
+    final Map<String, List<String>> linesPerFile = new HashMap<>();
+    runner.runInit();
+
+    try {
+      runner.runProduce(new HashMap<>(), 2, output -> {
+        synchronized (linesPerFile) {
+          for (Record record : output.getRecords().get("lane")) {
+            linesPerFile.computeIfAbsent(
+                record.getHeader().getAttribute(HeaderAttributeConstants.FILE_NAME),
+                file -> new ArrayList<>()
+            ).add(record.get("/text").getValueAsString());
+          }
+          if (linesPerFile.values().stream().mapToInt(List::size).sum() == 50 || batchCount.incrementAndGet() > 100) {
+            runner.setStop();
+          }
+        }
+      });
+
+      runner.waitOnProduce();
+
+      // every file is read by a single runner, in order
+      Assert.assertEquals(numFiles, linesPerFile.size());
+      for (List<String> lines : linesPerFile.values()) {
+        Assert.assertEquals(ImmutableList.of("1", "2", "3", "4", "5"), lines);
+      }
+
+      // every file has been archived once fully processed
+      Assert.assertEquals(0, spoolDir.list().length);
+      Assert.assertEquals(numFiles, archiveDir.list().length);
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
   @Test
   public void testErrorFileWithoutPreview() throws Exception {
     errorFile(false);
@@ -77,4 +77,16 @@ public class TestSpoolDirSourceUpgrader {
     assertEquals(5, upgraded.get(0).getValue());
     assertEquals("conf.spoolingPeriod", upgraded.get(0).getName());
   }
+
+  @Test
+  public void testV10toV11() throws StageException {
+    SpoolDirSourceUpgrader spoolDirSourceUpgrader = new SpoolDirSourceUpgrader();
+
+    List<Config> configs = new ArrayList<>();
+    List<Config> upgraded = spoolDirSourceUpgrader.upgrade("x", "y", "z", 10, 11, configs);
+
+    assertEquals(1, upgraded.size());
+    assertEquals(false, upgraded.get(0).getValue());
+    assertEquals("conf.watchForNewFiles", upgraded.get(0).getName());
+  }
 }
@@ -41,4 +41,17 @@ public class TestAggregationProcessorUpgrader {
     );
     Assert.assertEquals(true, config.getValue());
   }
+
+  @Test
+  public void testUpgradeToV3() throws Exception {
+    List<Config> configs = new ArrayList<>();
+    AggregationProcessorUpgrader aggregationProcessorUpgrader = new AggregationProcessorUpgrader();
+    aggregationProcessorUpgrader.upgrade("a", "b", "c", 2, 3, configs);
+
+    Assert.assertEquals(2, configs.size());
+    Assert.assertEquals("config.maxGroups", configs.get(0).getName());
+    Assert.assertEquals(0, configs.get(0).getValue());
+    Assert.assertEquals("config.groupLimitPolicy", configs.get(1).getName());
+    Assert.assertEquals(GroupLimitPolicy.OTHER, configs.get(1).getValue());
+  }
 }
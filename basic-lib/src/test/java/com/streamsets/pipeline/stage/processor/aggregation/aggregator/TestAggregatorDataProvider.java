@@ -15,6 +15,8 @@
  */
 package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
 
+import com.google.common.collect.ImmutableMap;
+import com.streamsets.pipeline.stage.processor.aggregation.GroupLimitPolicy;
 import com.streamsets.pipeline.stage.processor.aggregation.WindowType;
 import org.junit.Assert;
 import org.junit.Test;
@@ -208,4 +210,101 @@ public class TestAggregatorDataProvider {
     Assert.assertNotNull(provider.getData(aggregator));
   }
 
+  @Test
+  public void testSlidingWindow() {
+    Aggregators aggregators = new Aggregators(3, WindowType.SLIDING);
+    CountAggregator count = aggregators.createSimple("count", CountAggregator.class);
+    GroupByAggregator<CountAggregator, Long> groupBy = aggregators.createGroupBy("gb", CountAggregator.class);
+    AggregatorDataProvider provider = aggregators.getDataProvider();
+    provider.start(1L);
+
+    count.process(1L);
+    groupBy.process("a", 1L);
+    Map<Aggregator, AggregatorData> result = provider.roll(2L);
+    Assert.assertEquals(1L, result.get(count).get());
+    Assert.assertEquals(1L, result.get(count).getTime());
+
+    count.process(1L);
+    count.process(1L);
+    groupBy.process("b", 1L);
+    result = provider.roll(3L);
+    Assert.assertEquals(3L, result.get(count).get());
+    Assert.assertEquals(ImmutableMap.of("a", 1L, "b", 1L), result.get(groupBy).get());
+
+    count.process(1L);
+    groupBy.process("a", 1L);
+    Assert.assertEquals(4L, provider.getWindowsAggregate(count).get());
+    Assert.assertEquals(3L, provider.getWindowsAggregate(count).getTime());
+    result = provider.roll(4L);
+    Assert.assertEquals(4L, result.get(count).get());
+    Assert.assertEquals(ImmutableMap.of("a", 2L, "b", 1L), result.get(groupBy).get());
+
+    // the first data window is out of the sliding window now
+    count.process(1L);
+    result = provider.roll(5L);
+    Assert.assertEquals(4L, result.get(count).get());
+    Assert.assertEquals(ImmutableMap.of("a", 1L, "b", 1L), result.get(groupBy).get());
+
+    // only the live data window is remembered, closed ones are aggregated
+    Assert.assertEquals(1, provider.getDataWindows().size());
+
+    count.process(1L);
+    result = provider.stop();
+    Assert.assertEquals(3L, result.get(count).get());
+    Assert.assertEquals(ImmutableMap.of("a", 1L), result.get(groupBy).get());
+  }
+
+  @Test
+  public void testSlidingWindowMaxGroups() {
+    Aggregators aggregators = new Aggregators(3, WindowType.SLIDING);
+    GroupByAggregator<CountAggregator, Long> groupBy =
+        aggregators.createGroupBy("gb", CountAggregator.class, 2, GroupLimitPolicy.OTHER);
+    AggregatorDataProvider provider = aggregators.getDataProvider();
+    provider.start(1L);
+
+    groupBy.process("a", 1L);
+    groupBy.process("b", 1L);
+    groupBy.process("c", 1L);
+    Map<Aggregator, AggregatorData> result = provider.roll(2L);
+    Assert.assertEquals(
+        ImmutableMap.of("a", 1L, "b", 1L, GroupByAggregator.OTHER_GROUP, 1L),
+        result.get(groupBy).get()
+    );
+
+    // the limit is per data window, merging data windows keeps their groups
+    groupBy.process("c", 1L);
+    groupBy.process("d", 1L);
+    groupBy.process("e", 1L);
+    result = provider.roll(3L);
+    Assert.assertEquals(
+        ImmutableMap.of("a", 1L, "b", 1L, "c", 1L, "d", 1L, GroupByAggregator.OTHER_GROUP, 2L),
+        result.get(groupBy).get()
+    );
+
+    groupBy.process("a", 1L);
+    groupBy.process("f", 1L);
+    groupBy.process("g", 1L);
+    result = provider.roll(4L);
+    Assert.assertEquals(
+        ImmutableMap.builder()
+            .put("a", 2L)
+            .put("b", 1L)
+            .put("c", 1L)
+            .put("d", 1L)
+            .put("f", 1L)
+            .put(GroupByAggregator.OTHER_GROUP, 3L)
+            .build(),
+        result.get(groupBy).get()
+    );
+
+    // the first data window is out of the sliding window now
+    result = provider.roll(5L);
+    Assert.assertEquals(
+        ImmutableMap.of("a", 1L, "c", 1L, "d", 1L, "f", 1L, GroupByAggregator.OTHER_GROUP, 2L),
+        result.get(groupBy).get()
+    );
+
+    provider.stop();
+  }
+
 }
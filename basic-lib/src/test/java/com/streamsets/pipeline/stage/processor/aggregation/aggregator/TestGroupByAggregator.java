@@ -16,6 +16,7 @@
 package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
 
 import com.google.common.collect.ImmutableMap;
+import com.streamsets.pipeline.stage.processor.aggregation.GroupLimitPolicy;
 import com.streamsets.pipeline.stage.processor.aggregation.WindowType;
 import org.junit.Assert;
 import org.junit.Test;
@@ -70,4 +71,40 @@ public class TestGroupByAggregator {
     aggregators.stop();
   }
 
+  @Test
+  public void testMaxGroupsOther() {
+    Aggregators aggregators = new Aggregators(2, WindowType.ROLLING);
+    GroupByAggregator aggregator = aggregators.createGroupBy("g", CountAggregator.class, 2, GroupLimitPolicy.OTHER);
+    aggregators.start(1);
+
+    aggregator.process("a", 1L);
+    aggregator.process("b", 1L);
+    aggregator.process("c", 1L);
+    aggregator.process("d", 1L);
+    aggregator.process("a", 1L);
+    Assert.assertEquals(ImmutableMap.of("a", 2L, "b", 1L, GroupByAggregator.OTHER_GROUP, 2L), aggregator.get());
+
+    aggregators.stop();
+  }
+
+  @Test
+  public void testMaxGroupsDiscard() {
+    Aggregators aggregators = new Aggregators(2, WindowType.ROLLING);
+    GroupByAggregator aggregator = aggregators.createGroupBy("g", CountAggregator.class, 2, GroupLimitPolicy.DISCARD);
+    aggregators.start(1);
+
+    aggregator.process("a", 1L);
+    aggregator.process("b", 1L);
+    aggregator.process("c", 1L);
+    aggregator.process("b", 1L);
+    Assert.assertEquals(ImmutableMap.of("a", 1L, "b", 2L), aggregator.get());
+
+    // the limit is per data window
+    aggregators.roll(2);
+    aggregator.process("c", 1L);
+    Assert.assertEquals(ImmutableMap.of("c", 1L), aggregator.get());
+
+    aggregators.stop();
+  }
+
 }
@@ -15,11 +15,15 @@
  */
 package com.streamsets.pipeline.stage.processor.dedup;
 
+import com.codahale.metrics.Gauge;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.OnRecordError;
 import com.streamsets.pipeline.api.Processor;
 import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.sdk.ProcessorRunner;
 import com.streamsets.pipeline.sdk.RecordCreator;
@@ -27,6 +31,7 @@ import com.streamsets.pipeline.sdk.StageRunner;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -437,6 +442,155 @@ public class TestDeDupProcessor {
     }
   }
 
+  private ProcessorRunner createProbabilisticRunner(int recordCountWindow, int timeWindowSecs, double fpp) {
+    Processor processor = new DeDupProcessor(recordCountWindow, timeWindowSecs, SelectFields.ALL_FIELDS,
+        Collections.EMPTY_LIST, DedupMode.PROBABILISTIC, fpp);
+    return new ProcessorRunner.Builder(DeDupDProcessor.class, processor)
+        .addOutputLane("unique")
+        .addOutputLane("duplicate")
+        .build();
+  }
+
+  @Test(expected = StageException.class)
+  public void testValidateConfigsProbabilisticInvalidRate() throws Exception {
+    createProbabilisticRunner(4, 0, 1.5).runInit();
+  }
+
+  @Test
+  public void testValidateConfigsProbabilisticInvalidWindow() throws Exception {
+    for (int recordCountWindow : new int[] {0, -1}) {
+      List<Stage.ConfigIssue> issues = createProbabilisticRunner(recordCountWindow, 0, 0.01).runValidateConfigs();
+      Assert.assertEquals(1, issues.size());
+      Assert.assertTrue(issues.get(0).toString().contains(Errors.DEDUP_00.name()));
+    }
+  }
+
+  @Test
+  public void testValidateConfigsProbabilisticMaxWindow() throws Exception {
+    // the filter for the largest window is sized without overflowing and checked against the memory limit
+    long maxMemoryMiB = 1000;
+    Assert.assertTrue(AgingBloomFilter.estimateMemory(Integer.MAX_VALUE, 0.01) > maxMemoryMiB * 1000 * 1000);
+    Processor processor = new DeDupProcessor(Integer.MAX_VALUE, 0, SelectFields.ALL_FIELDS,
+        Collections.EMPTY_LIST, DedupMode.PROBABILISTIC, 0.01) {
+      @Override
+      long getPipelineMaxMemory() {
+        return maxMemoryMiB;
+      }
+    };
+    ProcessorRunner runner = new ProcessorRunner.Builder(DeDupDProcessor.class, processor)
+        .addOutputLane("unique")
+        .addOutputLane("duplicate")
+        .build();
+    List<Stage.ConfigIssue> issues = runner.runValidateConfigs();
+    Assert.assertEquals(1, issues.size());
+    Assert.assertTrue(issues.get(0).toString().contains(Errors.DEDUP_03.name()));
+  }
+
+  @Test
+  public void testValidateConfigsProbabilisticLargeWindow() throws Exception {
+    // a window the exact mode would reject fits easily in the Bloom filter
+    int recordCountWindow = (int) (getDefaultMemoryLimitMiB() * 1000 * 1000 / 85 + 1);
+    Assert.assertTrue(AgingBloomFilter.estimateMemory(recordCountWindow, 0.01) < 85L * recordCountWindow);
+    ProcessorRunner runner = createProbabilisticRunner(recordCountWindow, 0, 0.01);
+    runner.runInit();
+    runner.runDestroy();
+  }
+
+  @Test
+  public void testProbabilisticDupSingleBatch() throws Exception {
+    ProcessorRunner runner = createProbabilisticRunner(4, 0, 0.01);
+    runner.runInit();
+    try {
+      Record r0 = createRecordWithValue("a");
+      Record r1 = createRecordWithValue("b");
+      Record r2 = createRecordWithValue("c");
+      Record r3 = createRecordWithValue("a");
+      List<Record> input = ImmutableList.of(r0, r1, r2, r3);
+      StageRunner.Output output = runner.runProcess(input);
+      Assert.assertEquals(3, output.getRecords().get("unique").size());
+      Assert.assertEquals(1, output.getRecords().get("duplicate").size());
+      Assert.assertEquals(
+          Field.create("a"),
+          output.getRecords().get("duplicate").get(0).get("/value")
+      );
+
+      Gauge<Map<String, Object>> gauge = runner.getContext().getGauge("Bloom Filter");
+      Assert.assertNotNull(gauge);
+      Assert.assertTrue((Double) gauge.getValue().get("Fill Ratio") > 0);
+      Assert.assertTrue((Double) gauge.getValue().get("Estimated False Positive Rate") < 0.01);
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testProbabilisticDupOutsideRecordWindow() throws Exception {
+    ProcessorRunner runner = createProbabilisticRunner(3, 0, 0.01);
+    runner.runInit();
+    try {
+      List<Record> input = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        input.add(createRecordWithValue("v" + i));
+      }
+      StageRunner.Output output = runner.runProcess(input);
+      Assert.assertEquals(20, output.getRecords().get("unique").size());
+
+      // the oldest records have rotated out of the filter, the most recent ones are still remembered
+      output = runner.runProcess(ImmutableList.of(createRecordWithValue("v0"), createRecordWithValue("v19")));
+      Assert.assertEquals(1, output.getRecords().get("unique").size());
+      Assert.assertEquals(1, output.getRecords().get("duplicate").size());
+      Assert.assertEquals(
+          Field.create("v19"),
+          output.getRecords().get("duplicate").get(0).get("/value")
+      );
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testProbabilisticDupOutsideTimeWindow() throws Exception {
+    ProcessorRunner runner = createProbabilisticRunner(1000, 1, 0.01);
+    runner.runInit();
+    try {
+      StageRunner.Output output = runner.runProcess(ImmutableList.of(createRecordWithValue("a")));
+      Assert.assertEquals(1, output.getRecords().get("unique").size());
+
+      output = runner.runProcess(ImmutableList.of(createRecordWithValue("a")));
+      Assert.assertEquals(1, output.getRecords().get("duplicate").size());
+
+      // records are remembered for at most one generation past the time window
+      Thread.sleep(1400);
+
+      output = runner.runProcess(ImmutableList.of(createRecordWithValue("a")));
+      Assert.assertEquals(1, output.getRecords().get("unique").size());
+      Assert.assertEquals(0, output.getRecords().get("duplicate").size());
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testProbabilisticFalsePositiveRate() throws Exception {
+    AgingBloomFilter filter = new AgingBloomFilter(30000, 0, 0.01);
+    HashFunction hasher = Hashing.murmur3_128();
+    for (int i = 0; i < 30000; i++) {
+      filter.checkAndPut(hasher.hashLong(i));
+    }
+    // no false negatives within the window
+    for (int i = 0; i < 30000; i++) {
+      Assert.assertTrue(filter.checkAndPut(hasher.hashLong(i)));
+    }
+    int falsePositives = 0;
+    for (int i = 30000; i < 130000; i++) {
+      if (filter.checkAndPut(hasher.hashLong(i))) {
+        falsePositives++;
+      }
+    }
+    // new keys keep filling the filter, allow some slack over the configured rate
+    Assert.assertTrue("False positives: " + falsePositives, falsePositives < 2000);
+  }
+
   private Record createRecord(String name, String anotherName) {
     Field name1 = Field.create(name);
     Field name2 = Field.create(anotherName);
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import com.streamsets.pipeline.api.Config;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestDeDupProcessorUpgrader {
+  @Test
+  public void testUpgradeV1toV2() throws Exception {
+    List<Config> configs = new ArrayList<>();
+    DeDupProcessorUpgrader upgrader = new DeDupProcessorUpgrader();
+    upgrader.upgrade("a", "b", "c", 1, 2, configs);
+
+    Assert.assertEquals(2, configs.size());
+    Assert.assertEquals(DeDupProcessorUpgrader.DEDUP_MODE, configs.get(0).getName());
+    Assert.assertEquals(DedupMode.EXACT, configs.get(0).getValue());
+    Assert.assertEquals(DeDupProcessorUpgrader.FALSE_POSITIVE_RATE, configs.get(1).getName());
+    Assert.assertEquals(0.01, configs.get(1).getValue());
+  }
+}
@@ -21,6 +21,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import com.google.common.io.Resources;
 import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.OnRecordError;
 import com.streamsets.pipeline.api.Processor;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.config.Compression;
@@ -52,6 +53,7 @@ import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Application;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
@@ -59,15 +61,18 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.io.File;
 import java.io.IOException;
+import java.net.ServerSocket;
 import java.net.URLDecoder;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.Signature;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.streamsets.pipeline.lib.http.oauth2.OAuth2GrantTypes.CLIENT_CREDENTIALS;
 import static org.junit.Assert.assertEquals;
@@ -321,6 +326,26 @@ public class HttpProcessorIT extends JerseyTest {
     }
   }
 
+  private static final AtomicInteger slowRequests = new AtomicInteger();
+  private static final AtomicInteger slowRequestsInFlight = new AtomicInteger();
+  private static final AtomicInteger maxSlowRequestsInFlight = new AtomicInteger();
+
+  @Path("/test/slow")
+  @Produces(MediaType.TEXT_PLAIN)
+  public static class TestSlowGet {
+    @GET
+    public Response get(@QueryParam("id") String id) throws InterruptedException {
+      slowRequests.incrementAndGet();
+      maxSlowRequestsInFlight.accumulateAndGet(slowRequestsInFlight.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(100);
+      } finally {
+        slowRequestsInFlight.decrementAndGet();
+      }
+      return Response.ok("slow " + id).build();
+    }
+  }
+
   @Path("/test/xml/get")
   @Produces(MediaType.APPLICATION_XML)
   public static class TestXmlGet {
@@ -340,6 +365,7 @@ public class HttpProcessorIT extends JerseyTest {
             TestPut.class,
             HttpStageTestUtil.TestPostCustomType.class,
             TestXmlGet.class,
+            TestSlowGet.class,
             StreamTokenResetResource.class,
             Auth2Resource.class,
             Auth2ResourceOwnerWithIdResource.class,
@@ -997,4 +1023,143 @@ public class HttpProcessorIT extends JerseyTest {
       tokenGetCount = 0;
     }
   }
+
+  private static void resetSlowRequests() {
+    slowRequests.set(0);
+    slowRequestsInFlight.set(0);
+    maxSlowRequestsInFlight.set(0);
+  }
+
+  private static List<Record> createRecords(String field, String... values) {
+    List<Record> records = new ArrayList<>(values.length);
+    for (String value : values) {
+      Record record = RecordCreator.create();
+      Map<String, Field> map = new HashMap<>();
+      map.put(field, Field.create(value));
+      record.set("/", Field.create(map));
+      records.add(record);
+    }
+    return records;
+  }
+
+  private HttpProcessorConfig getSlowGetConf() {
+    HttpProcessorConfig conf = new HttpProcessorConfig();
+    conf.httpMethod = HttpMethod.GET;
+    conf.outputField = "/output";
+    conf.dataFormat = DataFormat.TEXT;
+    conf.resourceUrl = getBaseUri() + "test/slow?id=${record:value('/id')}";
+    return conf;
+  }
+
+  @Test
+  public void testCoalesceIdenticalRequests() throws Exception {
+    resetSlowRequests();
+    HttpProcessorConfig conf = getSlowGetConf();
+    conf.coalesceRequests = true;
+
+    Processor processor = new HttpProcessor(conf);
+    ProcessorRunner runner = new ProcessorRunner.Builder(HttpDProcessor.class, processor)
+        .addOutputLane("lane")
+        .build();
+    runner.runInit();
+    try {
+      StageRunner.Output output = runner.runProcess(createRecords("id", "1", "1", "2", "1", "1"));
+      List<Record> outputRecords = output.getRecords().get("lane");
+      assertTrue(runner.getErrorRecords().isEmpty());
+      // One request per distinct URL, the response is shared by all records that issued it
+      assertEquals(2, slowRequests.get());
+      assertEquals(5, outputRecords.size());
+      assertEquals("slow 1", outputRecords.get(0).get("/output").getValueAsString());
+      assertEquals("slow 1", outputRecords.get(1).get("/output").getValueAsString());
+      assertEquals("slow 2", outputRecords.get(2).get("/output").getValueAsString());
+      assertEquals("slow 1", outputRecords.get(3).get("/output").getValueAsString());
+      assertEquals("slow 1", outputRecords.get(4).get("/output").getValueAsString());
+
+      // Responses are not shared across batches
+      runner.runProcess(createRecords("id", "1"));
+      assertEquals(3, slowRequests.get());
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testMaxConcurrentRequests() throws Exception {
+    resetSlowRequests();
+    HttpProcessorConfig conf = getSlowGetConf();
+    conf.maxConcurrentRequests = 2;
+
+    Processor processor = new HttpProcessor(conf);
+    ProcessorRunner runner = new ProcessorRunner.Builder(HttpDProcessor.class, processor)
+        .addOutputLane("lane")
+        .build();
+    runner.runInit();
+    try {
+      StageRunner.Output output = runner.runProcess(createRecords("id", "1", "2", "3", "4", "5", "6"));
+      assertTrue(runner.getErrorRecords().isEmpty());
+      assertEquals(6, output.getRecords().get("lane").size());
+      assertEquals(6, slowRequests.get());
+      assertTrue(maxSlowRequestsInFlight.get() <= 2);
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testMaxRequestsPerHost() throws Exception {
+    resetSlowRequests();
+    HttpProcessorConfig conf = getSlowGetConf();
+    conf.maxRequestsPerHost = 1;
+
+    Processor processor = new HttpProcessor(conf);
+    ProcessorRunner runner = new ProcessorRunner.Builder(HttpDProcessor.class, processor)
+        .addOutputLane("lane")
+        .build();
+    runner.runInit();
+    try {
+      StageRunner.Output output = runner.runProcess(createRecords("id", "1", "2", "3", "4"));
+      assertTrue(runner.getErrorRecords().isEmpty());
+      assertEquals(4, output.getRecords().get("lane").size());
+      assertEquals(4, slowRequests.get());
+      assertEquals(1, maxSlowRequestsInFlight.get());
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testPermitsReleasedOnFailure() throws Exception {
+    resetSlowRequests();
+    String unreachableUrl;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      unreachableUrl = "http://localhost:" + socket.getLocalPort() + "/test/slow";
+    }
+
+    HttpProcessorConfig conf = getSlowGetConf();
+    conf.resourceUrl = "${record:value('/url')}";
+    conf.maxConcurrentRequests = 1;
+    conf.maxRequestsPerHost = 1;
+    // A leaked permit makes the following requests time out waiting for it
+    conf.maxRequestCompletionSecs = 5;
+
+    Processor processor = new HttpProcessor(conf);
+    ProcessorRunner runner = new ProcessorRunner.Builder(HttpDProcessor.class, processor)
+        .addOutputLane("lane")
+        .setOnRecordError(OnRecordError.TO_ERROR)
+        .build();
+    runner.runInit();
+    try {
+      runner.runProcess(createRecords("url", unreachableUrl, unreachableUrl, unreachableUrl));
+      assertEquals(3, runner.getErrorRecords().size());
+
+      runner.clearErrors();
+      String url = getBaseUri() + "test/slow?id=1";
+      StageRunner.Output output = runner.runProcess(createRecords("url", url, url, url));
+      assertTrue(runner.getErrorRecords().isEmpty());
+      assertEquals(3, output.getRecords().get("lane").size());
+      assertEquals(3, slowRequests.get());
+    } finally {
+      runner.runDestroy();
+    }
+  }
 }
@@ -156,4 +156,19 @@ public class TestHttpProcessorUpgrader {
         "conf.client.requestLoggingConfig.maxEntitySize"
     );
   }
+
+  @Test
+  public void testV11ToV12() throws Exception {
+    List<Config> configs = new ArrayList<>();
+
+    HttpProcessorUpgrader upgrader = new HttpProcessorUpgrader();
+    upgrader.upgrade("lib", "stage", "inst", 11, 12, configs);
+
+    UpgraderTestUtils.assertAllExist(
+        configs,
+        "conf.maxConcurrentRequests",
+        "conf.maxRequestsPerHost",
+        "conf.coalesceRequests"
+    );
+  }
 }
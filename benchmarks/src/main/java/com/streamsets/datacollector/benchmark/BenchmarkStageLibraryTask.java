@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import com.streamsets.datacollector.classpath.ClasspathValidatorResult;
+import com.streamsets.datacollector.config.CredentialStoreDefinition;
+import com.streamsets.datacollector.config.LineagePublisherDefinition;
+import com.streamsets.datacollector.config.PipelineDefinition;
+import com.streamsets.datacollector.config.PipelineFragmentDefinition;
+import com.streamsets.datacollector.config.PipelineRulesDefinition;
+import com.streamsets.datacollector.config.ServiceDefinition;
+import com.streamsets.datacollector.config.StageDefinition;
+import com.streamsets.datacollector.config.StageLibraryDefinition;
+import com.streamsets.datacollector.definition.StageDefinitionExtractor;
+import com.streamsets.datacollector.stagelibrary.StageLibraryTask;
+import com.streamsets.datacollector.task.AbstractTask;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.api.impl.Utils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Stage library that contains only the given stage classes, all of them loaded from the benchmark's own class loader.
+ */
+public class BenchmarkStageLibraryTask extends AbstractTask implements StageLibraryTask {
+  public static final String LIBRARY = "streamsets-datacollector-benchmark-lib";
+
+  private final List<StageDefinition> stages;
+
+  @SafeVarargs
+  public BenchmarkStageLibraryTask(Class<? extends Stage>... stageClasses) {
+    super("benchmarkStageLibrary");
+    StageLibraryDefinition libraryDef = new StageLibraryDefinition(
+        getClass().getClassLoader(),
+        LIBRARY,
+        "Benchmark",
+        new Properties(),
+        null,
+        null,
+        null
+    );
+    ImmutableList.Builder<StageDefinition> builder = ImmutableList.builder();
+    for (Class<? extends Stage> klass : stageClasses) {
+      builder.add(StageDefinitionExtractor.get().extract(libraryDef, klass, Utils.formatL("Library='{}'", LIBRARY)));
+    }
+    stages = builder.build();
+  }
+
+  public StageDefinition getStage(Class<? extends Stage> klass) {
+    for (StageDefinition def : stages) {
+      if (def.getStageClass().equals(klass)) {
+        return def;
+      }
+    }
+    throw new IllegalArgumentException(Utils.format("Stage '{}' is not part of the benchmark library", klass));
+  }
+
+  @Override
+  public PipelineDefinition getPipeline() {
+    return PipelineDefinition.getPipelineDef();
+  }
+
+  @Override
+  public PipelineFragmentDefinition getPipelineFragment() {
+    return PipelineFragmentDefinition.getPipelineFragmentDef();
+  }
+
+  @Override
+  public PipelineRulesDefinition getPipelineRules() {
+    return PipelineRulesDefinition.getPipelineRulesDef();
+  }
+
+  @Override
+  public List<StageDefinition> getStages() {
+    return stages;
+  }
+
+  @Override
+  public List<LineagePublisherDefinition> getLineagePublisherDefinitions() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public LineagePublisherDefinition getLineagePublisherDefinition(String library, String name) {
+    return null;
+  }
+
+  @Override
+  public List<CredentialStoreDefinition> getCredentialStoreDefinitions() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public List<ServiceDefinition> getServiceDefinitions() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public ServiceDefinition getServiceDefinition(Class serviceInterface, boolean forExecution) {
+    return null;
+  }
+
+  @Override
+  public StageDefinition getStage(String library, String name, boolean forExecution) {
+    for (StageDefinition def : stages) {
+      if (def.getLibrary().equals(library) && def.getName().equals(name)) {
+        return def;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public Map<String, String> getLibraryNameAliases() {
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public Map<String, String> getStageNameAliases() {
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public List<ClasspathValidatorResult> validateStageLibClasspath() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public void releaseStageClassLoader(ClassLoader classLoader) {
+  }
+}
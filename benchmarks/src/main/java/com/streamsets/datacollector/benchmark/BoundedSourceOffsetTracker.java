@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.benchmark;
+
+import com.streamsets.datacollector.runner.SourceOffsetTracker;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory offset tracker that reports the origin as finished after given number of committed batches, so that
+ * one call to Pipeline.run() processes exactly that many batches.
+ */
+public class BoundedSourceOffsetTracker implements SourceOffsetTracker {
+  private final int batches;
+  private final Map<String, String> offsets;
+  private int committedBatches;
+  private long lastBatchTime;
+
+  public BoundedSourceOffsetTracker(int batches) {
+    this.batches = batches;
+    this.offsets = new HashMap<>();
+  }
+
+  public void reset() {
+    committedBatches = 0;
+  }
+
+  public int getCommittedBatches() {
+    return committedBatches;
+  }
+
+  @Override
+  public boolean isFinished() {
+    return committedBatches >= batches;
+  }
+
+  @Override
+  public void commitOffset(String entity, String newOffset) {
+    if (entity != null) {
+      if (newOffset == null) {
+        offsets.remove(entity);
+      } else {
+        offsets.put(entity, newOffset);
+      }
+    }
+    committedBatches++;
+    lastBatchTime = System.currentTimeMillis();
+  }
+
+  @Override
+  public Map<String, String> getOffsets() {
+    return Collections.unmodifiableMap(offsets);
+  }
+
+  @Override
+  public long getLastBatchTime() {
+    return lastBatchTime;
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.benchmark;
+
+import com.streamsets.pipeline.api.OnRecordError;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.config.LogMode;
+import com.streamsets.pipeline.lib.parser.DataParser;
+import com.streamsets.pipeline.lib.parser.DataParserFactory;
+import com.streamsets.pipeline.lib.parser.DataParserFactoryBuilder;
+import com.streamsets.pipeline.lib.parser.DataParserFormat;
+import com.streamsets.pipeline.lib.parser.log.LogDataParserFactory;
+import com.streamsets.pipeline.sdk.ContextInfoCreator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing of Apache access log lines with the Log data format.
+ *
+ * COMMON_LOG_FORMAT and COMBINED_LOG_FORMAT run the fixed delimiter tokenizer, GROK and REGEX run the equivalent
+ * Common Log Format expressions over the same Common Log Format lines, so COMMON_LOG_FORMAT, GROK and REGEX are
+ * directly comparable. Every invocation parses the same block of lines with a new parser, the "records" counter
+ * reports lines/sec.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 10)
+@State(Scope.Thread)
+public class LogParserBenchmark {
+  private static final int LINES_PER_INVOCATION = 1000;
+  private static final int MAX_LINE_LENGTH = 1024;
+
+  private static final String COMMON_LOG_REGEX =
+      "^(\\S+) (\\S+) (\\S+) \\[([\\w:/]+\\s[+\\-]\\d{4})\\] \"(\\S+) (\\S+) (\\S+)\" (\\d{3}) (\\d+)";
+
+  @Param({"COMMON_LOG_FORMAT", "COMBINED_LOG_FORMAT", "GROK", "REGEX"})
+  public LogMode mode;
+
+  private DataParserFactory factory;
+  private byte[] data;
+
+  /**
+   * Secondary results reported next to the primary invocations/sec score.
+   */
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Counters {
+    public long records;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      records = 0;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    DataParserFactoryBuilder builder = new DataParserFactoryBuilder(
+        ContextInfoCreator.createSourceContext("log", false, OnRecordError.TO_ERROR, Collections.emptyList()),
+        DataParserFormat.LOG
+    )
+        .setMaxDataLen(MAX_LINE_LENGTH)
+        .setOverRunLimit(MAX_LINE_LENGTH * 2)
+        .setMode(mode)
+        .setConfig(LogDataParserFactory.RETAIN_ORIGINAL_TEXT_KEY, false);
+
+    switch (mode) {
+      case GROK:
+        builder.setConfig(LogDataParserFactory.GROK_PATTERN_KEY, "%{COMMONAPACHELOG}");
+        break;
+      case REGEX:
+        Map<String, Integer> fieldPathToGroup = new HashMap<>();
+        fieldPathToGroup.put("clientip", 1);
+        fieldPathToGroup.put("ident", 2);
+        fieldPathToGroup.put("auth", 3);
+        fieldPathToGroup.put("timestamp", 4);
+        fieldPathToGroup.put("verb", 5);
+        fieldPathToGroup.put("request", 6);
+        fieldPathToGroup.put("httpversion", 7);
+        fieldPathToGroup.put("response", 8);
+        fieldPathToGroup.put("bytes", 9);
+        builder
+            .setConfig(LogDataParserFactory.REGEX_KEY, COMMON_LOG_REGEX)
+            .setConfig(LogDataParserFactory.REGEX_FIELD_PATH_TO_GROUP_KEY, fieldPathToGroup);
+        break;
+      default:
+        break;
+    }
+    factory = builder.build();
+    data = createLines(mode == LogMode.COMBINED_LOG_FORMAT).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String createLines(boolean combined) {
+    Random random = new Random(0);
+    StringBuilder lines = new StringBuilder();
+    for (int i = 0; i < LINES_PER_INVOCATION; i++) {
+      lines.append("10.0.").append(random.nextInt(256)).append('.').append(random.nextInt(256))
+          .append(" - frank [10/Oct/2000:13:").append(10 + random.nextInt(50)).append(":36 -0700] \"GET /apache_pb")
+          .append(random.nextInt(1000)).append(".gif HTTP/1.0\" 200 ").append(random.nextInt(100000));
+      if (combined) {
+        lines.append(" \"http://www.example.com/start.html\" \"Mozilla/4.08 [en] (Win98; I ;Nav)\"");
+      }
+      lines.append('\n');
+    }
+    return lines.toString();
+  }
+
+  @Benchmark
+  public void parseLines(Counters counters, Blackhole blackhole) throws Exception {
+    try (DataParser parser = factory.getParser("benchmark", data)) {
+      Record record;
+      while ((record = parser.parse()) != null) {
+        blackhole.consume(record);
+        counters.records++;
+      }
+    }
+  }
+}
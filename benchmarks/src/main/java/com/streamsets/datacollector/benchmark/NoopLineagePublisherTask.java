@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.benchmark;
+
+import com.streamsets.datacollector.lineage.LineagePublisherTask;
+import com.streamsets.datacollector.task.AbstractTask;
+import com.streamsets.pipeline.api.lineage.LineageEvent;
+
+/**
+ * Lineage publisher that drops all events, benchmarks don't have any lineage plugins configured.
+ */
+public class NoopLineagePublisherTask extends AbstractTask implements LineagePublisherTask {
+
+  public NoopLineagePublisherTask() {
+    super("noopLineagePublisher");
+  }
+
+  @Override
+  public void publishEvent(LineageEvent event) {
+  }
+}
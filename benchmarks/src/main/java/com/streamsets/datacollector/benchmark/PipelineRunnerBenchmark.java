@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the pipeline runner hot path (ProductionPipelineRunner.runPollSource(), Pipeline, PipeRunner, StagePipe
+ * and FullPipeBatch) on synthetic pipelines.
+ *
+ * Every benchmark thread runs its own pipeline, so the thread count (-t) drives how many pipelines run concurrently
+ * in the same JVM. The "records" counter reports records/sec, allocation rate is reported by the gc profiler
+ * (-prof gc) and the per-stage overhead is printed at the end of every trial and can be derived from the
+ * "processors" parameter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 10)
+@State(Scope.Thread)
+public class PipelineRunnerBenchmark {
+  private static final int BATCHES_PER_INVOCATION = 10;
+
+  @Param({"100", "1000", "10000"})
+  public int batchSize;
+
+  @Param({"0", "1", "5", "10"})
+  public int processors;
+
+  @Param({"1", "3"})
+  public int destinations;
+
+  @Param({"false", "true"})
+  public boolean copyOnWrite;
+
+  private SyntheticPipeline pipeline;
+
+  /**
+   * Secondary results reported next to the primary invocations/sec score.
+   */
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Counters {
+    public long records;
+    public long batches;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      records = 0;
+      batches = 0;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    pipeline = new SyntheticPipeline(
+        "benchmark-" + UUID.randomUUID(),
+        batchSize,
+        processors,
+        destinations,
+        copyOnWrite,
+        BATCHES_PER_INVOCATION
+    );
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    for (Map.Entry<String, Double> entry : pipeline.getStageBatchProcessingMicros().entrySet()) {
+      System.out.printf(
+          "%n%s: stage '%s' mean batch processing time %.2f us (%.3f us/record)",
+          pipeline.getName(),
+          entry.getKey(),
+          entry.getValue(),
+          entry.getValue() / batchSize
+      );
+    }
+    System.out.println();
+    pipeline.destroy();
+  }
+
+  @Benchmark
+  public void runBatches(Counters counters) throws Exception {
+    pipeline.runBatches();
+    counters.batches += BATCHES_PER_INVOCATION;
+    counters.records += (long) BATCHES_PER_INVOCATION * batchSize;
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.benchmark;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.streamsets.datacollector.config.MemoryLimitConfiguration;
+import com.streamsets.datacollector.config.PipelineConfiguration;
+import com.streamsets.datacollector.config.StageConfiguration;
+import com.streamsets.datacollector.config.StageDefinition;
+import com.streamsets.datacollector.creation.PipelineConfigBean;
+import com.streamsets.datacollector.execution.runner.common.Constants;
+import com.streamsets.datacollector.execution.runner.common.PipelineStopReason;
+import com.streamsets.datacollector.execution.runner.common.ProductionPipeline;
+import com.streamsets.datacollector.execution.runner.common.ProductionPipelineBuilder;
+import com.streamsets.datacollector.execution.runner.common.ProductionPipelineRunner;
+import com.streamsets.datacollector.main.RuntimeInfo;
+import com.streamsets.datacollector.main.RuntimeModule;
+import com.streamsets.datacollector.main.StandaloneRuntimeInfo;
+import com.streamsets.datacollector.runner.UserContext;
+import com.streamsets.datacollector.store.PipelineStoreTask;
+import com.streamsets.datacollector.util.Configuration;
+import com.streamsets.datacollector.validation.Issue;
+import com.streamsets.pipeline.api.Config;
+import com.streamsets.pipeline.api.DeliveryGuarantee;
+import com.streamsets.pipeline.api.ExecutionMode;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.config.DataFormat;
+import com.streamsets.pipeline.stage.destination.devnull.NullDTarget;
+import com.streamsets.pipeline.stage.destination.devnull.StatsNullDTarget;
+import com.streamsets.pipeline.stage.destination.devnull.ToErrorNullDTarget;
+import com.streamsets.pipeline.stage.devtest.rawdata.RawDataDSource;
+import com.streamsets.pipeline.stage.processor.expression.ExpressionDProcessor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * In-process pipeline made of a Dev Raw Data origin, a chain of Expression Evaluators and one or more Trash
+ * destinations, executed by the regular ProductionPipelineRunner.
+ */
+public class SyntheticPipeline {
+  private static final String REV = "0";
+
+  private static final BenchmarkStageLibraryTask STAGE_LIBRARY = new BenchmarkStageLibraryTask(
+      RawDataDSource.class,
+      ExpressionDProcessor.class,
+      NullDTarget.class,
+      ToErrorNullDTarget.class,
+      StatsNullDTarget.class
+  );
+
+  private final String name;
+  private final BoundedSourceOffsetTracker offsetTracker;
+  private final MetricRegistry metrics;
+  private final ProductionPipeline pipeline;
+
+  /**
+   * @param name unique name of the pipeline, pipelines running in parallel must not share names
+   * @param batchSize number of records generated by the origin in each batch
+   * @param processors number of chained Expression Evaluators
+   * @param destinations number of Trash destinations reading the output of the last processor
+   * @param copyOnWrite whether the fan-out to multiple destinations uses copy-on-write records
+   * @param batchesPerRun number of batches processed by each call to runBatches()
+   */
+  public SyntheticPipeline(
+      String name,
+      int batchSize,
+      int processors,
+      int destinations,
+      boolean copyOnWrite,
+      int batchesPerRun
+  ) throws Exception {
+    Utils.checkArgument(destinations > 0, "At least one destination is required");
+    this.name = name;
+    this.offsetTracker = new BoundedSourceOffsetTracker(batchesPerRun);
+    this.metrics = new MetricRegistry();
+
+    RuntimeInfo runtimeInfo = new StandaloneRuntimeInfo(
+        RuntimeModule.SDC_PROPERTY_PREFIX,
+        new MetricRegistry(),
+        ImmutableList.of(getClass().getClassLoader())
+    );
+    runtimeInfo.init();
+
+    Configuration configuration = new Configuration();
+    configuration.set(Constants.MAX_BATCH_SIZE_KEY, batchSize);
+    configuration.set(Constants.COPY_ON_WRITE_RECORDS_KEY, copyOnWrite);
+
+    ProductionPipelineRunner runner = new ProductionPipelineRunner(
+        name,
+        REV,
+        null,
+        configuration,
+        runtimeInfo,
+        metrics,
+        null,
+        null
+    );
+    runner.setMemoryLimitConfiguration(new MemoryLimitConfiguration());
+    runner.setDeliveryGuarantee(DeliveryGuarantee.AT_LEAST_ONCE);
+    runner.setOffsetTracker(offsetTracker);
+
+    pipeline = new ProductionPipelineBuilder(
+        name,
+        REV,
+        configuration,
+        runtimeInfo,
+        STAGE_LIBRARY,
+        runner,
+        null,
+        new NoopLineagePublisherTask()
+    ).build(
+        new UserContext("benchmark", false, false),
+        createPipelineConfiguration(name, batchSize, processors, destinations),
+        System.currentTimeMillis()
+    );
+
+    List<Issue> issues = pipeline.getPipeline().init(true);
+    if (!issues.isEmpty()) {
+      throw new IllegalStateException(Utils.format("Pipeline '{}' failed to initialize: {}", name, issues));
+    }
+  }
+
+  /**
+   * Runs the configured number of batches through the pipeline.
+   */
+  public void runBatches() throws Exception {
+    offsetTracker.reset();
+    pipeline.getPipeline().run();
+  }
+
+  public void destroy() throws Exception {
+    pipeline.getPipeline().destroy(true, PipelineStopReason.FINISHED);
+  }
+
+  /**
+   * Mean batch processing time of each stage in microseconds, keyed by stage instance name.
+   */
+  public Map<String, Double> getStageBatchProcessingMicros() {
+    Map<String, Double> stageTimes = new TreeMap<>();
+    for (Map.Entry<String, Timer> entry : metrics.getTimers().entrySet()) {
+      String metricName = entry.getKey();
+      if (metricName.startsWith("stage.") && metricName.endsWith(".batchProcessing.timer")) {
+        String instanceName = metricName.substring("stage.".length(), metricName.length() - ".batchProcessing.timer".length());
+        stageTimes.put(instanceName, entry.getValue().getSnapshot().getMean() / 1000);
+      }
+    }
+    return stageTimes;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  private static PipelineConfiguration createPipelineConfiguration(
+      String name,
+      int batchSize,
+      int processors,
+      int destinations
+  ) {
+    List<StageConfiguration> stages = new ArrayList<>();
+
+    String lane = "origin";
+    stages.add(stage(
+        "origin",
+        RawDataDSource.class,
+        configs(
+            new Config("dataFormat", DataFormat.JSON.name()),
+            new Config("rawData", createRawData(batchSize))
+        ),
+        Collections.emptyList(),
+        ImmutableList.of(lane)
+    ));
+
+    for (int i = 0; i < processors; i++) {
+      String outputLane = "processor" + i;
+      stages.add(stage(
+          "processor" + i,
+          ExpressionDProcessor.class,
+          configs(new Config("expressionProcessorConfigs", ImmutableList.of(ImmutableMap.of(
+              "fieldToSet", "/processor" + i,
+              "expression", "${record:value('/value') * " + (i + 2) + "}"
+          )))),
+          ImmutableList.of(lane),
+          ImmutableList.of(outputLane)
+      ));
+      lane = outputLane;
+    }
+
+    for (int i = 0; i < destinations; i++) {
+      stages.add(stage(
+          "destination" + i,
+          NullDTarget.class,
+          configs(),
+          ImmutableList.of(lane),
+          Collections.emptyList()
+      ));
+    }
+
+    return new PipelineConfiguration(
+        PipelineStoreTask.SCHEMA_VERSION,
+        PipelineConfigBean.VERSION,
+        name,
+        UUID.randomUUID(),
+        name,
+        null,
+        configs(
+            new Config("executionMode", ExecutionMode.STANDALONE.name()),
+            new Config("deliveryGuarantee", DeliveryGuarantee.AT_LEAST_ONCE.name())
+        ),
+        null,
+        stages,
+        stage("errorStage", ToErrorNullDTarget.class, configs(), Collections.emptyList(), Collections.emptyList()),
+        stage("statsAggregator", StatsNullDTarget.class, configs(), Collections.emptyList(), Collections.emptyList()),
+        Collections.emptyList(),
+        Collections.emptyList()
+    );
+  }
+
+  private static StageConfiguration stage(
+      String instanceName,
+      Class<? extends Stage> klass,
+      List<Config> configs,
+      List<String> inputLanes,
+      List<String> outputLanes
+  ) {
+    StageDefinition def = STAGE_LIBRARY.getStage(klass);
+    return new StageConfiguration(
+        instanceName,
+        def.getLibrary(),
+        def.getName(),
+        def.getVersion(),
+        configs,
+        null,
+        Collections.emptyList(),
+        inputLanes,
+        outputLanes,
+        Collections.emptyList()
+    );
+  }
+
+  // The validator adds missing configs with their default values, hence the lists have to be mutable
+  private static List<Config> configs(Config... configs) {
+    return new ArrayList<>(Arrays.asList(configs));
+  }
+
+  private static String createRawData(int records) {
+    StringBuilder rawData = new StringBuilder();
+    for (int i = 0; i < records; i++) {
+      rawData.append(Utils.format(
+          "{\"id\": {}, \"value\": {}, \"name\": \"record-{}\", \"active\": {}}\n",
+          i,
+          i % 1000,
+          i,
+          i % 2 == 0
+      ));
+    }
+    return rawData.toString();
+  }
+}
@@ -24,11 +24,15 @@ import com.datastax.driver.core.ColumnMetadata;
 import com.datastax.driver.core.KeyspaceMetadata;
 import com.datastax.driver.core.PlainTextAuthProvider;
 import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.TableMetadata;
 import com.datastax.driver.core.TypeCodec;
 import com.datastax.driver.core.exceptions.AuthenticationException;
 import com.datastax.driver.core.exceptions.CodecNotFoundException;
+import com.datastax.driver.core.exceptions.DriverException;
 import com.datastax.driver.core.exceptions.InvalidTypeException;
 import com.datastax.driver.core.exceptions.NoHostAvailableException;
 import com.datastax.driver.dse.auth.DseGSSAPIAuthProvider;
@@ -41,6 +45,7 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.streamsets.pipeline.api.Batch;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Record;
@@ -60,18 +65,21 @@ import javax.annotation.Nullable;
 import javax.security.auth.Subject;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.security.AccessControlContext;
 import java.security.AccessController;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 /**
@@ -103,6 +111,7 @@ public class CassandraTarget extends BaseTarget {
   private SortedMap<String, String> columnMappings;
   private LoadingCache<SortedSet<String>, PreparedStatement> statementCache;
   private ErrorRecordHandler errorRecordHandler;
+  private Semaphore inFlightRequests;
 
   public CassandraTarget(CassandraTargetConfig conf) {
     this.conf = conf;
@@ -184,6 +193,7 @@ public class CassandraTarget extends BaseTarget {
       try {
         cluster = getCluster();
         session = cluster.connect();
+        inFlightRequests = new Semaphore(conf.maxInFlightRequests);
 
         statementCache = CacheBuilder.newBuilder()
             // No expiration as prepared statements are good for the entire session.
@@ -284,6 +294,11 @@ public class CassandraTarget extends BaseTarget {
   @Override
   @SuppressWarnings("unchecked")
   public void write(Batch batch) throws StageException {
+    if (conf.asyncWrites) {
+      writeAsync(batch);
+      return;
+    }
+
     // The batch holding the current batch to INSERT.
     BatchStatement batchedStatement = new BatchStatement(conf.batchType);
 
@@ -313,6 +328,110 @@ public class CassandraTarget extends BaseTarget {
     }
   }
 
+  /**
+   * Writes the batch grouping statements by their partition (routing key). Each group, up to maxBatchSize statements,
+   * is sent asynchronously as a single partition batch, so that Cassandra doesn't have to coordinate multi-partition
+   * batches. At most maxInFlightRequests requests are in flight at once; the method returns when all of them have
+   * completed, records of failed requests are sent to error.
+   *
+   * The order of writes to the same row is preserved by the client side timestamps the driver assigns when a request
+   * is submitted.
+   */
+  private void writeAsync(Batch batch) throws StageException {
+    final ProtocolVersion protocolVersion = cluster.getConfiguration().getProtocolOptions().getProtocolVersion();
+    final CodecRegistry codecRegistry = cluster.getConfiguration().getCodecRegistry();
+
+    Map<ByteBuffer, PartitionRequest> openRequests = new LinkedHashMap<>();
+    List<PartitionRequest> submittedRequests = new ArrayList<>();
+
+    Iterator<Record> records = batch.getRecords();
+    while (records.hasNext()) {
+      final Record record = records.next();
+      BoundStatement boundStmt = recordToBoundStatement(record);
+      if (boundStmt == null) {
+        continue;
+      }
+
+      ByteBuffer routingKey = boundStmt.getRoutingKey(protocolVersion, codecRegistry);
+      if (routingKey == null) {
+        // Can't tell the partition, send the statement on its own
+        PartitionRequest request = new PartitionRequest();
+        request.add(record, boundStmt);
+        submittedRequests.add(submit(request));
+        continue;
+      }
+
+      PartitionRequest request = openRequests.computeIfAbsent(routingKey, key -> new PartitionRequest());
+      request.add(record, boundStmt);
+      if (request.statements.size() == conf.maxBatchSize) {
+        openRequests.remove(routingKey);
+        submittedRequests.add(submit(request));
+      }
+    }
+    for (PartitionRequest request : openRequests.values()) {
+      submittedRequests.add(submit(request));
+    }
+
+    for (PartitionRequest request : submittedRequests) {
+      try {
+        request.future.getUninterruptibly();
+      } catch (DriverException e) {
+        LOG.debug("Failed to write {} records", request.records.size(), e);
+        for (Record record : request.records) {
+          errorRecordHandler.onError(
+              new OnRecordErrorException(
+                  record,
+                  Errors.CASSANDRA_09,
+                  record.getHeader().getSourceId(),
+                  e.toString(),
+                  e
+              )
+          );
+        }
+      }
+    }
+  }
+
+  private PartitionRequest submit(PartitionRequest request) throws StageException {
+    Statement statement;
+    if (request.statements.size() == 1) {
+      statement = request.statements.get(0);
+    } else {
+      BatchStatement batchedStatement = new BatchStatement(conf.batchType);
+      batchedStatement.addAll(request.statements);
+      statement = batchedStatement;
+    }
+
+    try {
+      inFlightRequests.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StageException(Errors.CASSANDRA_07, e.toString(), e);
+    }
+    try {
+      request.future = session.executeAsync(statement);
+    } catch (RuntimeException e) {
+      inFlightRequests.release();
+      throw e;
+    }
+    request.future.addListener(inFlightRequests::release, MoreExecutors.directExecutor());
+    return request;
+  }
+
+  /**
+   * Statements for a single partition that are sent together, along with the records they were created from.
+   */
+  private static class PartitionRequest {
+    private final List<Record> records = new ArrayList<>();
+    private final List<BoundStatement> statements = new ArrayList<>();
+    private ResultSetFuture future;
+
+    private void add(Record record, BoundStatement statement) {
+      records.add(record);
+      statements.add(statement);
+    }
+  }
+
   /**
    * Convert a Record into a fully-bound statement.
    */
@@ -26,6 +26,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class CassandraTargetConfig {
+  public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 128;
+
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.LIST,
@@ -106,6 +108,30 @@ public class CassandraTargetConfig {
   )
   public int maxBatchSize = 65535;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.BOOLEAN,
+      defaultValue = "false",
+      label = "Asynchronous Writes",
+      description = "Groups statements by partition and sends them asynchronously, waiting for all of them only at" +
+          " the end of the batch. Each batch statement then targets a single partition.",
+      displayPosition = 72
+  )
+  public boolean asyncWrites = false;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "" + DEFAULT_MAX_IN_FLIGHT_REQUESTS,
+      min = 1,
+      label = "Max Concurrent Requests",
+      description = "Maximum number of statements being executed at the same time.",
+      displayPosition = 74,
+      dependsOn = "asyncWrites",
+      triggeredByValue = "true"
+  )
+  public int maxInFlightRequests = DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.STRING,
@@ -217,6 +217,55 @@ public class TestCassandraTarget {
     Assert.assertEquals(SAMPLE_UUID, row.getUUID("unique_id").toString());
   }
 
+  @Test
+  public void testWriteAsync() throws InterruptedException, StageException {
+    final String tableName = "test.trips";
+    List<CassandraFieldMappingConfig> fieldMappings = ImmutableList.of(
+        new CassandraFieldMappingConfig("[0]", "driver_id"),
+        new CassandraFieldMappingConfig("[1]", "trip_id"),
+        new CassandraFieldMappingConfig("[2]", "time")
+    );
+
+    CassandraTargetConfig conf = new CassandraTargetConfig();
+    conf.contactPoints.add("localhost");
+    conf.port = CASSANDRA_NATIVE_PORT;
+    conf.protocolVersion = ProtocolVersion.V4;
+    conf.authProviderOption = AuthProviderOption.NONE;
+    conf.compression = CassandraCompressionCodec.NONE;
+    conf.columnNames = fieldMappings;
+    conf.qualifiedTableName = tableName;
+    conf.asyncWrites = true;
+    conf.maxInFlightRequests = 2;
+    conf.maxBatchSize = 3;
+
+    Target target = new CassandraTarget(conf);
+    TargetRunner targetRunner = new TargetRunner.Builder(CassandraDTarget.class, target).build();
+
+    // 5 partitions (drivers) with 7 trips each, interleaved
+    List<Record> records = new ArrayList<>();
+    for (int trip = 0; trip < 7; trip++) {
+      for (int driver = 0; driver < 5; driver++) {
+        Record record = RecordCreator.create();
+        record.set(Field.create(ImmutableList.of(Field.create(driver), Field.create(trip), Field.create(trip * 10))));
+        records.add(record);
+      }
+    }
+
+    targetRunner.runInit();
+    targetRunner.runWrite(records);
+
+    Assert.assertTrue(targetRunner.getErrorRecords().isEmpty());
+    Assert.assertTrue(targetRunner.getErrors().isEmpty());
+
+    targetRunner.runDestroy();
+
+    List<Row> allRows = session.execute("SELECT * FROM test.trips").all();
+    Assert.assertEquals(35, allRows.size());
+    for (Row row : allRows) {
+      Assert.assertEquals(row.getInt("trip_id") * 10, row.getInt("time"));
+    }
+  }
+
   @Test
   public void testCollectionTypes() throws InterruptedException, StageException {
     final String tableName = "test.collections";
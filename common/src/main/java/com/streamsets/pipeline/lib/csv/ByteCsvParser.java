@@ -0,0 +1,549 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.csv;
+
+import com.streamsets.pipeline.api.ext.io.ObjectLengthException;
+import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.lib.util.ExceptionUtils;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Delimited data parser working directly on the bytes of an InputStream, an alternative to {@link CsvParser} that
+ * does not decode the whole stream into characters nor builds intermediate records.
+ * <p/>
+ * Unquoted fields are scanned with a table driven loop over the byte buffer that only stops at delimiter, line end and
+ * escape bytes, quoted fields only stop at quote and escape bytes. Fields are kept as slices of the buffer and each one
+ * is decoded into a String once, when the record is complete. Positions are exact byte offsets in the stream.
+ * <p/>
+ * The parsing rules are the same as the Apache Commons CSV lexer for the given {@link CSVFormat}. The parser works
+ * for charsets in which ASCII bytes always represent ASCII characters (UTF-8, US-ASCII and ISO-8859-1) and requires
+ * the delimiter, quote, escape and comment marker characters to be ASCII, see {@link #isSupported}.
+ */
+public class ByteCsvParser implements Closeable, AutoCloseable {
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  private static final int EOF = -1;
+  private static final int NONE = -2;
+  private static final int CR = '\r';
+  private static final int LF = '\n';
+
+  private final InputStream is;
+  private final Charset charset;
+  private final int maxObjectLen;
+  private final int delimiter;
+  private final int quote;
+  private final int escape;
+  private final int commentMarker;
+  private final boolean ignoreEmptyLines;
+  private final boolean ignoreSurroundingSpaces;
+  private final boolean trim;
+  private final boolean trailingDelimiter;
+  private final String nullString;
+  private final boolean[] simpleStop;
+  private final boolean[] quotedStop;
+  private final String[] headers;
+
+  private byte[] buffer;
+  private long bufferPos;
+  private int pos;
+  private int limit;
+  private int recordStart;
+  private boolean discarding;
+  private boolean eof;
+
+  private int fieldCount;
+  private int[] fieldStarts;
+  private int[] fieldEnds;
+  private boolean[] fieldEscaped;
+  private boolean[] fieldQuoted;
+  private byte[] scratch;
+
+  private long currentPos;
+  private boolean closed;
+
+  /**
+   * Returns if the given format and charset can be parsed by this parser.
+   *
+   * @param format the delimited format.
+   * @param charset the charset of the data.
+   * @return <b>TRUE</b> if supported, <b>FALSE</b> otherwise.
+   */
+  public static boolean isSupported(CSVFormat format, Charset charset) {
+    return (StandardCharsets.UTF_8.equals(charset) ||
+        StandardCharsets.US_ASCII.equals(charset) ||
+        StandardCharsets.ISO_8859_1.equals(charset)) &&
+        isAscii(format.getDelimiter()) &&
+        isAscii(format.getQuoteCharacter()) &&
+        isAscii(format.getEscapeCharacter()) &&
+        isAscii(format.getCommentMarker());
+  }
+
+  private static boolean isAscii(Character c) {
+    return c == null || c < 0x80;
+  }
+
+  public ByteCsvParser(
+      InputStream is,
+      CSVFormat format,
+      Charset charset,
+      int maxObjectLen,
+      long initialPosition,
+      int skipStartLines
+  ) throws IOException {
+    Utils.checkNotNull(is, "is");
+    Utils.checkNotNull(format, "format");
+    Utils.checkArgument(isSupported(format, charset), Utils.formatL("Charset '{}' or format not supported", charset));
+    Utils.checkArgument(initialPosition >= 0, "initialPosition must be greater or equal than zero");
+    Utils.checkArgument(skipStartLines >= 0, "skipStartLines must be greater or equal than zero");
+    this.is = is;
+    this.charset = charset;
+    this.maxObjectLen = maxObjectLen;
+    delimiter = format.getDelimiter();
+    quote = (format.getQuoteCharacter() != null) ? format.getQuoteCharacter() : NONE;
+    escape = (format.getEscapeCharacter() != null) ? format.getEscapeCharacter() : NONE;
+    commentMarker = (format.getCommentMarker() != null) ? format.getCommentMarker() : NONE;
+    ignoreEmptyLines = format.getIgnoreEmptyLines();
+    ignoreSurroundingSpaces = format.getIgnoreSurroundingSpaces();
+    trim = format.getTrim();
+    trailingDelimiter = format.getTrailingDelimiter();
+    nullString = format.getNullString();
+
+    simpleStop = new boolean[256];
+    simpleStop[delimiter] = true;
+    simpleStop[CR] = true;
+    simpleStop[LF] = true;
+    quotedStop = new boolean[256];
+    if (quote != NONE) {
+      quotedStop[quote] = true;
+    }
+    if (escape != NONE) {
+      simpleStop[escape] = true;
+      quotedStop[escape] = true;
+    }
+
+    int bufferSize = DEFAULT_BUFFER_SIZE;
+    if (maxObjectLen > -1 && maxObjectLen < bufferSize) {
+      // a record of the maximum length plus its line end and some room to not compact on every record
+      bufferSize = Math.max(maxObjectLen * 4, 4 * 1024);
+    }
+    buffer = new byte[bufferSize];
+    fieldStarts = new int[16];
+    fieldEnds = new int[16];
+    fieldEscaped = new boolean[16];
+    fieldQuoted = new boolean[16];
+    scratch = new byte[256];
+
+    if (initialPosition == 0 || format.getSkipHeaderRecord()) {
+      skipLines(skipStartLines);
+      currentPos = getPosition();
+      headers = (format.getSkipHeaderRecord()) ? read() : null;
+    } else {
+      headers = null;
+    }
+    if (initialPosition > 0) {
+      if (currentPos > initialPosition) {
+        throw new IOException(Utils.format("Could not position reader at position '{}', got '{}' instead",
+            initialPosition, currentPos));
+      }
+      skip(initialPosition - currentPos);
+      currentPos = initialPosition;
+    }
+  }
+
+  public String[] getHeaders() {
+    return headers;
+  }
+
+  /**
+   * Returns the byte position of the next record in the stream.
+   *
+   * @return the byte position of the next record in the stream.
+   */
+  public long getReaderPosition() {
+    return currentPos;
+  }
+
+  public String[] read() throws IOException {
+    if (closed) {
+      throw new IOException("Parser has been closed");
+    }
+    long prevPos = currentPos;
+    String[] record = readRecord();
+    currentPos = getPosition();
+    if (maxObjectLen > -1 && currentPos - prevPos > maxObjectLen) {
+      ExceptionUtils.throwUndeclared(new ObjectLengthException(Utils.format(
+          "CSV Object at offset '{}' exceeds max length '{}'", prevPos, maxObjectLen), prevPos));
+    }
+    return record;
+  }
+
+  @Override
+  public void close() {
+    try {
+      closed = true;
+      is.close();
+    } catch (IOException ex) {
+      //NOP
+    }
+  }
+
+  private long getPosition() {
+    return bufferPos + pos;
+  }
+
+  private String[] readRecord() throws IOException {
+    discarding = false;
+    fieldCount = 0;
+    while (true) {
+      recordStart = pos;
+      int c = peek();
+      if (c == EOF) {
+        return null;
+      } else if (ignoreEmptyLines && (c == CR || c == LF)) {
+        pos++;
+        skipLf(c);
+      } else if (c == commentMarker) {
+        skipLine();
+      } else {
+        break;
+      }
+    }
+    while (readField()) {
+      // next field
+    }
+    return (discarding) ? null : decodeFields();
+  }
+
+  // returns TRUE if the field ended with a delimiter, FALSE if it ended the record
+  private boolean readField() throws IOException {
+    int c = peek();
+    if (ignoreSurroundingSpaces) {
+      while (c != EOF && c != CR && c != LF && isWhitespace(c)) {
+        pos++;
+        c = peek();
+      }
+    }
+    if (c == quote) {
+      pos++;
+      return readQuotedField();
+    }
+    return readSimpleField();
+  }
+
+  private boolean readSimpleField() throws IOException {
+    int start = pos - recordStart;
+    boolean escaped = false;
+    while (true) {
+      byte[] b = buffer;
+      int l = limit;
+      int p = pos;
+      while (p < l && !simpleStop[b[p] & 0xff]) {
+        p++;
+      }
+      pos = p;
+      if (p == l) {
+        if (!fill()) {
+          addField(start, pos - recordStart, escaped, false);
+          return false;
+        }
+        continue;
+      }
+      int c = b[p] & 0xff;
+      if (c == delimiter) {
+        addField(start, pos - recordStart, escaped, false);
+        pos++;
+        return true;
+      } else if (c == CR || c == LF) {
+        addField(start, pos - recordStart, escaped, false);
+        pos++;
+        skipLf(c);
+        return false;
+      }
+      // escape, the escaped byte is taken as is
+      pos++;
+      if (peek() == EOF) {
+        throw new IOException("EOF whilst processing escape sequence");
+      }
+      pos++;
+      escaped = true;
+    }
+  }
+
+  private boolean readQuotedField() throws IOException {
+    int start = pos - recordStart;
+    boolean escaped = false;
+    while (true) {
+      byte[] b = buffer;
+      int l = limit;
+      int p = pos;
+      while (p < l && !quotedStop[b[p] & 0xff]) {
+        p++;
+      }
+      pos = p;
+      if (p == l) {
+        if (!fill()) {
+          throw new IOException(Utils.format(
+              "EOF reached before encapsulated token finished, started at position '{}'",
+              bufferPos + recordStart + start - 1
+          ));
+        }
+        continue;
+      }
+      int c = b[p] & 0xff;
+      pos++;
+      if (c == escape) {
+        if (peek() == EOF) {
+          throw new IOException("EOF whilst processing escape sequence");
+        }
+        pos++;
+        escaped = true;
+      } else if (peek() == quote) {
+        // doubled quote
+        pos++;
+        escaped = true;
+      } else {
+        addField(start, pos - 1 - recordStart, escaped, true);
+        return skipToFieldEnd();
+      }
+    }
+  }
+
+  // after the closing quote only whitespaces are allowed before the delimiter or the line end
+  private boolean skipToFieldEnd() throws IOException {
+    while (true) {
+      int c = peek();
+      if (c == delimiter) {
+        pos++;
+        return true;
+      } else if (c == EOF) {
+        return false;
+      } else if (c == CR || c == LF) {
+        pos++;
+        skipLf(c);
+        return false;
+      } else if (!isWhitespace(c)) {
+        throw new IOException(Utils.format(
+            "Invalid char between encapsulated token and delimiter at position '{}'",
+            getPosition()
+        ));
+      }
+      pos++;
+    }
+  }
+
+  private void skipLf(int c) throws IOException {
+    if (c == CR && peek() == LF) {
+      pos++;
+    }
+  }
+
+  private void skipLine() throws IOException {
+    int c;
+    while ((c = peek()) != EOF) {
+      pos++;
+      if (c == CR || c == LF) {
+        skipLf(c);
+        return;
+      }
+      recordStart = pos;
+    }
+  }
+
+  private void skipLines(int lines) throws IOException {
+    int skipped = 0;
+    while (skipped < lines) {
+      recordStart = pos;
+      int c = peek();
+      if (c == EOF) {
+        throw new IOException(Utils.format("Could not skip '{}' lines, reached EOF", lines));
+      }
+      // this is enough to handle \n and \r\n EOL files
+      if (c == LF) {
+        skipped++;
+      }
+      pos++;
+    }
+    recordStart = pos;
+  }
+
+  private void skip(long bytes) throws IOException {
+    int available = limit - pos;
+    if (bytes <= available) {
+      pos += (int) bytes;
+    } else {
+      IOUtils.skipFully(is, bytes - available);
+      bufferPos += limit + bytes - available;
+      pos = 0;
+      limit = 0;
+    }
+    recordStart = pos;
+  }
+
+  private boolean isWhitespace(int c) {
+    return c != delimiter && c < 0x80 && Character.isWhitespace((char) c);
+  }
+
+  private int peek() throws IOException {
+    if (pos == limit && !fill()) {
+      return EOF;
+    }
+    return buffer[pos] & 0xff;
+  }
+
+  /**
+   * Reads more data into the buffer. The bytes of the current record are kept unless the record exceeded the maximum
+   * object length, in that case the rest of the record is scanned without keeping it so it can be reported and skipped.
+   */
+  private boolean fill() throws IOException {
+    if (eof) {
+      return false;
+    }
+    if (limit == buffer.length) {
+      if (recordStart == 0 && !discarding) {
+        if (maxObjectLen > -1 && buffer.length > maxObjectLen) {
+          discarding = true;
+        } else {
+          buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+      }
+      int keep = (discarding) ? pos : recordStart;
+      if (keep > 0) {
+        System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+        bufferPos += keep;
+        pos -= keep;
+        limit -= keep;
+        recordStart = (discarding) ? 0 : recordStart - keep;
+      }
+    }
+    int read;
+    do {
+      read = is.read(buffer, limit, buffer.length - limit);
+    } while (read == 0);
+    if (read < 0) {
+      eof = true;
+      return false;
+    }
+    limit += read;
+    return true;
+  }
+
+  private void addField(int start, int end, boolean escaped, boolean quoted) {
+    if (fieldCount == fieldStarts.length) {
+      int size = fieldCount * 2;
+      fieldStarts = Arrays.copyOf(fieldStarts, size);
+      fieldEnds = Arrays.copyOf(fieldEnds, size);
+      fieldEscaped = Arrays.copyOf(fieldEscaped, size);
+      fieldQuoted = Arrays.copyOf(fieldQuoted, size);
+    }
+    fieldStarts[fieldCount] = start;
+    fieldEnds[fieldCount] = end;
+    fieldEscaped[fieldCount] = escaped;
+    fieldQuoted[fieldCount] = quoted;
+    fieldCount++;
+  }
+
+  private String[] decodeFields() {
+    int count = fieldCount;
+    String[] values = new String[count];
+    for (int i = 0; i < count; i++) {
+      int start = recordStart + fieldStarts[i];
+      int end = recordStart + fieldEnds[i];
+      String value = (fieldEscaped[i]) ? unescape(start, end, fieldQuoted[i]) :
+          new String(buffer, start, end - start, charset);
+      if (ignoreSurroundingSpaces && !fieldQuoted[i]) {
+        value = trimTrailingSpaces(value);
+      }
+      if (trim) {
+        value = value.trim();
+      }
+      if (i == count - 1 && trailingDelimiter && value.isEmpty()) {
+        return Arrays.copyOf(values, count - 1);
+      }
+      values[i] = (value.equals(nullString)) ? null : value;
+    }
+    return values;
+  }
+
+  private String unescape(int start, int end, boolean quoted) {
+    if (scratch.length < end - start) {
+      scratch = new byte[Math.max(end - start, scratch.length * 2)];
+    }
+    int n = 0;
+    for (int i = start; i < end; i++) {
+      int c = buffer[i] & 0xff;
+      if (c == escape) {
+        int next = buffer[++i] & 0xff;
+        int unescaped = unescape(next);
+        if (unescaped == NONE) {
+          // unknown escape sequence, kept as is
+          scratch[n++] = (byte) c;
+          scratch[n++] = (byte) next;
+        } else {
+          scratch[n++] = (byte) unescaped;
+        }
+      } else if (quoted && c == quote) {
+        // doubled quote
+        scratch[n++] = (byte) c;
+        i++;
+      } else {
+        scratch[n++] = (byte) c;
+      }
+    }
+    return new String(scratch, 0, n, charset);
+  }
+
+  private int unescape(int c) {
+    switch (c) {
+      case 'r':
+        return CR;
+      case 'n':
+        return LF;
+      case 't':
+        return '\t';
+      case 'b':
+        return '\b';
+      case 'f':
+        return '\f';
+      case CR:
+      case LF:
+      case '\t':
+      case '\b':
+      case '\f':
+        return c;
+      default:
+        if (c == delimiter || c == escape || c == quote || c == commentMarker) {
+          return c;
+        }
+        return NONE;
+    }
+  }
+
+  private static String trimTrailingSpaces(String value) {
+    int length = value.length();
+    while (length > 0 && Character.isWhitespace(value.charAt(length - 1))) {
+      length--;
+    }
+    return (length == value.length()) ? value : value.substring(0, length);
+  }
+
+}
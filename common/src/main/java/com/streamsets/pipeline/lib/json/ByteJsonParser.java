@@ -0,0 +1,848 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.json;
+
+import com.streamsets.datacollector.record.PathElement;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.ext.io.ObjectLengthException;
+import com.streamsets.pipeline.api.ext.io.OverrunException;
+import com.streamsets.pipeline.api.ext.json.Mode;
+import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.lib.util.ExceptionUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON parser working directly on the UTF-8 bytes of an InputStream that creates {@link Field}s without building
+ * intermediate Map and List objects.
+ * <p/>
+ * The parser accepts an optional projection, a list of field paths (i.e. <code>/a/b</code>, <code>/list[*]/id</code>,
+ * <code>/map/*</code>) of the values to keep. Values that are not selected by the projection are skipped by scanning
+ * their bytes, they are not decoded nor allocated. Maps and lists on the way to a selected value are kept with only
+ * their selected entries, selected values are kept whole.
+ * <p/>
+ * Positions are byte offsets in the stream. In {@link Mode#MULTIPLE_OBJECTS} mode the position after a document is
+ * the first non whitespace byte after it; in {@link Mode#ARRAY_OBJECTS} mode it is the first byte of the next element
+ * of the array (or the closing bracket).
+ * <p/>
+ * Documents larger than the max object length are scanned to their end without being kept and reported with an
+ * {@link ObjectLengthException}, the parser can be used to read the following documents. Documents larger than the
+ * overrun limit fail with an {@link OverrunException} and the parser is not usable anymore.
+ */
+public class ByteJsonParser implements Closeable, AutoCloseable {
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int EOF = -1;
+
+  private static final Node ALL = new Node();
+  static {
+    ALL.all = true;
+  }
+
+  // bytes that end a run of string content
+  private static final boolean[] STRING_STOP = new boolean[256];
+  // bytes that are relevant when skipping a nested value
+  private static final boolean[] SKIP_STOP = new boolean[256];
+  // bytes that end a root scalar value when skipping
+  private static final boolean[] SCALAR_STOP = new boolean[256];
+
+  static {
+    for (int i = 0; i < 0x20; i++) {
+      STRING_STOP[i] = true;
+    }
+    STRING_STOP['"'] = true;
+    STRING_STOP['\\'] = true;
+    for (char c : new char[]{'"', '{', '}', '[', ']'}) {
+      SKIP_STOP[c] = true;
+      SCALAR_STOP[c] = true;
+    }
+    for (char c : new char[]{',', ':', ' ', '\t', '\r', '\n'}) {
+      SCALAR_STOP[c] = true;
+    }
+  }
+
+  private final InputStream is;
+  private final Mode mode;
+  private final int maxObjectLen;
+  private final int overrunLimit;
+  private final Node projection;
+  private final byte[] buffer;
+
+  private long bufferPos;
+  private int pos;
+  private int limit;
+  private boolean eof;
+
+  private boolean inDocument;
+  private long documentStart;
+  private boolean discarding;
+
+  private byte[] scratch;
+  private int scratchLen;
+
+  private long currentPos;
+  private boolean overrun;
+  private boolean closed;
+
+  /**
+   * Creates a ByteJsonParser.
+   *
+   * @param is stream with the UTF-8 JSON data.
+   * @param initialPosition byte offset to start reading from, as returned by {@link #getReaderPosition()}.
+   * @param mode if the stream is an array of documents or a sequence of documents.
+   * @param maxObjectLen maximum length of a document in bytes, -1 for no limit.
+   * @param overrunLimit length of a document in bytes that makes the parser fail, zero or less for no limit.
+   * @param fieldPaths field paths of the values to keep, <code>NULL</code> or empty to keep the whole documents.
+   * @throws IOException thrown if the stream could not be positioned.
+   */
+  public ByteJsonParser(
+      InputStream is,
+      long initialPosition,
+      Mode mode,
+      int maxObjectLen,
+      int overrunLimit,
+      Collection<String> fieldPaths
+  ) throws IOException {
+    Utils.checkNotNull(is, "is");
+    Utils.checkNotNull(mode, "mode");
+    Utils.checkArgument(initialPosition >= 0, "initialPosition must be greater or equal than zero");
+    this.is = is;
+    this.mode = mode;
+    this.maxObjectLen = maxObjectLen;
+    this.overrunLimit = overrunLimit;
+    projection = compile(fieldPaths);
+    buffer = new byte[BUFFER_SIZE];
+    scratch = new byte[256];
+
+    if (initialPosition > 0) {
+      IOUtils.skipFully(is, initialPosition);
+      bufferPos = initialPosition;
+    } else if (mode == Mode.ARRAY_OBJECTS) {
+      int c = nextNonWhitespace();
+      if (c != '[') {
+        throw new IOException(Utils.format("JSON array expected but stream starts with '{}'", describe(c)));
+      }
+      pos++;
+      nextNonWhitespace();
+    }
+    currentPos = getPosition();
+  }
+
+  /**
+   * Returns the byte position of the next document in the stream.
+   *
+   * @return the byte position of the next document in the stream.
+   */
+  public long getReaderPosition() {
+    return currentPos;
+  }
+
+  /**
+   * Reads the next document.
+   *
+   * @return the next document, <code>NULL</code> if there are no more documents.
+   * @throws IOException thrown if the data is not valid JSON, if the document exceeds the max object length (an
+   * {@link ObjectLengthException}) or the overrun limit (an {@link OverrunException}).
+   */
+  public Field read() throws IOException {
+    if (closed) {
+      throw new IOException("The parser is closed");
+    }
+    Utils.checkState(!overrun, "The underlying input stream had an overrun, the parser is not usable anymore");
+    int c = nextNonWhitespace();
+    if (c == EOF) {
+      currentPos = getPosition();
+      return null;
+    }
+    if (mode == Mode.ARRAY_OBJECTS && c == ']') {
+      pos++;
+      currentPos = getPosition();
+      return null;
+    }
+    documentStart = getPosition();
+    discarding = false;
+    inDocument = true;
+    Field field;
+    try {
+      field = readValue(projection);
+    } finally {
+      inDocument = false;
+    }
+    long documentEnd = getPosition();
+    c = nextNonWhitespace();
+    if (mode == Mode.ARRAY_OBJECTS) {
+      if (c == ',') {
+        pos++;
+        nextNonWhitespace();
+      } else if (c != ']') {
+        throw unexpected(c, "',' or ']'");
+      }
+    }
+    currentPos = getPosition();
+    if (discarding || (maxObjectLen > -1 && documentEnd - documentStart > maxObjectLen)) {
+      ExceptionUtils.throwUndeclared(new ObjectLengthException(Utils.format(
+          "JSON Object at offset '{}' exceeds max length '{}'", documentStart, maxObjectLen), documentStart));
+    }
+    return field;
+  }
+
+  @Override
+  public void close() {
+    try {
+      closed = true;
+      is.close();
+    } catch (IOException ex) {
+      //NOP
+    }
+  }
+
+  private long getPosition() {
+    return bufferPos + pos;
+  }
+
+  private Field readValue(Node node) throws IOException {
+    int c = nextNonWhitespace();
+    switch (c) {
+      case '{':
+        pos++;
+        return readObject(node);
+      case '[':
+        pos++;
+        return readArray(node);
+      case '"':
+        pos++;
+        readString(true);
+        return Field.create(new String(scratch, 0, scratchLen, StandardCharsets.UTF_8));
+      case 't':
+        readLiteral("true");
+        return Field.create(true);
+      case 'f':
+        readLiteral("false");
+        return Field.create(false);
+      case 'n':
+        readLiteral("null");
+        return Field.create(Field.Type.STRING, null);
+      default:
+        if (c == '-' || (c >= '0' && c <= '9')) {
+          return readNumber();
+        }
+        throw unexpected(c, "a JSON value");
+    }
+  }
+
+  private Field readObject(Node node) throws IOException {
+    Map<String, Field> map = new LinkedHashMap<>();
+    int c = nextNonWhitespace();
+    if (c == '}') {
+      pos++;
+      return Field.create(map);
+    }
+    while (true) {
+      if (c != '"') {
+        throw unexpected(c, "a field name");
+      }
+      pos++;
+      readString(true);
+      Node child = (node.all) ? node : node.getKey(scratch, scratchLen);
+      String key = (child != null && !discarding) ? new String(scratch, 0, scratchLen, StandardCharsets.UTF_8) : null;
+      c = nextNonWhitespace();
+      if (c != ':') {
+        throw unexpected(c, "':'");
+      }
+      pos++;
+      if (key == null || !isKept(child)) {
+        skipValue();
+      } else {
+        map.put(key, readValue(child));
+      }
+      c = nextNonWhitespace();
+      if (c == '}') {
+        pos++;
+        return Field.create(map);
+      } else if (c != ',') {
+        throw unexpected(c, "',' or '}'");
+      }
+      pos++;
+      c = nextNonWhitespace();
+    }
+  }
+
+  private Field readArray(Node node) throws IOException {
+    List<Field> list = new ArrayList<>();
+    int c = nextNonWhitespace();
+    if (c == ']') {
+      pos++;
+      return Field.create(list);
+    }
+    int index = 0;
+    while (true) {
+      Node child = (node.all) ? node : node.getIndex(index);
+      if (child == null || discarding || !isKept(child)) {
+        skipValue();
+      } else {
+        list.add(readValue(child));
+      }
+      index++;
+      c = nextNonWhitespace();
+      if (c == ']') {
+        pos++;
+        return Field.create(list);
+      } else if (c != ',') {
+        throw unexpected(c, "',' or ']'");
+      }
+      pos++;
+    }
+  }
+
+  // a partially selected value is only kept if it is a map or a list
+  private boolean isKept(Node node) throws IOException {
+    if (node.all) {
+      return true;
+    }
+    int c = nextNonWhitespace();
+    return c == '{' || c == '[';
+  }
+
+  /**
+   * Reads the rest of a string (the opening quote has been consumed), if <code>keep</code> is set the unescaped UTF-8
+   * bytes are left in the scratch buffer.
+   */
+  private void readString(boolean keep) throws IOException {
+    scratchLen = 0;
+    int highSurrogate = -1;
+    while (true) {
+      if (pos == limit && !fill()) {
+        throw new IOException(Utils.format("EOF reached before string finished at position '{}'", getPosition()));
+      }
+      byte[] b = buffer;
+      int l = limit;
+      int start = pos;
+      int p = pos;
+      while (p < l && !STRING_STOP[b[p] & 0xff]) {
+        p++;
+      }
+      if (p > start && highSurrogate != -1) {
+        appendCodePoint(highSurrogate, keep);
+        highSurrogate = -1;
+      }
+      if (keep) {
+        append(b, start, p - start);
+      }
+      pos = p;
+      if (p == l) {
+        continue;
+      }
+      int c = b[p] & 0xff;
+      pos++;
+      if (c == '"') {
+        if (highSurrogate != -1) {
+          appendCodePoint(highSurrogate, keep);
+        }
+        return;
+      } else if (c != '\\') {
+        throw new IOException(Utils.format(
+            "Illegal unquoted character ((CTRL-CHAR, code {})) at position '{}'",
+            c,
+            getPosition() - 1
+        ));
+      }
+      c = nextByte();
+      if (c == 'u') {
+        int unit = readHex();
+        if (highSurrogate != -1) {
+          if (Character.isLowSurrogate((char) unit)) {
+            appendCodePoint(Character.toCodePoint((char) highSurrogate, (char) unit), keep);
+            highSurrogate = -1;
+            continue;
+          }
+          appendCodePoint(highSurrogate, keep);
+          highSurrogate = -1;
+        }
+        if (Character.isHighSurrogate((char) unit)) {
+          highSurrogate = unit;
+        } else {
+          appendCodePoint(unit, keep);
+        }
+        continue;
+      }
+      if (highSurrogate != -1) {
+        appendCodePoint(highSurrogate, keep);
+        highSurrogate = -1;
+      }
+      switch (c) {
+        case '"':
+        case '\\':
+        case '/':
+          break;
+        case 'b':
+          c = '\b';
+          break;
+        case 'f':
+          c = '\f';
+          break;
+        case 'n':
+          c = '\n';
+          break;
+        case 'r':
+          c = '\r';
+          break;
+        case 't':
+          c = '\t';
+          break;
+        default:
+          throw new IOException(Utils.format(
+              "Unrecognized character escape '{}' at position '{}'",
+              describe(c),
+              getPosition() - 1
+          ));
+      }
+      if (keep) {
+        appendByte(c);
+      }
+    }
+  }
+
+  private int readHex() throws IOException {
+    int value = 0;
+    for (int i = 0; i < 4; i++) {
+      int c = nextByte();
+      int digit = Character.digit(c, 16);
+      if (digit < 0) {
+        throw unexpected(c, "a hex digit");
+      }
+      value = (value << 4) | digit;
+    }
+    return value;
+  }
+
+  private Field readNumber() throws IOException {
+    scratchLen = 0;
+    boolean integral = true;
+    int c;
+    while ((c = peek()) != EOF) {
+      if (c == '.' || c == 'e' || c == 'E') {
+        integral = false;
+      } else if (c != '-' && c != '+' && (c < '0' || c > '9')) {
+        break;
+      }
+      appendByte(c);
+      pos++;
+    }
+    if (discarding) {
+      return Field.create(Field.Type.STRING, null);
+    }
+    String number = new String(scratch, 0, scratchLen, StandardCharsets.US_ASCII);
+    if (!isValidNumber(integral)) {
+      throw new IOException(Utils.format("Invalid number '{}' at position '{}'", number, getPosition() - scratchLen));
+    }
+    if (integral) {
+      if (scratchLen <= 18) {
+        long value = Long.parseLong(number);
+        return (value == (int) value) ? Field.create((int) value) : Field.create(value);
+      }
+      try {
+        return Field.create(Long.parseLong(number));
+      } catch (NumberFormatException ex) {
+        return Field.create(new BigDecimal(number));
+      }
+    }
+    return Field.create(Double.parseDouble(number));
+  }
+
+  // -?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?
+  private boolean isValidNumber(boolean integral) {
+    int i = 0;
+    int n = scratchLen;
+    if (i < n && scratch[i] == '-') {
+      i++;
+    }
+    int digits = countDigits(i);
+    if (digits == 0 || (digits > 1 && scratch[i] == '0')) {
+      return false;
+    }
+    i += digits;
+    if (!integral) {
+      if (i < n && scratch[i] == '.') {
+        i++;
+        digits = countDigits(i);
+        if (digits == 0) {
+          return false;
+        }
+        i += digits;
+      }
+      if (i < n && (scratch[i] == 'e' || scratch[i] == 'E')) {
+        i++;
+        if (i < n && (scratch[i] == '+' || scratch[i] == '-')) {
+          i++;
+        }
+        digits = countDigits(i);
+        if (digits == 0) {
+          return false;
+        }
+        i += digits;
+      }
+    }
+    return i == n;
+  }
+
+  private int countDigits(int from) {
+    int i = from;
+    while (i < scratchLen && scratch[i] >= '0' && scratch[i] <= '9') {
+      i++;
+    }
+    return i - from;
+  }
+
+  private void readLiteral(String literal) throws IOException {
+    for (int i = 0; i < literal.length(); i++) {
+      int c = nextByte();
+      if (c != literal.charAt(i)) {
+        throw unexpected(c, "'" + literal + "'");
+      }
+    }
+  }
+
+  /**
+   * Skips a value without decoding it, only strings and the nesting of maps and lists are tracked.
+   */
+  private void skipValue() throws IOException {
+    int c = nextNonWhitespace();
+    if (c == '"') {
+      pos++;
+      readString(false);
+      return;
+    }
+    if (c != '{' && c != '[') {
+      // scalar value
+      while ((c = peek()) != EOF && !SCALAR_STOP[c]) {
+        pos++;
+      }
+      return;
+    }
+    pos++;
+    int depth = 1;
+    while (depth > 0) {
+      if (pos == limit && !fill()) {
+        throw new IOException(Utils.format("EOF reached before JSON value finished at position '{}'", getPosition()));
+      }
+      byte[] b = buffer;
+      int l = limit;
+      int p = pos;
+      while (p < l && !SKIP_STOP[b[p] & 0xff]) {
+        p++;
+      }
+      pos = p;
+      if (p == l) {
+        continue;
+      }
+      c = b[p] & 0xff;
+      pos++;
+      switch (c) {
+        case '"':
+          readString(false);
+          break;
+        case '{':
+        case '[':
+          depth++;
+          break;
+        default:
+          depth--;
+          break;
+      }
+    }
+  }
+
+  private int nextNonWhitespace() throws IOException {
+    while (true) {
+      if (pos == limit && !fill()) {
+        return EOF;
+      }
+      int c = buffer[pos] & 0xff;
+      if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+        return c;
+      }
+      pos++;
+    }
+  }
+
+  private int peek() throws IOException {
+    if (pos == limit && !fill()) {
+      return EOF;
+    }
+    return buffer[pos] & 0xff;
+  }
+
+  private int nextByte() throws IOException {
+    if (pos == limit && !fill()) {
+      throw new IOException(Utils.format("Unexpected EOF at position '{}'", getPosition()));
+    }
+    return buffer[pos++] & 0xff;
+  }
+
+  /**
+   * Reads the next chunk of data, it must be called only once the buffer has been fully consumed. Values are copied
+   * out of the buffer as they are scanned, so the buffer never has to grow. While reading a document the max object
+   * length and the overrun limit are enforced here, once the max object length is exceeded values are not kept anymore.
+   */
+  private boolean fill() throws IOException {
+    if (eof) {
+      return false;
+    }
+    bufferPos += limit;
+    pos = 0;
+    limit = 0;
+    int read;
+    do {
+      read = is.read(buffer, 0, buffer.length);
+    } while (read == 0);
+    if (read < 0) {
+      eof = true;
+      return false;
+    }
+    limit = read;
+    if (inDocument) {
+      long documentLen = bufferPos - documentStart;
+      if (overrunLimit > 0 && documentLen > overrunLimit) {
+        overrun = true;
+        throw new OverrunException(Utils.format("Reader exceeded the read limit '{}'", overrunLimit), bufferPos);
+      }
+      if (maxObjectLen > -1 && documentLen > maxObjectLen) {
+        discarding = true;
+      }
+    }
+    return true;
+  }
+
+  private void append(byte[] b, int offset, int len) {
+    if (discarding || len == 0) {
+      return;
+    }
+    ensureScratch(len);
+    System.arraycopy(b, offset, scratch, scratchLen, len);
+    scratchLen += len;
+  }
+
+  private void appendByte(int c) {
+    if (!discarding) {
+      ensureScratch(1);
+      scratch[scratchLen++] = (byte) c;
+    }
+  }
+
+  private void appendCodePoint(int codePoint, boolean keep) {
+    if (!keep) {
+      return;
+    }
+    if (codePoint < 0x80) {
+      appendByte(codePoint);
+    } else if (codePoint < 0x800) {
+      appendByte(0xc0 | (codePoint >> 6));
+      appendByte(0x80 | (codePoint & 0x3f));
+    } else if (codePoint < 0x10000) {
+      appendByte(0xe0 | (codePoint >> 12));
+      appendByte(0x80 | ((codePoint >> 6) & 0x3f));
+      appendByte(0x80 | (codePoint & 0x3f));
+    } else {
+      appendByte(0xf0 | (codePoint >> 18));
+      appendByte(0x80 | ((codePoint >> 12) & 0x3f));
+      appendByte(0x80 | ((codePoint >> 6) & 0x3f));
+      appendByte(0x80 | (codePoint & 0x3f));
+    }
+  }
+
+  private void ensureScratch(int len) {
+    if (scratchLen + len > scratch.length) {
+      scratch = Arrays.copyOf(scratch, Math.max(scratch.length * 2, scratchLen + len));
+    }
+  }
+
+  private IOException unexpected(int c, String expected) {
+    return new IOException(Utils.format(
+        "Unexpected character '{}' at position '{}', expected {}",
+        describe(c),
+        getPosition(),
+        expected
+    ));
+  }
+
+  private static String describe(int c) {
+    return (c == EOF) ? "EOF" : String.valueOf((char) c);
+  }
+
+  /**
+   * Compiles the field paths into a tree of the values to keep, <code>NULL</code> field paths or a root path mean the
+   * whole documents are kept.
+   */
+  private static Node compile(Collection<String> fieldPaths) {
+    if (fieldPaths == null || fieldPaths.isEmpty()) {
+      return ALL;
+    }
+    Node root = new Node();
+    for (String fieldPath : fieldPaths) {
+      Node node = root;
+      for (PathElement element : PathElement.parse(fieldPath, true)) {
+        switch (element.getType()) {
+          case MAP:
+            node = (PathElement.WILDCARD_ANY_LENGTH.equals(element.getName()))
+                ? node.anyKey() : node.key(element.getName());
+            break;
+          case LIST:
+            node = (element.getIndex() < 0) ? node.anyIndex() : node.index(element.getIndex());
+            break;
+          default:
+            // ROOT
+            break;
+        }
+      }
+      node.all = true;
+    }
+    root.finish();
+    return (root.all) ? ALL : root;
+  }
+
+  /**
+   * Node of the projection tree. If <code>all</code> is set the whole value is kept, otherwise only the entries with a
+   * matching child node are kept.
+   */
+  private static class Node {
+    private boolean all;
+    private final Map<String, Node> keys = new LinkedHashMap<>();
+    private Node anyKey;
+    private final Map<Integer, Node> indexes = new LinkedHashMap<>();
+    private Node anyIndex;
+
+    // lookup structures created by finish()
+    private byte[][] keyNames;
+    private Node[] keyNodes;
+    private int[] indexValues;
+    private Node[] indexNodes;
+
+    Node key(String name) {
+      return keys.computeIfAbsent(name, k -> new Node());
+    }
+
+    Node anyKey() {
+      if (anyKey == null) {
+        anyKey = new Node();
+      }
+      return anyKey;
+    }
+
+    Node index(int index) {
+      return indexes.computeIfAbsent(index, k -> new Node());
+    }
+
+    Node anyIndex() {
+      if (anyIndex == null) {
+        anyIndex = new Node();
+      }
+      return anyIndex;
+    }
+
+    Node getKey(byte[] name, int len) {
+      for (int i = 0; i < keyNames.length; i++) {
+        byte[] keyName = keyNames[i];
+        if (keyName.length == len && equals(keyName, name, len)) {
+          return keyNodes[i];
+        }
+      }
+      return anyKey;
+    }
+
+    Node getIndex(int index) {
+      for (int i = 0; i < indexValues.length; i++) {
+        if (indexValues[i] == index) {
+          return indexNodes[i];
+        }
+      }
+      return anyIndex;
+    }
+
+    private static boolean equals(byte[] a, byte[] b, int len) {
+      for (int i = 0; i < len; i++) {
+        if (a[i] != b[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // wildcards also apply to the explicitly named entries, they are merged into them before creating the lookups
+    void finish() {
+      if (anyKey != null) {
+        for (Node child : keys.values()) {
+          child.merge(anyKey);
+        }
+      }
+      if (anyIndex != null) {
+        for (Node child : indexes.values()) {
+          child.merge(anyIndex);
+        }
+      }
+      keyNames = new byte[keys.size()][];
+      keyNodes = new Node[keys.size()];
+      int i = 0;
+      for (Map.Entry<String, Node> entry : keys.entrySet()) {
+        keyNames[i] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+        keyNodes[i] = entry.getValue();
+        entry.getValue().finish();
+        i++;
+      }
+      indexValues = new int[indexes.size()];
+      indexNodes = new Node[indexes.size()];
+      i = 0;
+      for (Map.Entry<Integer, Node> entry : indexes.entrySet()) {
+        indexValues[i] = entry.getKey();
+        indexNodes[i] = entry.getValue();
+        entry.getValue().finish();
+        i++;
+      }
+      if (anyKey != null) {
+        anyKey.finish();
+      }
+      if (anyIndex != null) {
+        anyIndex.finish();
+      }
+    }
+
+    private void merge(Node other) {
+      all |= other.all;
+      for (Map.Entry<String, Node> entry : other.keys.entrySet()) {
+        key(entry.getKey()).merge(entry.getValue());
+      }
+      if (other.anyKey != null) {
+        anyKey().merge(other.anyKey);
+      }
+      for (Map.Entry<Integer, Node> entry : other.indexes.entrySet()) {
+        index(entry.getKey()).merge(entry.getValue());
+      }
+      if (other.anyIndex != null) {
+        anyIndex().merge(other.anyIndex);
+      }
+    }
+  }
+
+}
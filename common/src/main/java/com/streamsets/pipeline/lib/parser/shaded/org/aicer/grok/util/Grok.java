@@ -15,12 +15,13 @@
  */
 package com.streamsets.pipeline.lib.parser.shaded.org.aicer.grok.util;
 
-import com.streamsets.pipeline.lib.parser.shaded.com.google.code.regexp.MatchResult;
-import com.streamsets.pipeline.lib.parser.shaded.com.google.code.regexp.Matcher;
 import com.streamsets.pipeline.lib.parser.shaded.com.google.code.regexp.Pattern;
 import com.streamsets.pipeline.lib.parser.shaded.org.aicer.grok.dictionary.GrokDictionary;
 
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
 
 /**
  *
@@ -30,12 +31,51 @@ import java.util.Map;
 public final class Grok {
 
   private final Pattern compiledPattern;
+  private final String[] groupNames;
+  private final int[] groupIndexes;
 
   /**
    * Constructor
    */
   public Grok(final Pattern compiledPattern) {
      this.compiledPattern = compiledPattern;
+     List<String> names = compiledPattern.groupNames();
+     this.groupNames = names.toArray(new String[names.size()]);
+     this.groupIndexes = new int[groupNames.length];
+     for (int i = 0; i < groupNames.length; i++) {
+       // capture groups start at 1 in the matcher while the pattern returns a 0-based index
+       groupIndexes[i] = compiledPattern.indexOf(groupNames[i]) + 1;
+     }
+  }
+
+  /**
+   * Returns the names of the named groups, in the order they appear in the expression
+   *
+   * @return the names of the named groups
+   */
+  public String[] getGroupNames() {
+    return groupNames.clone();
+  }
+
+  /**
+   * Returns the matcher group indexes of the named groups, in the same order as {@link #getGroupNames()}
+   *
+   * @return the group indexes of the named groups
+   */
+  public int[] getGroupIndexes() {
+    return groupIndexes.clone();
+  }
+
+  /**
+   * Finds the expression in the raw data with a single pass of the underlying regular expression
+   *
+   * @param rawData
+   * @return the matcher positioned at the match, to read the named groups by their group indexes, or null if there
+   * are no matches
+   */
+  public Matcher match(final CharSequence rawData) {
+    Matcher matcher = compiledPattern.pattern().matcher(rawData);
+    return matcher.find() ? matcher : null;
   }
 
   /**
@@ -45,15 +85,15 @@ public final class Grok {
    * @return A map of group names mapped to their extracted values or null if there are no matches
    */
   public Map<String, String> extractNamedGroups(final CharSequence rawData) {
-    Matcher matcher = compiledPattern.matcher(rawData);
-    if (matcher.find()) {
-      MatchResult r = matcher.toMatchResult();
-      if (r != null && r.namedGroups() != null) {
-        return r.namedGroups();
-      }
+    Matcher matcher = match(rawData);
+    if (matcher == null) {
+      return null;
     }
-
-    return null;
+    Map<String, String> result = new LinkedHashMap<>();
+    for (int i = 0; i < groupNames.length; i++) {
+      result.put(groupNames[i], matcher.group(groupIndexes[i]));
+    }
+    return result;
   }
 
   private static final void displayResults(final Map<String, String> results) {
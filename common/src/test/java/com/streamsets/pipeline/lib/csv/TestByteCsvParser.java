@@ -0,0 +1,303 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.csv;
+
+import com.streamsets.pipeline.api.ext.io.ObjectLengthException;
+import org.apache.commons.csv.CSVFormat;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestByteCsvParser {
+
+  private InputStream getStream(String name) {
+    return Thread.currentThread().getContextClassLoader().getResourceAsStream(name);
+  }
+
+  private InputStream toStream(String data) {
+    return new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testParserRecords() throws Exception {
+    ByteCsvParser parser = new ByteCsvParser(
+        getStream("TestCsvParser-default.csv"),
+        CSVFormat.DEFAULT.withHeader((String[])null).withSkipHeaderRecord(true),
+        StandardCharsets.UTF_8,
+        -1,
+        0,
+        0
+    );
+    try {
+      Assert.assertArrayEquals(new String[]{"h1", "h2", "h3", "h4"}, parser.getHeaders());
+      Assert.assertEquals(12, parser.getReaderPosition());
+
+      String[] record = parser.read();
+      Assert.assertEquals(20, parser.getReaderPosition());
+      Assert.assertArrayEquals(new String[]{"a", "b", "c", "d"}, record);
+
+      record = parser.read();
+      Assert.assertEquals(33, parser.getReaderPosition());
+      Assert.assertArrayEquals(new String[]{"w", "x", "y", "z", "extra"}, record);
+
+      Assert.assertNull(parser.read());
+      Assert.assertEquals(33, parser.getReaderPosition());
+    } finally {
+      parser.close();
+    }
+  }
+
+  @Test
+  public void testParserRecordsFromOffset() throws Exception {
+    ByteCsvParser parser = new ByteCsvParser(
+        getStream("TestCsvParser-default.csv"),
+        CSVFormat.DEFAULT.withHeader((String[])null).withSkipHeaderRecord(true),
+        StandardCharsets.UTF_8,
+        -1,
+        20,
+        0
+    );
+    try {
+      Assert.assertArrayEquals(new String[]{"h1", "h2", "h3", "h4"}, parser.getHeaders());
+      Assert.assertEquals(20, parser.getReaderPosition());
+      Assert.assertArrayEquals(new String[]{"w", "x", "y", "z", "extra"}, parser.read());
+      Assert.assertNull(parser.read());
+    } finally {
+      parser.close();
+    }
+
+    parser = new ByteCsvParser(toStream("a,b\nc,d\n"), CSVFormat.DEFAULT, StandardCharsets.UTF_8, -1, 4, 0);
+    try {
+      Assert.assertNull(parser.getHeaders());
+      Assert.assertArrayEquals(new String[]{"c", "d"}, parser.read());
+      Assert.assertEquals(8, parser.getReaderPosition());
+      Assert.assertNull(parser.read());
+    } finally {
+      parser.close();
+    }
+  }
+
+  @Test
+  public void testByteOffsets() throws Exception {
+    // 'ä' is two bytes in UTF-8
+    ByteCsvParser parser = new ByteCsvParser(toStream("ä,b\nc,ä\n"), CSVFormat.DEFAULT, StandardCharsets.UTF_8, -1, 0, 0);
+    try {
+      Assert.assertArrayEquals(new String[]{"ä", "b"}, parser.read());
+      Assert.assertEquals(5, parser.getReaderPosition());
+      Assert.assertArrayEquals(new String[]{"c", "ä"}, parser.read());
+      Assert.assertEquals(10, parser.getReaderPosition());
+    } finally {
+      parser.close();
+    }
+  }
+
+  @Test
+  public void testMaxObjectLen() throws Exception {
+    ByteCsvParser parser = new ByteCsvParser(
+        toStream("a,b,c\naa,bb,cc\ne,f,g\n"),
+        CSVFormat.DEFAULT,
+        StandardCharsets.UTF_8,
+        6,
+        0,
+        0
+    );
+    try {
+      Assert.assertArrayEquals(new String[]{"a", "b", "c"}, parser.read());
+      Assert.assertEquals(6, parser.getReaderPosition());
+      try {
+        parser.read();
+        Assert.fail();
+      } catch (ObjectLengthException ex) {
+      }
+      Assert.assertEquals(15, parser.getReaderPosition());
+      Assert.assertArrayEquals(new String[]{"e", "f", "g"}, parser.read());
+      Assert.assertNull(parser.read());
+    } finally {
+      parser.close();
+    }
+  }
+
+  @Test
+  public void testMaxObjectLenLargerThanBuffer() throws Exception {
+    StringBuilder sb = new StringBuilder("a,\"");
+    for (int i = 0; i < 100000; i++) {
+      sb.append((i % 10 == 0) ? "\"\"" : "x");
+    }
+    sb.append("\"\nb,c\n");
+    ByteCsvParser parser = new ByteCsvParser(toStream(sb.toString()), CSVFormat.DEFAULT, StandardCharsets.UTF_8, 10, 0, 0);
+    try {
+      try {
+        parser.read();
+        Assert.fail();
+      } catch (ObjectLengthException ex) {
+      }
+      Assert.assertArrayEquals(new String[]{"b", "c"}, parser.read());
+      Assert.assertNull(parser.read());
+    } finally {
+      parser.close();
+    }
+  }
+
+  @Test
+  public void testSkipLines() throws Exception {
+    ByteCsvParser parser = new ByteCsvParser(
+        toStream("foo\nbar\r\na,b,c\naa,bb,cc\ne,f,g\n"),
+        CSVFormat.DEFAULT,
+        StandardCharsets.UTF_8,
+        -1,
+        0,
+        2
+    );
+    try {
+      Assert.assertEquals(9, parser.getReaderPosition());
+      Assert.assertArrayEquals(new String[]{"a", "b", "c"}, parser.read());
+      Assert.assertEquals(15, parser.getReaderPosition());
+      Assert.assertArrayEquals(new String[]{"aa", "bb", "cc"}, parser.read());
+      Assert.assertEquals(24, parser.getReaderPosition());
+      Assert.assertArrayEquals(new String[]{"e", "f", "g"}, parser.read());
+      Assert.assertEquals(30, parser.getReaderPosition());
+      Assert.assertNull(parser.read());
+    } finally {
+      parser.close();
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testInvalidCharAfterQuote() throws Exception {
+    ByteCsvParser parser = new ByteCsvParser(
+        toStream("0,\"020\"1,\"BS:5252525  ORDER:99999\"4"),
+        CSVFormat.DEFAULT,
+        StandardCharsets.UTF_8,
+        -1,
+        0,
+        0
+    );
+    parser.read();
+  }
+
+  @Test(expected = IOException.class)
+  public void testUnterminatedQuote() throws Exception {
+    ByteCsvParser parser = new ByteCsvParser(toStream("a,\"b\n"), CSVFormat.DEFAULT, StandardCharsets.UTF_8, -1, 0, 0);
+    parser.read();
+  }
+
+  @Test
+  public void testSupported() {
+    Assert.assertTrue(ByteCsvParser.isSupported(CSVFormat.DEFAULT, StandardCharsets.UTF_8));
+    Assert.assertTrue(ByteCsvParser.isSupported(CSVFormat.MYSQL, StandardCharsets.ISO_8859_1));
+    Assert.assertFalse(ByteCsvParser.isSupported(CSVFormat.DEFAULT, StandardCharsets.UTF_16));
+    Assert.assertFalse(ByteCsvParser.isSupported(CSVFormat.DEFAULT.withDelimiter('§'), StandardCharsets.UTF_8));
+  }
+
+  private List<String[]> readAll(CsvParser parser) throws IOException {
+    List<String[]> records = new ArrayList<>();
+    String[] record;
+    while ((record = parser.read()) != null) {
+      records.add(record);
+    }
+    return records;
+  }
+
+  private List<String[]> readAll(ByteCsvParser parser) throws IOException {
+    List<String[]> records = new ArrayList<>();
+    String[] record;
+    while ((record = parser.read()) != null) {
+      records.add(record);
+    }
+    return records;
+  }
+
+  @Test
+  public void testSameRecordsAsCommonsCsv() throws Exception {
+    CSVFormat[] formats = {
+        CSVFormat.DEFAULT,
+        CSVFormat.RFC4180,
+        CSVFormat.EXCEL,
+        CSVFormat.MYSQL,
+        CSVFormat.TDF,
+        CSVFormat.DEFAULT.withEscape('\\').withCommentMarker('#').withIgnoreEmptyLines(false),
+        CSVFormat.DEFAULT.withDelimiter('|').withEscape('\\').withTrim(true).withTrailingDelimiter(true),
+    };
+    String[] inputs = {
+        "a,b,c\r\nd,e,f",
+        "a,b,\n\n\nc,,d\n",
+        "\"a,1\",\"b\"\"2\",\"multi\nline\"\nx,y,z\n",
+        "  a  ,  \"b\"  ,c\t\n",
+        "# comment\na,b\n#another\n",
+        "a\\,b,c\\nd,e\\x,\"f\\\"g\"\n",
+        "a\tb\t\\N\n\\\\\tc\n",
+        "a|b|\n c | d |e|\n",
+        "ä,ö\r\nü,\"ß\"\r\n",
+        "a,b,",
+    };
+    for (CSVFormat format : formats) {
+      for (String input : inputs) {
+        String message = format + " " + input;
+        List<String[]> expected;
+        try (CsvParser parser = new CsvParser(new StringReader(input), format, -1)) {
+          expected = readAll(parser);
+        } catch (IOException | RuntimeException ex) {
+          expected = null;
+        }
+        List<String[]> got;
+        try (ByteCsvParser parser = new ByteCsvParser(toStream(input), format, StandardCharsets.UTF_8, -1, 0, 0)) {
+          got = readAll(parser);
+        } catch (IOException ex) {
+          got = null;
+        }
+        if (expected == null) {
+          Assert.assertNull(message, got);
+        } else {
+          Assert.assertNotNull(message, got);
+          Assert.assertEquals(message, expected.size(), got.size());
+          for (int i = 0; i < expected.size(); i++) {
+            Assert.assertArrayEquals(message, expected.get(i), got.get(i));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRecordsSpanningBuffers() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      sb.append(i).append(",\"value ").append(i).append("\"\"\",").append("x\\y").append('\n');
+    }
+    try (ByteCsvParser parser = new ByteCsvParser(
+        toStream(sb.toString()),
+        CSVFormat.DEFAULT.withEscape('\\'),
+        StandardCharsets.UTF_8,
+        -1,
+        0,
+        0
+    )) {
+      for (int i = 0; i < 20000; i++) {
+        Assert.assertArrayEquals(new String[]{String.valueOf(i), "value " + i + "\"", "x\\y"}, parser.read());
+      }
+      Assert.assertNull(parser.read());
+      Assert.assertEquals(sb.length(), parser.getReaderPosition());
+    }
+  }
+
+}
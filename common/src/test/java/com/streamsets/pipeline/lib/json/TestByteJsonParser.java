@@ -0,0 +1,245 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.json;
+
+import com.google.common.collect.ImmutableList;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.ext.io.ObjectLengthException;
+import com.streamsets.pipeline.api.ext.io.OverrunException;
+import com.streamsets.pipeline.api.ext.json.Mode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class TestByteJsonParser {
+
+  private InputStream toStream(String data) {
+    return new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private ByteJsonParser createParser(String data, Mode mode, List<String> fieldPaths) throws IOException {
+    return new ByteJsonParser(toStream(data), 0, mode, -1, -1, fieldPaths);
+  }
+
+  @Test
+  public void testMultipleObjects() throws Exception {
+    try (ByteJsonParser parser = createParser("[\"Hello\"]\n[\"Bye\"]", Mode.MULTIPLE_OBJECTS, null)) {
+      Assert.assertEquals(0, parser.getReaderPosition());
+      Field field = parser.read();
+      Assert.assertEquals("Hello", field.getValueAsList().get(0).getValueAsString());
+      Assert.assertEquals(10, parser.getReaderPosition());
+      field = parser.read();
+      Assert.assertEquals("Bye", field.getValueAsList().get(0).getValueAsString());
+      Assert.assertEquals(17, parser.getReaderPosition());
+      Assert.assertNull(parser.read());
+    }
+  }
+
+  @Test
+  public void testMultipleObjectsWithOffset() throws Exception {
+    try (ByteJsonParser parser = new ByteJsonParser(toStream("[\"Hello\"]\n[\"Bye\"]"), 10, Mode.MULTIPLE_OBJECTS,
+        -1, -1, null)) {
+      Assert.assertEquals(10, parser.getReaderPosition());
+      Assert.assertEquals("Bye", parser.read().getValueAsList().get(0).getValueAsString());
+      Assert.assertEquals(17, parser.getReaderPosition());
+      Assert.assertNull(parser.read());
+    }
+  }
+
+  @Test
+  public void testArrayObjects() throws Exception {
+    try (ByteJsonParser parser = createParser("[[\"Hello\"], [\"Bye\"]]", Mode.ARRAY_OBJECTS, null)) {
+      Assert.assertEquals(1, parser.getReaderPosition());
+      Assert.assertEquals("Hello", parser.read().getValueAsList().get(0).getValueAsString());
+      Assert.assertEquals(12, parser.getReaderPosition());
+      Assert.assertEquals("Bye", parser.read().getValueAsList().get(0).getValueAsString());
+      Assert.assertEquals(19, parser.getReaderPosition());
+      Assert.assertNull(parser.read());
+    }
+
+    try (ByteJsonParser parser = new ByteJsonParser(toStream("[[\"Hello\"], [\"Bye\"]]"), 12, Mode.ARRAY_OBJECTS,
+        -1, -1, null)) {
+      Assert.assertEquals("Bye", parser.read().getValueAsList().get(0).getValueAsString());
+      Assert.assertNull(parser.read());
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testArrayObjectsNotArray() throws Exception {
+    createParser("{\"a\": 1}", Mode.ARRAY_OBJECTS, null);
+  }
+
+  @Test
+  public void testTypes() throws Exception {
+    String json = "{\"s\": \"a\\\"b\\\\c\\/\\n\\u00e9\\ud83d\\ude00\u00e4\", \"i\": 1, \"l\": 10000000000, " +
+        "\"big\": 100000000000100000000000, \"d\": -1.5e2, \"t\": true, \"f\": false, \"n\": null, " +
+        "\"list\": [], \"map\": {}}";
+    try (ByteJsonParser parser = createParser(json, Mode.MULTIPLE_OBJECTS, null)) {
+      Map<String, Field> map = parser.read().getValueAsMap();
+      Assert.assertEquals("a\"b\\c/\n\u00e9\ud83d\ude00\u00e4", map.get("s").getValueAsString());
+      Assert.assertEquals(Field.Type.INTEGER, map.get("i").getType());
+      Assert.assertEquals(1, map.get("i").getValueAsInteger());
+      Assert.assertEquals(Field.Type.LONG, map.get("l").getType());
+      Assert.assertEquals(10000000000L, map.get("l").getValueAsLong());
+      Assert.assertEquals(Field.Type.DECIMAL, map.get("big").getType());
+      Assert.assertEquals(new BigDecimal("100000000000100000000000"), map.get("big").getValueAsDecimal());
+      Assert.assertEquals(Field.Type.DOUBLE, map.get("d").getType());
+      Assert.assertEquals(-150d, map.get("d").getValueAsDouble(), 0);
+      Assert.assertTrue(map.get("t").getValueAsBoolean());
+      Assert.assertFalse(map.get("f").getValueAsBoolean());
+      Assert.assertEquals(Field.Type.STRING, map.get("n").getType());
+      Assert.assertNull(map.get("n").getValue());
+      Assert.assertTrue(map.get("list").getValueAsList().isEmpty());
+      Assert.assertTrue(map.get("map").getValueAsMap().isEmpty());
+      Assert.assertNull(parser.read());
+    }
+  }
+
+  @Test
+  public void testInvalidJson() throws Exception {
+    String[] invalid = {"{\"a\" 1}", "{\"a\": 01}", "{\"a\": tru}", "[1 2]", "{\"a\": \"b\nc\"}", "{\"a\": \"b"};
+    for (String json : invalid) {
+      try (ByteJsonParser parser = createParser(json, Mode.MULTIPLE_OBJECTS, null)) {
+        parser.read();
+        Assert.fail(json);
+      } catch (IOException ex) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testProjection() throws Exception {
+    String json = "{\"id\": 1, \"name\": \"x\", \"skip\": {\"a\": [1, {\"b\": \"}]\\\"\"}], \"c\": null}, " +
+        "\"user\": {\"id\": 2, \"email\": \"e\", \"tags\": [\"t1\", \"t2\"]}, " +
+        "\"items\": [{\"id\": 3, \"v\": 1}, {\"id\": 4, \"v\": 2}], \"scalar\": 5}\n" +
+        "{\"id\": 6, \"user\": \"not a map\"}";
+    List<String> fieldPaths = ImmutableList.of("/id", "/user/tags", "/items[*]/id", "/scalar/x");
+    try (ByteJsonParser parser = createParser(json, Mode.MULTIPLE_OBJECTS, fieldPaths)) {
+      Map<String, Field> map = parser.read().getValueAsMap();
+      Assert.assertEquals(3, map.size());
+      Assert.assertEquals(1, map.get("id").getValueAsInteger());
+      Map<String, Field> user = map.get("user").getValueAsMap();
+      Assert.assertEquals(Collections.singleton("tags"), user.keySet());
+      Assert.assertEquals(2, user.get("tags").getValueAsList().size());
+      List<Field> items = map.get("items").getValueAsList();
+      Assert.assertEquals(2, items.size());
+      Assert.assertEquals(Collections.singleton("id"), items.get(0).getValueAsMap().keySet());
+      Assert.assertEquals(3, items.get(0).getValueAsMap().get("id").getValueAsInteger());
+      Assert.assertEquals(4, items.get(1).getValueAsMap().get("id").getValueAsInteger());
+
+      map = parser.read().getValueAsMap();
+      Assert.assertEquals(Collections.singleton("id"), map.keySet());
+      Assert.assertEquals(6, map.get("id").getValueAsInteger());
+      Assert.assertNull(parser.read());
+    }
+  }
+
+  @Test
+  public void testProjectionWildcards() throws Exception {
+    String json = "{\"m\": {\"a\": {\"x\": 1, \"y\": 2}, \"b\": {\"x\": 3, \"y\": 4}}, \"l\": [10, 20, 30]}";
+    List<String> fieldPaths = ImmutableList.of("/m/*/x", "/m/b/y", "/l[1]");
+    try (ByteJsonParser parser = createParser(json, Mode.MULTIPLE_OBJECTS, fieldPaths)) {
+      Map<String, Field> map = parser.read().getValueAsMap();
+      Map<String, Field> m = map.get("m").getValueAsMap();
+      Assert.assertEquals(Collections.singleton("x"), m.get("a").getValueAsMap().keySet());
+      Assert.assertEquals(2, m.get("b").getValueAsMap().size());
+      Assert.assertEquals(3, m.get("b").getValueAsMap().get("x").getValueAsInteger());
+      Assert.assertEquals(4, m.get("b").getValueAsMap().get("y").getValueAsInteger());
+      List<Field> l = map.get("l").getValueAsList();
+      Assert.assertEquals(1, l.size());
+      Assert.assertEquals(20, l.get(0).getValueAsInteger());
+    }
+
+    try (ByteJsonParser parser = createParser(json, Mode.MULTIPLE_OBJECTS, ImmutableList.of("/"))) {
+      Assert.assertEquals(2, parser.read().getValueAsMap().size());
+    }
+  }
+
+  @Test
+  public void testMaxObjectLen() throws Exception {
+    StringBuilder sb = new StringBuilder("{\"a\": 1}\n{\"big\": [");
+    for (int i = 0; i < 100000; i++) {
+      sb.append("\"value\", ");
+    }
+    sb.append("1]}\n{\"b\": 2}\n");
+    try (ByteJsonParser parser = new ByteJsonParser(toStream(sb.toString()), 0, Mode.MULTIPLE_OBJECTS, 100, -1, null)) {
+      Assert.assertEquals(1, parser.read().getValueAsMap().get("a").getValueAsInteger());
+      try {
+        parser.read();
+        Assert.fail();
+      } catch (ObjectLengthException ex) {
+        // expected
+      }
+      Assert.assertEquals(2, parser.read().getValueAsMap().get("b").getValueAsInteger());
+      Assert.assertNull(parser.read());
+    }
+  }
+
+  @Test
+  public void testOverrun() throws Exception {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < 100000; i++) {
+      sb.append("\"value\", ");
+    }
+    sb.append("1]\n");
+    try (ByteJsonParser parser = new ByteJsonParser(toStream(sb.toString()), 0, Mode.MULTIPLE_OBJECTS, -1, 1000,
+        null)) {
+      try {
+        parser.read();
+        Assert.fail();
+      } catch (OverrunException ex) {
+        // expected
+      }
+      try {
+        parser.read();
+        Assert.fail();
+      } catch (IllegalStateException ex) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testValuesSpanningBuffers() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    StringBuilder value = new StringBuilder();
+    for (int i = 0; i < 50000; i++) {
+      value.append("\\u00e9\\\"");
+    }
+    for (int i = 0; i < 20; i++) {
+      sb.append("{\"i\": ").append(i).append(", \"s\": \"").append(value).append("\"}\n");
+    }
+    try (ByteJsonParser parser = createParser(sb.toString(), Mode.MULTIPLE_OBJECTS, null)) {
+      for (int i = 0; i < 20; i++) {
+        Map<String, Field> map = parser.read().getValueAsMap();
+        Assert.assertEquals(i, map.get("i").getValueAsInteger());
+        Assert.assertEquals(100000, map.get("s").getValueAsString().length());
+      }
+      Assert.assertNull(parser.read());
+      Assert.assertEquals(sb.length(), parser.getReaderPosition());
+    }
+  }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.parser.delimited;
+
+import com.streamsets.pipeline.api.ProtoConfigurableEntity;
+import com.streamsets.pipeline.lib.csv.ByteCsvParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Delimited data parser reading the bytes of the stream with a {@link ByteCsvParser}, offsets are byte offsets.
+ */
+public class DelimitedByteDataParser extends AbstractDelimitedDataParser {
+  private final ByteCsvParser parser;
+
+  public DelimitedByteDataParser(
+      ProtoConfigurableEntity.Context context,
+      String readerId,
+      InputStream is,
+      Charset charset,
+      long readerOffset,
+      DelimitedDataParserSettings settings
+  ) throws IOException {
+    super(context, readerId, settings);
+    parser = new ByteCsvParser(
+        is,
+        settings.getFormat(),
+        charset,
+        settings.getMaxObjectLen(),
+        readerOffset,
+        settings.getSkipStartLines()
+    );
+    setHeaders(parser.getHeaders());
+  }
+
+  @Override
+  protected String[] readColumns() throws IOException {
+    return parser.read();
+  }
+
+  @Override
+  protected long getReaderPosition() {
+    return parser.getReaderPosition();
+  }
+
+  @Override
+  public void close() throws IOException {
+    parser.close();
+  }
+
+}
@@ -21,7 +21,9 @@ import com.streamsets.pipeline.api.ext.io.OverrunReader;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.config.CsvHeader;
 import com.streamsets.pipeline.config.CsvMode;
+import com.streamsets.pipeline.config.CsvParserEngine;
 import com.streamsets.pipeline.config.CsvRecordType;
+import com.streamsets.pipeline.lib.csv.ByteCsvParser;
 import com.streamsets.pipeline.lib.parser.DataParser;
 import com.streamsets.pipeline.lib.parser.DataParserException;
 import com.streamsets.pipeline.lib.parser.DataParserFactory;
@@ -48,6 +50,7 @@ public class DelimitedDataParserFactory extends DataParserFactory {
       .put(DelimitedDataConstants.IGNORE_EMPTY_LINES_CONFIG, true)
       .put(DelimitedDataConstants.ALLOW_EXTRA_COLUMNS, false)
       .put(DelimitedDataConstants.EXTRA_COLUMN_PREFIX, DelimitedDataConstants.DEFAULT_EXTRA_COLUMN_PREFIX)
+      .put(DelimitedDataConstants.PARSER_ENGINE, CsvParserEngine.APACHE_COMMONS)
       .build();
 
   public static final Set<Class<? extends Enum>> MODES =
@@ -59,6 +62,25 @@ public class DelimitedDataParserFactory extends DataParserFactory {
 
   @Override
   public DataParser getParser(String id, InputStream is, String offset) throws DataParserException {
+    CSVFormat csvFormat = getFormat();
+    // the byte scanner works on the raw bytes, any character level processing requires the reader based parser
+    if (getSettings().getConfig(DelimitedDataConstants.PARSER_ENGINE) == CsvParserEngine.BYTE_SCANNER &&
+        !getSettings().getRemoveCtrlChars() &&
+        ByteCsvParser.isSupported(csvFormat, getSettings().getCharset())) {
+      long readerOffset = Long.parseLong(offset);
+      try {
+        return new DelimitedByteDataParser(
+            getSettings().getContext(),
+            id,
+            is,
+            getSettings().getCharset(),
+            readerOffset,
+            createParserSettings(csvFormat)
+        );
+      } catch (IOException ex) {
+        throw new DataParserException(Errors.DELIMITED_PARSER_00, id, readerOffset, ex.toString(), ex);
+      }
+    }
     return createParser(id, createReader(is), Long.parseLong(offset));
   }
 
@@ -70,6 +92,15 @@ public class DelimitedDataParserFactory extends DataParserFactory {
   private DataParser createParser(String id, OverrunReader reader, long offset) throws DataParserException {
     Utils.checkState(reader.getPos() == 0, Utils.formatL("reader must be in position '0', it is at '{}'",
                                                          reader.getPos()));
+    try {
+      DelimitedDataParserSettings settings = createParserSettings(getFormat());
+      return new DelimitedCharDataParser(getSettings().getContext(), id, reader, offset, settings);
+    } catch (IOException ex) {
+      throw new DataParserException(Errors.DELIMITED_PARSER_00, id, offset, ex.toString(), ex);
+    }
+  }
+
+  private CSVFormat getFormat() {
     CSVFormat csvFormat = getSettings().getMode(CsvMode.class).getFormat();
 
     if (getSettings().getMode(CsvMode.class) == CsvMode.CUSTOM) {
@@ -85,23 +116,21 @@ public class DelimitedDataParserFactory extends DataParserFactory {
       }
     }
 
-    try {
-      DelimitedDataParserSettings settings = DelimitedDataParserSettings.builder()
-          .withSkipStartLines(getSettings().getConfig(DelimitedDataConstants.SKIP_START_LINES))
-          .withFormat(csvFormat)
-          .withHeader(getSettings().getMode(CsvHeader.class))
-          .withMaxObjectLen(getSettings().getMaxRecordLen())
-          .withRecordType(getSettings().getMode(CsvRecordType.class))
-          .withParseNull(getSettings().getConfig(DelimitedDataConstants.PARSE_NULL))
-          .withNullConstant(getSettings().getConfig(DelimitedDataConstants.NULL_CONSTANT))
-          .withAllowExtraColumns(getSettings().getConfig(DelimitedDataConstants.ALLOW_EXTRA_COLUMNS))
-          .withExtraColumnPrefix(getSettings().getConfig(DelimitedDataConstants.EXTRA_COLUMN_PREFIX))
-          .build();
+    return csvFormat;
+  }
 
-      return new DelimitedCharDataParser(getSettings().getContext(), id, reader, offset, settings);
-    } catch (IOException ex) {
-      throw new DataParserException(Errors.DELIMITED_PARSER_00, id, offset, ex.toString(), ex);
-    }
+  private DelimitedDataParserSettings createParserSettings(CSVFormat csvFormat) {
+    return DelimitedDataParserSettings.builder()
+        .withSkipStartLines(getSettings().getConfig(DelimitedDataConstants.SKIP_START_LINES))
+        .withFormat(csvFormat)
+        .withHeader(getSettings().getMode(CsvHeader.class))
+        .withMaxObjectLen(getSettings().getMaxRecordLen())
+        .withRecordType(getSettings().getMode(CsvRecordType.class))
+        .withParseNull(getSettings().getConfig(DelimitedDataConstants.PARSE_NULL))
+        .withNullConstant(getSettings().getConfig(DelimitedDataConstants.NULL_CONSTANT))
+        .withAllowExtraColumns(getSettings().getConfig(DelimitedDataConstants.ALLOW_EXTRA_COLUMNS))
+        .withExtraColumnPrefix(getSettings().getConfig(DelimitedDataConstants.EXTRA_COLUMN_PREFIX))
+        .build();
   }
 
 }
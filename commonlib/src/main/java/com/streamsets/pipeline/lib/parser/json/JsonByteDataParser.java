@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.parser.json;
+
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.ProtoConfigurableEntity;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.ext.io.ObjectLengthException;
+import com.streamsets.pipeline.api.ext.json.Mode;
+import com.streamsets.pipeline.lib.json.ByteJsonParser;
+import com.streamsets.pipeline.lib.parser.AbstractDataParser;
+import com.streamsets.pipeline.lib.parser.DataParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * JSON data parser reading UTF-8 bytes with a {@link ByteJsonParser}, offsets are byte offsets. Only the values
+ * selected by the field paths are kept in the records.
+ */
+public class JsonByteDataParser extends AbstractDataParser {
+  private final ProtoConfigurableEntity.Context context;
+  private final String readerId;
+  private final int maxObjectLen;
+  private final ByteJsonParser parser;
+  private boolean eof;
+
+  public JsonByteDataParser(
+      ProtoConfigurableEntity.Context context,
+      String readerId,
+      InputStream is,
+      long readerOffset,
+      Mode mode,
+      int maxObjectLen,
+      int overrunLimit,
+      List<String> fieldPaths
+  ) throws IOException {
+    this.context = context;
+    this.readerId = readerId;
+    this.maxObjectLen = maxObjectLen;
+    parser = new ByteJsonParser(is, readerOffset, mode, maxObjectLen, overrunLimit, fieldPaths);
+  }
+
+  @Override
+  public Record parse() throws IOException, DataParserException {
+    Record record = null;
+    long offset = parser.getReaderPosition();
+    try {
+      Field field = parser.read();
+      if (field != null) {
+        record = context.createRecord(readerId + "::" + offset);
+        record.set(field);
+      } else {
+        eof = true;
+      }
+    } catch (ObjectLengthException ex) {
+      throw new DataParserException(Errors.JSON_PARSER_02, readerId, offset, maxObjectLen);
+    }
+    return record;
+  }
+
+  @Override
+  public String getOffset() {
+    return eof ? String.valueOf(-1) : String.valueOf(parser.getReaderPosition());
+  }
+
+  @Override
+  public void close() throws IOException {
+    parser.close();
+  }
+
+}
@@ -15,10 +15,12 @@
  */
 package com.streamsets.pipeline.lib.parser.json;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.streamsets.pipeline.api.ext.io.OverrunReader;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.config.JsonMode;
+import com.streamsets.pipeline.config.JsonParserEngine;
 import com.streamsets.pipeline.lib.parser.DataParser;
 import com.streamsets.pipeline.lib.parser.DataParserException;
 import com.streamsets.pipeline.lib.parser.DataParserFactory;
@@ -26,12 +28,24 @@ import com.streamsets.pipeline.lib.parser.DataParserFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public class JsonDataParserFactory extends DataParserFactory {
-  public static final Map<String, Object> CONFIGS = Collections.emptyMap();
+  static final String KEY_PREFIX = "json.";
+  public static final String PARSER_ENGINE_KEY = KEY_PREFIX + "parserEngine";
+  static final JsonParserEngine PARSER_ENGINE_DEFAULT = JsonParserEngine.JACKSON;
+
+  public static final String FIELD_PATHS_KEY = KEY_PREFIX + "fieldPaths";
+  static final List<String> FIELD_PATHS_DEFAULT = Collections.emptyList();
+
+  public static final Map<String, Object> CONFIGS = ImmutableMap.of(
+      PARSER_ENGINE_KEY, PARSER_ENGINE_DEFAULT,
+      FIELD_PATHS_KEY, FIELD_PATHS_DEFAULT
+  );
 
   @SuppressWarnings("umchecked")
   public static final Set<Class<? extends Enum>> MODES = ImmutableSet.of(JsonMode.class);
@@ -42,6 +56,27 @@ public class JsonDataParserFactory extends DataParserFactory {
 
   @Override
   public DataParser getParser(String id, InputStream is, String offset) throws DataParserException {
+    // the byte scanner works on the raw UTF-8 bytes, any character level processing requires the reader based parser
+    if (getSettings().getConfig(PARSER_ENGINE_KEY) == JsonParserEngine.BYTE_SCANNER &&
+        !getSettings().getRemoveCtrlChars() &&
+        (StandardCharsets.UTF_8.equals(getSettings().getCharset()) ||
+            StandardCharsets.US_ASCII.equals(getSettings().getCharset()))) {
+      long readerOffset = Long.parseLong(offset);
+      try {
+        return new JsonByteDataParser(
+            getSettings().getContext(),
+            id,
+            is,
+            readerOffset,
+            getSettings().getMode(JsonMode.class).getFormat(),
+            getSettings().getMaxRecordLen(),
+            getSettings().getOverRunLimit(),
+            getSettings().<List<String>>getConfig(FIELD_PATHS_KEY)
+        );
+      } catch (IOException ex) {
+        throw new DataParserException(Errors.JSON_PARSER_00, id, readerOffset, ex.toString(), ex);
+      }
+    }
     return createParser(id, createReader(is), Long.parseLong(offset));
   }
 
@@ -0,0 +1,409 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.parser.log;
+
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.ProtoConfigurableEntity;
+import com.streamsets.pipeline.api.ext.io.OverrunReader;
+import com.streamsets.pipeline.lib.parser.DataParserException;
+import com.streamsets.pipeline.lib.parser.shaded.org.aicer.grok.util.Grok;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parser for the Common and Combined Log Formats.
+ * <p/>
+ * Lines are split by a tokenizer that walks the fixed delimiters of the format and creates the fields straight from
+ * the line, without running the regular expression. The tokenizer only accepts the exact layout the
+ * <code>COMMONAPACHELOG</code> and <code>COMBINEDAPACHELOG</code> Grok expressions would match without backtracking,
+ * any other line (IPv6 client addresses, 2 digit years, single quoted strings, ...) is parsed with the Grok expression,
+ * so both produce the same fields for every line.
+ */
+public class ApacheAccessLogParser extends GrokParser {
+
+  private static final String[] MONTHS = {
+      "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+  };
+  private static final int MAX_HOSTNAME_LABEL_LEN = 63;
+  private static final String HTTP_VERSION_PREFIX = "HTTP/";
+
+  private final boolean combined;
+
+  public ApacheAccessLogParser(
+      ProtoConfigurableEntity.Context context,
+      String readerId,
+      OverrunReader reader,
+      long readerOffset,
+      int maxObjectLen,
+      boolean retainOriginalText,
+      int maxStackTraceLines,
+      Grok compiledPattern,
+      String formatName,
+      boolean combined,
+      GenericObjectPool<StringBuilder> currentLineBuilderPool,
+      GenericObjectPool<StringBuilder> previousLineBuilderPool
+  ) throws IOException {
+    super(context, readerId, reader, readerOffset, maxObjectLen, retainOriginalText, maxStackTraceLines,
+        compiledPattern, formatName, currentLineBuilderPool, previousLineBuilderPool);
+    this.combined = combined;
+  }
+
+  @Override
+  public Map<String, Field> parseLogLine(StringBuilder logLine) throws DataParserException {
+    Map<String, Field> map = tokenize(logLine, combined);
+    return (map != null) ? map : super.parseLogLine(logLine);
+  }
+
+  /**
+   * Splits a Common or Combined Log Format line.
+   *
+   * @param line the log line.
+   * @param combined if the line is in Combined Log Format.
+   * @return the fields of the line, in the same order as the Grok expression, or <code>null</code> if the line must
+   * be parsed with the Grok expression.
+   */
+  static Map<String, Field> tokenize(CharSequence line, boolean combined) {
+    int len = line.length();
+    for (int i = 0; i < len; i++) {
+      if (isLineTerminator(line.charAt(i))) {
+        return null;
+      }
+    }
+
+    int clientIpEnd = scanHostname(line, 0, len);
+    if (clientIpEnd < 0 || !isChar(line, clientIpEnd, ' ')) {
+      return null;
+    }
+    int identStart = clientIpEnd + 1;
+    int identEnd = scanUser(line, identStart, len);
+    if (identEnd < 0 || !isChar(line, identEnd, ' ')) {
+      return null;
+    }
+    int authStart = identEnd + 1;
+    int authEnd = scanUser(line, authStart, len);
+    if (authEnd < 0 || !isChar(line, authEnd, ' ') || !isChar(line, authEnd + 1, '[')) {
+      return null;
+    }
+    int timestampStart = authEnd + 2;
+    int timestampEnd = scanHttpDate(line, timestampStart, len);
+    if (timestampEnd < 0 || !isChar(line, timestampEnd, ']') || !isChar(line, timestampEnd + 1, ' ') ||
+        !isChar(line, timestampEnd + 2, '"')) {
+      return null;
+    }
+
+    // request line, up to the first double quote
+    int requestLineStart = timestampEnd + 3;
+    int requestLineEnd = requestLineStart;
+    while (requestLineEnd < len && line.charAt(requestLineEnd) != '"') {
+      requestLineEnd++;
+    }
+    if (requestLineEnd == len) {
+      return null;
+    }
+    String verb = null;
+    String request = null;
+    String httpVersion = null;
+    String rawRequest = null;
+    int verbEnd = requestLineStart;
+    while (verbEnd < requestLineEnd && isWordChar(line.charAt(verbEnd))) {
+      verbEnd++;
+    }
+    if (verbEnd > requestLineStart && isChar(line, verbEnd, ' ')) {
+      int requestStart = verbEnd + 1;
+      int requestEnd = requestStart;
+      while (requestEnd < requestLineEnd && !isWhitespace(line.charAt(requestEnd))) {
+        requestEnd++;
+      }
+      if (requestEnd == requestStart) {
+        return null;
+      }
+      if (requestEnd == requestLineEnd) {
+        verb = substring(line, requestLineStart, verbEnd);
+        request = substring(line, requestStart, requestEnd);
+      } else if (line.charAt(requestEnd) != ' ') {
+        return null;
+      } else if (startsWith(line, requestEnd + 1, HTTP_VERSION_PREFIX) &&
+          scanNumber(line, requestEnd + 1 + HTTP_VERSION_PREFIX.length(), len) == requestLineEnd) {
+        verb = substring(line, requestLineStart, verbEnd);
+        request = substring(line, requestStart, requestEnd);
+        httpVersion = substring(line, requestEnd + 1 + HTTP_VERSION_PREFIX.length(), requestLineEnd);
+      } else {
+        rawRequest = substring(line, requestLineStart, requestLineEnd);
+      }
+    } else {
+      rawRequest = substring(line, requestLineStart, requestLineEnd);
+    }
+
+    if (!isChar(line, requestLineEnd + 1, ' ')) {
+      return null;
+    }
+    int responseStart = requestLineEnd + 2;
+    int responseEnd = scanNumber(line, responseStart, len);
+    if (responseEnd < 0 || !isChar(line, responseEnd, ' ')) {
+      return null;
+    }
+    int bytesStart = responseEnd + 1;
+    int bytesEnd = scanNumber(line, bytesStart, len);
+    String bytes = null;
+    if (bytesEnd >= 0) {
+      bytes = substring(line, bytesStart, bytesEnd);
+    } else if (isChar(line, bytesStart, '-')) {
+      bytesEnd = bytesStart + 1;
+    } else {
+      return null;
+    }
+
+    String referrer = null;
+    String agent = null;
+    if (combined) {
+      if (!isChar(line, bytesEnd, ' ')) {
+        return null;
+      }
+      int referrerStart = bytesEnd + 1;
+      int referrerEnd = scanQuotedString(line, referrerStart, len);
+      if (referrerEnd < 0 || !isChar(line, referrerEnd, ' ')) {
+        return null;
+      }
+      int agentStart = referrerEnd + 1;
+      int agentEnd = scanQuotedString(line, agentStart, len);
+      if (agentEnd < 0) {
+        return null;
+      }
+      referrer = substring(line, referrerStart, referrerEnd);
+      agent = substring(line, agentStart, agentEnd);
+    }
+
+    Map<String, Field> map = new LinkedHashMap<>();
+    map.put(Constants.CLIENTIP, Field.create(substring(line, 0, clientIpEnd)));
+    map.put(Constants.USER_IDENT, Field.create(substring(line, identStart, identEnd)));
+    map.put(Constants.USER_AUTH, Field.create(substring(line, authStart, authEnd)));
+    map.put(Constants.TIMESTAMP, Field.create(substring(line, timestampStart, timestampEnd)));
+    map.put(Constants.VERB, Field.create(verb));
+    map.put(Constants.REQUEST, Field.create(request));
+    map.put(Constants.HTTPVERSION, Field.create(httpVersion));
+    map.put(Constants.RAWREQUEST, Field.create(rawRequest));
+    map.put(Constants.RESPONSE, Field.create(substring(line, responseStart, responseEnd)));
+    map.put(Constants.BYTES, Field.create(bytes));
+    if (combined) {
+      map.put(Constants.REFERRER, Field.create(referrer));
+      map.put(Constants.AGENT, Field.create(agent));
+    }
+    return map;
+  }
+
+  // HOSTNAME, dot separated labels of up to 63 letters, digits and dashes starting with a letter or digit
+  private static int scanHostname(CharSequence line, int start, int len) {
+    int i = start;
+    while (true) {
+      if (i >= len || !isAlphanumeric(line.charAt(i))) {
+        return -1;
+      }
+      int labelStart = i++;
+      while (i < len && (isAlphanumeric(line.charAt(i)) || line.charAt(i) == '-')) {
+        i++;
+      }
+      if (i - labelStart > MAX_HOSTNAME_LABEL_LEN) {
+        return -1;
+      }
+      if (!isChar(line, i, '.')) {
+        return i;
+      }
+      if (i + 1 < len && isAlphanumeric(line.charAt(i + 1))) {
+        i++;
+      } else {
+        // trailing dot
+        return i + 1;
+      }
+    }
+  }
+
+  // USER, letters, digits, dots, underscores and dashes
+  private static int scanUser(CharSequence line, int start, int len) {
+    int i = start;
+    while (i < len && (isAlphanumeric(line.charAt(i)) || line.charAt(i) == '.' || line.charAt(i) == '_' ||
+        line.charAt(i) == '-')) {
+      i++;
+    }
+    return (i > start) ? i : -1;
+  }
+
+  // HTTPDATE, dd/MMM/yyyy:HH:mm:ss zone
+  private static int scanHttpDate(CharSequence line, int start, int len) {
+    int i = start;
+    if (isDigit(line, i) && isDigit(line, i + 1)) {
+      char d0 = line.charAt(i);
+      char d1 = line.charAt(i + 1);
+      if (!((d0 == '0' && d1 != '0') || d0 == '1' || d0 == '2' || (d0 == '3' && d1 <= '1'))) {
+        return -1;
+      }
+      i += 2;
+    } else if (isDigit(line, i) && line.charAt(i) != '0') {
+      i++;
+    } else {
+      return -1;
+    }
+    if (!isChar(line, i, '/') || !isMonth(line, i + 1, len) || !isChar(line, i + 4, '/')) {
+      return -1;
+    }
+    i += 5;
+    for (int j = 0; j < 4; j++) {
+      if (!isDigit(line, i++)) {
+        return -1;
+      }
+    }
+    if (!isChar(line, i, ':') || !isTwoDigits(line, i + 1, '2', '3') || !isChar(line, i + 3, ':') ||
+        !isTwoDigits(line, i + 4, '5', '9') || !isChar(line, i + 6, ':')) {
+      return -1;
+    }
+    i += 7;
+    if (!isTwoDigits(line, i, '5', '9') && !startsWith(line, i, "60")) {
+      return -1;
+    }
+    i += 2;
+    if (!isChar(line, i, ' ')) {
+      return -1;
+    }
+    i++;
+    if (isChar(line, i, '+') || isChar(line, i, '-')) {
+      i++;
+    }
+    int zoneStart = i;
+    while (isDigit(line, i)) {
+      i++;
+    }
+    return (i > zoneStart) ? i : -1;
+  }
+
+  // BASE10NUM, optional sign, digits with an optional fraction or just the fraction
+  private static int scanNumber(CharSequence line, int start, int len) {
+    if (start > 0) {
+      char previous = line.charAt(start - 1);
+      if ((previous >= '0' && previous <= '9') || previous == '.' || previous == '+' || previous == '-') {
+        return -1;
+      }
+    }
+    int i = start;
+    if (isChar(line, i, '+') || isChar(line, i, '-')) {
+      i++;
+    }
+    if (isDigit(line, i)) {
+      while (isDigit(line, i)) {
+        i++;
+      }
+      if (isChar(line, i, '.') && isDigit(line, i + 1)) {
+        i++;
+        while (isDigit(line, i)) {
+          i++;
+        }
+      }
+      return i;
+    }
+    if (isChar(line, i, '.') && isDigit(line, i + 1)) {
+      i++;
+      while (isDigit(line, i)) {
+        i++;
+      }
+      return i;
+    }
+    return -1;
+  }
+
+  // QS, double quoted string with backslash escapes, the quotes are part of the value
+  private static int scanQuotedString(CharSequence line, int start, int len) {
+    if (!isChar(line, start, '"')) {
+      return -1;
+    }
+    int i = start + 1;
+    if (isChar(line, i, '"')) {
+      return i + 1;
+    }
+    while (i < len) {
+      char c = line.charAt(i);
+      if (c == '\\') {
+        i += 2;
+      } else if (c == '"') {
+        return i + 1;
+      } else {
+        i++;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isMonth(CharSequence line, int start, int len) {
+    if (start + 3 > len) {
+      return false;
+    }
+    for (String month : MONTHS) {
+      if (startsWith(line, start, month)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isTwoDigits(CharSequence line, int start, char maxFirst, char maxSecondAtMaxFirst) {
+    if (!isDigit(line, start) || !isDigit(line, start + 1)) {
+      return false;
+    }
+    char first = line.charAt(start);
+    return first < maxFirst || (first == maxFirst && line.charAt(start + 1) <= maxSecondAtMaxFirst);
+  }
+
+  private static boolean startsWith(CharSequence line, int start, String prefix) {
+    if (start + prefix.length() > line.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (line.charAt(start + i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isChar(CharSequence line, int index, char c) {
+    return index < line.length() && line.charAt(index) == c;
+  }
+
+  private static boolean isDigit(CharSequence line, int index) {
+    return index < line.length() && line.charAt(index) >= '0' && line.charAt(index) <= '9';
+  }
+
+  private static boolean isAlphanumeric(char c) {
+    return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static boolean isWordChar(char c) {
+    return isAlphanumeric(c) || c == '_';
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  private static String substring(CharSequence line, int start, int end) {
+    return line.subSequence(start, end).toString();
+  }
+
+}
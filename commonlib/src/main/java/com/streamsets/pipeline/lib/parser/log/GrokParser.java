@@ -25,10 +25,13 @@ import org.apache.commons.pool2.impl.GenericObjectPool;
 import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.regex.Matcher;
 
 public class GrokParser extends LogCharDataParser {
 
   private final Grok compiledPattern;
+  private final String[] groupNames;
+  private final int[] groupIndexes;
   private final String formatName;
 
   public GrokParser(
@@ -46,19 +49,22 @@ public class GrokParser extends LogCharDataParser {
   ) throws IOException {
     super(context, readerId, reader, readerOffset, maxObjectLen, retainOriginalText, maxStackTraceLines, currentLineBuilderPool, previousLineBuilderPool);
     this.compiledPattern = compiledPattern;
+    this.groupNames = compiledPattern.getGroupNames();
+    this.groupIndexes = compiledPattern.getGroupIndexes();
     this.formatName = formatName;
   }
 
   @Override
   public Map<String, Field> parseLogLine(StringBuilder logLine) throws DataParserException {
-    Map<String, String> namedGroupToValuesMap = compiledPattern.extractNamedGroups(logLine.toString());
-    if(namedGroupToValuesMap == null) {
+    // the line is matched in place, group values are read straight from the match
+    Matcher matcher = compiledPattern.match(logLine);
+    if(matcher == null) {
       //Did not match
       handleNoMatch(logLine.toString());
     }
     Map<String, Field> map = new LinkedHashMap<>();
-    for(Map.Entry<String, String> e : namedGroupToValuesMap.entrySet()) {
-      map.put(e.getKey(), Field.create(e.getValue()));
+    for(int i = 0; i < groupNames.length; i++) {
+      map.put(groupNames[i], Field.create(matcher.group(groupIndexes[i])));
     }
     return map;
   }
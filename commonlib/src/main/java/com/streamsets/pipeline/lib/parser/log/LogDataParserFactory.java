@@ -16,6 +16,8 @@
 package com.streamsets.pipeline.lib.parser.log;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.streamsets.pipeline.api.ProtoConfigurableEntity;
@@ -34,6 +36,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -89,6 +92,11 @@ public class LogDataParserFactory extends DataParserFactory {
   @SuppressWarnings("unchecked")
   public static final Set<Class<? extends Enum>> MODES = (Set) ImmutableSet.of(LogMode.class);
 
+  // Compiled Grok expressions and regular expressions are immutable and thread safe, they are shared by all the
+  // parser factories of the JVM so the dictionaries are loaded and the expressions compiled once.
+  private static final Cache<List<Object>, Object> COMPILED_PATTERNS = CacheBuilder.newBuilder()
+      .maximumSize(100)
+      .build();
 
   private final ProtoConfigurableEntity.Context context;
   private final int maxObjectLen;
@@ -103,7 +111,6 @@ public class LogDataParserFactory extends DataParserFactory {
   private final String log4jCustomLogFormat;
   private final OnParseError onParseError;
   private final int maxStackTraceLength;
-  private final Map<String, Object> regexToPatternMap;
   private final GenericObjectPool<StringBuilder> currentLineBuilderPool;
   private final GenericObjectPool<StringBuilder> previousLineBuilderPool;
 
@@ -122,7 +129,6 @@ public class LogDataParserFactory extends DataParserFactory {
     this.log4jCustomLogFormat = settings.getConfig(LOG4J_FORMAT_KEY);
     this.onParseError = settings.getConfig(ON_PARSE_ERROR_KEY);
     this.maxStackTraceLength = settings.getConfig(LOG4J_TRIM_STACK_TRACES_TO_LENGTH_KEY);
-    this.regexToPatternMap = new HashMap<>();
     this.currentLineBuilderPool = getStringBuilderPool(settings);
     this.previousLineBuilderPool = getStringBuilderPool(settings);
   }
@@ -143,13 +149,15 @@ public class LogDataParserFactory extends DataParserFactory {
     try {
       switch (logMode) {
         case COMMON_LOG_FORMAT:
-          return new GrokParser(context, id, reader, offset, maxObjectLen, retainOriginalText,
+          return new ApacheAccessLogParser(context, id, reader, offset, maxObjectLen, retainOriginalText,
             getMaxStackTraceLines(), createGrok(Constants.GROK_COMMON_APACHE_LOG_FORMAT,
-            Collections.<String>emptyList()), "Common Log Format", currentLineBuilderPool, previousLineBuilderPool);
+            Collections.<String>emptyList()), "Common Log Format", false, currentLineBuilderPool,
+            previousLineBuilderPool);
         case COMBINED_LOG_FORMAT:
-          return new GrokParser(context, id, reader, offset, maxObjectLen, retainOriginalText,
+          return new ApacheAccessLogParser(context, id, reader, offset, maxObjectLen, retainOriginalText,
             getMaxStackTraceLines(), createGrok(Constants.GROK_COMBINED_APACHE_LOG_FORMAT,
-            Collections.<String>emptyList()), "Combined Log Format", currentLineBuilderPool, previousLineBuilderPool);
+            Collections.<String>emptyList()), "Combined Log Format", true, currentLineBuilderPool,
+            previousLineBuilderPool);
         case APACHE_CUSTOM_LOG_FORMAT:
           return new GrokParser(context, id, reader, offset, maxObjectLen, retainOriginalText,
             getMaxStackTraceLines(), createGrok(ApacheCustomLogHelper.translateApacheLayoutToGrok(customLogFormat),
@@ -203,8 +211,11 @@ public class LogDataParserFactory extends DataParserFactory {
 
   @VisibleForTesting
   private Grok createGrok(String grokPattern, List<String> dictionaries) {
-    if(regexToPatternMap.containsKey(grokPattern)) {
-      return (Grok) regexToPatternMap.get(grokPattern);
+    // the custom pattern definitions are added to the dictionary, they are part of the key
+    List<Object> key = Arrays.<Object>asList(LogMode.GROK, grokPattern, dictionaries, grokPatternDefinition);
+    Grok cached = (Grok) COMPILED_PATTERNS.getIfPresent(key);
+    if(cached != null) {
+      return cached;
     }
     GrokDictionary grokDictionary = new GrokDictionary();
     //Add grok patterns and Java patterns by default
@@ -228,17 +239,18 @@ public class LogDataParserFactory extends DataParserFactory {
     // Resolve all expressions loaded
     grokDictionary.bind();
     Grok grok = grokDictionary.compileExpression(grokPattern);
-    regexToPatternMap.put(grokPattern, grok);
+    COMPILED_PATTERNS.put(key, grok);
     return grok;
   }
 
   @VisibleForTesting
   private Pattern createPattern(String regex) {
-    if(regexToPatternMap.containsKey(regex)) {
-      return (Pattern) regexToPatternMap.get(regex);
+    List<Object> key = Arrays.<Object>asList(LogMode.REGEX, regex);
+    Pattern pattern = (Pattern) COMPILED_PATTERNS.getIfPresent(key);
+    if(pattern == null) {
+      pattern = Pattern.compile(regex);
+      COMPILED_PATTERNS.put(key, pattern);
     }
-    Pattern pattern = Pattern.compile(regex);
-    regexToPatternMap.put(regex, pattern);
     return pattern;
   }
 
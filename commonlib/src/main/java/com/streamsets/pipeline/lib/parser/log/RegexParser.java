@@ -51,11 +51,10 @@ public class RegexParser extends LogCharDataParser {
 
   @Override
   protected Map<String, Field> parseLogLine(StringBuilder sb) throws DataParserException {
-    Matcher m = pattern.matcher(sb.toString());
+    // the line is matched in place, only the group values are copied
+    Matcher m = pattern.matcher(sb);
     if (!m.find()) {
-      if (!m.find()) {
-        throw new DataParserException(Errors.LOG_PARSER_03, sb.toString(), "Regular Expression - " + pattern.pattern());
-      }
+      throw new DataParserException(Errors.LOG_PARSER_03, sb.toString(), "Regular Expression - " + pattern.pattern());
     }
 
     Map<String, Field> map = new HashMap<>();
@@ -28,6 +28,7 @@ public class DelimitedDataConstants {
   public static final String NULL_CONSTANT = "nullConstant";
   public static final String ALLOW_EXTRA_COLUMNS = "allowExtraColumns";
   public static final String EXTRA_COLUMN_PREFIX = "extraColumnPrefix";
+  public static final String PARSER_ENGINE = "parserEngine";
 
   public static final String DEFAULT_EXTRA_COLUMN_PREFIX = "_extra_";
 
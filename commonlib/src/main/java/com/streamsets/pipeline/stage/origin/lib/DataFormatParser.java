@@ -29,6 +29,7 @@ import com.streamsets.pipeline.lib.parser.DataParserException;
 import com.streamsets.pipeline.lib.parser.DataParserFactory;
 import com.streamsets.pipeline.lib.parser.DataParserFactoryBuilder;
 import com.streamsets.pipeline.lib.parser.RecoverableDataParserException;
+import com.streamsets.pipeline.lib.parser.json.JsonDataParserFactory;
 import com.streamsets.pipeline.lib.parser.log.LogDataFormatValidator;
 import com.streamsets.pipeline.lib.parser.log.RegExConfig;
 import com.streamsets.pipeline.lib.parser.net.netflow.NetflowDataParserFactory;
@@ -323,6 +324,8 @@ public class DataFormatParser {
       case JSON:
         builder.setMode(dataFormatConfig.jsonContent);
         builder.setMaxDataLen(dataFormatConfig.jsonMaxObjectLen);
+        builder.setConfig(JsonDataParserFactory.PARSER_ENGINE_KEY, dataFormatConfig.jsonParser);
+        builder.setConfig(JsonDataParserFactory.FIELD_PATHS_KEY, dataFormatConfig.jsonFieldPaths);
         break;
       case DELIMITED:
         builder.setMaxDataLen(dataFormatConfig.csvMaxObjectLen)
@@ -338,6 +341,7 @@ public class DataFormatParser {
           .setConfig(DelimitedDataConstants.IGNORE_EMPTY_LINES_CONFIG, dataFormatConfig.csvIgnoreEmptyLines)
           .setConfig(DelimitedDataConstants.ALLOW_EXTRA_COLUMNS, dataFormatConfig.csvAllowExtraColumns)
           .setConfig(DelimitedDataConstants.EXTRA_COLUMN_PREFIX, dataFormatConfig.csvExtraColumnPrefix)
+          .setConfig(DelimitedDataConstants.PARSER_ENGINE, dataFormatConfig.csvParser)
           ;
         break;
       case XML:
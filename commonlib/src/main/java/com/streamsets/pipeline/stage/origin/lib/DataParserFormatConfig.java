@@ -17,6 +17,7 @@ package com.streamsets.pipeline.stage.origin.lib;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
+import com.streamsets.datacollector.record.PathElement;
 import com.streamsets.pipeline.api.ConfigDef;
 import com.streamsets.pipeline.api.Dependency;
 import com.streamsets.pipeline.api.ListBeanModel;
@@ -32,6 +33,8 @@ import com.streamsets.pipeline.config.CsvHeader;
 import com.streamsets.pipeline.config.CsvHeaderChooserValues;
 import com.streamsets.pipeline.config.CsvMode;
 import com.streamsets.pipeline.config.CsvModeChooserValues;
+import com.streamsets.pipeline.config.CsvParserEngine;
+import com.streamsets.pipeline.config.CsvParserEngineChooserValues;
 import com.streamsets.pipeline.config.CsvRecordType;
 import com.streamsets.pipeline.config.CsvRecordTypeChooserValues;
 import com.streamsets.pipeline.config.DataFormat;
@@ -39,6 +42,8 @@ import com.streamsets.pipeline.config.DatagramMode;
 import com.streamsets.pipeline.config.DatagramModeChooserValues;
 import com.streamsets.pipeline.config.JsonMode;
 import com.streamsets.pipeline.config.JsonModeChooserValues;
+import com.streamsets.pipeline.config.JsonParserEngine;
+import com.streamsets.pipeline.config.JsonParserEngineChooserValues;
 import com.streamsets.pipeline.config.LogMode;
 import com.streamsets.pipeline.config.LogModeChooserValues;
 import com.streamsets.pipeline.config.OnParseError;
@@ -50,6 +55,7 @@ import com.streamsets.pipeline.lib.el.DataUnitsEL;
 import com.streamsets.pipeline.lib.parser.DataParserFactory;
 import com.streamsets.pipeline.lib.parser.DataParserFactoryBuilder;
 import com.streamsets.pipeline.lib.parser.DataParserFormat;
+import com.streamsets.pipeline.lib.parser.json.JsonDataParserFactory;
 import com.streamsets.pipeline.lib.parser.log.LogDataFormatValidator;
 import com.streamsets.pipeline.lib.parser.log.LogDataParserFactory;
 import com.streamsets.pipeline.lib.parser.log.RegExConfig;
@@ -246,6 +252,35 @@ public class DataParserFormatConfig implements DataFormatConfig {
   )
   public int jsonMaxObjectLen = 4096;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.MODEL,
+      defaultValue = "JACKSON",
+      label = "JSON Parser",
+      description = "Byte Scanner parses UTF-8 data from files and byte streams directly and only keeps the fields " +
+          "to keep, offsets and the max object length are then in bytes. Other data is parsed with Jackson",
+      displayPosition = 362,
+      group = "DATA_FORMAT",
+      dependsOn = "dataFormat^",
+      triggeredByValue = "JSON"
+  )
+  @ValueChooserModel(JsonParserEngineChooserValues.class)
+  public JsonParserEngine jsonParser = JsonParserEngine.JACKSON;
+
+  @ConfigDef(
+      required = false,
+      type = ConfigDef.Type.LIST,
+      defaultValue = "[]",
+      label = "Fields to Keep",
+      description = "Field paths of the values to keep in the records, for example /a/b or /items[*]/id. " +
+          "Other values are skipped without being parsed. Leave empty to keep all the fields",
+      displayPosition = 364,
+      group = "DATA_FORMAT",
+      dependsOn = "jsonParser",
+      triggeredByValue = "BYTE_SCANNER"
+  )
+  public List<String> jsonFieldPaths = new ArrayList<>();
+
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.MODEL,
@@ -260,6 +295,21 @@ public class DataParserFormatConfig implements DataFormatConfig {
   @ValueChooserModel(CsvModeChooserValues.class)
   public CsvMode csvFileFormat = CsvMode.CSV;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.MODEL,
+      defaultValue = "APACHE_COMMONS",
+      label = "Delimited Parser",
+      description = "Byte Scanner parses UTF-8, US-ASCII and ISO-8859-1 data from files and byte streams directly, " +
+          "offsets are then byte offsets. Other data is parsed with Apache Commons",
+      displayPosition = 375,
+      group = "DATA_FORMAT",
+      dependsOn = "dataFormat^",
+      triggeredByValue = "DELIMITED"
+  )
+  @ValueChooserModel(CsvParserEngineChooserValues.class)
+  public CsvParserEngine csvParser = CsvParserEngine.APACHE_COMMONS;
+
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.MODEL,
@@ -1201,6 +1251,24 @@ public class DataParserFormatConfig implements DataFormatConfig {
       );
       valid = false;
     }
+    if (jsonParser == JsonParserEngine.BYTE_SCANNER) {
+      for (String fieldPath : jsonFieldPaths) {
+        try {
+          PathElement.parse(fieldPath, true);
+        } catch (IllegalArgumentException ex) {
+          issues.add(
+              context.createConfigIssue(
+                  DataFormatGroups.DATA_FORMAT.name(),
+                  configPrefix + "jsonFieldPaths",
+                  DataFormatErrors.DATA_FORMAT_13,
+                  fieldPath,
+                  ex.getMessage()
+              )
+          );
+          valid = false;
+        }
+      }
+    }
     return valid;
   }
 
@@ -1422,7 +1490,9 @@ public class DataParserFormatConfig implements DataFormatConfig {
         buildTextParser(builder, multiLines);
         break;
       case JSON:
-        builder.setMaxDataLen(jsonMaxObjectLen).setMode(jsonContent);
+        builder.setMaxDataLen(jsonMaxObjectLen).setMode(jsonContent)
+            .setConfig(JsonDataParserFactory.PARSER_ENGINE_KEY, jsonParser)
+            .setConfig(JsonDataParserFactory.FIELD_PATHS_KEY, jsonFieldPaths);
         break;
       case DELIMITED:
         buildDelimitedParser(builder);
@@ -1505,6 +1575,7 @@ public class DataParserFormatConfig implements DataFormatConfig {
         .setConfig(DelimitedDataConstants.IGNORE_EMPTY_LINES_CONFIG, csvIgnoreEmptyLines)
         .setConfig(DelimitedDataConstants.ALLOW_EXTRA_COLUMNS, csvAllowExtraColumns)
         .setConfig(DelimitedDataConstants.EXTRA_COLUMN_PREFIX, csvExtraColumnPrefix)
+        .setConfig(DelimitedDataConstants.PARSER_ENGINE, csvParser)
     ;
   }
 
@@ -20,6 +20,7 @@ import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.config.CsvHeader;
 import com.streamsets.pipeline.config.CsvMode;
+import com.streamsets.pipeline.config.CsvParserEngine;
 import com.streamsets.pipeline.config.CsvRecordType;
 import com.streamsets.pipeline.lib.parser.DataParser;
 import com.streamsets.pipeline.lib.parser.DataParserFactory;
@@ -30,6 +31,8 @@ import com.streamsets.pipeline.sdk.ContextInfoCreator;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 
 public class TestDelimitedDataParserFactory {
@@ -125,4 +128,33 @@ public class TestDelimitedDataParserFactory {
     parser.close();
   }
 
+  @Test
+  public void testByteScanner() throws Exception {
+    Stage.Context context = ContextInfoCreator.createSourceContext("", false, OnRecordError.DISCARD,
+                                                                   Collections.<String>emptyList());
+    DataParserFactoryBuilder builder = new DataParserFactoryBuilder(context, DataParserFormat.DELIMITED);
+    DataParserFactory factory = builder.setMaxDataLen(100).setMode(CsvMode.CSV).setMode(CsvHeader.WITH_HEADER)
+                                       .setMode(CsvRecordType.LIST_MAP)
+                                       .setConfig(DelimitedDataConstants.PARSER_ENGINE, CsvParserEngine.BYTE_SCANNER)
+                                       .setCharset(StandardCharsets.UTF_8).build();
+    byte[] data = "h1,h2\na,\"ä\"\nc,d\n".getBytes(StandardCharsets.UTF_8);
+    DataParser parser = factory.getParser("id", new ByteArrayInputStream(data), "0");
+    Assert.assertTrue(parser instanceof DelimitedByteDataParser);
+    Assert.assertEquals("6", parser.getOffset());
+    Record record = parser.parse();
+    Assert.assertNotNull(record);
+    Assert.assertEquals("a", record.get("/h1").getValueAsString());
+    Assert.assertEquals("ä", record.get("/h2").getValueAsString());
+    Assert.assertEquals("13", parser.getOffset());
+    parser.close();
+
+    parser = factory.getParser("id", new ByteArrayInputStream(data), "13");
+    record = parser.parse();
+    Assert.assertNotNull(record);
+    Assert.assertEquals("c", record.get("/h1").getValueAsString());
+    Assert.assertEquals("d", record.get("/h2").getValueAsString());
+    Assert.assertNull(parser.parse());
+    parser.close();
+  }
+
 }
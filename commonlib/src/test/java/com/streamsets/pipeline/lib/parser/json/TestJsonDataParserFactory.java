@@ -15,10 +15,12 @@
  */
 package com.streamsets.pipeline.lib.parser.json;
 
+import com.google.common.collect.ImmutableList;
 import com.streamsets.pipeline.api.OnRecordError;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.config.JsonMode;
+import com.streamsets.pipeline.config.JsonParserEngine;
 import com.streamsets.pipeline.lib.parser.DataParser;
 import com.streamsets.pipeline.lib.parser.DataParserFactory;
 import com.streamsets.pipeline.lib.parser.DataParserFactoryBuilder;
@@ -29,6 +31,7 @@ import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 
 public class TestJsonDataParserFactory {
@@ -107,4 +110,38 @@ public class TestJsonDataParserFactory {
     parser.close();
   }
 
+  @Test
+  public void testByteScannerWithFieldPaths() throws Exception {
+    DataParserFactoryBuilder dataParserFactoryBuilder =
+        new DataParserFactoryBuilder(getContext(), DataParserFormat.JSON);
+    DataParserFactory factory = dataParserFactoryBuilder
+        .setMaxDataLen(1000)
+        .setMode(JsonMode.MULTIPLE_OBJECTS)
+        .setCharset(StandardCharsets.UTF_8)
+        .setConfig(JsonDataParserFactory.PARSER_ENGINE_KEY, JsonParserEngine.BYTE_SCANNER)
+        .setConfig(JsonDataParserFactory.FIELD_PATHS_KEY, ImmutableList.of("/a", "/c/d"))
+        .build();
+
+    InputStream is = new ByteArrayInputStream(
+        "{\"a\": \"x\", \"b\": [1, 2], \"c\": {\"d\": 1, \"e\": 2}}\n{\"a\": \"y\"}"
+            .getBytes(StandardCharsets.UTF_8)
+    );
+    DataParser parser = factory.getParser("id", is, "0");
+    Assert.assertTrue(parser instanceof JsonByteDataParser);
+    Assert.assertEquals(0, Long.parseLong(parser.getOffset()));
+    Record record = parser.parse();
+    Assert.assertEquals("id::0", record.getHeader().getSourceId());
+    Assert.assertEquals("x", record.get("/a").getValueAsString());
+    Assert.assertFalse(record.has("/b"));
+    Assert.assertEquals(1, record.get("/c/d").getValueAsInteger());
+    Assert.assertFalse(record.has("/c/e"));
+    Assert.assertEquals(47, Long.parseLong(parser.getOffset()));
+    record = parser.parse();
+    Assert.assertEquals("id::47", record.getHeader().getSourceId());
+    Assert.assertEquals("y", record.get("/a").getValueAsString());
+    Assert.assertNull(parser.parse());
+    Assert.assertEquals(-1, Long.parseLong(parser.getOffset()));
+    parser.close();
+  }
+
 }
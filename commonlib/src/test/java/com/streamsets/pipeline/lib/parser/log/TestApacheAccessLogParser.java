@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.parser.log;
+
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.OnRecordError;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.config.LogMode;
+import com.streamsets.pipeline.lib.parser.DataParser;
+import com.streamsets.pipeline.lib.parser.DataParserFactory;
+import com.streamsets.pipeline.lib.parser.DataParserFactoryBuilder;
+import com.streamsets.pipeline.lib.parser.DataParserFormat;
+import com.streamsets.pipeline.lib.parser.shaded.org.aicer.grok.dictionary.GrokDictionary;
+import com.streamsets.pipeline.lib.parser.shaded.org.aicer.grok.util.Grok;
+import com.streamsets.pipeline.sdk.ContextInfoCreator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class TestApacheAccessLogParser {
+
+  private static final String COMMON_LOG_LINE =
+      "127.0.0.1 ss h [10/Oct/2000:13:55:36 -0700] \"GET /apache_pb.gif HTTP/1.0\" 200 2326";
+  private static final String COMBINED_LOG_LINE = COMMON_LOG_LINE +
+      " \"http://www.example.com/start.html\" \"Mozilla/4.08 [en] (Win98; I ;Nav)\"";
+
+  private Stage.Context getContext() {
+    return ContextInfoCreator.createSourceContext("i", false, OnRecordError.TO_ERROR,
+      Collections.<String>emptyList());
+  }
+
+  @Test
+  public void testTokenizeCommonLogFormat() {
+    Map<String, Field> map = ApacheAccessLogParser.tokenize(COMMON_LOG_LINE, false);
+    Assert.assertNotNull(map);
+    Assert.assertEquals(10, map.size());
+    Assert.assertEquals("127.0.0.1", map.get(Constants.CLIENTIP).getValueAsString());
+    Assert.assertEquals("ss", map.get(Constants.USER_IDENT).getValueAsString());
+    Assert.assertEquals("h", map.get(Constants.USER_AUTH).getValueAsString());
+    Assert.assertEquals("10/Oct/2000:13:55:36 -0700", map.get(Constants.TIMESTAMP).getValueAsString());
+    Assert.assertEquals("GET", map.get(Constants.VERB).getValueAsString());
+    Assert.assertEquals("/apache_pb.gif", map.get(Constants.REQUEST).getValueAsString());
+    Assert.assertEquals("1.0", map.get(Constants.HTTPVERSION).getValueAsString());
+    Assert.assertNull(map.get(Constants.RAWREQUEST).getValueAsString());
+    Assert.assertEquals("200", map.get(Constants.RESPONSE).getValueAsString());
+    Assert.assertEquals("2326", map.get(Constants.BYTES).getValueAsString());
+  }
+
+  @Test
+  public void testTokenizeCombinedLogFormat() {
+    Map<String, Field> map = ApacheAccessLogParser.tokenize(COMBINED_LOG_LINE, true);
+    Assert.assertNotNull(map);
+    Assert.assertEquals(12, map.size());
+    Assert.assertEquals("\"http://www.example.com/start.html\"", map.get(Constants.REFERRER).getValueAsString());
+    Assert.assertEquals("\"Mozilla/4.08 [en] (Win98; I ;Nav)\"", map.get(Constants.AGENT).getValueAsString());
+  }
+
+  @Test
+  public void testTokenizeRawRequest() {
+    Map<String, Field> map = ApacheAccessLogParser.tokenize(
+        "host.example.com - - [1/Jan/2018:00:00:00 +0000] \"-\" 408 -", false);
+    Assert.assertNotNull(map);
+    Assert.assertEquals("host.example.com", map.get(Constants.CLIENTIP).getValueAsString());
+    Assert.assertNull(map.get(Constants.VERB).getValueAsString());
+    Assert.assertNull(map.get(Constants.REQUEST).getValueAsString());
+    Assert.assertEquals("-", map.get(Constants.RAWREQUEST).getValueAsString());
+    Assert.assertEquals("408", map.get(Constants.RESPONSE).getValueAsString());
+    Assert.assertNull(map.get(Constants.BYTES).getValueAsString());
+  }
+
+  @Test
+  public void testTokenizeDefersToGrok() {
+    // IPv6 client address
+    Assert.assertNull(ApacheAccessLogParser.tokenize(COMMON_LOG_LINE.replace("127.0.0.1", "2001:db8::1"), false));
+    // 2 digit year
+    Assert.assertNull(ApacheAccessLogParser.tokenize(COMMON_LOG_LINE.replace("/2000:", "/00:"), false));
+    // single quoted referrer
+    Assert.assertNull(ApacheAccessLogParser.tokenize(COMMON_LOG_LINE + " 'x' \"y\"", true));
+    // not a log line
+    Assert.assertNull(ApacheAccessLogParser.tokenize("Hello", false));
+  }
+
+  @Test
+  public void testSameFieldsAsGrok() {
+    String[][] variants = {
+        {"127.0.0.1", "host.example.com", "h.", "a-.b", "2001:db8::1", "a..b", "x_y", "-"},
+        {" "},
+        {"-", "frank", "a.b_c-d", "x@y"},
+        {" "},
+        {"-", "bob"},
+        {" ["},
+        {"10", "1", "01", "31", "32", "00"},
+        {"/"},
+        {"Oct", "May", "January", "oct"},
+        {"/"},
+        {"2000", "00", "20000"},
+        {":"},
+        {"13", "23", "24", "7"},
+        {":"},
+        {"55", "60", "5"},
+        {":"},
+        {"36", "60", "61", "36.123"},
+        {" "},
+        {"-0700", "+0000", "0100", "+", "-07:00"},
+        {"] \"", "]\""},
+        {"GET /apache_pb.gif HTTP/1.0", "GET /x", "-", "", "GET  /x HTTP/1.1", "M-SEARCH * HTTP/1.1",
+            "GET /a\"b HTTP/1.0", "GET /x HTTP/1.", "GET /x HTTP/.5", "GET /x HTTP/1.0 extra", "GET /x\tHTTP/1.0",
+            "GET ", "GET /x HTTP/abc", "GET /x HTTP/1.1\" HTTP/1.1", "_ /x"},
+        {"\" ", "\""},
+        {"200", "-", "2.5", "+3", ".5"},
+        {" "},
+        {"2326", "-", "-5", "1.", "12a", ""},
+        {"", " \"http://www.example.com/start.html\"", " \"\"", " \"a\\\"b\"", " 'x'", " \"unterminated", " -"},
+        {"", " \"Mozilla/4.08 [en] (Win98; I ;Nav)\"", " \"\"", " \"x\\\"", " \"a\" trailing", " `b`"},
+        {"", " tail", "\r"}
+    };
+    Grok common = createGrok(Constants.GROK_COMMON_APACHE_LOG_FORMAT);
+    Grok combined = createGrok(Constants.GROK_COMBINED_APACHE_LOG_FORMAT);
+    Random random = new Random(0);
+    int tokenized = 0;
+    for (int i = 0; i < 20000; i++) {
+      // mostly the first variant of each part, so most lines are valid and only a few parts vary
+      StringBuilder line = new StringBuilder();
+      for (String[] part : variants) {
+        line.append(random.nextInt(10) < 8 ? part[0] : part[random.nextInt(part.length)]);
+      }
+      for (boolean isCombined : new boolean[] {false, true}) {
+        Map<String, Field> map = ApacheAccessLogParser.tokenize(line, isCombined);
+        if (map != null) {
+          tokenized++;
+          Map<String, String> expected = (isCombined ? combined : common).extractNamedGroups(line.toString());
+          Assert.assertNotNull(line.toString(), expected);
+          Map<String, String> got = new LinkedHashMap<>();
+          for (Map.Entry<String, Field> entry : map.entrySet()) {
+            got.put(entry.getKey(), entry.getValue().getValueAsString());
+          }
+          Assert.assertEquals(line.toString(), new ArrayList<>(expected.keySet()), new ArrayList<>(got.keySet()));
+          Assert.assertEquals(line.toString(), expected, got);
+        }
+      }
+    }
+    Assert.assertTrue(tokenized > 1000);
+  }
+
+  @Test
+  public void testParserFallsBackToGrok() throws Exception {
+    List<String> lines = new ArrayList<>();
+    lines.add(COMBINED_LOG_LINE);
+    lines.add(COMBINED_LOG_LINE.replace("127.0.0.1", "2001:db8::1"));
+    DataParserFactory factory = new DataParserFactoryBuilder(getContext(), DataParserFormat.LOG)
+        .setMaxDataLen(1000)
+        .setMode(LogMode.COMBINED_LOG_FORMAT)
+        .setOverRunLimit(1000)
+        .build();
+    StringBuilder data = new StringBuilder();
+    for (String line : lines) {
+      data.append(line).append('\n');
+    }
+    DataParser parser = factory.getParser("id", new ByteArrayInputStream(data.toString().getBytes()), "0");
+    Record record = parser.parse();
+    Assert.assertNotNull(record);
+    Assert.assertEquals("127.0.0.1", record.get("/" + Constants.CLIENTIP).getValueAsString());
+    record = parser.parse();
+    Assert.assertNotNull(record);
+    Assert.assertEquals("2001:db8::1", record.get("/" + Constants.CLIENTIP).getValueAsString());
+    Assert.assertEquals("\"Mozilla/4.08 [en] (Win98; I ;Nav)\"", record.get("/" + Constants.AGENT).getValueAsString());
+    Assert.assertNull(parser.parse());
+    parser.close();
+  }
+
+  private Grok createGrok(String expression) {
+    GrokDictionary grokDictionary = new GrokDictionary();
+    grokDictionary.addDictionary(getClass().getClassLoader().getResourceAsStream(Constants.GROK_PATTERNS_FILE_NAME));
+    grokDictionary.addDictionary(getClass().getClassLoader().getResourceAsStream(
+      Constants.GROK_JAVA_LOG_PATTERNS_FILE_NAME));
+    grokDictionary.bind();
+    return grokDictionary.compileExpression(expression);
+  }
+
+}
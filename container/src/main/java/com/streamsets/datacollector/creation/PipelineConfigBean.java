@@ -22,6 +22,8 @@ import com.streamsets.datacollector.config.ErrorRecordPolicyChooserValues;
 import com.streamsets.datacollector.config.ExecutionModeChooserValues;
 import com.streamsets.datacollector.config.MemoryLimitExceeded;
 import com.streamsets.datacollector.config.MemoryLimitExceededChooserValues;
+import com.streamsets.datacollector.config.OffsetPersistence;
+import com.streamsets.datacollector.config.OffsetPersistenceChooserValues;
 import com.streamsets.datacollector.config.PipelineGroups;
 import com.streamsets.datacollector.config.PipelineLifecycleStageChooserValues;
 import com.streamsets.datacollector.config.PipelineState;
@@ -57,7 +59,7 @@ import java.util.Map;
 @ConfigGroups(PipelineGroups.class)
 public class PipelineConfigBean implements Stage {
 
-  public static final int VERSION = 9;
+  public static final int VERSION = 11;
 
   public static final String STATS_AGGREGATOR_DEFAULT = "streamsets-datacollector-basic-lib" +
       "::com_streamsets_pipeline_stage_destination_devnull_StatsNullDTarget::1";
@@ -360,6 +362,67 @@ public class PipelineConfigBean implements Stage {
   )
   public long runnerIdleTIme = 60;
 
+  @ConfigDef(
+    required = true,
+    type = ConfigDef.Type.MODEL,
+    defaultValue = "FILE",
+    label = "Offset Persistence",
+    description = "How committed offsets are persisted. The journal appends a small entry per batch instead of " +
+      "rewriting the whole offset file, and is compacted periodically.",
+    dependencies = @Dependency(
+      configName = "executionMode", triggeredByValues = "STANDALONE"
+    ),
+    displayPosition = 213
+  )
+  @ValueChooserModel(OffsetPersistenceChooserValues.class)
+  public OffsetPersistence offsetPersistence = OffsetPersistence.FILE;
+
+  @ConfigDef(
+    required = true,
+    type = ConfigDef.Type.NUMBER,
+    defaultValue = "0",
+    label = "Offset Group Commit (ms)",
+    description = "Maximum time committed offsets can wait before being synced to disk, allowing consecutive " +
+      "batches to share one sync. Offsets survive a crash of SDC itself, but an operating system crash can replay " +
+      "batches committed within this time. Use 0 to sync after every batch.",
+    min = 0,
+    dependencies = {
+      @Dependency(configName = "executionMode", triggeredByValues = "STANDALONE"),
+      @Dependency(configName = "offsetPersistence", triggeredByValues = "JOURNAL")
+    },
+    displayPosition = 214
+  )
+  public long offsetGroupCommitMillis = 0;
+
+  @ConfigDef(
+    required = true,
+    type = ConfigDef.Type.BOOLEAN,
+    defaultValue = "false",
+    label = "Run Branches in Parallel",
+    description = "Process independent branches of the pipeline (e.g. multiple destinations) concurrently within " +
+      "a batch. The batch is committed once all branches are done.",
+    dependencies = @Dependency(
+      configName = "executionMode", triggeredByValues = "STANDALONE"
+    ),
+    displayPosition = 215
+  )
+  public boolean parallelBranches = false;
+
+  @ConfigDef(
+    required = true,
+    type = ConfigDef.Type.NUMBER,
+    defaultValue = "4",
+    label = "Branch Threads",
+    description = "Maximum number of threads processing branches concurrently, shared by all pipeline runners.",
+    min = 1,
+    dependencies = {
+      @Dependency(configName = "executionMode", triggeredByValues = "STANDALONE"),
+      @Dependency(configName = "parallelBranches", triggeredByValues = "true")
+    },
+    displayPosition = 216
+  )
+  public int branchThreads = 4;
+
   @ConfigDef(required = true,
       type = ConfigDef.Type.MODEL,
       defaultValue = "[]",
@@ -16,6 +16,7 @@
 package com.streamsets.datacollector.creation;
 
 import com.google.common.collect.ImmutableList;
+import com.streamsets.datacollector.config.OffsetPersistence;
 import com.streamsets.datacollector.config.PipelineState;
 import com.streamsets.pipeline.api.Config;
 import com.streamsets.pipeline.api.ExecutionMode;
@@ -63,6 +64,12 @@ public class PipelineConfigUpgrader implements StageUpgrader {
         // fall through
       case 8:
         upgradeV8ToV9(configs);
+        // fall through
+      case 9:
+        upgradeV9ToV10(configs);
+        // fall through
+      case 10:
+        upgradeV10ToV11(configs);
         break;
       default:
         throw new IllegalStateException(Utils.format("Unexpected fromVersion {}", fromVersion));
@@ -168,4 +175,14 @@ public class PipelineConfigUpgrader implements StageUpgrader {
       configs.add(new Config("edgeHttpUrl", "http://localhost:18633"));
     }
   }
+
+  private void upgradeV9ToV10(List<Config> configs) {
+    configs.add(new Config("offsetPersistence", OffsetPersistence.FILE));
+    configs.add(new Config("offsetGroupCommitMillis", 0));
+  }
+
+  private void upgradeV10ToV11(List<Config> configs) {
+    configs.add(new Config("parallelBranches", false));
+    configs.add(new Config("branchThreads", 4));
+  }
 }
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.el;
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.el.BinaryOperatorExpression;
+import org.apache.commons.el.Coercions;
+import org.apache.commons.el.ConditionalExpression;
+import org.apache.commons.el.Expression;
+import org.apache.commons.el.ExpressionEvaluatorImpl;
+import org.apache.commons.el.ExpressionString;
+import org.apache.commons.el.FunctionInvocation;
+import org.apache.commons.el.Literal;
+import org.apache.commons.el.Logger;
+import org.apache.commons.el.UnaryOperatorExpression;
+
+import javax.servlet.jsp.el.ELException;
+import javax.servlet.jsp.el.FunctionMapper;
+import javax.servlet.jsp.el.VariableResolver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Expression parsed once and evaluated directly against its parse tree.
+ *
+ * Evaluating through {@link ExpressionEvaluatorImpl#evaluate(String, Class, VariableResolver, FunctionMapper)} looks
+ * up the parsed expression in a global synchronized cache on every call, which is a point of contention when many
+ * pipeline runners evaluate expressions concurrently.
+ *
+ * Sub-expressions that only combine literals, through operators or through functions known to depend only on their
+ * arguments, are evaluated when the expression is compiled and replaced by their value. Expressions that end up not
+ * depending on variables or functions at all are additionally coerced only once per return type.
+ *
+ * The parse tree and coercion rules are the ones of the commons-el evaluator, hence the results and errors are the
+ * same as when evaluating the expression string directly.
+ */
+final class CompiledExpression {
+  private static final Logger EL_LOGGER = new Logger(System.out);
+
+  // Functions whose result only depends on their arguments, except for the ones using the evaluation context or
+  // returning mutable values, which would be shared by all evaluations
+  private static final Set<String> FOLDABLE_FUNCTION_PREFIXES = ImmutableSet.of("str", "math");
+  private static final Set<String> NON_FOLDABLE_FUNCTIONS = ImmutableSet.of("str:regExCapture", "str:splitKV");
+
+  // Constant sub-expressions can't refer to variables
+  private static final VariableResolver NO_VARIABLES = name -> {
+    throw new ELException("Variable '" + name + "' in constant expression");
+  };
+
+  // String, Expression or ExpressionString, as returned by ExpressionEvaluatorImpl.parseExpressionString()
+  private final Object parsed;
+  private final boolean constant;
+  private volatile Folded folded;
+
+  private CompiledExpression(Object parsed) {
+    this.parsed = parsed;
+    constant = parsed instanceof String || parsed instanceof Literal || isConstantString(parsed);
+  }
+
+  static CompiledExpression compile(ExpressionEvaluatorImpl evaluator, String expression) throws ELException {
+    return compile(evaluator, expression, null);
+  }
+
+  /**
+   * Parses the expression and folds its constant sub-expressions. Functions are folded only if a function mapper is
+   * given. The parse tree comes from the evaluator's cache, hence folded nodes are copied rather than modified.
+   */
+  static CompiledExpression compile(
+      ExpressionEvaluatorImpl evaluator,
+      String expression,
+      FunctionMapper functions
+  ) throws ELException {
+    Object parsed = evaluator.parseExpressionString(expression);
+    if (parsed instanceof Expression) {
+      parsed = fold((Expression) parsed, functions);
+    } else if (parsed instanceof ExpressionString) {
+      Object[] elements = ((ExpressionString) parsed).getElements();
+      Object[] folded = new Object[elements.length];
+      for (int i = 0; i < elements.length; i++) {
+        folded[i] = (elements[i] instanceof Expression) ? fold((Expression) elements[i], functions) : elements[i];
+      }
+      parsed = new ExpressionString(folded);
+    }
+    return new CompiledExpression(parsed);
+  }
+
+  private static boolean isConstantString(Object parsed) {
+    if (!(parsed instanceof ExpressionString)) {
+      return false;
+    }
+    for (Object element : ((ExpressionString) parsed).getElements()) {
+      if (!(element instanceof String || element instanceof Literal)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Expression fold(Expression expression, FunctionMapper functions) {
+    Expression copy;
+    boolean foldable;
+    if (expression instanceof BinaryOperatorExpression) {
+      BinaryOperatorExpression binary = (BinaryOperatorExpression) expression;
+      Expression first = fold(binary.getExpression(), functions);
+      List<Expression> others = foldAll(binary.getExpressions(), functions);
+      foldable = first instanceof Literal && allLiterals(others);
+      copy = new BinaryOperatorExpression(first, binary.getOperators(), others);
+    } else if (expression instanceof UnaryOperatorExpression) {
+      UnaryOperatorExpression unary = (UnaryOperatorExpression) expression;
+      Expression operand = fold(unary.getExpression(), functions);
+      foldable = operand instanceof Literal;
+      copy = new UnaryOperatorExpression(unary.getOperator(), unary.getOperators(), operand);
+    } else if (expression instanceof ConditionalExpression) {
+      ConditionalExpression conditional = (ConditionalExpression) expression;
+      Expression condition = fold(conditional.getCondition(), functions);
+      Expression trueBranch = fold(conditional.getTrueBranch(), functions);
+      Expression falseBranch = fold(conditional.getFalseBranch(), functions);
+      foldable = condition instanceof Literal && trueBranch instanceof Literal && falseBranch instanceof Literal;
+      copy = new ConditionalExpression(condition, trueBranch, falseBranch);
+    } else if (expression instanceof FunctionInvocation && functions != null) {
+      FunctionInvocation invocation = (FunctionInvocation) expression;
+      List<Expression> arguments = foldAll(invocation.getArgumentList(), functions);
+      foldable = isFoldableFunction(invocation.getFunctionName()) && allLiterals(arguments);
+      copy = new FunctionInvocation(invocation.getFunctionName(), arguments);
+    } else {
+      return expression;
+    }
+    if (foldable) {
+      try {
+        return new FoldedLiteral(copy.evaluate(NO_VARIABLES, functions, EL_LOGGER), expression.getExpressionString());
+      } catch (ELException | RuntimeException ex) {
+        // Left to fail, with the usual error, when the expression is evaluated
+      }
+    }
+    return copy;
+  }
+
+  private static List<Expression> foldAll(List<Expression> expressions, FunctionMapper functions) {
+    List<Expression> folded = new ArrayList<>(expressions.size());
+    for (Expression expression : expressions) {
+      folded.add(fold(expression, functions));
+    }
+    return folded;
+  }
+
+  private static boolean allLiterals(List<Expression> expressions) {
+    for (Expression expression : expressions) {
+      if (!(expression instanceof Literal)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isFoldableFunction(String functionName) {
+    int colon = functionName.indexOf(':');
+    return colon > 0
+        && FOLDABLE_FUNCTION_PREFIXES.contains(functionName.substring(0, colon))
+        && !NON_FOLDABLE_FUNCTIONS.contains(functionName);
+  }
+
+  boolean isConstant() {
+    return constant;
+  }
+
+  Object evaluate(VariableResolver resolver, FunctionMapper functions, Class<?> returnType) throws ELException {
+    if (parsed == null) {
+      return null;
+    } else if (constant) {
+      Folded current = folded;
+      if (current == null || current.returnType != returnType) {
+        current = new Folded(returnType, coerce(evaluateTree(resolver, functions), returnType));
+        folded = current;
+      }
+      return current.value;
+    }
+    return coerce(evaluateTree(resolver, functions), returnType);
+  }
+
+  private Object evaluateTree(VariableResolver resolver, FunctionMapper functions) throws ELException {
+    if (parsed instanceof String) {
+      return parsed;
+    } else if (parsed instanceof Expression) {
+      return ((Expression) parsed).evaluate(resolver, functions, EL_LOGGER);
+    } else if (parsed instanceof ExpressionString) {
+      return ((ExpressionString) parsed).evaluate(resolver, functions, EL_LOGGER);
+    }
+    return null;
+  }
+
+  private Object coerce(Object value, Class<?> returnType) throws ELException {
+    // Same as ExpressionEvaluatorImpl, plain strings are returned as they are for String and Object
+    if (parsed instanceof String && (returnType == String.class || returnType == Object.class)) {
+      return value;
+    }
+    return Coercions.coerce(value, returnType, EL_LOGGER);
+  }
+
+  // Value of a constant sub-expression, keeps the original text for error messages
+  private static class FoldedLiteral extends Literal {
+    private final String expressionString;
+
+    FoldedLiteral(Object value, String expressionString) {
+      super(value);
+      this.expressionString = expressionString;
+    }
+
+    @Override
+    public String getExpressionString() {
+      return expressionString;
+    }
+  }
+
+  private static class Folded {
+    private final Class<?> returnType;
+    private final Object value;
+
+    Folded(Class<?> returnType, Object value) {
+      this.returnType = returnType;
+      this.value = value;
+    }
+  }
+}
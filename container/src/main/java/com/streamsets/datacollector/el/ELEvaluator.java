@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ELEvaluator extends ELEval {
   private static final Logger LOG = LoggerFactory.getLogger(ELEvaluator.class);
@@ -42,10 +43,15 @@ public class ELEvaluator extends ELEval {
   private final FunctionMapperImpl functionMapper;
   private final List<ElFunctionDefinition> elFunctionDefinitions;
   private final List<ElConstantDefinition> elConstantDefinitions;
+  private final Map<String, CompiledExpression> compiledExpressions;
 
   // ExpressionEvaluatorImpl can be used as a singleton
   private static final LruExpressionEvaluatorImpl EVALUATOR = new LruExpressionEvaluatorImpl();
 
+  // Expressions are usually coming from the stage configuration, the limit only protects against stages that build
+  // expressions dynamically, expressions over the limit are still evaluated but parsed on every evaluation.
+  static final int MAX_COMPILED_EXPRESSIONS = 1000;
+
   public ELEvaluator(String configName, boolean explicit, Map<String, Object> constants, List<Class> elFuncConstDefClasses) {
     this(configName, explicit, constants, elFuncConstDefClasses.toArray(new Class[elFuncConstDefClasses.size()]));
   }
@@ -56,6 +62,7 @@ public class ELEvaluator extends ELEval {
     functionsByNamespace = new HashMap<>();
     elFunctionDefinitions = new ArrayList<>();
     elConstantDefinitions = new ArrayList<>();
+    compiledExpressions = new ConcurrentHashMap<>();
     populateConstantsAndFunctions(explicit, elFuncConstDefClasses);
     this.functionMapper = new FunctionMapperImpl();
   }
@@ -142,7 +149,11 @@ public class ELEvaluator extends ELEval {
       }
     };
     try {
-      return (T) EVALUATOR.evaluate(expression, returnType, variableResolver, functionMapper);
+      if (expression == null) {
+        // Let the evaluator fail the same way it always did
+        return (T) EVALUATOR.evaluate(expression, returnType, variableResolver, functionMapper);
+      }
+      return (T) compile(expression).evaluate(variableResolver, functionMapper, returnType);
     } catch (ELException e) {
       // Apache evaluator is not using the getCause exception chaining that is available in Java but rather a custom
       // chaining mechanism. This doesn't work well for us as we're effectively swallowing the cause that is not
@@ -159,6 +170,21 @@ public class ELEvaluator extends ELEval {
     }
   }
 
+  private CompiledExpression compile(String expression) throws ELException {
+    CompiledExpression compiled = compiledExpressions.get(expression);
+    if (compiled == null) {
+      compiled = CompiledExpression.compile(EVALUATOR, expression, functionMapper);
+      if (compiledExpressions.size() < MAX_COMPILED_EXPRESSIONS) {
+        compiledExpressions.putIfAbsent(expression, compiled);
+      }
+    }
+    return compiled;
+  }
+
+  int getCompiledExpressionsCount() {
+    return compiledExpressions.size();
+  }
+
   private class FunctionMapperImpl implements FunctionMapper {
 
     @Override
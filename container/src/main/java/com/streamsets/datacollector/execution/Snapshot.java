@@ -19,6 +19,7 @@ import com.streamsets.datacollector.util.PipelineException;
 
 import java.io.Closeable;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 public interface Snapshot extends Closeable {
 
@@ -26,4 +27,7 @@ public interface Snapshot extends Closeable {
 
   public InputStream getOutput() throws PipelineException;
 
+  // writes only the given range of captured batches, in the same format as getOutput()
+  public void writeOutput(OutputStream out, int batchOffset, int batchCount) throws PipelineException;
+
 }
@@ -38,6 +38,13 @@ public interface SnapshotStore {
       List<List<StageOutput>> snapshotBatches
   ) throws PipelineException;
 
+  // appends the data of one captured batch to a snapshot in progress, the batch is written out right away so that it
+  // doesn't have to be kept in memory until the snapshot is saved. Appended batches precede the ones given to save().
+  public void append(String name, String rev, String id, List<StageOutput> snapshotBatch) throws PipelineException;
+
+  // discards the batches appended to a snapshot in progress, e.g. when its capture is cancelled
+  public void discardAppended(String name, String rev, String id) throws PipelineException;
+
   // Updates the label of snapshot by updating the Snapshot Info
   public SnapshotInfo updateLabel(String name, String rev, String id, String snapshotLabel) throws PipelineException;
 
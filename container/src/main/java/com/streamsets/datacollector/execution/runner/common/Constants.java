@@ -26,6 +26,12 @@ public class Constants {
   public static final String PIPELINE_CLUSTER_TOKEN_KEY = "pipeline.cluster.token";
   public static final String MAX_BATCH_SIZE_KEY = "production.maxBatchSize";
   public static final int MAX_BATCH_SIZE_DEFAULT = 1000;
+  public static final String COPY_ON_WRITE_RECORDS_KEY = "production.copyOnWriteRecords";
+  public static final boolean COPY_ON_WRITE_RECORDS_DEFAULT = false;
+  public static final String COMPACT_RECORDS_KEY = "production.compactRecords";
+  public static final boolean COMPACT_RECORDS_DEFAULT = false;
+  public static final String OFFSET_JOURNAL_COMPACTION_ENTRIES_KEY = "production.offsetJournal.compactionEntries";
+  public static final int OFFSET_JOURNAL_COMPACTION_ENTRIES_DEFAULT = 10000;
   public static final String DELIVERY_GUARANTEE = "deliveryGuarantee";
   public static final String MAX_ERROR_FILE_SIZE_KEY = "production.maxErrorFileSize";
   public static final String MAX_ERROR_FILE_SIZE_DEFAULT = "1024MB";
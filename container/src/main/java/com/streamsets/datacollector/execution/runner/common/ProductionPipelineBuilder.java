@@ -15,7 +15,10 @@
  */
 package com.streamsets.datacollector.execution.runner.common;
 
+import com.streamsets.datacollector.config.OffsetPersistence;
 import com.streamsets.datacollector.config.PipelineConfiguration;
+import com.streamsets.datacollector.creation.PipelineConfigBean;
+import com.streamsets.datacollector.metrics.MetricsConfigurator;
 import com.streamsets.datacollector.lineage.LineagePublisherTask;
 import com.streamsets.datacollector.main.RuntimeInfo;
 import com.streamsets.datacollector.runner.Observer;
@@ -30,6 +33,7 @@ import com.streamsets.datacollector.util.Configuration;
 import com.streamsets.datacollector.util.ContainerError;
 import com.streamsets.datacollector.util.ValidationUtil;
 import com.streamsets.datacollector.validation.PipelineConfigurationValidator;
+import com.streamsets.pipeline.api.DeliveryGuarantee;
 import com.streamsets.pipeline.api.OffsetCommitter;
 import com.streamsets.pipeline.api.StageException;
 import org.slf4j.Logger;
@@ -107,6 +111,22 @@ public class ProductionPipelineBuilder {
     if (pipeline.getSource() instanceof OffsetCommitter) {
       sourceOffsetTracker = new ProductionSourceOffsetCommitterOffsetTracker(name, rev, runtimeInfo,
         (OffsetCommitter) pipeline.getSource());
+    } else if (pipeline.getPipelineConfig().offsetPersistence == OffsetPersistence.JOURNAL) {
+      PipelineConfigBean pipelineConfigBean = pipeline.getPipelineConfig();
+      // At most once requires offsets to be durable before the batch is processed, hence no grouping of syncs
+      long groupCommitMillis = pipelineConfigBean.deliveryGuarantee == DeliveryGuarantee.AT_MOST_ONCE ?
+          0 : pipelineConfigBean.offsetGroupCommitMillis;
+      sourceOffsetTracker = new ProductionSourceOffsetTracker(
+          name,
+          rev,
+          runtimeInfo,
+          groupCommitMillis,
+          configuration.get(
+              Constants.OFFSET_JOURNAL_COMPACTION_ENTRIES_KEY,
+              Constants.OFFSET_JOURNAL_COMPACTION_ENTRIES_DEFAULT
+          ),
+          MetricsConfigurator.createTimer(runner.getMetrics(), "pipeline.offsetSync", name, rev)
+      );
     } else {
       sourceOffsetTracker = new ProductionSourceOffsetTracker(name, rev, runtimeInfo);
     }
@@ -40,6 +40,8 @@ import com.streamsets.datacollector.execution.metrics.MetricsEventRunnable;
 import com.streamsets.datacollector.json.ObjectMapperFactory;
 import com.streamsets.datacollector.main.RuntimeInfo;
 import com.streamsets.datacollector.metrics.MetricsConfigurator;
+import com.streamsets.datacollector.record.CompactRecord;
+import com.streamsets.datacollector.record.CompactRecordSchema;
 import com.streamsets.datacollector.restapi.bean.CounterJson;
 import com.streamsets.datacollector.restapi.bean.HistogramJson;
 import com.streamsets.datacollector.restapi.bean.MeterJson;
@@ -68,6 +70,7 @@ import com.streamsets.datacollector.runner.StagePipe;
 import com.streamsets.datacollector.runner.StageRuntime;
 import com.streamsets.datacollector.runner.production.BadRecordsHandler;
 import com.streamsets.datacollector.runner.production.PipelineErrorNotificationRequest;
+import com.streamsets.datacollector.runner.production.ProductionSourceOffsetTracker;
 import com.streamsets.datacollector.runner.production.ReportErrorDelegate;
 import com.streamsets.datacollector.runner.production.StatsAggregationHandler;
 import com.streamsets.datacollector.util.AggregatorUtil;
@@ -100,7 +103,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
@@ -146,6 +152,9 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
   private final Counter batchErrorMessagesCounter;
   private final Counter memoryConsumedCounter;
   private final Histogram runnersHistogram;
+  private final Histogram batchCriticalPathHistogram;
+  // Non-null when independent branches of the pipeline run in parallel
+  private ForkJoinPool branchPool;
   private MetricRegistryJson metricRegistryJson;
   private Long rateLimit;
 
@@ -166,7 +175,7 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
   // Exception thrown while executing the pipeline
   private volatile Throwable exceptionFromExecution = null;
   /*Cache last N error records per stage in memory*/
-  private final Map<String, EvictingQueue<Record>> stageToErrorRecordsMap;
+  private final Map<String, EvictingQueue<CompactRecord>> stageToErrorRecordsMap;
   /*Cache last N error messages in memory*/
   private final Map<String, EvictingQueue<ErrorMessage>> stageToErrorMessagesMap;
   /**/
@@ -177,7 +186,8 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
   private MemoryLimitConfiguration memoryLimitConfiguration;
   private long lastMemoryLimitNotification;
   private ThreadHealthReporter threadHealthReporter;
-  private final List<List<StageOutput>> capturedBatches = new ArrayList<>();
+  /*number of batches of the current snapshot that were already appended to the snapshot store*/
+  private int capturedBatches = 0;
   private PipeContext pipeContext = null;
   private PipelineConfigBean pipelineConfigBean = null;
   private PipelineConfiguration pipelineConfiguration = null;
@@ -237,6 +247,8 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
     memoryConsumedCounter = MetricsConfigurator.createCounter(metrics, "pipeline.memoryConsumed", pipelineName,
       revision);
     runnersHistogram = MetricsConfigurator.createHistogram5Min(metrics, "pipeline.runners", pipelineName, revision);
+    batchCriticalPathHistogram = MetricsConfigurator.createHistogram5Min(metrics, "pipeline.batchCriticalPath",
+      pipelineName, revision);
   }
 
   public void setObserveRequests(BlockingQueue<Object> observeRequests) {
@@ -371,7 +383,20 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
     this.pipes = pipes;
     this.badRecordsHandler = badRecordsHandler;
     this.statsAggregationHandler = statsAggregationHandler;
-    this.runnerPool = new RunnerPool<>(pipes, pipeContext.getRuntimeStats(), runnersHistogram);
+    this.runnerPool = new RunnerPool<>(
+      pipes,
+      pipeContext.getRuntimeStats(),
+      runnersHistogram,
+      runner -> MetricsConfigurator.createStageHistogram5Min(
+        metrics,
+        "runner." + runner.getRunnerId() + ".queueWait",
+        pipelineName,
+        revision
+      )
+    );
+    if (pipelineConfigBean != null && pipelineConfigBean.parallelBranches) {
+      enableParallelBranches(pipes, pipelineConfigBean.branchThreads);
+    }
 
     // And we're officially running!
     this.running = true;
@@ -398,6 +423,23 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
     }
   }
 
+  private void enableParallelBranches(List<PipeRunner> pipeRunners, int threads) {
+    LOG.info("Running independent pipeline branches in parallel on up to {} threads", threads);
+    branchPool = new ForkJoinPool(
+      threads,
+      pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("ProductionPipelineRunner-branch-" + pipelineName + "-" + thread.getPoolIndex());
+        return thread;
+      },
+      null,
+      true
+    );
+    for (PipeRunner pipeRunner : pipeRunners) {
+      pipeRunner.enableParallelBranches(branchPool, batchCriticalPathHistogram);
+    }
+  }
+
   private void runPushSource() throws StageException, PipelineRuntimeException {
     // This object will receive delegated calls from the push origin callbacks
     originPipe.getStage().setPushSourceContextDelegate(this);
@@ -428,6 +470,12 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
       pipeBatch = new FullPipeBatch(entityName, previousOffset, configuration.get(Constants.MAX_BATCH_SIZE_KEY, Constants.MAX_BATCH_SIZE_DEFAULT), false);
     }
     pipeBatch.setRateLimiter(rateLimiter);
+    pipeBatch.setCopyOnWrite(
+        configuration.get(Constants.COPY_ON_WRITE_RECORDS_KEY, Constants.COPY_ON_WRITE_RECORDS_DEFAULT)
+    );
+    pipeBatch.setCompactRecords(
+        configuration.get(Constants.COMPACT_RECORDS_KEY, Constants.COMPACT_RECORDS_DEFAULT)
+    );
 
     return pipeBatch;
   }
@@ -459,8 +507,9 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
   public boolean processBatch(BatchContext batchCtx, String entity, String offset) {
     BatchContextImpl batchContext = (BatchContextImpl) batchCtx;
 
-    Map<String, Long> memoryConsumedByStage = new HashMap<>();
-    Map<String, Object> stageBatchMetrics = new HashMap<>();
+    // Concurrent as the stages of parallel branches report their metrics concurrently
+    Map<String, Long> memoryConsumedByStage = new ConcurrentHashMap<>();
+    Map<String, Object> stageBatchMetrics = new ConcurrentHashMap<>();
 
     Map<String, Object> batchMetrics = originPipe.finishBatchContext(batchContext);
 
@@ -543,12 +592,13 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
       FullPipeBatch pipeBatch = createFullPipeBatch(Source.POLL_SOURCE_OFFSET_KEY, offsetTracker.getOffsets().get(Source.POLL_SOURCE_OFFSET_KEY));
 
       // Run origin
-      Map<String, Long> memoryConsumedByStage = new HashMap<>();
-      Map<String, Object> stageBatchMetrics = new HashMap<>();
+      // Concurrent as the stages of parallel branches report their metrics concurrently
+      Map<String, Long> memoryConsumedByStage = new ConcurrentHashMap<>();
+      Map<String, Object> stageBatchMetrics = new ConcurrentHashMap<>();
       processPipe(
         originPipe,
         pipeBatch,
-        false,
+        new AtomicBoolean(false),
         null,
         null,
         memoryConsumedByStage,
@@ -708,6 +758,15 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
         // Next iteration should have new and empty PipeBatch
         pipeBatch = new FullPipeBatch(null, null, batchSize, false);
       }
+
+      if (branchPool != null) {
+        branchPool.shutdown();
+      }
+
+      // No more offsets will be committed, move journaled offsets (if any) back to the offset file
+      if (offsetTracker instanceof ProductionSourceOffsetTracker) {
+        ((ProductionSourceOffsetTracker) offsetTracker).close();
+      }
     } finally {
         destroyLock.unlock();
     }
@@ -749,14 +808,15 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
     synchronized (this) {
       this.snapshotBatchSize = 0;
       this.batchesToCapture = 0;
-      capturedBatches.clear();
+      capturedBatches = 0;
+      snapshotStore.discardAppended(pipelineName, revision, snapshotName);
     }
   }
 
-  private boolean processPipe(
+  private void processPipe(
     Pipe pipe,
     PipeBatch pipeBatch,
-    boolean committed,
+    AtomicBoolean committed,
     String entityName,
     String newOffset,
     Map<String, Long> memoryConsumedByStage,
@@ -768,11 +828,16 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
 
     if (deliveryGuarantee == DeliveryGuarantee.AT_MOST_ONCE
         && pipe.getStage().getDefinition().getType() == StageType.TARGET
-        && !committed
+        && !committed.get()
       ) {
-      // target cannot control offset commit in AT_MOST_ONCE mode
-      offsetTracker.commitOffset(entityName, newOffset);
-      committed = true;
+      // Targets of parallel branches must all wait for the commit
+      synchronized (committed) {
+        if (!committed.get()) {
+          // target cannot control offset commit in AT_MOST_ONCE mode
+          offsetTracker.commitOffset(entityName, newOffset);
+          committed.set(true);
+        }
+      }
     }
     pipe.process(pipeBatch);
     if (pipe instanceof StagePipe) {
@@ -781,8 +846,6 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
         stageBatchMetrics.put(pipe.getStage().getInfo().getInstanceName(), ((StagePipe) pipe).getBatchMetrics());
       }
     }
-
-    return committed;
   }
 
   private void runSourceLessBatch(
@@ -795,7 +858,7 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
   ) throws PipelineException, StageException {
     PipeRunner pipeRunner = null;
     try {
-      pipeRunner = runnerPool.getRunner();
+      pipeRunner = runnerPool.getRunner(entityName);
       executeRunner(pipeRunner, start, pipeBatch, entityName, newOffset, memoryConsumedByStage, stageBatchMetrics);
     } finally {
       if(pipeRunner != null) {
@@ -819,8 +882,7 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
     OffsetCommitTrigger offsetCommitTrigger = pipeRunner.getOffsetCommitTrigger();
 
     pipeRunner.executeBatch(entityName, newOffset, start, pipe -> {
-      committed.set(processPipe(pipe, pipeBatch, committed.get(), entityName, newOffset, memoryConsumedByStage, stageBatchMetrics));
-
+      processPipe(pipe, pipeBatch, committed, entityName, newOffset, memoryConsumedByStage, stageBatchMetrics);
     });
 
     enforceMemoryLimit(memoryConsumedByStage);
@@ -856,6 +918,8 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
       pipeContext.getRuntimeStats().setLastBatchOutputRecordsCount((pipeBatch.getOutputRecords()));
       pipeContext.getRuntimeStats().setLastBatchErrorRecordsCount(pipeBatch.getErrorRecords());
       pipeContext.getRuntimeStats().setLastBatchErrorMessagesCount(pipeBatch.getErrorMessages());
+      pipeContext.getRuntimeStats().setLastBatchAvoidedRecordClones(pipeBatch.getAvoidedRecordClones());
+      pipeContext.getRuntimeStats().addAvoidedRecordClones(pipeBatch.getAvoidedRecordClones());
     }
 
     if (isStatsAggregationEnabled()) {
@@ -879,7 +943,9 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
       List<StageOutput> snapshot = pipeBatch.getSnapshotsOfAllStagesOutput();
       if( batchesToCapture > 0 && isSnapshotOutputUsable(pipeBatch.getSnapshotsOfAllStagesOutput())) {
         if (!snapshot.isEmpty()) {
-          capturedBatches.add(snapshot);
+          // Written out right away rather than kept in memory until all batches are captured
+          snapshotStore.append(pipelineName, revision, snapshotName, snapshot);
+          capturedBatches++;
         }
         /*
          * Reset the capture snapshot variable only after capturing the snapshot
@@ -889,9 +955,15 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
         if (batchesToCapture == 0) {
           snapshotBatchSize = 0;
           batchesToCapture = 0;
-          if (!capturedBatches.isEmpty()) {
-            snapshotStore.save(pipelineName, revision, snapshotName, batchCountMeter.getCount(), capturedBatches);
-            capturedBatches.clear();
+          if (capturedBatches > 0) {
+            snapshotStore.save(
+              pipelineName,
+              revision,
+              snapshotName,
+              batchCountMeter.getCount(),
+              Collections.emptyList()
+            );
+            capturedBatches = 0;
           }
         }
       }
@@ -975,8 +1047,8 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
             pipeBatch,
             null,
             null,
-            new HashMap<>(),
-            new HashMap<>()
+            new ConcurrentHashMap<>(),
+            new ConcurrentHashMap<>()
           );
         } finally {
           if(runner != null) {
@@ -1094,15 +1166,19 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
       return;
     }
 
+    Map<CompactRecordSchema, CompactRecordSchema> compactSchemas = new HashMap<>();
     synchronized (stageToErrorRecordsMap) {
       for (Map.Entry<String, List<Record>> e : errorRecords.entrySet()) {
-        EvictingQueue<Record> errorRecordList = stageToErrorRecordsMap.computeIfAbsent(e.getKey(),
+        EvictingQueue<CompactRecord> errorRecordList = stageToErrorRecordsMap.computeIfAbsent(e.getKey(),
             k -> EvictingQueue.create(configuration.get(Constants.MAX_ERROR_RECORDS_PER_STAGE_KEY,
                 Constants.MAX_ERROR_RECORDS_PER_STAGE_DEFAULT
             ))
         );
         // replace with a data structure with an upper cap
-        errorRecordList.addAll(errorRecords.get(e.getKey()));
+        for (Record record : e.getValue()) {
+          // Retained records are read only when requested from the UI, keep them in compact form till then
+          errorRecordList.add(CompactRecord.create(record, compactSchemas));
+        }
       }
     }
   }
@@ -1114,11 +1190,11 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
         || stageToErrorRecordsMap.get(instanceName) == null || stageToErrorRecordsMap.get(instanceName).isEmpty()) {
         return Collections.emptyList();
       }
-      if (stageToErrorRecordsMap.get(instanceName).size() > size) {
-        return new CopyOnWriteArrayList<>(stageToErrorRecordsMap.get(instanceName)).subList(0, size);
-      } else {
-        return new CopyOnWriteArrayList<>(stageToErrorRecordsMap.get(instanceName));
-      }
+      List<Record> errorRecords = stageToErrorRecordsMap.get(instanceName).stream()
+          .limit(size)
+          .map(CompactRecord::toRecord)
+          .collect(Collectors.toList());
+      return new CopyOnWriteArrayList<>(errorRecords);
     }
   }
 
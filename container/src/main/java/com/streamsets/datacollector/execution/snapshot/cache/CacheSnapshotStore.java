@@ -87,6 +87,20 @@ public class CacheSnapshotStore implements SnapshotStore {
     }
   }
 
+  @Override
+  public void append(String name, String rev, String id, List<StageOutput> snapshotBatch) throws PipelineException {
+    synchronized (lockCache.getLock(name)) {
+      snapshotStore.append(name, rev, id, snapshotBatch);
+    }
+  }
+
+  @Override
+  public void discardAppended(String name, String rev, String id) throws PipelineException {
+    synchronized (lockCache.getLock(name)) {
+      snapshotStore.discardAppended(name, rev, id);
+    }
+  }
+
   @Override
   public SnapshotInfo updateLabel(String name, String rev, String id, String snapshotLabel) throws PipelineException {
     return snapshotStore.updateLabel(name, rev, id, snapshotLabel);
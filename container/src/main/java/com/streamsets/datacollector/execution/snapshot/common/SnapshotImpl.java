@@ -15,8 +15,13 @@
  */
 package com.streamsets.datacollector.execution.snapshot.common;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.streamsets.datacollector.execution.Snapshot;
 import com.streamsets.datacollector.execution.SnapshotInfo;
+import com.streamsets.datacollector.json.ObjectMapperFactory;
 import com.streamsets.datacollector.runner.PipelineRuntimeException;
 import com.streamsets.datacollector.util.ContainerError;
 
@@ -25,9 +30,12 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 public class SnapshotImpl implements Snapshot, Closeable {
 
+  private static final String SNAPSHOT_BATCHES_FIELD = "snapshotBatches";
+
   private SnapshotInfo snapshotInfo;
   private File snapshotFile;
   private InputStream output;
@@ -56,6 +64,47 @@ public class SnapshotImpl implements Snapshot, Closeable {
     return null;
   }
 
+  /**
+   * Copies the requested batches token by token, so only a single token is kept in memory regardless of how big the
+   * snapshot is.
+   */
+  @Override
+  public void writeOutput(OutputStream out, int batchOffset, int batchCount) throws PipelineRuntimeException {
+    JsonFactory factory = ObjectMapperFactory.get().getFactory();
+    try (JsonGenerator generator = factory.createGenerator(out)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      generator.writeStartObject();
+      generator.writeArrayFieldStart(SNAPSHOT_BATCHES_FIELD);
+      if (snapshotFile != null) {
+        try (JsonParser parser = factory.createParser(snapshotFile)) {
+          if (parser.nextToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+              String field = parser.getCurrentName();
+              if (parser.nextToken() == JsonToken.START_ARRAY && SNAPSHOT_BATCHES_FIELD.equals(field)) {
+                int index = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                  if (index >= batchOffset && index - batchOffset < batchCount) {
+                    generator.copyCurrentStructure(parser);
+                  } else {
+                    parser.skipChildren();
+                  }
+                  index++;
+                }
+              } else {
+                parser.skipChildren();
+              }
+            }
+          }
+        }
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+    } catch (IOException ex) {
+      throw new PipelineRuntimeException(ContainerError.CONTAINER_0600, snapshotInfo.getId(), snapshotInfo.getName(),
+        snapshotInfo.getRev(), ex.toString(), ex);
+    }
+  }
+
   @Override
   public void close() throws IOException {
     snapshotInfo = null;
@@ -15,17 +15,18 @@
  */
 package com.streamsets.datacollector.execution.snapshot.file;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.streamsets.datacollector.execution.Snapshot;
 import com.streamsets.datacollector.execution.SnapshotInfo;
 import com.streamsets.datacollector.execution.SnapshotStore;
-import com.streamsets.datacollector.execution.snapshot.common.SnapshotData;
 import com.streamsets.datacollector.execution.snapshot.common.SnapshotImpl;
 import com.streamsets.datacollector.execution.snapshot.common.SnapshotInfoImpl;
 import com.streamsets.datacollector.io.DataStore;
 import com.streamsets.datacollector.json.ObjectMapperFactory;
 import com.streamsets.datacollector.main.RuntimeInfo;
-import com.streamsets.datacollector.restapi.bean.SnapshotDataJson;
+import com.streamsets.datacollector.restapi.bean.BeanHelper;
 import com.streamsets.datacollector.restapi.bean.SnapshotInfoJson;
 import com.streamsets.datacollector.runner.PipelineRuntimeException;
 import com.streamsets.datacollector.runner.StageOutput;
@@ -37,8 +38,11 @@ import com.streamsets.datacollector.util.PipelineException;
 
 import javax.inject.Inject;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
@@ -46,10 +50,15 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 public class FileSnapshotStore implements SnapshotStore {
   private static final String SNAPSHOT_FILE_NAME = "snapshot.json";
   private static final String INFO_FILE_NAME = "info.json";
+  // Batches captured so far for a snapshot in progress, stored as a sequence of gzip members each holding one batch
+  private static final String BATCHES_FILE_NAME = "snapshot.batches.gz";
+  private static final String SNAPSHOT_BATCHES_FIELD = "snapshotBatches";
   private final LockCache<String> lockCache;
   private final RuntimeInfo runtimeInfo;
   private final ObjectMapper json;
@@ -65,6 +74,8 @@ public class FileSnapshotStore implements SnapshotStore {
   public SnapshotInfo create(String user, String name, String rev, String id, String label) throws PipelineException {
     synchronized (lockCache.getLock(name)) {
       PipelineDirectoryUtil.createPipelineSnapshotDir(runtimeInfo, name, rev, id);
+      // Batches of a previous capture with the same id that was never saved
+      deleteBatchesFile(name, rev, id);
       SnapshotInfo snapshotInfo = new SnapshotInfoImpl(user, id, label, name, rev, System.currentTimeMillis(), true, 0);
       persistSnapshotInfo(snapshotInfo);
       return snapshotInfo;
@@ -101,6 +112,32 @@ public class FileSnapshotStore implements SnapshotStore {
     }
   }
 
+  @Override
+  public void append(String name, String rev, String id, List<StageOutput> snapshotBatch) throws PipelineException {
+    synchronized (lockCache.getLock(name)) {
+      if (getInfo(name, rev, id) == null) {
+        throw new PipelineException(ContainerError.CONTAINER_0605);
+      }
+      // Every append adds a new gzip member, GZIPInputStream reads concatenated members as a single stream
+      File batchesFile = getPipelineSnapshotBatchesFile(name, rev, id);
+      try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(batchesFile, true)))) {
+        JsonGenerator generator = json.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.writeValue(generator, BeanHelper.wrapStageOutput(snapshotBatch));
+        generator.close();
+      } catch (IOException e) {
+        throw new PipelineRuntimeException(ContainerError.CONTAINER_0603, id, name, rev, e.toString(), e);
+      }
+    }
+  }
+
+  @Override
+  public void discardAppended(String name, String rev, String id) throws PipelineException {
+    synchronized (lockCache.getLock(name)) {
+      deleteBatchesFile(name, rev, id);
+    }
+  }
+
   @Override
   public SnapshotInfo updateLabel(String name, String rev, String id, String snapshotLabel) throws PipelineException {
     synchronized (lockCache.getLock(name)) {
@@ -204,6 +241,10 @@ public class FileSnapshotStore implements SnapshotStore {
       SNAPSHOT_FILE_NAME);
   }
 
+  private File getPipelineSnapshotBatchesFile(String name, String rev, String id) {
+    return new File(PipelineDirectoryUtil.getPipelineSnapshotDir(runtimeInfo, name, rev, id), BATCHES_FILE_NAME);
+  }
+
   private File getPipelineSnapshotInfoFile(String name, String rev, String id) {
     return new File(PipelineDirectoryUtil.getPipelineSnapshotDir(runtimeInfo, name, rev, id),
       INFO_FILE_NAME);
@@ -223,17 +264,50 @@ public class FileSnapshotStore implements SnapshotStore {
     }
   }
 
+  /**
+   * Writes the snapshot data, the batches appended so far are streamed from disk followed by the given batches so that
+   * the snapshot doesn't have to be held in memory as a whole.
+   */
   private void persistSnapshot(String name, String rev, String id, List<List<StageOutput>> snapshotBatches)
     throws PipelineRuntimeException {
+    File batchesFile = getPipelineSnapshotBatchesFile(name, rev, id);
     DataStore dataStore = new DataStore(getPipelineSnapshotFile(name, rev, id));
     try (OutputStream out = dataStore.getOutputStream()) {
-      json.writeValue(out, new SnapshotDataJson(new SnapshotData(snapshotBatches)));
+      JsonGenerator generator = json.getFactory().createGenerator(out);
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      generator.writeStartObject();
+      generator.writeArrayFieldStart(SNAPSHOT_BATCHES_FIELD);
+      if (batchesFile.exists()) {
+        try (
+          InputStream in = new GZIPInputStream(new BufferedInputStream(new FileInputStream(batchesFile)));
+          JsonParser parser = json.getFactory().createParser(in)
+        ) {
+          while (parser.nextToken() != null) {
+            generator.copyCurrentStructure(parser);
+          }
+        }
+      }
+      for (List<StageOutput> snapshotBatch : snapshotBatches) {
+        json.writeValue(generator, BeanHelper.wrapStageOutput(snapshotBatch));
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+      generator.close();
       dataStore.commit(out);
     } catch (IOException e) {
       throw new PipelineRuntimeException(ContainerError.CONTAINER_0603, id, name, rev, e.toString(), e);
     } finally {
       dataStore.release();
     }
+
+    deleteBatchesFile(name, rev, id);
+  }
+
+  private void deleteBatchesFile(String name, String rev, String id) throws PipelineRuntimeException {
+    File batchesFile = getPipelineSnapshotBatchesFile(name, rev, id);
+    if (batchesFile.exists() && !batchesFile.delete()) {
+      throw new PipelineRuntimeException(ContainerError.CONTAINER_0601, id, name, rev);
+    }
   }
 
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record;
+
+import com.streamsets.pipeline.api.Record;
+
+import java.util.Map;
+
+/**
+ * Record retained in memory with its value in compact form, see {@link CompactRecordValue}.
+ *
+ * Used for the error records retained for the UI, which are read only when requested, and by {@link CompactRecordList}
+ * for the records waiting in the pipe between stages. Stages always work on regular {@link RecordImpl} instances, so
+ * the {@link RecordImpl} accessors don't pay anything for it.
+ */
+public final class CompactRecord {
+  private final HeaderImpl header;
+  private final boolean initialRecord;
+  private final CompactRecordValue value;
+  // Record retained as is, when its value can't be compacted
+  private final Record record;
+
+  private CompactRecord(HeaderImpl header, boolean initialRecord, CompactRecordValue value, Record record) {
+    this.header = header;
+    this.initialRecord = initialRecord;
+    this.value = value;
+    this.record = record;
+  }
+
+  /**
+   * Creates a CompactRecord, the value of the record is compacted if it is a MAP or LIST_MAP of scalar fields without
+   * attributes, otherwise the record is retained as is.
+   *
+   * @param record record to retain.
+   * @param schemas schemas of records compacted so far, typically the records of the same batch.
+   * @return the CompactRecord.
+   */
+  public static CompactRecord create(Record record, Map<CompactRecordSchema, CompactRecordSchema> schemas) {
+    if (record.getClass() == RecordImpl.class) {
+      RecordImpl recordImpl = (RecordImpl) record;
+      CompactRecordValue value = CompactRecordValue.create(recordImpl.peekValue(), schemas);
+      if (value != null) {
+        return new CompactRecord(recordImpl.getHeader(), recordImpl.isInitialRecord(), value, null);
+      }
+    }
+    return new CompactRecord(null, false, null, record);
+  }
+
+  public boolean isCompact() {
+    return value != null;
+  }
+
+  /**
+   * Returns a CompactRecord that can be used independently of this one. Compact values are immutable and shared, a
+   * record retained as is gets cloned.
+   */
+  public CompactRecord copy() {
+    if (value != null) {
+      return this;
+    }
+    return new CompactRecord(null, false, null, ((RecordImpl) record).clone());
+  }
+
+  /**
+   * Returns the retained record. If compacted, a new record with a new value tree is created on every call.
+   */
+  public Record toRecord() {
+    if (value == null) {
+      return record;
+    }
+    RecordImpl recordImpl = new RecordImpl(header.clone(), value.toField());
+    recordImpl.setInitialRecord(initialRecord);
+    return recordImpl;
+  }
+}
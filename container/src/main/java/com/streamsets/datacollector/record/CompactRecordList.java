@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record;
+
+import com.streamsets.pipeline.api.Record;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Read only list of records kept in compact form, see {@link CompactRecord}.
+ *
+ * Every {@link #get(int)} of a compacted record materializes a new record with its own value tree, so the list is
+ * meant to be read once, by the stage consuming the records.
+ */
+public final class CompactRecordList extends AbstractList<Record> implements RandomAccess {
+  private final CompactRecord[] records;
+
+  private CompactRecordList(CompactRecord[] records) {
+    this.records = records;
+  }
+
+  /**
+   * Creates a CompactRecordList with the given records.
+   *
+   * @param records records to retain.
+   * @param schemas schemas of records compacted so far, typically the records of the same batch.
+   * @return the CompactRecordList.
+   */
+  public static CompactRecordList create(List<Record> records, Map<CompactRecordSchema, CompactRecordSchema> schemas) {
+    CompactRecord[] compactRecords = new CompactRecord[records.size()];
+    for (int i = 0; i < compactRecords.length; i++) {
+      compactRecords[i] = CompactRecord.create(records.get(i), schemas);
+    }
+    return new CompactRecordList(compactRecords);
+  }
+
+  /**
+   * Returns a list with the same records that can be used independently of this one, see {@link CompactRecord#copy()}.
+   */
+  public CompactRecordList copy() {
+    CompactRecord[] copies = new CompactRecord[records.length];
+    for (int i = 0; i < copies.length; i++) {
+      copies[i] = records[i].copy();
+    }
+    return new CompactRecordList(copies);
+  }
+
+  @Override
+  public Record get(int index) {
+    return records[index].toRecord();
+  }
+
+  @Override
+  public int size() {
+    return records.length;
+  }
+}
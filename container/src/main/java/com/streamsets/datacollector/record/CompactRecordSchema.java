@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record;
+
+import com.streamsets.pipeline.api.Field;
+
+import java.util.Arrays;
+
+/**
+ * Field names and types of a record stored in compact form, see {@link CompactRecord}.
+ *
+ * Records with the same field names and types share one instance, hence the names are stored once rather than once
+ * per record.
+ */
+public final class CompactRecordSchema {
+  private final boolean listMap;
+  private final String[] names;
+  private final Field.Type[] types;
+  // Index of the field value in either the primitive or the object array of CompactRecordValue
+  private final int[] slots;
+  private final int primitiveCount;
+  private final int objectCount;
+  private final int hashCode;
+
+  CompactRecordSchema(boolean listMap, String[] names, Field.Type[] types) {
+    this.listMap = listMap;
+    this.names = names;
+    this.types = types;
+    slots = new int[types.length];
+    int primitives = 0;
+    int objects = 0;
+    for (int i = 0; i < types.length; i++) {
+      slots[i] = isPrimitive(types[i]) ? primitives++ : objects++;
+    }
+    primitiveCount = primitives;
+    objectCount = objects;
+    hashCode = 31 * (31 * Boolean.hashCode(listMap) + Arrays.hashCode(names)) + Arrays.hashCode(types);
+  }
+
+  static boolean isPrimitive(Field.Type type) {
+    switch (type) {
+      case BOOLEAN:
+      case CHAR:
+      case BYTE:
+      case SHORT:
+      case INTEGER:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  boolean isListMap() {
+    return listMap;
+  }
+
+  int size() {
+    return names.length;
+  }
+
+  String getName(int index) {
+    return names[index];
+  }
+
+  Field.Type getType(int index) {
+    return types[index];
+  }
+
+  int getSlot(int index) {
+    return slots[index];
+  }
+
+  int getPrimitiveCount() {
+    return primitiveCount;
+  }
+
+  int getObjectCount() {
+    return objectCount;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof CompactRecordSchema)) {
+      return false;
+    }
+    CompactRecordSchema other = (CompactRecordSchema) obj;
+    return listMap == other.listMap && Arrays.equals(names, other.names) && Arrays.equals(types, other.types);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record;
+
+import com.streamsets.pipeline.api.Field;
+
+import java.util.BitSet;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable compact form of a record value that is a MAP or LIST_MAP of scalar fields without attributes.
+ *
+ * Primitive values are stored unboxed in a single long array, all other values (strings, decimals, dates, ...) are
+ * kept as they are, mutable ones (dates and byte arrays) being copied in and out. Field names and types are kept in a {@link CompactRecordSchema} shared with other records.
+ */
+final class CompactRecordValue {
+  private final CompactRecordSchema schema;
+  private final long[] primitives;
+  private final Object[] objects;
+  // Primitive fields with null value, null if there are none
+  private final BitSet nulls;
+
+  private CompactRecordValue(CompactRecordSchema schema, long[] primitives, Object[] objects, BitSet nulls) {
+    this.schema = schema;
+    this.primitives = primitives;
+    this.objects = objects;
+    this.nulls = nulls;
+  }
+
+  /**
+   * Creates compact form of the given value.
+   *
+   * @param schemas Schemas of already compacted records, the schema of the given value is added if not present yet
+   * @return compact form or null if the value can't be represented in compact form
+   */
+  static CompactRecordValue create(Field value, Map<CompactRecordSchema, CompactRecordSchema> schemas) {
+    if (value == null || !value.getType().isOneOf(Field.Type.MAP, Field.Type.LIST_MAP) || value.getValue() == null
+        || hasAttributes(value)) {
+      return null;
+    }
+    Map<String, Field> map = value.getValueAsMap();
+    String[] names = new String[map.size()];
+    Field.Type[] types = new Field.Type[map.size()];
+    int i = 0;
+    for (Map.Entry<String, Field> entry : map.entrySet()) {
+      Field field = entry.getValue();
+      if (field == null || hasAttributes(field)
+          || field.getType().isOneOf(Field.Type.MAP, Field.Type.LIST_MAP, Field.Type.LIST)) {
+        return null;
+      }
+      names[i] = entry.getKey();
+      types[i] = field.getType();
+      i++;
+    }
+
+    CompactRecordSchema schema = new CompactRecordSchema(value.getType() == Field.Type.LIST_MAP, names, types);
+    CompactRecordSchema existing = schemas.putIfAbsent(schema, schema);
+    if (existing != null) {
+      schema = existing;
+    }
+
+    long[] primitives = new long[schema.getPrimitiveCount()];
+    Object[] objects = new Object[schema.getObjectCount()];
+    BitSet nulls = null;
+    i = 0;
+    for (Field field : map.values()) {
+      int slot = schema.getSlot(i);
+      Object fieldValue = field.getValue();
+      if (!CompactRecordSchema.isPrimitive(field.getType())) {
+        objects[slot] = copyIfMutable(fieldValue);
+      } else if (fieldValue == null) {
+        if (nulls == null) {
+          nulls = new BitSet();
+        }
+        nulls.set(slot);
+      } else {
+        primitives[slot] = encode(field.getType(), fieldValue);
+      }
+      i++;
+    }
+    return new CompactRecordValue(schema, primitives, objects, nulls);
+  }
+
+  // the compact value must not share mutable values with any record
+  private static Object copyIfMutable(Object value) {
+    if (value instanceof Date) {
+      return ((Date) value).clone();
+    } else if (value instanceof byte[]) {
+      return ((byte[]) value).clone();
+    }
+    return value;
+  }
+
+  private static boolean hasAttributes(Field field) {
+    return field.getAttributes() != null && !field.getAttributes().isEmpty();
+  }
+
+  private static long encode(Field.Type type, Object value) {
+    switch (type) {
+      case BOOLEAN:
+        return ((Boolean) value) ? 1 : 0;
+      case CHAR:
+        return (Character) value;
+      case FLOAT:
+        return Float.floatToRawIntBits((Float) value);
+      case DOUBLE:
+        return Double.doubleToRawLongBits((Double) value);
+      default:
+        return ((Number) value).longValue();
+    }
+  }
+
+  private static Object decode(Field.Type type, long bits) {
+    switch (type) {
+      case BOOLEAN:
+        return bits != 0;
+      case CHAR:
+        return (char) bits;
+      case BYTE:
+        return (byte) bits;
+      case SHORT:
+        return (short) bits;
+      case INTEGER:
+        return (int) bits;
+      case FLOAT:
+        return Float.intBitsToFloat((int) bits);
+      case DOUBLE:
+        return Double.longBitsToDouble(bits);
+      default:
+        return bits;
+    }
+  }
+
+  CompactRecordSchema getSchema() {
+    return schema;
+  }
+
+  /**
+   * Creates a new field tree with the compacted value.
+   */
+  Field toField() {
+    int size = schema.size();
+    // LinkedHashMap for MAP as well to keep the original iteration order
+    LinkedHashMap<String, Field> map = new LinkedHashMap<>(size * 2);
+    for (int i = 0; i < size; i++) {
+      Field.Type type = schema.getType(i);
+      int slot = schema.getSlot(i);
+      Object value;
+      if (!CompactRecordSchema.isPrimitive(type)) {
+        value = copyIfMutable(objects[slot]);
+      } else if (nulls != null && nulls.get(slot)) {
+        value = null;
+      } else {
+        value = decode(type, primitives[slot]);
+      }
+      map.put(schema.getName(i), Field.create(type, value));
+    }
+    return schema.isListMap() ? Field.createListMap(map) : Field.create(map);
+  }
+}
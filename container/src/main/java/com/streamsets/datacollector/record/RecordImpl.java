@@ -29,6 +29,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 public class RecordImpl implements Record, Cloneable {
   private final HeaderImpl header;
@@ -36,6 +37,8 @@ public class RecordImpl implements Record, Cloneable {
   //Default true: so as to denote the record is just created
   //and initialized in a stage and did not pass through any other stage.
   private boolean isInitialRecord = true;
+  // Non-null while the value tree is shared with other records, see createCopyOnWriteClone()
+  private transient CopyOnWriteGroup copyOnWriteGroup;
 
   // need default constructor for deserialization purposes (Kryo)
   private RecordImpl() {
@@ -72,12 +75,80 @@ public class RecordImpl implements Record, Cloneable {
   // for clone() purposes
 
   protected RecordImpl(RecordImpl record) {
+    this(record, false);
+  }
+
+  // for createCopyOnWriteClone() purposes
+
+  protected RecordImpl(RecordImpl record, boolean shareValue) {
     Preconditions.checkNotNull(record, "record cannot be null");
     header = record.header.clone();
-    value = (record.value != null) ? record.value.clone() : null;
+    value = (record.value != null && !shareValue) ? record.value.clone() : record.value;
     isInitialRecord = record.isInitialRecord();
   }
 
+  protected RecordImpl shareValueClone() {
+    return new RecordImpl(this, true);
+  }
+
+  /**
+   * Group of records sharing one value tree. The last member to ask for a mutable reference takes over the
+   * shared tree, all the others clone it first. Members are guarded by the group's monitor so that the tree is
+   * never handed over while another member is still cloning it.
+   */
+  private static class CopyOnWriteGroup {
+    private int members = 1;
+    private final LongAdder materializedClones;
+
+    CopyOnWriteGroup(LongAdder materializedClones) {
+      this.materializedClones = materializedClones;
+    }
+  }
+
+  /**
+   * Creates a clone that shares the value tree of this record. Neither record copies the tree until it hands out a
+   * mutable reference to it (get(), set(), delete()); read only operations work on the shared tree.
+   *
+   * @param materializedClones incremented every time a member of the group has to clone the shared tree.
+   */
+  public RecordImpl createCopyOnWriteClone(LongAdder materializedClones) {
+    if (copyOnWriteGroup == null) {
+      copyOnWriteGroup = new CopyOnWriteGroup(materializedClones);
+    }
+    RecordImpl copy = shareValueClone();
+    copy.copyOnWriteGroup = copyOnWriteGroup;
+    synchronized (copyOnWriteGroup) {
+      copyOnWriteGroup.members++;
+    }
+    return copy;
+  }
+
+  public boolean isCopyOnWrite() {
+    return copyOnWriteGroup != null;
+  }
+
+  private void materializeValue() {
+    if (copyOnWriteGroup != null) {
+      synchronized (copyOnWriteGroup) {
+        if (--copyOnWriteGroup.members > 0) {
+          value = (value != null) ? value.clone() : null;
+          copyOnWriteGroup.materializedClones.increment();
+        }
+      }
+      copyOnWriteGroup = null;
+    }
+  }
+
+  // Leaves the copy-on-write group without cloning the shared tree, the record is not going to use it anymore
+  private void detachValue() {
+    if (copyOnWriteGroup != null) {
+      synchronized (copyOnWriteGroup) {
+        copyOnWriteGroup.members--;
+      }
+      copyOnWriteGroup = null;
+    }
+  }
+
   public void addStageToStagePath(String stage) {
     Preconditions.checkNotNull(stage, "stage cannot be null");
     String currentPath = (header.getStagesPath() == null) ? "" : header.getStagesPath() + ":";
@@ -108,11 +179,14 @@ public class RecordImpl implements Record, Cloneable {
 
   @Override
   public Field get() {
+    materializeValue();
     return value;
   }
 
   @Override
   public Field set(Field field) {
+    // the value is replaced, no need to clone the shared tree (the returned old value may still be shared)
+    detachValue();
     Field oldData = value;
     value = field;
     return oldData;
@@ -264,7 +338,12 @@ public class RecordImpl implements Record, Cloneable {
   }
 
   public FieldWithPath getValue() {
-    return createFieldWithPath("", "", get());
+    return createFieldWithPath("", "", value);
+  }
+
+  // Read only access to the value, even if shared with other records, see CompactRecord
+  Field peekValue() {
+    return value;
   }
 
   List<PathElement> parse(String fieldPath) {
@@ -321,6 +400,7 @@ public class RecordImpl implements Record, Cloneable {
 
   @Override
   public Field get(String fieldPath) {
+    materializeValue();
     List<PathElement> elements = parse(fieldPath);
     List<Field> fields = get(elements);
     return (elements.size() == fields.size()) ? fields.get(fields.size() - 1) : null;
@@ -329,6 +409,7 @@ public class RecordImpl implements Record, Cloneable {
 
   @Override
   public Field delete(String fieldPath) {
+    materializeValue();
     List<PathElement> elements = parse(fieldPath);
     List<Field> fields = get(elements);
     Field deleted = null;
@@ -512,6 +593,7 @@ public class RecordImpl implements Record, Cloneable {
 
   @Override
   public Field set(String fieldPath, Field newField) {
+    materializeValue();
     //get all the elements present in the fieldPath, including the newest element
     //For example, if the existing record has /a/b/c and the argument fieldPath is /a/b/d the parser returns three
     // elements - a, b and d
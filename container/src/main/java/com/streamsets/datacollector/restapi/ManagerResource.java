@@ -20,6 +20,7 @@ import com.streamsets.datacollector.execution.Manager;
 import com.streamsets.datacollector.execution.PipelineState;
 import com.streamsets.datacollector.execution.PipelineStatus;
 import com.streamsets.datacollector.execution.Runner;
+import com.streamsets.datacollector.execution.Snapshot;
 import com.streamsets.datacollector.execution.SnapshotInfo;
 import com.streamsets.datacollector.execution.alerts.AlertInfo;
 import com.streamsets.datacollector.main.RuntimeInfo;
@@ -67,10 +68,12 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -673,13 +676,33 @@ public class ManagerResource {
       @PathParam("pipelineId") String pipelineId,
       @PathParam("snapshotName") String snapshotName,
       @QueryParam("rev") @DefaultValue("0") String rev,
-      @QueryParam("attachment") @DefaultValue("false") Boolean attachment
+      @QueryParam("attachment") @DefaultValue("false") Boolean attachment,
+      @QueryParam("batchOffset") @DefaultValue("0") int batchOffset,
+      @QueryParam("batchCount") @DefaultValue("-1") int batchCount
   ) throws PipelineException {
+    if (batchOffset < 0 || batchCount < -1) {
+      return Response.status(Response.Status.BAD_REQUEST)
+          .entity(Utils.format("Invalid batchOffset '{}' or batchCount '{}'", batchOffset, batchCount))
+          .build();
+    }
     PipelineInfo pipelineInfo = store.getInfo(pipelineId);
     RestAPIUtils.injectPipelineInMDC(pipelineInfo.getTitle(), pipelineInfo.getPipelineId());
     Runner runner = manager.getRunner(pipelineId, rev);
     if(runner != null) {
-      if (attachment) {
+      if (batchCount >= 0) {
+        // Return only a page of the captured batches
+        Snapshot snapshot = runner.getSnapshot(snapshotName);
+        StreamingOutput streamingOutput = output -> {
+          try {
+            snapshot.writeOutput(output, batchOffset, batchCount);
+          } catch (PipelineException e) {
+            throw new WebApplicationException(e);
+          } finally {
+            snapshot.close();
+          }
+        };
+        return Response.ok().type(MediaType.APPLICATION_JSON).entity(streamingOutput).build();
+      } else if (attachment) {
         String fileName = pipelineId + "_" + snapshotName;
         return Response.ok().
             header("Content-Disposition", "attachment; filename=\"" + fileName + ".json\"").
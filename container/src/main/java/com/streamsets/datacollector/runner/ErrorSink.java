@@ -45,18 +45,18 @@ public class ErrorSink implements ReportErrorDelegate {
   }
 
   // for SDK
-  public void clear() {
+  public synchronized void clear() {
     stageErrors.clear();
     errorRecords.clear();
   }
 
   @Override
-  public void reportError(String stage, ErrorMessage errorMessage) {
+  public synchronized void reportError(String stage, ErrorMessage errorMessage) {
     addError(stageErrors, stage, errorMessage);
     totalErrorMessages++;
   }
 
-  public void addRecord(String stage, Record errorRecord) {
+  public synchronized void addRecord(String stage, Record errorRecord) {
     addError(errorRecords, stage, errorRecord);
     totalErrorRecords++;
   }
@@ -81,15 +81,15 @@ public class ErrorSink implements ReportErrorDelegate {
     return (errors != null) ? errors : Collections.emptyList();
   }
 
-  public List<Record> getErrorRecords(String stage) {
+  public synchronized List<Record> getErrorRecords(String stage) {
     return getErrors(errorRecords, stage);
   }
 
-  public List<ErrorMessage> getStageErrors(String stage) {
+  public synchronized List<ErrorMessage> getStageErrors(String stage) {
     return getErrors(stageErrors, stage);
   }
 
-  public int size() {
+  public synchronized int size() {
     return size;
   }
 
@@ -100,11 +100,11 @@ public class ErrorSink implements ReportErrorDelegate {
     return Utils.format("ErrorSink[reportingInstances='{}' size='{}']", stages, size());
   }
 
-  public int getTotalErrorRecords() {
+  public synchronized int getTotalErrorRecords() {
     return totalErrorRecords;
   }
 
-  public int getTotalErrorMessages() {
+  public synchronized int getTotalErrorMessages() {
     return totalErrorMessages;
   }
 
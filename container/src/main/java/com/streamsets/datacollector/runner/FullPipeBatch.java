@@ -19,6 +19,8 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.RateLimiter;
 import com.streamsets.datacollector.config.StageType;
+import com.streamsets.datacollector.record.CompactRecordList;
+import com.streamsets.datacollector.record.CompactRecordSchema;
 import com.streamsets.datacollector.record.RecordImpl;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.impl.Utils;
@@ -33,7 +35,14 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Pipe batch holding the records of all lanes in memory.
+ *
+ * Methods working with the lanes are synchronized as pipes of independent branches can process the batch
+ * concurrently, see PipeRunner.enableParallelBranches().
+ */
 public class FullPipeBatch implements PipeBatch {
 
   private final String sourceEntity;
@@ -49,6 +58,11 @@ public class FullPipeBatch implements PipeBatch {
   private int inputRecords;
   private int outputRecords;
   private RateLimiter rateLimiter;
+  private boolean copyOnWrite;
+  private boolean compactRecords;
+  private final Map<CompactRecordSchema, CompactRecordSchema> compactSchemas = new HashMap<>();
+  private long copiedRecords;
+  private final LongAdder materializedClones = new LongAdder();
 
   public FullPipeBatch(String sourceEntity, String lastOffset, int batchSize, boolean snapshotStagesOutput) {
     this.sourceEntity = sourceEntity;
@@ -90,9 +104,33 @@ public class FullPipeBatch implements PipeBatch {
     this.rateLimiter = rateLimiter;
   }
 
+  /**
+   * When enabled, lanes created by moveLaneCopying() share the records' value trees and a record clones its tree
+   * only when a downstream stage asks for a mutable reference to it.
+   */
+  public void setCopyOnWrite(boolean copyOnWrite) {
+    this.copyOnWrite = copyOnWrite;
+  }
+
+  /**
+   * When enabled, the output of a stage is kept in compact form (see {@link CompactRecordList}) until the stages
+   * reading it ask for their batch, and lanes created by moveLaneCopying() share the compact values.
+   */
+  public void setCompactRecords(boolean compactRecords) {
+    this.compactRecords = compactRecords;
+  }
+
+  /**
+   * Number of record clones that moveLaneCopying() would have made in this batch without copy-on-write, minus the
+   * ones that downstream stages forced so far.
+   */
+  public long getAvoidedRecordClones() {
+    return copiedRecords - materializedClones.sum();
+  }
+
   @Override
   @SuppressWarnings("unchecked")
-  public BatchImpl getBatch(final Pipe pipe) {
+  public synchronized BatchImpl getBatch(final Pipe pipe) {
     List<Record> records = new ArrayList<>();
     List<String> inputLanes = pipe.getInputLanes();
     for (String inputLane : inputLanes) {
@@ -105,7 +143,7 @@ public class FullPipeBatch implements PipeBatch {
   }
 
   @Override
-  public BatchMakerImpl startStage(StagePipe pipe) {
+  public synchronized BatchMakerImpl startStage(StagePipe pipe) {
     String stageName = pipe.getStage().getInfo().getInstanceName();
     Preconditions.checkState(!processedStages.contains(stageName), Utils.formatL(
       "The stage '{}' has been processed already", stageName));
@@ -122,7 +160,7 @@ public class FullPipeBatch implements PipeBatch {
 
   @Override
   @SuppressWarnings("unchecked")
-  public void skipStage(Pipe pipe) {
+  public synchronized void skipStage(Pipe pipe) {
     // Fill expected stage output lanes with empty lists
     pipe.getOutputLanes().stream().forEach(lane -> fullPayload.put((String)lane, Collections.emptyList()));
     // Components are allowed to generate events on destroy phase and hence we need to use default empty
@@ -131,7 +169,7 @@ public class FullPipeBatch implements PipeBatch {
   }
 
   @Override
-  public void completeStage(BatchMakerImpl batchMaker) {
+  public synchronized void completeStage(BatchMakerImpl batchMaker) {
     StagePipe pipe = batchMaker.getStagePipe();
     if (pipe.getStage().getDefinition().getType() == StageType.SOURCE) {
       inputRecords += batchMaker.getSize() +
@@ -144,7 +182,11 @@ public class FullPipeBatch implements PipeBatch {
     for (int i = 0; i < stageLaneNames.size() ; i++) {
       String stageLaneName = stageLaneNames.get(i);
       String pipeLaneName = pipe.getOutputLanes().get(i);
-      fullPayload.put(pipeLaneName, stageOutput.get(stageLaneName));
+      List<Record> records = stageOutput.get(stageLaneName);
+      if (compactRecords && records != null && !records.isEmpty()) {
+        records = CompactRecordList.create(records, compactSchemas);
+      }
+      fullPayload.put(pipeLaneName, records);
     }
     if (stageOutputSnapshot != null) {
       String instanceName = pipe.getStage().getInfo().getInstanceName();
@@ -157,7 +199,7 @@ public class FullPipeBatch implements PipeBatch {
   }
 
   @Override
-  public void completeStage(StagePipe pipe) {
+  public synchronized void completeStage(StagePipe pipe) {
     List<String> inputLanes = pipe.getInputLanes();
     for(String inputLane : inputLanes) {
       fullPayload.remove(inputLane);
@@ -169,7 +211,7 @@ public class FullPipeBatch implements PipeBatch {
   }
 
   @Override
-  public Map<String, List<Record>> getLaneOutputRecords(List<String> pipeLanes) {
+  public synchronized Map<String, List<Record>> getLaneOutputRecords(List<String> pipeLanes) {
     Map<String, List<Record>> snapshot = new HashMap<>();
     for (String pipeLane : pipeLanes) {
       //The observer will copy
@@ -197,7 +239,7 @@ public class FullPipeBatch implements PipeBatch {
 
   @Override
   @SuppressWarnings("unchecked")
-  public void overrideStageOutput(StagePipe pipe, StageOutput stageOutput) {
+  public synchronized void overrideStageOutput(StagePipe pipe, StageOutput stageOutput) {
     startStage(pipe);
     for (String pipeLaneName : pipe.getOutputLanes()) {
       String stageLaneName = LaneResolver.removePostFixFromLane(pipeLaneName);
@@ -223,7 +265,7 @@ public class FullPipeBatch implements PipeBatch {
   }
 
   @Override
-  public List<StageOutput> createFailureSnapshot() {
+  public synchronized List<StageOutput> createFailureSnapshot() {
     // Stage name -> (Lane name -> Records)
     Map<String, Map<String, List<Record>>> salvagedStageOutputs = new LinkedHashMap<>();
 
@@ -274,19 +316,37 @@ public class FullPipeBatch implements PipeBatch {
   }
 
   @Override
-  public void moveLane(String inputLane, String outputLane) {
+  public synchronized void moveLane(String inputLane, String outputLane) {
     fullPayload.put(outputLane, Preconditions.checkNotNull(fullPayload.remove(inputLane), Utils.formatL(
         "Stream '{}' does not exist", inputLane)));
   }
 
   @Override
-  public void moveLaneCopying(String inputLane, List<String> outputLanes) {
+  public synchronized void moveLaneCopying(String inputLane, List<String> outputLanes) {
     List<Record> records = Preconditions.checkNotNull(fullPayload.remove(inputLane), Utils.formatL(
         "Stream '{}' does not exist", inputLane));
-    for (String lane : outputLanes) {
+    for (int i = 0; i < outputLanes.size(); i++) {
+      String lane = outputLanes.get(i);
       Preconditions.checkState(!fullPayload.containsKey(lane), Utils.formatL("Lane '{}' already exists", lane));
-      fullPayload.put(lane, createCopy(records));
+      if (records instanceof CompactRecordList) {
+        // Compact values are immutable, all lanes share them
+        fullPayload.put(lane, (i == outputLanes.size() - 1) ? records : ((CompactRecordList) records).copy());
+      } else if (copyOnWrite) {
+        // The last lane takes over the original records, all their copies share the value trees with them
+        fullPayload.put(lane, (i == outputLanes.size() - 1) ? records : createCopyOnWriteCopy(records));
+        copiedRecords += records.size();
+      } else {
+        fullPayload.put(lane, createCopy(records));
+      }
+    }
+  }
+
+  private List<Record> createCopyOnWriteCopy(List<Record> records) {
+    List<Record> list = new ArrayList<>(records.size());
+    for (Record record : records) {
+      list.add(((RecordImpl) record).createCopyOnWriteClone(materializedClones));
     }
+    return list;
   }
 
   private List<Record> createCopy(List<Record> records) {
@@ -304,12 +364,12 @@ public class FullPipeBatch implements PipeBatch {
   }
 
   @Override
-  public int getInputRecords() {
+  public synchronized int getInputRecords() {
     return inputRecords;
   }
 
   @Override
-  public int getOutputRecords() {
+  public synchronized int getOutputRecords() {
     return outputRecords;
   }
 
@@ -326,11 +386,12 @@ public class FullPipeBatch implements PipeBatch {
   @Override
   public String toString() {
     return Utils.format(
-      "PipeBatch[previousOffset='{}' currentOffset='{}' batchSize='{}' keepSnapshot='{}' errorRecords='{}]'",
+      "PipeBatch[previousOffset='{}' currentOffset='{}' batchSize='{}' keepSnapshot='{}' copyOnWrite='{}' errorRecords='{}]'",
       lastOffset,
       newOffset,
       batchSize,
       stageOutputSnapshot != null,
+      copyOnWrite,
       errorSink.size()
     );
   }
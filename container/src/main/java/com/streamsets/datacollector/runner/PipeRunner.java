@@ -15,6 +15,7 @@
  */
 package com.streamsets.datacollector.runner;
 
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
 import com.streamsets.datacollector.metrics.MetricsConfigurator;
@@ -27,9 +28,16 @@ import com.streamsets.pipeline.api.Target;
 import com.streamsets.pipeline.lib.log.LogConstants;
 import org.slf4j.MDC;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Pipe Runner that wraps one source-less instance of the pipeline.
@@ -42,6 +50,7 @@ public class PipeRunner {
   public static final String METRIC_CURRENT_STAGE = "currentStage";
   public static final String METRIC_BATCH_START_TIME = "batchStartTime";
   public static final String METRIC_STAGE_START_TIME = "stageStartTime";
+  public static final String METRIC_CRITICAL_PATH = "criticalPath";
 
   public static final String IDLE = "IDLE";
 
@@ -67,6 +76,26 @@ public class PipeRunner {
    */
   private final Map<String, Object> runtimeMetricGauge;
 
+  /**
+   * Executor for running independent branches of the pipeline concurrently, null to run pipes one at a time.
+   */
+  private Executor branchExecutor;
+
+  /**
+   * Per batch duration of the longest chain of dependent pipes when running branches concurrently.
+   */
+  private Histogram criticalPathHistogram;
+
+  /**
+   * For each pipe indexes of the pipes consuming its output lanes.
+   */
+  private int[][] successors;
+
+  /**
+   * For each pipe indexes of the pipes producing its input lanes.
+   */
+  private int[][] predecessors;
+
   public PipeRunner(
       String pipelineName,
       String pipelineRev,
@@ -107,6 +136,48 @@ public class PipeRunner {
     return pipes;
   }
 
+  /**
+   * Runs pipes that do not depend on each other (e.g. independent branches after a stage with multiple outputs)
+   * concurrently on given executor. A pipe is started once all pipes producing its input lanes are done and the batch
+   * completes once all pipes are done.
+   *
+   * @param executor Executor to run the pipes on
+   * @param criticalPathHistogram Histogram receiving the per batch duration of the longest chain of dependent pipes
+   */
+  public void enableParallelBranches(Executor executor, Histogram criticalPathHistogram) {
+    Map<String, Integer> producers = new HashMap<>();
+    for (int i = 0; i < pipes.size(); i++) {
+      for (Object lane : pipes.get(i).getOutputLanes()) {
+        producers.put((String) lane, i);
+      }
+      for (Object lane : pipes.get(i).getEventLanes()) {
+        producers.put((String) lane, i);
+      }
+    }
+
+    List<List<Integer>> predecessorLists = new ArrayList<>();
+    List<List<Integer>> successorLists = new ArrayList<>();
+    for (int i = 0; i < pipes.size(); i++) {
+      predecessorLists.add(new ArrayList<>());
+      successorLists.add(new ArrayList<>());
+    }
+    for (int i = 0; i < pipes.size(); i++) {
+      for (Object lane : pipes.get(i).getInputLanes()) {
+        // Lanes produced outside of this runner (by the origin) are available from the start
+        Integer producer = producers.get(lane);
+        if (producer != null && !predecessorLists.get(i).contains(producer)) {
+          predecessorLists.get(i).add(producer);
+          successorLists.get(producer).add(i);
+        }
+      }
+    }
+    predecessors = toArrays(predecessorLists);
+    successors = toArrays(successorLists);
+
+    this.branchExecutor = executor;
+    this.criticalPathHistogram = criticalPathHistogram;
+  }
+
   /**
    * Run batch with given consumer for each pipe.
    *
@@ -125,15 +196,10 @@ public class PipeRunner {
     this.runtimeMetricGauge.put(METRIC_OFFSET_KEY, Optional.ofNullable(offsetValue).orElse(""));
     this.runtimeMetricGauge.put(METRIC_STAGE_START_TIME, System.currentTimeMillis());
     try {
-      // Run one pipe at a time
-      for(Pipe p : pipes) {
-        this.runtimeMetricGauge.put(METRIC_CURRENT_STAGE, p.getStage().getInfo().getInstanceName());
-        if(p instanceof StagePipe) {
-          this.runtimeMetricGauge.put(METRIC_STAGE_START_TIME, System.currentTimeMillis());
-        }
-
-        // Process pipe
-        consumer.accept(p);
+      if (branchExecutor != null) {
+        executeBranchesInParallel(consumer);
+      } else {
+        executeSequentially(consumer);
       }
 
       // We've successfully finished batch
@@ -144,6 +210,146 @@ public class PipeRunner {
     }
   }
 
+  private static int[][] toArrays(List<List<Integer>> lists) {
+    int[][] arrays = new int[lists.size()][];
+    for (int i = 0; i < lists.size(); i++) {
+      arrays[i] = lists.get(i).stream().mapToInt(Integer::intValue).toArray();
+    }
+    return arrays;
+  }
+
+  private void executeSequentially(ThrowingConsumer<Pipe> consumer) throws PipelineRuntimeException, StageException {
+    // Run one pipe at a time
+    for(Pipe p : pipes) {
+      this.runtimeMetricGauge.put(METRIC_CURRENT_STAGE, p.getStage().getInfo().getInstanceName());
+      if(p instanceof StagePipe) {
+        this.runtimeMetricGauge.put(METRIC_STAGE_START_TIME, System.currentTimeMillis());
+      }
+
+      // Process pipe
+      consumer.accept(p);
+    }
+  }
+
+  private void executeBranchesInParallel(
+      ThrowingConsumer<Pipe> consumer
+  ) throws PipelineRuntimeException, StageException {
+    AtomicIntegerArray pendingPredecessors = new AtomicIntegerArray(pipes.size());
+    for (int i = 0; i < pipes.size(); i++) {
+      pendingPredecessors.set(i, predecessors[i].length);
+    }
+    long[] durations = new long[pipes.size()];
+    CountDownLatch done = new CountDownLatch(pipes.size());
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    for (int i = 0; i < pipes.size(); i++) {
+      if (predecessors[i].length == 0) {
+        submitPipe(i, consumer, pendingPredecessors, durations, done, failure);
+      }
+    }
+
+    // The pipes are working with the batch, we can't return until all of them are done
+    boolean interrupted = false;
+    while (done.getCount() > 0) {
+      try {
+        done.await();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+
+    Throwable throwable = failure.get();
+    if (throwable != null) {
+      if (throwable instanceof PipelineRuntimeException) {
+        throw (PipelineRuntimeException) throwable;
+      } else if (throwable instanceof StageException) {
+        throw (StageException) throwable;
+      } else if (throwable instanceof RuntimeException) {
+        throw (RuntimeException) throwable;
+      } else if (throwable instanceof Error) {
+        throw (Error) throwable;
+      }
+      throw new RuntimeException(throwable);
+    }
+
+    updateCriticalPath(durations);
+  }
+
+  private void submitPipe(
+      int index,
+      ThrowingConsumer<Pipe> consumer,
+      AtomicIntegerArray pendingPredecessors,
+      long[] durations,
+      CountDownLatch done,
+      AtomicReference<Throwable> failure
+  ) {
+    branchExecutor.execute(() -> {
+      // Once a pipe failed the remaining ones are not processed, but still completed to release the batch
+      if (failure.get() == null) {
+        Pipe p = pipes.get(index);
+        MDC.put(LogConstants.RUNNER, String.valueOf(runnerId));
+        this.runtimeMetricGauge.put(METRIC_CURRENT_STAGE, p.getStage().getInfo().getInstanceName());
+        if (p instanceof StagePipe) {
+          this.runtimeMetricGauge.put(METRIC_STAGE_START_TIME, System.currentTimeMillis());
+        }
+        long start = System.nanoTime();
+        try {
+          consumer.accept(p);
+        } catch (Throwable t) {
+          failure.compareAndSet(null, t);
+        } finally {
+          durations[index] = System.nanoTime() - start;
+          MDC.put(LogConstants.RUNNER, "");
+        }
+      }
+      for (int successor : successors[index]) {
+        if (pendingPredecessors.decrementAndGet(successor) == 0) {
+          submitPipe(successor, consumer, pendingPredecessors, durations, done, failure);
+        }
+      }
+      done.countDown();
+    });
+  }
+
+  /**
+   * Finds the longest chain of dependent pipes of the last batch. Pipes are in topological order, hence all
+   * predecessors of a pipe have been visited before the pipe itself.
+   */
+  private void updateCriticalPath(long[] durations) {
+    long[] finish = new long[pipes.size()];
+    int[] previous = new int[pipes.size()];
+    int last = -1;
+    for (int i = 0; i < pipes.size(); i++) {
+      previous[i] = -1;
+      for (int predecessor : predecessors[i]) {
+        if (previous[i] == -1 || finish[predecessor] > finish[previous[i]]) {
+          previous[i] = predecessor;
+        }
+      }
+      finish[i] = durations[i] + (previous[i] == -1 ? 0 : finish[previous[i]]);
+      if (last == -1 || finish[i] > finish[last]) {
+        last = i;
+      }
+    }
+    if (last == -1) {
+      return;
+    }
+
+    List<String> stages = new ArrayList<>();
+    for (int i = last; i != -1; i = previous[i]) {
+      String stage = pipes.get(i).getStage().getInfo().getInstanceName();
+      // Stage, observer and multiplexer pipes of one stage are reported once
+      if (stages.isEmpty() || !stages.get(0).equals(stage)) {
+        stages.add(0, stage);
+      }
+    }
+    criticalPathHistogram.update(TimeUnit.NANOSECONDS.toMillis(finish[last]));
+    this.runtimeMetricGauge.put(METRIC_CRITICAL_PATH, String.join(",", stages));
+  }
+
   private void resetBatchSpecificMetrics() {
     // Fill in default values when there is no batch running
     this.runtimeMetricGauge.put(METRIC_CURRENT_STAGE, IDLE);
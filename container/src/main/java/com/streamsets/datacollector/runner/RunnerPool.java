@@ -16,22 +16,46 @@
 package com.streamsets.datacollector.runner;
 
 import com.codahale.metrics.Histogram;
+import com.google.common.annotations.VisibleForTesting;
 import com.streamsets.datacollector.util.ContainerError;
-import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 /**
- * Small abstraction on top of blocking queue to model a pool of runners.
+ * Pool of runners shared by all threads of a multithreaded origin.
+ *
+ * Runners are handed out with affinity: a runner that last processed given entity (table, partition, ...) is preferred
+ * when the same entity asks again so that caches in the stages stay warm. When the preferred runner is busy, the
+ * runner that has been idle for the longest time is taken instead.
+ *
+ * When no runner is available, waiting threads are served in order of how long their entity hasn't been processed, so
+ * that lagging entities catch up rather than being starved by the busy ones. Threads that don't specify an entity are
+ * served in order of their arrival.
  */
 public class RunnerPool <T> {
 
+  /**
+   * Maximal number of entities for which we remember the affinity and last time they were processed.
+   */
+  private static final int MAX_TRACKED_ENTITIES = 1000;
+
   /**
    * Wrapper for the pool items to remember when they were inserted (what time).
    */
-  private static class QueueItem<T> implements Comparable<QueueItem> {
+  private static class QueueItem<T> {
     /**
      * Timestamp of the insertion to the queue.
      */
@@ -46,17 +70,65 @@ public class RunnerPool <T> {
       this.runner = runner;
       this.timestamp = System.currentTimeMillis();
     }
+  }
+
+  /**
+   * Thread waiting for a runner to become available.
+   */
+  private static class Waiter<T> {
+    /**
+     * Time when the entity was last processed, lower means the entity is lagging more.
+     */
+    final long priority;
 
-    @Override
-    public int compareTo(@NotNull QueueItem other) {
-      return (int) (this.timestamp - other.timestamp);
+    /**
+     * Order of arrival to break ties in priority.
+     */
+    final long sequence;
+
+    final Condition condition;
+
+    /**
+     * Runner handed over to this waiter, null while still waiting.
+     */
+    T runner;
+
+    Waiter(long priority, long sequence, Condition condition) {
+      this.priority = priority;
+      this.sequence = sequence;
+      this.condition = condition;
     }
   }
 
   /**
-   * Internal blocking queue with all available runners
+   * What we remember about each entity.
+   */
+  private static class EntityState<T> {
+    T runner;
+    long lastServed;
+  }
+
+  private final ReentrantLock lock;
+
+  /**
+   * Available runners, the one that is idle for the longest time first.
+   */
+  private final Deque<QueueItem<T>> available;
+
+  /**
+   * Threads waiting for a runner, the most lagging first.
+   */
+  private final PriorityQueue<Waiter<T>> waiters;
+
+  /**
+   * Affinity and last processing time of recently seen entities.
+   */
+  private final Map<String, EntityState<T>> entities;
+
+  /**
+   * Histograms with time spent waiting for given runner.
    */
-  private final PriorityBlockingQueue<QueueItem<T>> queue;
+  private final Map<T, Histogram> queueWaitHistograms;
 
   /**
    * Runtime stats to keep info about available runners.
@@ -73,18 +145,53 @@ public class RunnerPool <T> {
    */
   private final AtomicBoolean destroyed;
 
+  private long waiterSequence;
+
   /**
    * Create new runner pool.
    *
    * @param runners Runners that this pool object should manage
    */
   public RunnerPool(List<T> runners, RuntimeStats runtimeStats, Histogram histogram) {
-    queue = new PriorityBlockingQueue<>(runners.size());
-    runners.forEach(runner -> queue.add(new QueueItem<>(runner)));
+    this(runners, runtimeStats, histogram, runner -> null);
+  }
+
+  /**
+   * Create new runner pool.
+   *
+   * @param runners Runners that this pool object should manage
+   * @param queueWaitHistograms Provides histogram where time (in milliseconds) spent waiting for given runner should be
+   *                            recorded, can return null to not record the time
+   */
+  public RunnerPool(
+    List<T> runners,
+    RuntimeStats runtimeStats,
+    Histogram histogram,
+    Function<T, Histogram> queueWaitHistograms
+  ) {
+    this.lock = new ReentrantLock();
+    this.available = new ArrayDeque<>(runners.size());
+    this.waiters = new PriorityQueue<>(
+      Comparator.<Waiter<T>>comparingLong(w -> w.priority).thenComparingLong(w -> w.sequence)
+    );
+    this.entities = new LinkedHashMap<String, EntityState<T>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, EntityState<T>> eldest) {
+        return size() > MAX_TRACKED_ENTITIES;
+      }
+    };
+    this.queueWaitHistograms = new IdentityHashMap<>();
+    for (T runner : runners) {
+      available.add(new QueueItem<>(runner));
+      Histogram queueWait = queueWaitHistograms.apply(runner);
+      if (queueWait != null) {
+        this.queueWaitHistograms.put(runner, queueWait);
+      }
+    }
 
     this.runtimeStats = runtimeStats;
-    this.runtimeStats.setTotalRunners(queue.size());
-    this.runtimeStats.setAvailableRunners(queue.size());
+    this.runtimeStats.setTotalRunners(available.size());
+    this.runtimeStats.setAvailableRunners(available.size());
     this.histogram = histogram;
     this.destroyed = new AtomicBoolean(false);
   }
@@ -96,16 +203,60 @@ public class RunnerPool <T> {
    * @throws PipelineRuntimeException Thrown in case that current thread is unexpectedly interrupted
    */
   public T getRunner() throws PipelineRuntimeException {
+    return getRunner(null);
+  }
+
+  /**
+   * Get exclusive runner for processing given entity.
+   *
+   * @param entity Entity that will be processed (table, partition, ...), null if not known
+   * @return Runner that is not being used by anyone else, preferably the one that processed given entity last time.
+   * @throws PipelineRuntimeException Thrown in case that current thread is unexpectedly interrupted
+   */
+  public T getRunner(String entity) throws PipelineRuntimeException {
     validateNotDestroyed();
 
+    long waitStart = System.nanoTime();
+    T runner;
+    lock.lock();
     try {
-      return queue.take().runner;
-    } catch (InterruptedException e) {
-      throw new PipelineRuntimeException(ContainerError.CONTAINER_0801, e);
+      EntityState<T> state = entity == null ? null : entities.computeIfAbsent(entity, e -> new EntityState<>());
+
+      runner = waiters.isEmpty() ? pollAvailable(state) : null;
+      if (runner == null) {
+        // Entities that were never processed have the highest priority, the others are served in order of how long
+        // they have been waiting for processing.
+        long priority = state == null ? System.currentTimeMillis() : state.lastServed;
+        Waiter<T> waiter = new Waiter<>(priority, waiterSequence++, lock.newCondition());
+        waiters.add(waiter);
+        try {
+          while (waiter.runner == null) {
+            waiter.condition.await();
+          }
+        } catch (InterruptedException e) {
+          waiters.remove(waiter);
+          if (waiter.runner != null) {
+            release(waiter.runner);
+          }
+          throw new PipelineRuntimeException(ContainerError.CONTAINER_0801, e);
+        }
+        runner = waiter.runner;
+      }
+
+      if (state != null) {
+        state.runner = runner;
+        state.lastServed = System.currentTimeMillis();
+      }
     } finally {
-      runtimeStats.setAvailableRunners(queue.size());
-      histogram.update(queue.size());
+      updateStats();
+      lock.unlock();
     }
+
+    Histogram queueWait = queueWaitHistograms.get(runner);
+    if (queueWait != null) {
+      queueWait.update(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - waitStart));
+    }
+    return runner;
   }
 
   /**
@@ -115,23 +266,26 @@ public class RunnerPool <T> {
    * @return First runner that fits such criteria or null if there is no such runner
    */
   public T getIdleRunner(long idleTime) {
-    // Take the first runner
-    QueueItem<T> item = queue.poll();
+    lock.lock();
+    try {
+      // All runners might be currently in use, which is fine in this case.
+      QueueItem<T> item = available.peekFirst();
+      if(item == null) {
+        return null;
+      }
 
-    // All runners might be currently in use, which is fine in this case.
-    if(item == null) {
-      return null;
-    }
+      // The runner idle for the longest time wasn't idle for the expected time, so neither are the others
+      if((System.currentTimeMillis() - item.timestamp) < idleTime) {
+        return null;
+      }
 
-    // If the runner wasn't idle for the expected time, we need to put it back to the queue (it will be added to the
-    // begging again).
-    if((System.currentTimeMillis() - item.timestamp) < idleTime) {
-      queue.add(item);
-      return null;
+      // Otherwise we do have runner that hasn't been used for at least idleTime, so we can return it now
+      available.pollFirst();
+      updateStats();
+      return item.runner;
+    } finally {
+      lock.unlock();
     }
-
-    // Otherwise we do have runner that hasn't been used for at least idleTime, so we can return it now
-    return item.runner;
   }
 
   /**
@@ -142,9 +296,13 @@ public class RunnerPool <T> {
   public void returnRunner(T runner) throws PipelineRuntimeException {
     validateNotDestroyed();
 
-    queue.add(new QueueItem<>(runner));
-    runtimeStats.setAvailableRunners(queue.size());
-    histogram.update(queue.size());
+    lock.lock();
+    try {
+      release(runner);
+      updateStats();
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
@@ -161,8 +319,72 @@ public class RunnerPool <T> {
 
     // Validate that this thread pool have all runners back, otherwise we're missing something and that is sign of
     // a trouble.
-    if(queue.size() < runtimeStats.getTotalRunners()) {
-      throw new PipelineRuntimeException(ContainerError.CONTAINER_0802, queue.size(), runtimeStats.getTotalRunners());
+    int size = availableSize();
+    if(size < runtimeStats.getTotalRunners()) {
+      throw new PipelineRuntimeException(ContainerError.CONTAINER_0802, size, runtimeStats.getTotalRunners());
+    }
+  }
+
+  /**
+   * Take runner preferred by given entity if it's available, otherwise the one that is idle for the longest time.
+   *
+   * Must be called while holding the lock.
+   */
+  private T pollAvailable(EntityState<T> state) {
+    if (state != null && state.runner != null) {
+      Iterator<QueueItem<T>> it = available.iterator();
+      while (it.hasNext()) {
+        QueueItem<T> item = it.next();
+        if (item.runner == state.runner) {
+          it.remove();
+          return item.runner;
+        }
+      }
+    }
+
+    QueueItem<T> item = available.pollFirst();
+    return item == null ? null : item.runner;
+  }
+
+  /**
+   * Hand over the runner to the most lagging waiter or put it back among available runners if nobody is waiting.
+   *
+   * Must be called while holding the lock.
+   */
+  private void release(T runner) {
+    Waiter<T> waiter = waiters.poll();
+    if (waiter == null) {
+      available.addLast(new QueueItem<>(runner));
+    } else {
+      waiter.runner = runner;
+      waiter.condition.signal();
+    }
+  }
+
+  /**
+   * Must be called while holding the lock.
+   */
+  private void updateStats() {
+    runtimeStats.setAvailableRunners(available.size());
+    histogram.update(available.size());
+  }
+
+  @VisibleForTesting
+  int getWaitingThreads() {
+    lock.lock();
+    try {
+      return waiters.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private int availableSize() {
+    lock.lock();
+    try {
+      return available.size();
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -173,7 +395,7 @@ public class RunnerPool <T> {
    */
   private void validateNotDestroyed() throws PipelineRuntimeException {
     if(destroyed.get()) {
-      throw new PipelineRuntimeException(ContainerError.CONTAINER_0803, queue.size(), runtimeStats.getTotalRunners());
+      throw new PipelineRuntimeException(ContainerError.CONTAINER_0803, availableSize(), runtimeStats.getTotalRunners());
     }
   }
 }
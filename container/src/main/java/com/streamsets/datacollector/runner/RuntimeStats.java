@@ -32,6 +32,8 @@ public class RuntimeStats implements GaugeValue {
   private long lastBatchErrorMessagesCount;
   private long totalRunners;
   private long availableRunners;
+  private long lastBatchAvoidedRecordClones;
+  private AtomicLong avoidedRecordClones;
 
   public RuntimeStats() {
     //initialize to current time, otherwise it will be 0 and will trigger the pipeline idle alert as soon as the
@@ -39,6 +41,7 @@ public class RuntimeStats implements GaugeValue {
     timeOfLastReceivedRecord = System.currentTimeMillis();
     batchCount = new AtomicLong(0);
     idleBatchCount = new AtomicLong(0);
+    avoidedRecordClones = new AtomicLong(0);
   }
 
   public long getBatchCount() {
@@ -113,6 +116,22 @@ public class RuntimeStats implements GaugeValue {
     this.availableRunners = availableRunners;
   }
 
+  public long getLastBatchAvoidedRecordClones() {
+    return lastBatchAvoidedRecordClones;
+  }
+
+  public void setLastBatchAvoidedRecordClones(long lastBatchAvoidedRecordClones) {
+    this.lastBatchAvoidedRecordClones = lastBatchAvoidedRecordClones;
+  }
+
+  public long getAvoidedRecordClones() {
+    return avoidedRecordClones.get();
+  }
+
+  public void addAvoidedRecordClones(long clones) {
+    avoidedRecordClones.addAndGet(clones);
+  }
+
   @Override
   public void serialize(JsonGenerator jg) throws IOException {
     jg.writeStartObject();
@@ -125,6 +144,8 @@ public class RuntimeStats implements GaugeValue {
     jg.writeObjectField("lastBatchErrorMessagesCount", lastBatchErrorMessagesCount);
     jg.writeObjectField("totalRunners", totalRunners);
     jg.writeObjectField("availableRunners", availableRunners);
+    jg.writeObjectField("lastBatchAvoidedRecordClones", lastBatchAvoidedRecordClones);
+    jg.writeObjectField("avoidedRecordClones", avoidedRecordClones.get());
     jg.writeEndObject();
   }
 
@@ -30,6 +30,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.Collections;
 import java.util.Map;
 
@@ -37,6 +38,7 @@ public class OffsetFileUtil {
   private static final Logger LOG = LoggerFactory.getLogger(ProductionSourceOffsetTracker.class);
 
   private static final String OFFSET_FILE = "offset.json";
+  private static final String OFFSET_JOURNAL_FILE = "offset.journal";
   private static final Map<String, String> DEFAULT_OFFSET = Collections.emptyMap();
   private static final int MAX_RETRIES = 5;
 
@@ -46,7 +48,36 @@ public class OffsetFileUtil {
     return new File(PipelineDirectoryUtil.getPipelineDir(runtimeInfo, pipelineName, rev), OFFSET_FILE);
   }
 
+  public static File getPipelineOffsetJournalFile(RuntimeInfo runtimeInfo, String pipelineName, String rev) {
+    return new File(PipelineDirectoryUtil.getPipelineDir(runtimeInfo, pipelineName, rev), OFFSET_JOURNAL_FILE);
+  }
+
+  /**
+   * Moves offsets from the offset journal (if there is any) to the offset file and removes the journal.
+   *
+   * Offset file is written first, so the offsets are never lost even if we crash in between the two steps - the
+   * journal is the authoritative source for as long as it exists.
+   */
+  public static void foldOffsetJournal(RuntimeInfo runtimeInfo, String pipelineName, String rev) {
+    File journalFile = getPipelineOffsetJournalFile(runtimeInfo, pipelineName, rev);
+    if (!journalFile.exists()) {
+      return;
+    }
+    try {
+      Map<String, String> offsets = OffsetJournal.replay(journalFile);
+      if (offsets != null) {
+        LOG.debug("Folding offset journal for pipeline {}", pipelineName);
+        writeOffsets(runtimeInfo, pipelineName, rev, new SourceOffset(SourceOffset.CURRENT_VERSION, offsets));
+      }
+      Files.deleteIfExists(journalFile.toPath());
+    } catch (IOException e) {
+      LOG.error("Failed to fold offset journal for pipeline {}. Reason {}", pipelineName, e.toString(), e);
+      throw new IllegalStateException(e);
+    }
+  }
+
   public static Map<String, String> saveIfEmpty(RuntimeInfo runtimeInfo, String pipelineName, String rev) {
+    foldOffsetJournal(runtimeInfo, pipelineName, rev);
     File pipelineOffsetFile =  getPipelineOffsetFile(runtimeInfo, pipelineName, rev);
     SourceOffset sourceOffset;
     DataStore ds = new DataStore(pipelineOffsetFile);
@@ -71,13 +102,25 @@ public class OffsetFileUtil {
   public static void saveOffsets(RuntimeInfo runtimeInfo, String pipelineName, String rev, Map<String, String> offset) {
     LOG.debug("Saving offset {} for pipeline {}", offset, pipelineName);
     SourceOffset sourceOffset = new SourceOffset(SourceOffset.CURRENT_VERSION, offset);
+    foldOffsetJournal(runtimeInfo, pipelineName, rev);
+    try {
+      writeOffsets(runtimeInfo, pipelineName, rev, sourceOffset);
+    } catch (IOException e) {
+      LOG.error("Failed to save offset={}. Reason {}", sourceOffset.getOffsets(), e.toString(), e);
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void writeOffsets(
+      RuntimeInfo runtimeInfo,
+      String pipelineName,
+      String rev,
+      SourceOffset sourceOffset
+  ) throws IOException {
     DataStore dataStore = new DataStore(OffsetFileUtil.getPipelineOffsetFile(runtimeInfo, pipelineName, rev));
     try (OutputStream os = dataStore.getOutputStream()) {
       ObjectMapperFactory.get().writeValue(os, BeanHelper.wrapSourceOffset(sourceOffset));
       dataStore.commit(os);
-    } catch (IOException e) {
-      LOG.error("Failed to save offset={}. Reason {}", sourceOffset.getOffsets(), e.toString(), e);
-      throw new IllegalStateException(e);
     } finally {
       dataStore.release();
     }
@@ -85,6 +128,7 @@ public class OffsetFileUtil {
   public static void saveSourceOffset(RuntimeInfo runtimeInfo, String pipelineName, String rev, SourceOffset offset) {
     // Assumes that the argument offset confirms to the format on disk. hence just writes it to offset file
     LOG.debug("Saving offset {} for pipeline {}", offset, pipelineName);
+    foldOffsetJournal(runtimeInfo, pipelineName, rev);
     DataStore dataStore = new DataStore(OffsetFileUtil.getPipelineOffsetFile(runtimeInfo, pipelineName, rev));
     try (OutputStream os = dataStore.getOutputStream()) {
       ObjectMapperFactory.get().writeValue(os, offset);
@@ -129,6 +173,14 @@ public class OffsetFileUtil {
     int retries = 0;
     while (retries < MAX_RETRIES) {
       try {
+        // Running pipeline might be persisting offsets in the journal, which takes precedence over the offset file
+        Map<String, String> journalOffsets = OffsetJournal.replay(
+            getPipelineOffsetJournalFile(runtimeInfo, pipelineName, rev)
+        );
+        if (journalOffsets != null) {
+          return new SourceOffset(SourceOffset.CURRENT_VERSION, journalOffsets);
+        }
+
         File pipelineOffsetFile = getPipelineOffsetFile(runtimeInfo, pipelineName, rev);
         if (pipelineOffsetFile.exists()) {
           DataStore ds = new DataStore(pipelineOffsetFile);
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.runner.production;
+
+import com.codahale.metrics.Timer;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of committed offsets.
+ *
+ * The journal starts with a full copy of the offsets followed by one small entry per committed offset change, so a
+ * commit costs a single append instead of rewriting the whole offset file. Every entry carries its length and CRC32,
+ * on replay a torn or corrupted tail (e.g. after a crash in the middle of a write) is ignored and the offsets are
+ * recovered as of the last complete entry.
+ *
+ * Syncing to disk can be grouped across consecutive commits: entries are always written to the file right away (hence
+ * they survive a crash of the JVM), but the file is synced at most once per group commit interval. Callers grouping
+ * commits are expected to call {@link #sync()} once per interval as well, so that the last entries of a group do not
+ * wait for the next append.
+ *
+ * Once the journal holds more than the configured number of entries it is compacted by atomically replacing it with
+ * a new journal holding only the current offsets.
+ *
+ * This class is not thread safe, callers are expected to synchronize access.
+ */
+public class OffsetJournal implements AutoCloseable {
+  private static final Logger LOG = LoggerFactory.getLogger(OffsetJournal.class);
+
+  private static final int MAGIC = 0x53444f4a;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 8;
+  private static final int ENTRY_HEADER_SIZE = 8;
+
+  private static final byte FULL = 1;
+  private static final byte PUT = 2;
+  private static final byte REMOVE = 3;
+
+  private final Path file;
+  private final long groupCommitMillis;
+  private final int compactionEntries;
+  private final Timer syncTimer;
+
+  private FileChannel channel;
+  private int entries;
+  private boolean unsynced;
+  private long lastSync;
+
+  private OffsetJournal(Path file, long groupCommitMillis, int compactionEntries, Timer syncTimer) {
+    this.file = file;
+    this.groupCommitMillis = groupCommitMillis;
+    this.compactionEntries = compactionEntries;
+    this.syncTimer = syncTimer;
+  }
+
+  /**
+   * Creates a new journal containing given offsets, replacing any journal that might exist at the given location.
+   *
+   * @param file Journal file
+   * @param offsets Current offsets
+   * @param groupCommitMillis Maximal time an appended entry can stay unsynced, 0 to sync after every append
+   * @param compactionEntries Number of entries after which the journal is compacted
+   * @param syncTimer Timer measuring the latency of syncing the journal to disk
+   */
+  public static OffsetJournal create(
+      File file,
+      Map<String, String> offsets,
+      long groupCommitMillis,
+      int compactionEntries,
+      Timer syncTimer
+  ) throws IOException {
+    Preconditions.checkArgument(groupCommitMillis >= 0, "Group commit interval can't be negative");
+    Preconditions.checkArgument(compactionEntries > 0, "Compaction entries must be greater than zero");
+    OffsetJournal journal = new OffsetJournal(file.toPath(), groupCommitMillis, compactionEntries, syncTimer);
+    journal.compact(offsets);
+    return journal;
+  }
+
+  /**
+   * Appends change of the offset for given entity.
+   *
+   * @param entity Entity that changed
+   * @param offset New offset, null if the entity has been removed
+   * @param offsets Full offsets map after the change, used when the journal needs to be compacted
+   */
+  public void append(String entity, String offset, Map<String, String> offsets) throws IOException {
+    Preconditions.checkState(channel != null, "Offset journal is closed");
+    if (entries >= compactionEntries) {
+      compact(offsets);
+      return;
+    }
+
+    ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(payload);
+    if (offset == null) {
+      out.writeByte(REMOVE);
+      writeString(out, entity);
+    } else {
+      out.writeByte(PUT);
+      writeString(out, entity);
+      writeString(out, offset);
+    }
+    out.flush();
+    writeEntry(channel, payload.toByteArray());
+    entries++;
+    unsynced = true;
+
+    if (groupCommitMillis == 0 || System.currentTimeMillis() - lastSync >= groupCommitMillis) {
+      sync();
+    }
+  }
+
+  /**
+   * Replaces the journal with a new one containing only the given offsets.
+   */
+  public void compact(Map<String, String> offsets) throws IOException {
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel tmpChannel = FileChannel.open(
+        tmp,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING
+    )) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putInt(MAGIC).putInt(VERSION).flip();
+      writeFully(tmpChannel, header);
+      writeEntry(tmpChannel, encodeFull(offsets));
+      try (Timer.Context ignored = syncTimer.time()) {
+        tmpChannel.force(true);
+      }
+    }
+
+    if (channel != null) {
+      channel.close();
+    }
+    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    entries = 0;
+    unsynced = false;
+    lastSync = System.currentTimeMillis();
+    LOG.debug("Compacted offset journal {}", file);
+  }
+
+  /**
+   * Syncs all appended entries to disk.
+   */
+  public void sync() throws IOException {
+    if (unsynced) {
+      try (Timer.Context ignored = syncTimer.time()) {
+        channel.force(false);
+      }
+      unsynced = false;
+      lastSync = System.currentTimeMillis();
+    }
+  }
+
+  /**
+   * Syncs all appended entries and closes the journal. The journal file itself is left in place.
+   */
+  @Override
+  public void close() throws IOException {
+    if (channel != null) {
+      try {
+        sync();
+      } finally {
+        channel.close();
+        channel = null;
+      }
+    }
+  }
+
+  /**
+   * Reads offsets stored in given journal file.
+   *
+   * @return Offsets as of the last complete entry or null if the journal doesn't exist or doesn't contain any offsets
+   */
+  public static Map<String, String> replay(File file) throws IOException {
+    if (!file.exists()) {
+      return null;
+    }
+
+    Map<String, String> offsets = null;
+    long remaining = file.length() - HEADER_SIZE;
+    try (InputStream is = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+      DataInputStream in = new DataInputStream(is);
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        LOG.warn("Ignoring offset journal {} with unknown format", file);
+        return null;
+      }
+
+      CRC32 crc = new CRC32();
+      while (true) {
+        byte[] payload;
+        try {
+          int length = in.readInt();
+          int checksum = in.readInt();
+          remaining -= ENTRY_HEADER_SIZE;
+          if (length <= 0 || length > remaining) {
+            LOG.warn("Offset journal {} ends with an incomplete entry, ignoring it", file);
+            break;
+          }
+          remaining -= length;
+          payload = new byte[length];
+          in.readFully(payload);
+          crc.reset();
+          crc.update(payload);
+          if ((int) crc.getValue() != checksum) {
+            LOG.warn("Offset journal {} ends with an entry with invalid checksum, ignoring it", file);
+            break;
+          }
+        } catch (EOFException ex) {
+          // Either end of the journal or an incomplete last entry
+          break;
+        }
+
+        DataInputStream entry = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = entry.readByte();
+        if (type == FULL) {
+          offsets = new HashMap<>();
+          int size = entry.readInt();
+          for (int i = 0; i < size; i++) {
+            offsets.put(readString(entry), readString(entry));
+          }
+        } else if (offsets == null) {
+          LOG.warn("Offset journal {} doesn't start with full offsets, ignoring it", file);
+          return null;
+        } else if (type == PUT) {
+          offsets.put(readString(entry), readString(entry));
+        } else if (type == REMOVE) {
+          offsets.remove(readString(entry));
+        } else {
+          LOG.warn("Offset journal {} contains unknown entry type {}, ignoring the rest", file, type);
+          break;
+        }
+      }
+    }
+    return offsets;
+  }
+
+  private static byte[] encodeFull(Map<String, String> offsets) throws IOException {
+    ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(payload);
+    out.writeByte(FULL);
+    out.writeInt(offsets.size());
+    for (Map.Entry<String, String> entry : offsets.entrySet()) {
+      writeString(out, entry.getKey());
+      writeString(out, entry.getValue());
+    }
+    out.flush();
+    return payload.toByteArray();
+  }
+
+  private static void writeEntry(FileChannel channel, byte[] payload) throws IOException {
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+    ByteBuffer buffer = ByteBuffer.allocate(ENTRY_HEADER_SIZE + payload.length);
+    buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+    writeFully(channel, buffer);
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  // Offsets can be arbitrary long, hence not using writeUTF that is limited to 64KB
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -15,18 +15,22 @@
  */
 package com.streamsets.datacollector.runner.production;
 
+import com.codahale.metrics.Timer;
 import com.streamsets.datacollector.main.RuntimeInfo;
 import com.streamsets.datacollector.runner.SourceOffsetTracker;
 
 import com.streamsets.pipeline.api.Source;
+import com.streamsets.pipeline.lib.executor.SafeScheduledExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class ProductionSourceOffsetTracker implements SourceOffsetTracker {
 
@@ -37,6 +41,8 @@ public class ProductionSourceOffsetTracker implements SourceOffsetTracker {
   private final String pipelineName;
   private final String rev;
   private final RuntimeInfo runtimeInfo;
+  private OffsetJournal journal;
+  private SafeScheduledExecutorService journalSyncExecutor;
 
   @Inject
   public ProductionSourceOffsetTracker(
@@ -50,6 +56,58 @@ public class ProductionSourceOffsetTracker implements SourceOffsetTracker {
     this.offsets = new HashMap<>(getSourceOffset(pipelineName, rev));
   }
 
+  /**
+   * Creates tracker persisting offsets in an append-only journal rather than rewriting the offset file on each commit.
+   *
+   * @param groupCommitMillis Maximal time a committed offset can wait for sync to disk, 0 to sync on every commit
+   * @param compactionEntries Number of journal entries after which the journal is compacted
+   * @param syncTimer Timer measuring sync latency
+   */
+  public ProductionSourceOffsetTracker(
+      String pipelineName,
+      String rev,
+      RuntimeInfo runtimeInfo,
+      long groupCommitMillis,
+      int compactionEntries,
+      Timer syncTimer
+  ) {
+    this(pipelineName, rev, runtimeInfo);
+    try {
+      this.journal = OffsetJournal.create(
+          OffsetFileUtil.getPipelineOffsetJournalFile(runtimeInfo, pipelineName, rev),
+          offsets,
+          groupCommitMillis,
+          compactionEntries,
+          syncTimer
+      );
+    } catch (IOException e) {
+      LOG.error("Failed to create offset journal for pipeline {}. Reason {}", pipelineName, e.toString(), e);
+      throw new IllegalStateException(e);
+    }
+    if (groupCommitMillis > 0) {
+      // Commits only sync once the group commit interval has elapsed, the last commits of a group are synced here
+      journalSyncExecutor = new SafeScheduledExecutorService(1, "OffsetJournalSync-" + pipelineName);
+      journalSyncExecutor.scheduleAtFixedRateAndForget(
+          this::syncJournal,
+          groupCommitMillis,
+          groupCommitMillis,
+          TimeUnit.MILLISECONDS
+      );
+    }
+  }
+
+  private void syncJournal() {
+    synchronized (offsets) {
+      if (journal != null) {
+        try {
+          journal.sync();
+        } catch (IOException e) {
+          LOG.error("Failed to sync offset journal for pipeline {}. Reason {}", pipelineName, e.toString(), e);
+        }
+      }
+    }
+  }
+
   @Override
   public boolean isFinished() {
     return finished;
@@ -79,8 +137,42 @@ public class ProductionSourceOffsetTracker implements SourceOffsetTracker {
         offsets.put(entity, newOffset);
       }
 
-      // Finally write new variant of the offset file
-      saveOffset(pipelineName, rev, offsets);
+      if (journal != null) {
+        // Append just the change to the journal
+        try {
+          journal.append(entity, newOffset, offsets);
+        } catch (IOException e) {
+          LOG.error("Failed to save offset={}. Reason {}", offsets, e.toString(), e);
+          throw new IllegalStateException(e);
+        }
+      } else {
+        // Finally write new variant of the offset file
+        saveOffset(pipelineName, rev, offsets);
+      }
+    }
+  }
+
+  /**
+   * Syncs and closes the offset journal (if used) and moves its content to the offset file. Subsequent commits will
+   * rewrite the offset file directly.
+   */
+  public void close() {
+    if (journalSyncExecutor != null) {
+      journalSyncExecutor.shutdown();
+      journalSyncExecutor = null;
+    }
+    synchronized (offsets) {
+      if (journal != null) {
+        try {
+          journal.close();
+        } catch (IOException e) {
+          LOG.error("Failed to close offset journal for pipeline {}. Reason {}", pipelineName, e.toString(), e);
+          throw new IllegalStateException(e);
+        } finally {
+          journal = null;
+        }
+        OffsetFileUtil.foldOffsetJournal(runtimeInfo, pipelineName, rev);
+      }
     }
   }
 
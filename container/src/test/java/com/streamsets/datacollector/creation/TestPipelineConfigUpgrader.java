@@ -15,6 +15,7 @@
  */
 package com.streamsets.datacollector.creation;
 
+import com.streamsets.datacollector.config.OffsetPersistence;
 import com.streamsets.pipeline.api.Config;
 import com.streamsets.pipeline.api.ExecutionMode;
 import com.streamsets.pipeline.api.StageException;
@@ -32,7 +33,7 @@ public class TestPipelineConfigUpgrader {
     PipelineConfigUpgrader pipelineConfigUpgrader = new PipelineConfigUpgrader();
 
     List<Config> upgrade = pipelineConfigUpgrader.upgrade("x", "y", "z", 1, 3, new ArrayList<>());
-    Assert.assertEquals(9, upgrade.size());
+    Assert.assertEquals(13, upgrade.size());
     Assert.assertEquals("executionMode", upgrade.get(0).getName());
     Assert.assertEquals(ExecutionMode.STANDALONE, upgrade.get(0).getValue());
 
@@ -98,4 +99,28 @@ public class TestPipelineConfigUpgrader {
     Assert.assertEquals(1, edgeHttpUrlConfigList.size());
     Assert.assertEquals(PipelineConfigBean.EDGE_HTTP_URL_DEFAULT, edgeHttpUrlConfigList.get(0).getValue());
   }
+
+  @Test
+  public void testPipelineConfigUpgradeV9ToV10() throws StageException {
+    PipelineConfigUpgrader pipelineConfigUpgrader = new PipelineConfigUpgrader();
+
+    List<Config> upgraded = pipelineConfigUpgrader.upgrade("x", "y", "z", 9, 10, new ArrayList<>());
+    Assert.assertEquals(4, upgraded.size());
+    Assert.assertEquals("offsetPersistence", upgraded.get(0).getName());
+    Assert.assertEquals(OffsetPersistence.FILE, upgraded.get(0).getValue());
+    Assert.assertEquals("offsetGroupCommitMillis", upgraded.get(1).getName());
+    Assert.assertEquals(0, upgraded.get(1).getValue());
+  }
+
+  @Test
+  public void testPipelineConfigUpgradeV10ToV11() throws StageException {
+    PipelineConfigUpgrader pipelineConfigUpgrader = new PipelineConfigUpgrader();
+
+    List<Config> upgraded = pipelineConfigUpgrader.upgrade("x", "y", "z", 10, 11, new ArrayList<>());
+    Assert.assertEquals(2, upgraded.size());
+    Assert.assertEquals("parallelBranches", upgraded.get(0).getName());
+    Assert.assertEquals(false, upgraded.get(0).getValue());
+    Assert.assertEquals("branchThreads", upgraded.get(1).getName());
+    Assert.assertEquals(4, upgraded.get(1).getValue());
+  }
 }
@@ -20,10 +20,15 @@ import com.streamsets.pipeline.api.ElFunction;
 import com.streamsets.pipeline.api.el.ELEval;
 import com.streamsets.pipeline.api.el.ELEvalException;
 import com.streamsets.pipeline.api.el.ELVars;
+import com.streamsets.pipeline.lib.el.StringEL;
+import com.streamsets.pipeline.lib.util.CommonError;
+import org.apache.commons.el.LruExpressionEvaluatorImpl;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import javax.servlet.jsp.el.FunctionMapper;
+import java.lang.reflect.Method;
 import java.util.List;
 
 public class TestELEvaluator {
@@ -198,4 +203,91 @@ public class TestELEvaluator {
     elEval.eval(elEval.createVariables(), "${implicitOnly:f()}", String.class);
   }
 
+  @Test
+  public void testCompiledExpressionsAreReused() throws Exception {
+    ELEvaluator elEval = new ELEvaluator("compiled", false, ValidTestEl.class);
+    ELVars variables = elEval.createVariables();
+    for (int i = 0; i < 3; i++) {
+      variables.addVariable("x", i);
+      Assert.assertEquals(i + 1, (long) elEval.eval(variables, "${x + 1}", Long.class));
+      Assert.assertEquals("San Francisco-" + i, elEval.eval(variables, "${location:city()}-${x}", String.class));
+    }
+    Assert.assertEquals(2, elEval.getCompiledExpressionsCount());
+  }
+
+  @Test
+  public void testConstantFolding() throws Exception {
+    ELEvaluator elEval = new ELEvaluator("folding", false);
+    ELVars variables = elEval.createVariables();
+    Assert.assertEquals("10", elEval.eval(variables, "10", String.class));
+    Assert.assertEquals(10, (int) elEval.eval(variables, "10", Integer.class));
+    Assert.assertEquals(10L, (long) elEval.eval(variables, "10", Long.class));
+    Assert.assertEquals(10, (int) elEval.eval(variables, "${10}", Integer.class));
+    Assert.assertEquals("10", elEval.eval(variables, "${10}", String.class));
+
+    Assert.assertTrue(CompiledExpression.compile(new LruExpressionEvaluatorImpl(), "10").isConstant());
+    Assert.assertTrue(CompiledExpression.compile(new LruExpressionEvaluatorImpl(), "${'a'}").isConstant());
+    Assert.assertFalse(CompiledExpression.compile(new LruExpressionEvaluatorImpl(), "${x}").isConstant());
+  }
+
+  @Test
+  public void testConstantSubExpressionFolding() throws Exception {
+    FunctionMapper functions = (prefix, name) -> {
+      for (Method method : StringEL.class.getMethods()) {
+        if (method.getName().equals(name)) {
+          return method;
+        }
+      }
+      return null;
+    };
+    LruExpressionEvaluatorImpl evaluator = new LruExpressionEvaluatorImpl();
+    Assert.assertTrue(CompiledExpression.compile(evaluator, "${1 + 2 * 3}").isConstant());
+    Assert.assertTrue(CompiledExpression.compile(evaluator, "${str:concat('a', 'b')}", functions).isConstant());
+    String nested = "${str:toUpper(str:concat('a', 'b'))}-${not true}";
+    Assert.assertTrue(CompiledExpression.compile(evaluator, nested, functions).isConstant());
+    Assert.assertFalse(CompiledExpression.compile(evaluator, "${str:concat('a', x)}", functions).isConstant());
+    // functions relying on the evaluation context are evaluated every time
+    Assert.assertFalse(
+        CompiledExpression.compile(evaluator, "${str:regExCapture('abc', 'b', 0)}", functions).isConstant()
+    );
+    // errors are reported when the expression is evaluated
+    Assert.assertFalse(CompiledExpression.compile(evaluator, "${str:substring('a', -1, 1)}", functions).isConstant());
+
+    ELEvaluator elEval = new ELEvaluator("folding", false, StringEL.class);
+    ELVars variables = elEval.createVariables();
+    variables.addVariable("x", 1);
+    Assert.assertEquals("ab-1", elEval.eval(variables, "${str:concat('a', 'b')}-${x}", String.class));
+    Assert.assertTrue(elEval.eval(variables, "${str:concat('a', 'b') == 'ab' && x > 0}", Boolean.class));
+  }
+
+  @Test
+  public void testCompiledExpressionErrors() throws Exception {
+    ELEvaluator elEval = new ELEvaluator("errors", false);
+    ELVars variables = elEval.createVariables();
+    try {
+      elEval.eval(variables, "${x eq }", Boolean.class);
+      Assert.fail();
+    } catch (ELEvalException ex) {
+      Assert.assertEquals(CommonError.CMN_0104, ex.getErrorCode());
+    }
+    try {
+      elEval.eval(variables, "${unknown}", String.class);
+      Assert.fail();
+    } catch (ELEvalException ex) {
+      Assert.assertEquals(CommonError.CMN_0104, ex.getErrorCode());
+      Assert.assertTrue(ex.getMessage().contains("Constants/Variable 'unknown' cannot be resolved"));
+    }
+    Assert.assertEquals(1, elEval.getCompiledExpressionsCount());
+  }
+
+  @Test
+  public void testCompiledExpressionsLimit() throws Exception {
+    ELEvaluator elEval = new ELEvaluator("limit", false);
+    ELVars variables = elEval.createVariables();
+    for (int i = 0; i < ELEvaluator.MAX_COMPILED_EXPRESSIONS + 10; i++) {
+      Assert.assertEquals(i, (int) elEval.eval(variables, "${" + i + "}", Integer.class));
+    }
+    Assert.assertEquals(ELEvaluator.MAX_COMPILED_EXPRESSIONS, elEval.getCompiledExpressionsCount());
+  }
+
 }
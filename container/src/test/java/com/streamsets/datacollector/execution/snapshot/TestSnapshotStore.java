@@ -18,6 +18,7 @@ package com.streamsets.datacollector.execution.snapshot;
 import com.streamsets.datacollector.execution.Snapshot;
 import com.streamsets.datacollector.execution.SnapshotInfo;
 import com.streamsets.datacollector.execution.SnapshotStore;
+import com.streamsets.datacollector.json.ObjectMapperFactory;
 import com.streamsets.datacollector.record.RecordImpl;
 import com.streamsets.datacollector.runner.ErrorSink;
 import com.streamsets.datacollector.runner.EventSink;
@@ -29,6 +30,7 @@ import com.streamsets.pipeline.api.Record;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -216,6 +218,79 @@ public abstract class TestSnapshotStore {
 
   }
 
+  @Test(expected = PipelineException.class)
+  public void testAppendBeforeCreate() throws PipelineException {
+    snapshotStore.append(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, createSnapshotData());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testAppendAndGetPage() throws Exception {
+    snapshotStore.create(USER, PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, SNAPSHOT_LABEL);
+    snapshotStore.append(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, createSnapshotData());
+    snapshotStore.append(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, createSnapshotData());
+    Assert.assertTrue(snapshotStore.getInfo(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID).isInProgress());
+
+    // Appended batches are followed by the ones given to save
+    snapshotStore.save(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, 0, getSnapshotData());
+    Assert.assertFalse(snapshotStore.getInfo(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID).isInProgress());
+
+    try (Snapshot snapshot = snapshotStore.get(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID)) {
+      Map<String, Object> data = ObjectMapperFactory.get().readValue(snapshot.getOutput(), Map.class);
+      Assert.assertEquals(4, ((List) data.get("snapshotBatches")).size());
+    }
+
+    try (Snapshot snapshot = snapshotStore.get(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID)) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      snapshot.writeOutput(out, 1, 2);
+      Map<String, Object> page = ObjectMapperFactory.get().readValue(out.toByteArray(), Map.class);
+      List<List<Map<String, Object>>> batches = (List<List<Map<String, Object>>>) page.get("snapshotBatches");
+      Assert.assertEquals(2, batches.size());
+      Assert.assertEquals(2, batches.get(0).size());
+      Assert.assertEquals("source", batches.get(0).get(0).get("instanceName"));
+
+      out.reset();
+      snapshot.writeOutput(out, 3, 10);
+      page = ObjectMapperFactory.get().readValue(out.toByteArray(), Map.class);
+      Assert.assertEquals(1, ((List) page.get("snapshotBatches")).size());
+
+      out.reset();
+      snapshot.writeOutput(out, 4, 10);
+      page = ObjectMapperFactory.get().readValue(out.toByteArray(), Map.class);
+      Assert.assertEquals(0, ((List) page.get("snapshotBatches")).size());
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testDiscardAppended() throws Exception {
+    snapshotStore.create(USER, PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, SNAPSHOT_LABEL);
+    snapshotStore.append(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, createSnapshotData());
+    snapshotStore.discardAppended(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID);
+
+    snapshotStore.save(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, 0, getSnapshotData());
+    try (Snapshot snapshot = snapshotStore.get(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID)) {
+      Map<String, Object> data = ObjectMapperFactory.get().readValue(snapshot.getOutput(), Map.class);
+      Assert.assertEquals(2, ((List) data.get("snapshotBatches")).size());
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCreateDiscardsStaleAppended() throws Exception {
+    // Capture that was never saved, e.g. because SDC went down
+    snapshotStore.create(USER, PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, SNAPSHOT_LABEL);
+    snapshotStore.append(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, createSnapshotData());
+
+    snapshotStore.create(USER, PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, SNAPSHOT_LABEL);
+    snapshotStore.append(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, createSnapshotData());
+    snapshotStore.save(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, 0, getSnapshotData());
+    try (Snapshot snapshot = snapshotStore.get(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID)) {
+      Map<String, Object> data = ObjectMapperFactory.get().readValue(snapshot.getOutput(), Map.class);
+      Assert.assertEquals(3, ((List) data.get("snapshotBatches")).size());
+    }
+  }
+
   private List<List<StageOutput>> getSnapshotData() {
     List<List<StageOutput>> snapshotBatches = new ArrayList<>();
     snapshotBatches.add(createSnapshotData());
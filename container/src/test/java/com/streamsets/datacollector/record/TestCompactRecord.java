@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record;
+
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TestCompactRecord {
+
+  private static RecordImpl createWideRecord(int fields, double base) {
+    LinkedHashMap<String, Field> map = new LinkedHashMap<>();
+    for (int i = 0; i < fields; i++) {
+      map.put("m" + i, Field.create(base + i));
+    }
+    map.put("b", Field.create(true));
+    map.put("c", Field.create('x'));
+    map.put("i", Field.create(Field.Type.INTEGER, null));
+    map.put("l", Field.create(-1L));
+    map.put("f", Field.create(1.5f));
+    map.put("s", Field.create("str"));
+    RecordImpl record = new RecordImpl("stage", "source", null, null);
+    record.set(Field.createListMap(map));
+    return record;
+  }
+
+  @Test
+  public void testCompact() {
+    RecordImpl record = createWideRecord(200, 0.5);
+    Set<String> paths = record.getEscapedFieldPaths();
+
+    Map<CompactRecordSchema, CompactRecordSchema> schemas = new HashMap<>();
+    CompactRecord compact = CompactRecord.create(record, schemas);
+    Assert.assertTrue(compact.isCompact());
+    Assert.assertEquals(1, schemas.size());
+
+    Record inflated = compact.toRecord();
+    Assert.assertNotSame(record, inflated);
+    Assert.assertEquals(record, inflated);
+    Assert.assertEquals(paths, inflated.getEscapedFieldPaths());
+    Assert.assertEquals(Field.Type.LIST_MAP, inflated.get().getType());
+    Assert.assertEquals(Field.Type.INTEGER, inflated.get("/i").getType());
+    Assert.assertNull(inflated.get("/i").getValue());
+    Assert.assertEquals(1.5f, inflated.get("/f").getValueAsFloat(), 0);
+    Assert.assertEquals('x', inflated.get("/c").getValueAsChar());
+
+    // every call recreates the record, changes are not retained
+    inflated.set("/m0", Field.create(42.0));
+    Assert.assertEquals(0.5, compact.toRecord().get("/m0").getValueAsDouble(), 0);
+  }
+
+  @Test
+  public void testCompactSharesSchema() {
+    Map<CompactRecordSchema, CompactRecordSchema> schemas = new HashMap<>();
+    CompactRecord record1 = CompactRecord.create(createWideRecord(10, 0), schemas);
+    CompactRecord record2 = CompactRecord.create(createWideRecord(10, 100), schemas);
+    Assert.assertTrue(record1.isCompact());
+    Assert.assertTrue(record2.isCompact());
+    Assert.assertEquals(1, schemas.size());
+    Assert.assertEquals(100.0, record2.toRecord().get("/m0").getValueAsDouble(), 0);
+    Assert.assertEquals(0.0, record1.toRecord().get("/m0").getValueAsDouble(), 0);
+
+    Assert.assertTrue(CompactRecord.create(createWideRecord(11, 0), schemas).isCompact());
+    Assert.assertEquals(2, schemas.size());
+  }
+
+  @Test
+  public void testCompactNotApplicable() {
+    Map<CompactRecordSchema, CompactRecordSchema> schemas = new HashMap<>();
+
+    RecordImpl record = new RecordImpl("stage", "source", null, null);
+    Assert.assertFalse(CompactRecord.create(record, schemas).isCompact());
+    record.set(Field.create("root"));
+    Assert.assertFalse(CompactRecord.create(record, schemas).isCompact());
+
+    Map<String, Field> map = new HashMap<>();
+    map.put("nested", Field.create(new HashMap<String, Field>()));
+    record.set(Field.create(map));
+    Assert.assertFalse(CompactRecord.create(record, schemas).isCompact());
+
+    Field withAttribute = Field.create(1);
+    withAttribute.setAttribute("a", "b");
+    map.clear();
+    map.put("a", withAttribute);
+    record.set(Field.create(map));
+    CompactRecord retained = CompactRecord.create(record, schemas);
+    Assert.assertFalse(retained.isCompact());
+    Assert.assertSame(record, retained.toRecord());
+    Assert.assertTrue(schemas.isEmpty());
+
+    RecordImpl event = new EventRecordImpl("type", 1, "stage", "source", null, null);
+    event.set(Field.create(new HashMap<String, Field>()));
+    Assert.assertFalse(CompactRecord.create(event, schemas).isCompact());
+  }
+
+  @Test
+  public void testCompactCopiesMutableValues() {
+    Date date = new Date(1000);
+    byte[] bytes = {1, 2};
+    Map<String, Field> map = new HashMap<>();
+    map.put("d", Field.createDatetime(date));
+    map.put("b", Field.create(bytes));
+    RecordImpl record = new RecordImpl("stage", "source", null, null);
+    record.set(Field.create(map));
+
+    CompactRecord compact = CompactRecord.create(record, new HashMap<>());
+    Assert.assertTrue(compact.isCompact());
+
+    // changes to the live record values don't affect the compact form
+    date.setTime(2000);
+    bytes[0] = 9;
+    Record inflated = compact.toRecord();
+    Assert.assertEquals(1000, inflated.get("/d").getValueAsDatetime().getTime());
+    Assert.assertEquals(1, inflated.get("/b").getValueAsByteArray()[0]);
+
+    // nor do changes to the values of the returned records
+    inflated.get("/d").getValueAsDatetime().setTime(3000);
+    inflated.get("/b").getValueAsByteArray()[0] = 8;
+    Assert.assertEquals(1000, compact.toRecord().get("/d").getValueAsDatetime().getTime());
+    Assert.assertEquals(1, compact.toRecord().get("/b").getValueAsByteArray()[0]);
+  }
+
+  @Test
+  public void testCompactCopyOnWriteRecord() {
+    LongAdder materializedClones = new LongAdder();
+    RecordImpl record = createWideRecord(5, 0);
+    RecordImpl copy = record.createCopyOnWriteClone(materializedClones);
+
+    CompactRecord compact = CompactRecord.create(copy, new HashMap<>());
+    Assert.assertTrue(compact.isCompact());
+    // compacting only reads the shared tree
+    Assert.assertTrue(copy.isCopyOnWrite());
+    Assert.assertEquals(0, materializedClones.sum());
+    Assert.assertEquals(record, compact.toRecord());
+  }
+}
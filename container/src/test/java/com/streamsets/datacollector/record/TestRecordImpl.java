@@ -28,6 +28,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 public class TestRecordImpl {
 
@@ -617,4 +618,68 @@ public class TestRecordImpl {
       }
     }
   }
+
+  @Test
+  public void testCopyOnWriteClone() {
+    LongAdder materializedClones = new LongAdder();
+    RecordImpl original = new RecordImpl("stage", "source", null, null);
+    Map<String, Field> map = new HashMap<>();
+    map.put("a", Field.create("A"));
+    Field tree = Field.create(map);
+    original.set(tree);
+
+    RecordImpl copy1 = original.createCopyOnWriteClone(materializedClones);
+    RecordImpl copy2 = original.createCopyOnWriteClone(materializedClones);
+    Assert.assertTrue(original.isCopyOnWrite());
+    Assert.assertTrue(copy1.isCopyOnWrite());
+
+    // read only operations don't clone the shared tree
+    Assert.assertTrue(copy1.has("/a"));
+    Assert.assertEquals(original, copy1);
+    Assert.assertTrue(copy1.isCopyOnWrite());
+    Assert.assertEquals(0, materializedClones.sum());
+
+    // first writer gets its own tree
+    copy1.set("/a", Field.create("B"));
+    Assert.assertFalse(copy1.isCopyOnWrite());
+    Assert.assertEquals(1, materializedClones.sum());
+    Assert.assertEquals("A", original.get("/a").getValueAsString());
+    Assert.assertEquals(2, materializedClones.sum());
+
+    // last member of the group takes over the shared tree
+    Assert.assertSame(tree, copy2.get());
+    Assert.assertEquals(2, materializedClones.sum());
+    Assert.assertEquals("A", copy2.get("/a").getValueAsString());
+    Assert.assertEquals("B", copy1.get("/a").getValueAsString());
+  }
+
+  @Test
+  public void testCopyOnWriteSetValue() {
+    LongAdder materializedClones = new LongAdder();
+    RecordImpl original = new RecordImpl("stage", "source", null, null);
+    Map<String, Field> map = new HashMap<>();
+    map.put("a", Field.create("A"));
+    Field tree = Field.create(map);
+    original.set(tree);
+
+    RecordImpl copy = original.createCopyOnWriteClone(materializedClones);
+
+    // replacing the value leaves the group without cloning the shared tree
+    copy.set(Field.create("B"));
+    Assert.assertFalse(copy.isCopyOnWrite());
+    Assert.assertEquals(0, materializedClones.sum());
+
+    // the original is the last member, it takes over the shared tree
+    Assert.assertSame(tree, original.get());
+    Assert.assertEquals(0, materializedClones.sum());
+    Assert.assertEquals("B", copy.get().getValueAsString());
+  }
+
+  @Test
+  public void testCopyOnWriteCloneEventRecord() {
+    RecordImpl event = new EventRecordImpl("type", 1, "stage", "source", null, null);
+    RecordImpl copy = event.createCopyOnWriteClone(new LongAdder());
+    Assert.assertTrue(copy instanceof EventRecordImpl);
+    Assert.assertEquals("type", ((EventRecordImpl) copy).getEventType());
+  }
 }
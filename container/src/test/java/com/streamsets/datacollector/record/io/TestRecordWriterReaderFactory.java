@@ -40,6 +40,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 public  class TestRecordWriterReaderFactory {
 
@@ -204,6 +205,24 @@ public  class TestRecordWriterReaderFactory {
     testRecordWriterReader(RecordEncoding.KRYO1);
   }
 
+  @Test
+  public void testKryoCopyOnWriteRecord() throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    RecordWriter writer = RecordWriterReaderFactory.createRecordWriter(RecordEncoding.KRYO1, os);
+    RecordImpl record1 = new RecordImpl("stage", "source", null, null);
+    record1.set(Field.create("Hello"));
+    RecordImpl record2 = record1.createCopyOnWriteClone(new LongAdder());
+    Assert.assertTrue(record2.isCopyOnWrite());
+    writer.write(record2);
+    writer.close();
+
+    RecordReader reader = RecordWriterReaderFactory.createRecordReader(new ByteArrayInputStream(os.toByteArray()), 0, 1000);
+    RecordImpl record = (RecordImpl) reader.readRecord();
+    Assert.assertEquals(record1, record);
+    Assert.assertFalse(record.isCopyOnWrite());
+    reader.close();
+  }
+
   @Test
   public void testJsonRecorWithOffset() throws IOException {
     testRecordReaderWithOffset(RecordEncoding.JSON1);
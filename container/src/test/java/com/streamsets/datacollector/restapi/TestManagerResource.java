@@ -0,0 +1,55 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.restapi;
+
+import com.streamsets.datacollector.execution.Manager;
+import com.streamsets.datacollector.main.RuntimeInfo;
+import com.streamsets.datacollector.main.UserGroupManager;
+import com.streamsets.datacollector.store.AclStoreTask;
+import com.streamsets.datacollector.store.PipelineStoreTask;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import javax.ws.rs.core.Response;
+import java.security.Principal;
+
+public class TestManagerResource {
+
+  @Test
+  public void testGetSnapshotInvalidPage() throws Exception {
+    Manager manager = Mockito.mock(Manager.class);
+    PipelineStoreTask store = Mockito.mock(PipelineStoreTask.class);
+    Principal principal = Mockito.mock(Principal.class);
+    Mockito.when(principal.getName()).thenReturn("user");
+    ManagerResource resource = new ManagerResource(
+        manager,
+        principal,
+        store,
+        Mockito.mock(AclStoreTask.class),
+        Mockito.mock(RuntimeInfo.class),
+        Mockito.mock(UserGroupManager.class)
+    );
+
+    Response response = resource.getSnapshot("pipeline", "snapshot", "0", false, -1, 1);
+    Assert.assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+
+    response = resource.getSnapshot("pipeline", "snapshot", "0", false, 0, -2);
+    Assert.assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+
+    Mockito.verifyZeroInteractions(store, manager);
+  }
+}
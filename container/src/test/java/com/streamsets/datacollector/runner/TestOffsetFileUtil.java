@@ -15,9 +15,11 @@
  */
 package com.streamsets.datacollector.runner;
 
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableMap;
 import com.streamsets.datacollector.main.RuntimeInfo;
 import com.streamsets.datacollector.runner.production.OffsetFileUtil;
+import com.streamsets.datacollector.runner.production.OffsetJournal;
 import com.streamsets.datacollector.util.PipelineDirectoryUtil;
 import org.junit.Assert;
 import org.junit.Rule;
@@ -60,4 +62,22 @@ public class TestOffsetFileUtil {
     OffsetFileUtil.resetOffsets(runtimeInfo, "foo", "1");
     Assert.assertEquals(0, OffsetFileUtil.getOffsets(runtimeInfo, "foo", "1").size());
   }
+
+  @Test
+  public void testResetOffsetsWithJournal() throws Exception {
+    RuntimeInfo runtimeInfo = Mockito.mock(RuntimeInfo.class);
+    File offsetFolder = tempFolder.newFolder();
+    Mockito.when(runtimeInfo.getDataDir()).thenReturn(offsetFolder.getPath());
+    Files.createDirectories(PipelineDirectoryUtil.getPipelineDir(runtimeInfo, "foo", "1").toPath());
+    OffsetFileUtil.saveIfEmpty(runtimeInfo, "foo", "1");
+
+    // Journal left behind by a pipeline that didn't stop cleanly
+    File journalFile = OffsetFileUtil.getPipelineOffsetJournalFile(runtimeInfo, "foo", "1");
+    OffsetJournal.create(journalFile, ImmutableMap.of("a", "b"), 0, 10, new Timer()).close();
+    Assert.assertEquals(ImmutableMap.of("a", "b"), OffsetFileUtil.getOffsets(runtimeInfo, "foo", "1"));
+
+    OffsetFileUtil.resetOffsets(runtimeInfo, "foo", "1");
+    Assert.assertFalse(journalFile.exists());
+    Assert.assertEquals(0, OffsetFileUtil.getOffsets(runtimeInfo, "foo", "1").size());
+  }
 }
@@ -16,12 +16,15 @@
 package com.streamsets.datacollector.runner;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.streamsets.datacollector.config.PipelineConfiguration;
 import com.streamsets.datacollector.creation.PipelineBean;
 import com.streamsets.datacollector.creation.PipelineBeanCreator;
+import com.streamsets.datacollector.record.CompactRecordList;
 import com.streamsets.datacollector.record.RecordImpl;
 import com.streamsets.datacollector.stagelibrary.StageLibraryTask;
 import com.streamsets.datacollector.validation.Issue;
+import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Record;
 
 import org.junit.Assert;
@@ -30,6 +33,7 @@ import org.mockito.Mockito;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -299,6 +303,100 @@ public class TestPipeBatch {
     Assert.assertEquals("A", snapshot.get("y").get(0).getHeader().getAttribute("a"));
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testMoveLaneCopyOnWrite() throws Exception {
+    FullPipeBatch pipeBatch = new FullPipeBatch(null, null, -1, false);
+    pipeBatch.setCopyOnWrite(true);
+
+    PipelineBean pipelineBean = getPipelineBean();
+    StageRuntime stage = new StageRuntime(pipelineBean, pipelineBean.getOrigin(), Collections.emptyList());
+
+    StageContext context = Mockito.mock(StageContext.class);
+    Mockito.when(context.isPreview()).thenReturn(false);
+    stage.setContext(context);
+
+    List<String> stageOutputLanes = stage.getConfiguration().getOutputLanes();
+    StagePipe pipe = new StagePipe(stage, Collections.EMPTY_LIST,
+      LaneResolver.getPostFixed(stageOutputLanes, LaneResolver.STAGE_OUT), Collections.EMPTY_LIST);
+
+    BatchMakerImpl batchMaker = pipeBatch.startStage(pipe);
+    Record record = new RecordImpl("i", "source", null, null);
+    record.set(Field.create(new HashMap<>(ImmutableMap.of("a", Field.create("A")))));
+    batchMaker.addRecord(record, stageOutputLanes.get(0));
+    pipeBatch.completeStage(batchMaker);
+
+    Record origRecord = pipeBatch.getFullPayload().get(pipe.getOutputLanes().get(0)).get(0);
+    pipeBatch.moveLaneCopying(pipe.getOutputLanes().get(0), ImmutableList.of("x", "y", "z"));
+    Record copiedRecordX = pipeBatch.getFullPayload().get("x").get(0);
+    Record copiedRecordY = pipeBatch.getFullPayload().get("y").get(0);
+    Record copiedRecordZ = pipeBatch.getFullPayload().get("z").get(0);
+
+    // The last lane takes over the original record
+    Assert.assertSame(origRecord, copiedRecordZ);
+    Assert.assertNotSame(origRecord, copiedRecordX);
+    Assert.assertEquals(origRecord, copiedRecordX);
+    Assert.assertEquals(3, pipeBatch.getAvoidedRecordClones());
+
+    copiedRecordX.set("/a", Field.create("X"));
+    Assert.assertEquals(2, pipeBatch.getAvoidedRecordClones());
+    Assert.assertEquals("A", copiedRecordY.get("/a").getValueAsString());
+    Assert.assertEquals("A", copiedRecordZ.get("/a").getValueAsString());
+    Assert.assertEquals("X", copiedRecordX.get("/a").getValueAsString());
+    Assert.assertEquals(1, pipeBatch.getAvoidedRecordClones());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCompactRecords() throws Exception {
+    FullPipeBatch pipeBatch = new FullPipeBatch(null, null, -1, false);
+    pipeBatch.setCompactRecords(true);
+
+    PipelineBean pipelineBean = getPipelineBean();
+    StageRuntime stage = new StageRuntime(pipelineBean, pipelineBean.getOrigin(), Collections.emptyList());
+
+    StageContext context = Mockito.mock(StageContext.class);
+    Mockito.when(context.isPreview()).thenReturn(false);
+    stage.setContext(context);
+
+    List<String> stageOutputLanes = stage.getConfiguration().getOutputLanes();
+    StagePipe pipe = new StagePipe(stage, Collections.EMPTY_LIST,
+      LaneResolver.getPostFixed(stageOutputLanes, LaneResolver.STAGE_OUT), Collections.EMPTY_LIST);
+
+    BatchMakerImpl batchMaker = pipeBatch.startStage(pipe);
+    Record flatRecord = new RecordImpl("i", "flat", null, null);
+    flatRecord.getHeader().setAttribute("a", "A");
+    flatRecord.set(Field.create(new HashMap<>(ImmutableMap.of("a", Field.create(1.5d), "b", Field.create("B")))));
+    batchMaker.addRecord(flatRecord, stageOutputLanes.get(0));
+    Record nestedRecord = new RecordImpl("i", "nested", null, null);
+    List<Field> list = new ArrayList<>(ImmutableList.of(Field.create(1)));
+    nestedRecord.set(Field.create(new HashMap<>(ImmutableMap.of("a", Field.create(list)))));
+    batchMaker.addRecord(nestedRecord, stageOutputLanes.get(0));
+    pipeBatch.completeStage(batchMaker);
+
+    List<Record> output = pipeBatch.getFullPayload().get(pipe.getOutputLanes().get(0));
+    Assert.assertTrue(output instanceof CompactRecordList);
+    Assert.assertEquals(2, output.size());
+    Assert.assertEquals(flatRecord, output.get(0));
+    Assert.assertEquals(nestedRecord, output.get(1));
+
+    pipeBatch.moveLaneCopying(pipe.getOutputLanes().get(0), ImmutableList.of("x", "y"));
+    Record recordX = pipeBatch.getFullPayload().get("x").get(0);
+    Record recordY = pipeBatch.getFullPayload().get("y").get(0);
+    Record nestedRecordX = pipeBatch.getFullPayload().get("x").get(1);
+    Record nestedRecordY = pipeBatch.getFullPayload().get("y").get(1);
+    Assert.assertNotSame(nestedRecordX, nestedRecordY);
+
+    // Lanes don't share any mutable state
+    recordX.set("/a", Field.create(2.5d));
+    recordX.getHeader().setAttribute("a", "X");
+    nestedRecordX.set("/a[0]", Field.create(2));
+    Assert.assertEquals(1.5d, recordY.get("/a").getValueAsDouble(), 0);
+    Assert.assertEquals("A", recordY.getHeader().getAttribute("a"));
+    Assert.assertEquals(1, nestedRecordY.get("/a[0]").getValueAsInteger());
+    Assert.assertEquals(1.5d, pipeBatch.getFullPayload().get("x").get(0).get("/a").getValueAsDouble(), 0);
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   public void testOverride() throws Exception {
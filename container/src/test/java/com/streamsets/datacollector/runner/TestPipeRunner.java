@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.runner;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.UniformReservoir;
+import com.google.common.collect.ImmutableList;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.api.StageException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class TestPipeRunner {
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(2);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private static Pipe createPipe(String name, List<String> inputs, List<String> outputs) {
+    Stage.Info info = Mockito.mock(Stage.Info.class);
+    Mockito.when(info.getInstanceName()).thenReturn(name);
+    StageRuntime stageRuntime = Mockito.mock(StageRuntime.class);
+    Mockito.when(stageRuntime.getInfo()).thenReturn(info);
+    Pipe pipe = Mockito.mock(Pipe.class);
+    Mockito.when(pipe.getStage()).thenReturn(stageRuntime);
+    Mockito.when(pipe.getInputLanes()).thenReturn(inputs);
+    Mockito.when(pipe.getOutputLanes()).thenReturn(outputs);
+    Mockito.when(pipe.getEventLanes()).thenReturn(Collections.emptyList());
+    return pipe;
+  }
+
+  private static String name(Pipe pipe) {
+    return pipe.getStage().getInfo().getInstanceName();
+  }
+
+  // a -> (b, c) -> d, origin lane "o" is produced outside of the runner
+  private static PipeRunner createDiamond(MetricRegistry metrics) {
+    return new PipeRunner("p", "1", 0, metrics, ImmutableList.of(
+      createPipe("a", ImmutableList.of("o"), ImmutableList.of("a1", "a2")),
+      createPipe("b", ImmutableList.of("a1"), ImmutableList.of("b")),
+      createPipe("c", ImmutableList.of("a2"), ImmutableList.of("c")),
+      createPipe("d", ImmutableList.of("b", "c"), ImmutableList.of())
+    ));
+  }
+
+  @Test
+  public void testParallelBranches() throws Exception {
+    PipeRunner runner = createDiamond(new MetricRegistry());
+    Histogram criticalPath = new Histogram(new UniformReservoir());
+    runner.enableParallelBranches(executor, criticalPath);
+
+    // b and c can only pass the barrier if they run at the same time
+    CyclicBarrier barrier = new CyclicBarrier(2);
+    List<String> processed = Collections.synchronizedList(new ArrayList<>());
+    runner.executeBatch(null, null, 0, pipe -> {
+      if (name(pipe).equals("b") || name(pipe).equals("c")) {
+        try {
+          barrier.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+      processed.add(name(pipe));
+    });
+
+    Assert.assertEquals(4, processed.size());
+    Assert.assertEquals("a", processed.get(0));
+    Assert.assertEquals("d", processed.get(3));
+    Assert.assertEquals(1, criticalPath.getCount());
+  }
+
+  @Test
+  public void testCriticalPath() throws Exception {
+    MetricRegistry metrics = new MetricRegistry();
+    PipeRunner runner = createDiamond(metrics);
+    Histogram criticalPath = new Histogram(new UniformReservoir());
+    runner.enableParallelBranches(executor, criticalPath);
+
+    runner.executeBatch(null, null, 0, pipe -> {
+      if (name(pipe).equals("c")) {
+        try {
+          Thread.sleep(200);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+
+    Assert.assertTrue(criticalPath.getSnapshot().getMax() >= 200);
+    Object gauge = metrics.getGauges().values().iterator().next().getValue();
+    Assert.assertEquals("a,c,d", ((Map) gauge).get(PipeRunner.METRIC_CRITICAL_PATH));
+  }
+
+  @Test
+  public void testParallelBranchesFailure() throws Exception {
+    PipeRunner runner = createDiamond(new MetricRegistry());
+    runner.enableParallelBranches(executor, new Histogram(new UniformReservoir()));
+
+    List<String> processed = Collections.synchronizedList(new ArrayList<>());
+    StageException failure = new StageException(TestStageContext.TestError.TEST, "b failed");
+    try {
+      runner.executeBatch(null, null, 0, pipe -> {
+        if (name(pipe).equals("b")) {
+          throw failure;
+        }
+        processed.add(name(pipe));
+      });
+      Assert.fail("Expected StageException");
+    } catch (StageException e) {
+      Assert.assertSame(failure, e);
+    }
+    // the pipe depending on the failed one is never processed
+    Assert.assertFalse(processed.contains("d"));
+  }
+
+  @Test
+  public void testSequentialByDefault() throws Exception {
+    PipeRunner runner = createDiamond(new MetricRegistry());
+    List<String> processed = new ArrayList<>();
+    runner.executeBatch(null, null, 0, pipe -> processed.add(name(pipe)));
+    Assert.assertEquals(ImmutableList.of("a", "b", "c", "d"), processed);
+  }
+}
@@ -22,6 +22,10 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
 public class TestRunnerPool {
 
   private RunnerPool<String> runnerPool;
@@ -82,4 +86,87 @@ public class TestRunnerPool {
     Assert.assertEquals("a", runnerPool.getRunner());
     Assert.assertEquals("b", runnerPool.getRunner());
   }
+
+  @Test
+  public void testAffinity() throws Exception {
+    Assert.assertEquals("a", runnerPool.getRunner("table1"));
+    Assert.assertEquals("b", runnerPool.getRunner("table2"));
+    runnerPool.returnRunner("a");
+    runnerPool.returnRunner("b");
+
+    // Each entity gets back the runner that processed it last time, even though "a" is idle for longer
+    Assert.assertEquals("b", runnerPool.getRunner("table2"));
+    Assert.assertEquals("a", runnerPool.getRunner("table1"));
+    runnerPool.returnRunner("a");
+    runnerPool.returnRunner("b");
+
+    // When the preferred runner is busy, the idle one is taken
+    Assert.assertEquals("a", runnerPool.getRunner("table1"));
+    Assert.assertEquals("b", runnerPool.getRunner("table1"));
+    runnerPool.returnRunner("a");
+    runnerPool.returnRunner("b");
+    runnerPool.destroy();
+  }
+
+  @Test
+  public void testLaggingEntityServedFirst() throws Exception {
+    // Table "fresh" was just processed whereas "lagging" never was
+    runnerPool.returnRunner(runnerPool.getRunner("fresh"));
+    String a = runnerPool.getRunner();
+    String b = runnerPool.getRunner();
+
+    List<String> served = new CopyOnWriteArrayList<>();
+    Thread fresh = waitForRunner("fresh", served);
+    awaitWaiters(1);
+    Thread lagging = waitForRunner("lagging", served);
+    awaitWaiters(2);
+
+    // Even though "fresh" is waiting longer, "lagging" gets the runner first
+    runnerPool.returnRunner(a);
+    lagging.join(10000);
+    Assert.assertEquals(ImmutableList.of("lagging"), served);
+    runnerPool.returnRunner(b);
+    fresh.join(10000);
+    Assert.assertEquals(ImmutableList.of("lagging", "fresh"), served);
+  }
+
+  @Test
+  public void testQueueWaitHistograms() throws Exception {
+    Histogram histogramA = new Histogram(new ExponentiallyDecayingReservoir());
+    Histogram histogramB = new Histogram(new ExponentiallyDecayingReservoir());
+    runnerPool = new RunnerPool<>(
+      ImmutableList.of("a", "b"),
+      new RuntimeStats(),
+      new Histogram(new ExponentiallyDecayingReservoir()),
+      runner -> "a".equals(runner) ? histogramA : histogramB
+    );
+
+    runnerPool.getRunner();
+    Assert.assertEquals(1, histogramA.getCount());
+    Assert.assertEquals(0, histogramB.getCount());
+
+    runnerPool.getRunner();
+    Assert.assertEquals(1, histogramB.getCount());
+  }
+
+  private Thread waitForRunner(String entity, List<String> served) {
+    Thread thread = new Thread(() -> {
+      try {
+        runnerPool.getRunner(entity);
+        served.add(entity);
+      } catch (PipelineRuntimeException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    thread.start();
+    return thread;
+  }
+
+  private void awaitWaiters(int count) throws Exception {
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+    while (runnerPool.getWaitingThreads() < count) {
+      Assert.assertTrue("Threads didn't start waiting in time", System.currentTimeMillis() < deadline);
+      Thread.sleep(5);
+    }
+  }
 }
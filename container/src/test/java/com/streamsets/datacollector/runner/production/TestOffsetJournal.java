@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.runner.production;
+
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestOffsetJournal {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testReplay() throws Exception {
+    File file = new File(tempFolder.getRoot(), "offset.journal");
+    Assert.assertNull(OffsetJournal.replay(file));
+
+    Map<String, String> offsets = new HashMap<>(ImmutableMap.of("a", "1", "b", "2"));
+    try (OffsetJournal journal = OffsetJournal.create(file, offsets, 0, 100, new Timer())) {
+      Assert.assertEquals(offsets, OffsetJournal.replay(file));
+
+      offsets.put("a", "3");
+      journal.append("a", "3", offsets);
+      offsets.remove("b");
+      journal.append("b", null, offsets);
+      offsets.put("c", "4");
+      journal.append("c", "4", offsets);
+    }
+    Assert.assertEquals(ImmutableMap.of("a", "3", "c", "4"), OffsetJournal.replay(file));
+  }
+
+  @Test
+  public void testTornAndCorruptedTail() throws Exception {
+    File file = new File(tempFolder.getRoot(), "offset.journal");
+    Map<String, String> offsets = new HashMap<>();
+    try (OffsetJournal journal = OffsetJournal.create(file, offsets, 0, 100, new Timer())) {
+      offsets.put("a", "1");
+      journal.append("a", "1", offsets);
+      offsets.put("a", "2");
+      journal.append("a", "2", offsets);
+    }
+    long length = file.length();
+
+    // Incomplete last entry, as if we crashed in the middle of the write
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(length - 3);
+    }
+    Assert.assertEquals(ImmutableMap.of("a", "1"), OffsetJournal.replay(file));
+
+    // Garbage in the last entry
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(length);
+      raf.seek(length - 1);
+      raf.write('X');
+    }
+    Assert.assertEquals(ImmutableMap.of("a", "1"), OffsetJournal.replay(file));
+  }
+
+  @Test
+  public void testGroupCommit() throws Exception {
+    File file = new File(tempFolder.getRoot(), "offset.journal");
+    Timer syncTimer = new Timer();
+    Map<String, String> offsets = new HashMap<>();
+    try (OffsetJournal journal = OffsetJournal.create(file, offsets, 60 * 1000, 100, syncTimer)) {
+      long syncs = syncTimer.getCount();
+      for (int i = 0; i < 10; i++) {
+        offsets.put("a", String.valueOf(i));
+        journal.append("a", String.valueOf(i), offsets);
+      }
+      // Entries are written right away, but not synced yet
+      Assert.assertEquals(syncs, syncTimer.getCount());
+      Assert.assertEquals(ImmutableMap.of("a", "9"), OffsetJournal.replay(file));
+
+      journal.sync();
+      Assert.assertEquals(syncs + 1, syncTimer.getCount());
+    }
+  }
+
+  @Test
+  public void testCompaction() throws Exception {
+    File file = new File(tempFolder.getRoot(), "offset.journal");
+    Map<String, String> offsets = new HashMap<>();
+    try (OffsetJournal journal = OffsetJournal.create(file, offsets, 0, 5, new Timer())) {
+      long compactedLength = file.length();
+      for (int i = 0; i < 5; i++) {
+        offsets.put("a", "value");
+        journal.append("a", "value", offsets);
+      }
+      Assert.assertTrue(file.length() > compactedLength);
+
+      offsets.put("b", "value");
+      journal.append("b", "value", offsets);
+      Assert.assertEquals(ImmutableMap.of("a", "value", "b", "value"), OffsetJournal.replay(file));
+      Assert.assertFalse(new File(tempFolder.getRoot(), "offset.journal.tmp").exists());
+
+      // Compacted journal holds just the full offsets
+      offsets.clear();
+      journal.compact(offsets);
+      Assert.assertEquals(compactedLength, file.length());
+    }
+  }
+}
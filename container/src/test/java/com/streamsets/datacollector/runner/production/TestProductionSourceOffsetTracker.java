@@ -16,6 +16,7 @@
 package com.streamsets.datacollector.runner.production;
 
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.streamsets.datacollector.main.RuntimeInfo;
 import com.streamsets.datacollector.main.RuntimeModule;
 import com.streamsets.datacollector.main.StandaloneRuntimeInfo;
@@ -36,6 +37,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
 
 public class TestProductionSourceOffsetTracker {
   private static Logger LOG = LoggerFactory.getLogger(TestProductionSourceOffsetTracker.class);
@@ -43,6 +47,7 @@ public class TestProductionSourceOffsetTracker {
   private static final String PIPELINE_NAME = "myPipeline";
   private static final String PIPELINE_REV = "2.0";
 
+  private static RuntimeInfo info;
   private static ProductionSourceOffsetTracker offsetTracker;
 
   @BeforeClass
@@ -64,7 +69,7 @@ public class TestProductionSourceOffsetTracker {
 
   @Before
   public void createOffsetTracker() throws Exception {
-    RuntimeInfo info = new StandaloneRuntimeInfo(
+    info = new StandaloneRuntimeInfo(
       RuntimeModule.SDC_PROPERTY_PREFIX,
       new MetricRegistry(),
       Arrays.asList(TestProductionSourceOffsetTracker.class.getClassLoader())
@@ -113,4 +118,68 @@ public class TestProductionSourceOffsetTracker {
     Assert.assertEquals(0, offsetTracker.getOffsets().size());
   }
 
+  @Test
+  public void testJournal() {
+    offsetTracker.commitOffset("entity", "offset");
+
+    Timer syncTimer = new Timer();
+    ProductionSourceOffsetTracker journalTracker = new ProductionSourceOffsetTracker(
+        PIPELINE_NAME,
+        PIPELINE_REV,
+        info,
+        0,
+        3,
+        syncTimer
+    );
+    File journalFile = OffsetFileUtil.getPipelineOffsetJournalFile(info, PIPELINE_NAME, PIPELINE_REV);
+    Assert.assertTrue(journalFile.exists());
+    Assert.assertEquals("offset", journalTracker.getOffsets().get("entity"));
+
+    // Enough commits to trigger compaction
+    for (int i = 0; i < 10; i++) {
+      journalTracker.commitOffset("entity", "offset" + i);
+    }
+    journalTracker.commitOffset("other", "a");
+    journalTracker.commitOffset("other", null);
+    Assert.assertTrue(syncTimer.getCount() > 0);
+
+    // Offsets are read from the journal while it exists, the offset file is not touched
+    Assert.assertEquals("offset9", OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV).get("entity"));
+    Assert.assertEquals(1, OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV).size());
+
+    // Closing moves offsets back to the offset file
+    journalTracker.close();
+    Assert.assertFalse(journalFile.exists());
+    Assert.assertEquals("offset9", OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV).get("entity"));
+
+    // Without closing (e.g. crash) the journal is picked up by the next tracker
+    journalTracker = new ProductionSourceOffsetTracker(PIPELINE_NAME, PIPELINE_REV, info, 0, 3, syncTimer);
+    journalTracker.commitOffset("entity", "afterCrash");
+    offsetTracker = new ProductionSourceOffsetTracker(PIPELINE_NAME, PIPELINE_REV, info);
+    Assert.assertFalse(journalFile.exists());
+    Assert.assertEquals("afterCrash", offsetTracker.getOffsets().get("entity"));
+  }
+
+  @Test
+  public void testJournalGroupCommitSync() {
+    Timer syncTimer = new Timer();
+    ProductionSourceOffsetTracker journalTracker = new ProductionSourceOffsetTracker(
+        PIPELINE_NAME,
+        PIPELINE_REV,
+        info,
+        TimeUnit.SECONDS.toMillis(1),
+        1000,
+        syncTimer
+    );
+    // Creating the journal syncs it
+    Assert.assertEquals(1, syncTimer.getCount());
+
+    // Commit within the group commit interval is not synced right away, but without waiting for the next commit
+    journalTracker.commitOffset("entity", "offset");
+    Assert.assertEquals(1, syncTimer.getCount());
+    await().atMost(10, TimeUnit.SECONDS).until(() -> syncTimer.getCount() == 2);
+
+    journalTracker.close();
+  }
+
 }
@@ -17,6 +17,7 @@ package com.streamsets.pipeline.lib.dirspooler;
 
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Preconditions;
 import com.streamsets.pipeline.api.PushSource;
 import com.streamsets.pipeline.api.impl.Utils;
@@ -31,7 +32,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -40,6 +40,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 public class DirectorySpooler {
   private static final Logger LOG = LoggerFactory.getLogger(DirectorySpooler.class);
   private static final String PENDING_FILES = "pending.files";
+  private static final String SPOOL_DIR_SCAN = "spoolDirScan";
 
   private final PushSource.Context context;
   private final String spoolDir;
@@ -54,6 +55,7 @@ public class DirectorySpooler {
   private final Comparator<WrappedFile> pathComparator;
   private final boolean processSubdirectories;
   private final long spoolingPeriodSec;
+  private final long fullScanPeriodSec;
   private final WrappedFileSystem fs;
   private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
 
@@ -77,6 +79,7 @@ public class DirectorySpooler {
     private boolean useLastModifiedTimestamp;
     private boolean processSubdirectories;
     private long spoolingPeriodSec = 5;
+    private long fullScanPeriodSec;
     private WrappedFileSystem fs;
 
     private Builder() {
@@ -163,6 +166,17 @@ public class DirectorySpooler {
       return this;
     }
 
+    /**
+     * Discovers the new files through file system notifications, when the file system supports them, and scans the
+     * whole spool directory only every given period as a safety net. With zero, the default, the spool directory is
+     * scanned every spooling period.
+     */
+    public Builder setFullScanPeriodSec(long fullScanPeriodSec) {
+      Preconditions.checkArgument(fullScanPeriodSec >= 0, "full scan period must be zero or greater");
+      this.fullScanPeriodSec = fullScanPeriodSec;
+      return this;
+    }
+
     public Builder setWrappedFileSystem(WrappedFileSystem fs) {
       this.fs = fs;
       return this;
@@ -191,6 +205,7 @@ public class DirectorySpooler {
           useLastModifiedTimestamp,
           processSubdirectories,
           spoolingPeriodSec,
+          fullScanPeriodSec,
           fs
       );
     }
@@ -223,6 +238,7 @@ public class DirectorySpooler {
         false,
         processSubdirectories,
         5,
+        0,
         null
     );
   }
@@ -241,6 +257,7 @@ public class DirectorySpooler {
       final boolean useLastModified,
       boolean processSubdirectories,
       long spoolingPeriodSec,
+      long fullScanPeriodSec,
       WrappedFileSystem fs
   ) {
     this.context = context;
@@ -256,6 +273,7 @@ public class DirectorySpooler {
     this.useLastModified = useLastModified;
     this.processSubdirectories = processSubdirectories;
     this.spoolingPeriodSec = spoolingPeriodSec;
+    this.fullScanPeriodSec = fullScanPeriodSec;
     this.fs = fs;
 
     pathComparator = fs.getComparator(useLastModified);
@@ -266,13 +284,15 @@ public class DirectorySpooler {
   private WrappedFile spoolDirPath;
   private WrappedFile archiveDirPath;
   private WrappedFile errorArchiveDirPath;
-  private PriorityBlockingQueue<WrappedFile> filesQueue;
-  private WrappedFile previousFile;
+  private PendingFileQueue filesQueue;
+  private volatile WrappedFileWatcher watcher;
+  private volatile long lastFullScanMillis;
   private ScheduledExecutorService scheduledExecutor;
   private boolean waitForPathAppearance;
 
   private Meter spoolQueueMeter;
   private Counter pendingFilesCounter;
+  private Timer scanTimer;
 
   private volatile boolean running;
 
@@ -324,13 +344,14 @@ public class DirectorySpooler {
       }
       LOG.debug("Post processing mode '{}'{}", postProcessing, extraInfo);
 
-      // 11 is the DEFAULT_INITIAL_CAPACITY -- seems pretty random, but lets use the same one.
-      filesQueue = new PriorityBlockingQueue<>(11, pathComparator);
+      filesQueue = new PendingFileQueue(pathComparator);
 
       spoolQueueMeter = context.createMeter("spoolQueue");
 
       pendingFilesCounter = context.createCounter(PENDING_FILES);
 
+      scanTimer = context.createTimer(SPOOL_DIR_SCAN);
+
       if (!waitForPathAppearance) {
         startSpooling(currentFile);
       }
@@ -350,6 +371,22 @@ public class DirectorySpooler {
 
     scheduledExecutor = new SafeScheduledExecutorService(1, "directory-dirspooler");
 
+    if (fullScanPeriodSec > 0) {
+      // watch before the first scan, files created while scanning are reported by the watcher
+      try {
+        watcher = fs.createWatcher(spoolDirPath, processSubdirectories && useLastModified);
+        if (watcher == null) {
+          LOG.debug("Spool directory '{}' cannot be watched, it is scanned every '{}' secs", spoolDirPath,
+              spoolingPeriodSec);
+        }
+      } catch (IOException ex) {
+        // i.e. the limit of watches has been reached, scanning works as well
+        LOG.warn("Could not watch spool directory '{}', it is scanned every '{}' secs: {}", spoolDirPath,
+            spoolingPeriodSec, ex.toString(), ex);
+        watcher = null;
+      }
+    }
+
     findAndQueueFiles(true, false);
 
     finder = new FileFinder();
@@ -372,6 +409,14 @@ public class DirectorySpooler {
     } catch (RuntimeException ex) {
       LOG.warn("Error during scheduledExecutor.shutdownNow(), {}", ex.toString(), ex);
     }
+    try {
+      if (watcher != null) {
+        watcher.close();
+        watcher = null;
+      }
+    } catch (IOException ex) {
+      LOG.warn("Error while closing the spool directory watcher, {}", ex.toString(), ex);
+    }
   }
 
   public boolean isRunning() {
@@ -446,8 +491,7 @@ public class DirectorySpooler {
         LOG.warn("File cannot be added to the queue: " + file.toString());
       }
     }
-    if (!filesQueue.contains(file)) {
-      filesQueue.add(file);
+    if (filesQueue.add(file)) {
       spoolQueueMeter.mark(filesQueue.size());
     } else {
       LOG.debug("File '{}' already in queue, ignoring", file);
@@ -489,7 +533,6 @@ public class DirectorySpooler {
       LOG.debug("Polling for file returned '{}'", next);
       if (next != null) {
         currentFile = next;
-        previousFile = next;
       }
       closeLock.readLock().unlock();
     }
@@ -497,15 +540,16 @@ public class DirectorySpooler {
     return (next != null) ? next : null;
   }
 
-  public void handleCurrentFileAsError() throws IOException {
+  /**
+   * Moves a file that could not be processed to the error archive directory, if any. The file is given by the caller
+   * as, with multiple threads polling files, the last polled file is not necessarily the file in error.
+   */
+  public void handleFileAsError(WrappedFile file) throws IOException {
     if (errorArchiveDirPath != null && !context.isPreview()) {
-      WrappedFile current = previousFile;//spoolDirPath.resolve(previousFile);
-      LOG.error("Archiving file in error '{}' in error archive directory '{}'", previousFile, errorArchiveDirPath);
-      moveIt(current, errorArchiveDirPath);
-      // we need to set the currentFile to null because we just moved to error.
-      previousFile = null;
+      LOG.error("Archiving file in error '{}' in error archive directory '{}'", file, errorArchiveDirPath);
+      moveIt(file, errorArchiveDirPath);
     } else {
-      LOG.error("Leaving file in error '{}' in spool directory", currentFile);
+      LOG.error("Leaving file in error '{}' in spool directory", file);
     }
   }
 
@@ -537,6 +581,19 @@ public class DirectorySpooler {
       return null;
     }
 
+    lastFullScanMillis = System.currentTimeMillis();
+    Timer.Context scanTimerContext = scanTimer.time();
+    try {
+      return scanAndQueueFiles(includeStartingFile, checkCurrent);
+    } finally {
+      scanTimerContext.stop();
+    }
+  }
+
+  private List<WrappedFile> scanAndQueueFiles(
+      final boolean includeStartingFile,
+      boolean checkCurrent
+  ) throws IOException {
     final List<WrappedFile> directories = new ArrayList<>();
 
     if (processSubdirectories && useLastModified) {
@@ -588,6 +645,36 @@ public class DirectorySpooler {
     return directories;
   }
 
+  private void queueWatchedFiles(WrappedFileWatcher watcher) throws IOException {
+    if (filesQueue.size() >= maxSpoolFiles) {
+      LOG.debug(Utils.format("Exceeded max number '{}' of spool files in directory", maxSpoolFiles));
+      return;
+    }
+
+    List<WrappedFile> files = watcher.poll();
+    if (files == null) {
+      LOG.debug("Spool directory '{}' changes were lost, scanning it", spoolDirPath);
+      findAndQueueFiles(false, true);
+      return;
+    }
+
+    closeLock.writeLock().lock();
+    try {
+      for (WrappedFile file : files) {
+        // as the directory scan, only files after the current file
+        if (StringUtils.isEmpty(currentFile.toString()) || fs.compare(file, currentFile, useLastModified) > 0) {
+          LOG.trace("Found file '{}'", file);
+          addFileToQueue(file, true);
+        }
+      }
+    } finally {
+      closeLock.writeLock().unlock();
+    }
+
+    pendingFilesCounter.inc(filesQueue.size() - pendingFilesCounter.getCount());
+    LOG.debug("Found '{}' new files, '{}' files in queue", files.size(), filesQueue.size());
+  }
+
   void handleOlderFiles(final WrappedFile startingFile) throws IOException {
     if (postProcessing != FilePostProcessing.NONE) {
       final ArrayList<WrappedFile> toProcess = new ArrayList<>();
@@ -648,7 +735,13 @@ public class DirectorySpooler {
       // by using current we give a chance to have unprocessed files out of order
       LOG.debug("Starting file finder from '{}'", currentFile);
       try {
-        findAndQueueFiles(false, true);
+        WrappedFileWatcher fileWatcher = watcher;
+        if (fileWatcher != null &&
+            System.currentTimeMillis() - lastFullScanMillis < TimeUnit.SECONDS.toMillis(fullScanPeriodSec)) {
+          queueWatchedFiles(fileWatcher);
+        } else {
+          findAndQueueFiles(false, true);
+        }
       } catch (Exception ex) {
         LOG.warn("Error while scanning directory '{}' for files newer than '{}': {}", archiveDirPath, currentFile,
             ex.toString(), ex);
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.dirspooler;
+
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue of the files pending to be processed, polled in the order of the spooler comparator.
+ * <p/>
+ * The queued files are indexed, checking if a file is already queued does not go through the whole queue.
+ */
+class PendingFileQueue {
+  private final PriorityBlockingQueue<WrappedFile> queue;
+  private final Set<WrappedFile> index;
+
+  PendingFileQueue(Comparator<WrappedFile> comparator) {
+    // 11 is the DEFAULT_INITIAL_CAPACITY -- seems pretty random, but lets use the same one.
+    queue = new PriorityBlockingQueue<>(11, comparator);
+    index = ConcurrentHashMap.newKeySet();
+  }
+
+  /**
+   * Adds a file to the queue.
+   *
+   * @param file file to add.
+   * @return <code>true</code> if the file was added, <code>false</code> if the file was already in the queue.
+   */
+  boolean add(WrappedFile file) {
+    if (!index.add(file)) {
+      return false;
+    }
+    try {
+      queue.add(file);
+    } catch (RuntimeException ex) {
+      // the comparator failed, the file is not in the queue
+      index.remove(file);
+      throw ex;
+    }
+    return true;
+  }
+
+  /**
+   * Retrieves and removes the first file of the queue, waiting up to the specified time for a file to be available.
+   *
+   * @param wait how long to wait.
+   * @param timeUnit unit of the wait.
+   * @return the first file of the queue, or <code>null</code> if the wait elapsed before a file was available.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  WrappedFile poll(long wait, TimeUnit timeUnit) throws InterruptedException {
+    WrappedFile file = queue.poll(wait, timeUnit);
+    if (file != null) {
+      index.remove(file);
+    }
+    return file;
+  }
+
+  boolean contains(WrappedFile file) {
+    return index.contains(file);
+  }
+
+  int size() {
+    return queue.size();
+  }
+
+}
@@ -41,6 +41,8 @@ public abstract class SpoolDirBaseSource extends BasePushSource {
   private static final Logger LOG = LoggerFactory.getLogger(SpoolDirBaseSource.class);
   private static final int MB = 1024;
   private static final int MIN_OVERRUN_LIMIT = 64 * 1024;
+  // when watching for new files, the spool directory is still fully scanned as a safety net
+  private static final long FULL_SCAN_PERIOD_SECS = 60;
 
   protected static String GROUPS_POST_PROCESSING_CONFIG_NAME;
   protected static String GROUP_FILE_CONFIG_NAME;
@@ -177,7 +179,8 @@ public abstract class SpoolDirBaseSource extends BasePushSource {
           .setPostProcessing(DirectorySpooler.FilePostProcessing.valueOf(conf.postProcessing.name()))
           .waitForPathAppearance(waitForPathToBePresent)
           .processSubdirectories(conf.processSubdirectories)
-          .setSpoolingPeriodSec(conf.spoolingPeriod);
+          .setSpoolingPeriodSec(conf.spoolingPeriod)
+          .setFullScanPeriodSec(conf.watchForNewFiles ? Math.max(conf.spoolingPeriod, FULL_SCAN_PERIOD_SECS) : 0);
 
       if (conf.postProcessing == PostProcessingOptions.ARCHIVE) {
         builder.setArchiveDir(conf.archiveDir);
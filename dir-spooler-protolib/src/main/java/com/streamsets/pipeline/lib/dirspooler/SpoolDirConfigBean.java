@@ -186,6 +186,18 @@ public class SpoolDirConfigBean {
   )
   public long spoolingPeriod = 5;
 
+  @ConfigDef(
+      required = false,
+      type = ConfigDef.Type.BOOLEAN,
+      defaultValue = "false",
+      label = "Watch for New Files",
+      description = "Finds new files through file system notifications, scanning the directory only once a minute. " +
+          "Do not use with network file systems, which do not notify files created by other hosts",
+      displayPosition = 62,
+      group = "FILES"
+  )
+  public boolean watchForNewFiles = false;
+
   @ConfigDef(
       required = false,
       type = ConfigDef.Type.STRING,
@@ -95,6 +95,10 @@ public class SpoolDirRunnable implements Runnable {
   private ErrorRecordHandler errorRecordHandler;
 
   private WrappedFile currentFile;
+  // offset file this runner has been reading, all the runners start from the same offset and only the runner that
+  // reads a file can clear its offset (unless fully processed), otherwise the offset of a file still being read by
+  // another runner is lost
+  private String claimedOffsetFile;
 
   public SpoolDirRunnable(
       PushSource.Context context,
@@ -266,7 +270,7 @@ public class SpoolDirRunnable implements Runnable {
 
         try {
           // then we ask the dirspooler to error handle the failed file
-          spooler.handleCurrentFileAsError();
+          spooler.handleFileAsError(currentFile);
 
         } catch (IOException ex1) {
           throw new StageException(Errors.SPOOLDIR_00, currentFile, ex1.toString(), ex1);
@@ -296,14 +300,18 @@ public class SpoolDirRunnable implements Runnable {
     // Process And Commit offsets
     context.processBatch(batchContext, newOffset.getFile(), newOffset.getOffsetString());
 
-    if (lastSourceFile != null && !lastSourceFile.equals(newOffset.getFile())) {
+    if (lastSourceFile != null && !lastSourceFile.equals(newOffset.getFile()) &&
+        (lastSourceFile.equals(claimedOffsetFile) || MINUS_ONE.equals(lastSourceOffset.getOffset()))) {
       context.commitOffset(lastSourceFile, null);
     }
+    if (currentFile != null) {
+      claimedOffsetFile = newOffset.getFile();
+    }
 
     // if this is the end of the file, do post processing
     if (currentFile != null && newOffset.getOffset().equals(MINUS_ONE)) {
-      WrappedFile offsetFile = fs.getFile(newOffset.getFile());
-      spooler.doPostProcessing(fs.getFile(spooler.getSpoolDir(), offsetFile.getFileName()));
+      // the file polled by this runner, it keeps its subdirectory if processing subdirectories
+      spooler.doPostProcessing(currentFile);
     }
 
     updateGauge(Status.BATCH_GENERATED, offset);
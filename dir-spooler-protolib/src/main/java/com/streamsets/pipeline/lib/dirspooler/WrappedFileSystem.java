@@ -158,4 +158,15 @@ public interface WrappedFileSystem {
    * @return  {@code true} if, and only if, the file exists
    */
   boolean findDirectoryPathCreationWatcher(List<WrappedFile> spoolDirPath);
+
+  /**
+   * Creates a watcher reporting the files that appear in a directory.
+   *
+   * @param dirPath {@link WrappedFile} the directory to watch
+   * @param processSubdirectories {@code true} if the subdirectories are watched too
+   * @return  the {@link WrappedFileWatcher}, or {@code null} if the file system cannot watch directories
+   */
+  default WrappedFileWatcher createWatcher(WrappedFile dirPath, boolean processSubdirectories) throws IOException {
+    return null;
+  }
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.dirspooler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Interface for components that report the files appearing in the spool directory, so the dirspooler does not need to
+ * rescan the whole directory to find the new files
+ */
+public interface WrappedFileWatcher extends Closeable {
+
+  /**
+   * Returns the files matching the file pattern that appeared in the watched directories since the previous call,
+   * without waiting. As with a directory scan, files modified at the time of the call are reported on a later call.
+   *
+   * @return  the new files, or {@code null} if changes were lost and the directories must be scanned
+   */
+  List<WrappedFile> poll() throws IOException;
+}
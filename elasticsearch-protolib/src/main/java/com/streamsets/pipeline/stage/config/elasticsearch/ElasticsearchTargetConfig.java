@@ -29,6 +29,9 @@ import com.streamsets.pipeline.stage.destination.elasticsearch.UnsupportedOperat
 import com.streamsets.pipeline.stage.destination.elasticsearch.UnsupportedOperationActionChooserValues;
 
 public class ElasticsearchTargetConfig extends ElasticsearchConfig {
+  public static final int DEFAULT_MAX_BULK_REQUEST_SIZE_MB = 10;
+  public static final int DEFAULT_MAX_CONCURRENT_BULK_REQUESTS = 1;
+
 
   @ConfigDef(
       required = true,
@@ -151,4 +154,30 @@ public class ElasticsearchTargetConfig extends ElasticsearchConfig {
   )
   @ValueChooserModel(UnsupportedOperationActionChooserValues.class)
   public UnsupportedOperationAction unsupportedAction = UnsupportedOperationAction.DISCARD;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "" + DEFAULT_MAX_BULK_REQUEST_SIZE_MB,
+      label = "Max Bulk Request Size (MB)",
+      description = "Batches that exceed this size are split into several bulk requests. Use 0 to always send the" +
+          " whole batch in one request.",
+      displayPosition = 120,
+      group = "ELASTIC_SEARCH",
+      min = 0
+  )
+  public int maxBulkRequestSizeMB = DEFAULT_MAX_BULK_REQUEST_SIZE_MB;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "" + DEFAULT_MAX_CONCURRENT_BULK_REQUESTS,
+      label = "Max Concurrent Bulk Requests",
+      description = "Number of bulk requests of a batch that can be in flight at once. With more than one request," +
+          " operations on the same document in different requests might be applied out of order.",
+      displayPosition = 130,
+      group = "ELASTIC_SEARCH",
+      min = 1
+  )
+  public int maxConcurrentBulkRequests = DEFAULT_MAX_CONCURRENT_BULK_REQUESTS;
 }
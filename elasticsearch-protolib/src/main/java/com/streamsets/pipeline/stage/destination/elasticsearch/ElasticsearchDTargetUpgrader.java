@@ -20,6 +20,7 @@ import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.StageUpgrader;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.stage.config.elasticsearch.ElasticsearchConfig;
+import com.streamsets.pipeline.stage.config.elasticsearch.ElasticsearchTargetConfig;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -77,6 +78,12 @@ public class ElasticsearchDTargetUpgrader implements StageUpgrader {
         // fall through
       case 7:
         upgradeV7ToV8(configs);
+        if (toVersion == 8) {
+          break;
+        }
+        // fall through
+      case 8:
+        upgradeV8ToV9(configs);
         break;
       default:
         throw new IllegalStateException(Utils.format("Unexpected fromVersion {}", fromVersion));
@@ -271,4 +278,15 @@ public class ElasticsearchDTargetUpgrader implements StageUpgrader {
     configs.add(new Config(CURRENT_CONFIG_PREFIX + "routingTemplate", ""));
   }
 
+  private void upgradeV8ToV9(List<Config> configs) {
+    configs.add(new Config(
+        CURRENT_CONFIG_PREFIX + "maxBulkRequestSizeMB",
+        ElasticsearchTargetConfig.DEFAULT_MAX_BULK_REQUEST_SIZE_MB
+    ));
+    configs.add(new Config(
+        CURRENT_CONFIG_PREFIX + "maxConcurrentBulkRequests",
+        ElasticsearchTargetConfig.DEFAULT_MAX_CONCURRENT_BULK_REQUESTS
+    ));
+  }
+
 }
@@ -15,6 +15,8 @@
  */
 package com.streamsets.pipeline.stage.destination.elasticsearch;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
@@ -47,9 +49,10 @@ import com.streamsets.pipeline.stage.config.elasticsearch.Errors;
 import com.streamsets.pipeline.stage.config.elasticsearch.Groups;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
 import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -65,9 +68,13 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 
 public class ElasticsearchTarget extends BaseTarget {
   private static final Logger LOG = LoggerFactory.getLogger(ElasticsearchTarget.class);
+  private static final byte NEW_LINE = '\n';
   private final ElasticsearchTargetConfig conf;
   private ELEval timeDriverEval;
   private TimeZone timeZone;
@@ -80,6 +87,11 @@ public class ElasticsearchTarget extends BaseTarget {
   private DataGeneratorFactory generatorFactory;
   private ErrorRecordHandler errorRecordHandler;
   private ElasticsearchStageDelegate delegate;
+  private long maxBulkRequestSize;
+  private Semaphore bulkRequestPermits;
+  private Timer bulkRequestTimer;
+  private Meter bulkBytesMeter;
+  private Meter rejectedItemsMeter;
 
   public ElasticsearchTarget(ElasticsearchTargetConfig conf) {
     this.conf = conf;
@@ -189,7 +201,7 @@ public class ElasticsearchTarget extends BaseTarget {
       );
     }
 
-    delegate = new ElasticsearchStageDelegate(getContext(), conf);
+    delegate = createDelegate();
 
     issues = delegate.init("elasticSearchConfig", issues);
 
@@ -198,9 +210,20 @@ public class ElasticsearchTarget extends BaseTarget {
         .setCharset(Charset.forName(conf.charset))
         .build();
 
+    maxBulkRequestSize = conf.maxBulkRequestSizeMB * 1024L * 1024L;
+    bulkRequestPermits = new Semaphore(conf.maxConcurrentBulkRequests);
+    bulkRequestTimer = getContext().createTimer("Bulk Request Latency");
+    bulkBytesMeter = getContext().createMeter("Bulk Bytes Sent");
+    rejectedItemsMeter = getContext().createMeter("Rejected Bulk Items");
+
     return issues;
   }
 
+  @VisibleForTesting
+  ElasticsearchStageDelegate createDelegate() {
+    return new ElasticsearchStageDelegate(getContext(), conf);
+  }
+
   @Override
   public void destroy() {
     if(delegate != null) {
@@ -235,15 +258,14 @@ public class ElasticsearchTarget extends BaseTarget {
     TimeNowEL.setTimeNowInContext(elVars, getBatchTime());
     Iterator<Record> it = batch.getRecords();
 
-    StringBuilder bulkRequest = new StringBuilder();
-
-    //we need to keep the records in order of appearance in case we have indexing errors
-    //and error handling is TO_ERROR
-    List<Record> records = new ArrayList<>();
+    // Bulk requests of this batch in order, each one keeps the records in order of appearance in case we have
+    // indexing errors and error handling is TO_ERROR
+    List<BulkRequest> requests = new ArrayList<>();
+    BulkRequest request = new BulkRequest();
+    BulkBuffer recordJson = new BulkBuffer();
 
     while (it.hasNext()) {
       Record record = it.next();
-      records.add(record);
 
       try {
         RecordEL.setRecordInContext(elVars, record);
@@ -261,14 +283,13 @@ public class ElasticsearchTarget extends BaseTarget {
         if (!StringUtils.isEmpty(conf.routingTemplate)) {
           routing = routingEval.eval(elVars, conf.routingTemplate, String.class);
         }
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        DataGenerator generator = generatorFactory.getGenerator(baos);
+        recordJson.reset();
+        DataGenerator generator = generatorFactory.getGenerator(recordJson);
         generator.write(record);
         generator.close();
 
         int opCode = -1;
         String opType = record.getHeader().getAttribute(OperationType.SDC_OPERATION_TYPE);
-        String recordJson = new String(baos.toByteArray(), StandardCharsets.UTF_8).replace("\n", "");
         // Check if the operation code from header attribute is valid
         if (!StringUtils.isEmpty(opType)) {
           try {
@@ -293,7 +314,12 @@ public class ElasticsearchTarget extends BaseTarget {
           // No header attribute set. Use default.
           opCode = conf.defaultOperation.code;
         }
-        bulkRequest.append(getOperation(index, type, id, parent, routing, recordJson, opCode));
+        if (opCode == -1) {
+          // Record was either discarded or sent to error
+          continue;
+        }
+        writeOperation(index, type, id, parent, routing, recordJson, opCode, request.body);
+        request.records.add(record);
       } catch (IOException ex) {
         errorRecordHandler.onError(
             new OnRecordErrorException(
@@ -305,50 +331,110 @@ public class ElasticsearchTarget extends BaseTarget {
             )
         );
       }
+
+      if (maxBulkRequestSize > 0 && request.body.size() >= maxBulkRequestSize) {
+        submit(request);
+        requests.add(request);
+        request = new BulkRequest();
+      }
     }
 
-    if (!records.isEmpty()) {
+    if (!request.records.isEmpty()) {
+      submit(request);
+      requests.add(request);
+    }
+
+    for (BulkRequest bulkRequest : requests) {
+      handleResponse(bulkRequest);
+    }
+  }
+
+  /**
+   * Sends given bulk request asynchronously, blocking while the maximal number of bulk requests is in flight.
+   */
+  private void submit(BulkRequest request) throws StageException {
+    try {
+      bulkRequestPermits.acquire();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new StageException(Errors.ELASTICSEARCH_33, ex.toString(), ex);
+    }
+    bulkBytesMeter.mark(request.body.size());
+    final Timer.Context timerContext = bulkRequestTimer.time();
+    try {
+      delegate.performRequestAsync(
+          "POST",
+          "/_bulk",
+          conf.params,
+          request.body.toEntity(),
+          new ResponseListener() {
+            @Override
+            public void onSuccess(Response response) {
+              timerContext.stop();
+              bulkRequestPermits.release();
+              request.response.complete(response);
+            }
+
+            @Override
+            public void onFailure(Exception exception) {
+              timerContext.stop();
+              bulkRequestPermits.release();
+              request.response.completeExceptionally(exception);
+            }
+          },
+          delegate.getAuthenticationHeader(conf.securityConfig.securityUser.get())
+      );
+    } catch (StageException | RuntimeException ex) {
+      // Request was not sent (e.g. client already closed), the listener won't be called
+      timerContext.stop();
+      bulkRequestPermits.release();
+      request.response.completeExceptionally(ex);
+    }
+  }
+
+  private void handleResponse(BulkRequest request) throws StageException {
+    List<Record> records = request.records;
+    try {
+      Response response;
       try {
-        HttpEntity entity = new StringEntity(bulkRequest.toString(), ContentType.APPLICATION_JSON);
-        Response response;
-        response = delegate.performRequest(
-            "POST",
-            "/_bulk",
-            conf.params,
-            entity,
-            delegate.getAuthenticationHeader(conf.securityConfig.securityUser.get())
-        );
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        response.getEntity().writeTo(baos);
-        JsonObject json = new JsonParser().parse(baos.toString()).getAsJsonObject();
-        baos.close();
-
-        // Handle errors in bulk requests individually.
-        boolean errors = json.get("errors").getAsBoolean();
-        if (errors) {
-          List<ErrorItem> errorItems;
-          switch (getContext().getOnErrorRecord()) {
-            case DISCARD:
-              break;
-            case TO_ERROR:
-              errorItems = extractErrorItems(json);
-              for (ErrorItem item : errorItems) {
-                Record record = records.get(item.index);
-                getContext().toError(record, Errors.ELASTICSEARCH_16, record.getHeader().getSourceId(), item.reason);
-              }
-              break;
-            case STOP_PIPELINE:
-              errorItems = extractErrorItems(json);
-              throw new StageException(Errors.ELASTICSEARCH_17, errorItems.size(), "One or more operations failed");
-            default:
-              throw new IllegalStateException(
-                  Utils.format("Unknown OnError value '{}'", getContext().getOnErrorRecord())
-              );
-          }
+        response = request.response.get();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new StageException(Errors.ELASTICSEARCH_33, ex.toString(), ex);
+      } catch (ExecutionException ex) {
+        Throwable cause = ex.getCause();
+        errorRecordHandler.onError(records, new StageException(Errors.ELASTICSEARCH_17, records.size(), cause.toString(), cause));
+        return;
+      }
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      response.getEntity().writeTo(baos);
+      JsonObject json = new JsonParser().parse(baos.toString()).getAsJsonObject();
+      baos.close();
+
+      // Handle errors in bulk requests individually.
+      boolean errors = json.get("errors").getAsBoolean();
+      if (errors) {
+        List<ErrorItem> errorItems = extractErrorItems(json);
+        rejectedItemsMeter.mark(errorItems.size());
+        switch (getContext().getOnErrorRecord()) {
+          case DISCARD:
+            break;
+          case TO_ERROR:
+            for (ErrorItem item : errorItems) {
+              Record record = records.get(item.index);
+              getContext().toError(record, Errors.ELASTICSEARCH_16, record.getHeader().getSourceId(), item.reason);
+            }
+            break;
+          case STOP_PIPELINE:
+            throw new StageException(Errors.ELASTICSEARCH_17, errorItems.size(), "One or more operations failed");
+          default:
+            throw new IllegalStateException(
+                Utils.format("Unknown OnError value '{}'", getContext().getOnErrorRecord())
+            );
         }
-      } catch (IOException ex) {
-        errorRecordHandler.onError(records, new StageException(Errors.ELASTICSEARCH_17, records.size(), ex.toString(), ex));
       }
+    } catch (IOException ex) {
+      errorRecordHandler.onError(records, new StageException(Errors.ELASTICSEARCH_17, records.size(), ex.toString(), ex));
     }
   }
 
@@ -361,47 +447,68 @@ public class ElasticsearchTarget extends BaseTarget {
     return batchTime;
   }
 
-  private String getOperation(String index, String type, String id, String parent, String routing, String record, int opCode) {
-    StringBuilder op = new StringBuilder();
+  private void writeOperation(
+      String index,
+      String type,
+      String id,
+      String parent,
+      String routing,
+      BulkBuffer record,
+      int opCode,
+      BulkBuffer body
+  ) {
     switch (opCode) {
       case OperationType.UPSERT_CODE:
-        getOperationMetadata("index", index, type, id, parent, routing, op);
-        op.append(String.format("%s%n", record));
+        writeOperationMetadata("index", index, type, id, parent, routing, body);
+        body.appendWithoutNewLines(record);
+        body.write(NEW_LINE);
         break;
       case OperationType.INSERT_CODE:
-        getOperationMetadata("create", index, type, id, parent, routing, op);
-        op.append(String.format("%s%n", record));
+        writeOperationMetadata("create", index, type, id, parent, routing, body);
+        body.appendWithoutNewLines(record);
+        body.write(NEW_LINE);
         break;
       case OperationType.UPDATE_CODE:
-        getOperationMetadata("update", index, type, id, parent, routing, op);
-        op.append(String.format("{\"doc\":%s}%n", record));
+        writeOperationMetadata("update", index, type, id, parent, routing, body);
+        body.append("{\"doc\":");
+        body.appendWithoutNewLines(record);
+        body.append("}\n");
         break;
       case OperationType.MERGE_CODE:
-        getOperationMetadata("update", index, type, id, parent, routing, op);
-        op.append(String.format("{\"doc_as_upsert\": \"true\", \"doc\":%s}%n", record));
+        writeOperationMetadata("update", index, type, id, parent, routing, body);
+        body.append("{\"doc_as_upsert\": \"true\", \"doc\":");
+        body.appendWithoutNewLines(record);
+        body.append("}\n");
         break;
       case OperationType.DELETE_CODE:
-        getOperationMetadata("delete", index, type, id, parent, routing, op);
+        writeOperationMetadata("delete", index, type, id, parent, routing, body);
         break;
       default:
         LOG.error("Operation {} not supported", opCode);
         throw new UnsupportedOperationException(String.format("Unsupported Operation: %s", opCode));
     }
-    return op.toString();
   }
 
-  private void getOperationMetadata(String operation, String index, String type, String id, String parent, String routing, StringBuilder sb) {
-    sb.append(String.format("{\"%s\":{\"_index\":\"%s\",\"_type\":\"%s\"", operation, index, type));
+  private void writeOperationMetadata(
+      String operation,
+      String index,
+      String type,
+      String id,
+      String parent,
+      String routing,
+      BulkBuffer body
+  ) {
+    body.append(String.format("{\"%s\":{\"_index\":\"%s\",\"_type\":\"%s\"", operation, index, type));
     if (!StringUtils.isEmpty(id)) {
-      sb.append(String.format(",\"_id\":\"%s\"", id));
+      body.append(String.format(",\"_id\":\"%s\"", id));
     }
     if (!StringUtils.isEmpty(parent)) {
-      sb.append(String.format(",\"parent\":\"%s\"", parent));
+      body.append(String.format(",\"parent\":\"%s\"", parent));
     }
     if (!StringUtils.isEmpty(routing)) {
-      sb.append(String.format(",\"routing\":\"%s\"", routing));
+      body.append(String.format(",\"routing\":\"%s\"", routing));
     }
-    sb.append(String.format("}}%n"));
+    body.append("}}\n");
   }
 
   private List<ErrorItem> extractErrorItems(JsonObject json) {
@@ -426,6 +533,37 @@ public class ElasticsearchTarget extends BaseTarget {
     return errorItems;
   }
 
+  private static class BulkRequest {
+    private final BulkBuffer body = new BulkBuffer();
+    private final List<Record> records = new ArrayList<>();
+    private final CompletableFuture<Response> response = new CompletableFuture<>();
+  }
+
+  /**
+   * Byte buffer holding bulk request bodies in UTF-8, handed over to the HTTP client without any copying.
+   */
+  private static class BulkBuffer extends ByteArrayOutputStream {
+    void append(String str) {
+      byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+      write(bytes, 0, bytes.length);
+    }
+
+    void appendWithoutNewLines(BulkBuffer other) {
+      int from = 0;
+      for (int i = 0; i < other.count; i++) {
+        if (other.buf[i] == NEW_LINE) {
+          write(other.buf, from, i - from);
+          from = i + 1;
+        }
+      }
+      write(other.buf, from, other.count - from);
+    }
+
+    HttpEntity toEntity() {
+      return new ByteArrayEntity(buf, 0, count, ContentType.APPLICATION_JSON);
+    }
+  }
+
   private static class ErrorItem {
     int index;
     String reason;
@@ -71,4 +71,17 @@ public class TestElasticSearchDTargetUpgrader {
         "elasticSearchConfig.routingTemplate"
     );
   }
+
+  @Test
+  public void testV8ToV9() throws StageException {
+    StageUpgrader upgrader = new ElasticsearchDTargetUpgrader();
+    List<Config> configs = createConfigs();
+    List<Config> newConfigs = upgrader.upgrade("library", "stageName", "stageInstance", 2, 9, configs);
+    UpgraderTestUtils.assertAllExist(newConfigs,
+        "elasticSearchConfig.parentIdTemplate",
+        "elasticSearchConfig.routingTemplate",
+        "elasticSearchConfig.maxBulkRequestSizeMB",
+        "elasticSearchConfig.maxConcurrentBulkRequests"
+    );
+  }
 }
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.elasticsearch;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.JsonParser;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.OnRecordError;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.lib.elasticsearch.ElasticsearchStageDelegate;
+import com.streamsets.pipeline.sdk.RecordCreator;
+import com.streamsets.pipeline.sdk.TargetRunner;
+import com.streamsets.pipeline.stage.config.elasticsearch.ElasticsearchTargetConfig;
+import com.streamsets.pipeline.stage.config.elasticsearch.Errors;
+import com.streamsets.pipeline.stage.config.elasticsearch.SecurityConfig;
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestElasticsearchTarget {
+
+  /**
+   * Stands in for the REST client: answers bulk requests asynchronously, rejecting the documents with given ids.
+   */
+  private static class FakeElasticsearch extends ElasticsearchStageDelegate {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Set<String> rejectedIds;
+    private final long responseDelayMillis;
+    private final List<List<String>> requests = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile boolean closed;
+
+    FakeElasticsearch(ElasticsearchTargetConfig conf, Set<String> rejectedIds, long responseDelayMillis) {
+      super(null, conf);
+      this.rejectedIds = rejectedIds;
+      this.responseDelayMillis = responseDelayMillis;
+    }
+
+    @Override
+    public List<Stage.ConfigIssue> init(String prefix, List<Stage.ConfigIssue> issues) {
+      return issues;
+    }
+
+    @Override
+    public void destroy() {
+      executor.shutdownNow();
+    }
+
+    @Override
+    public Header[] getAuthenticationHeader(String securityUser) {
+      return new Header[0];
+    }
+
+    @Override
+    public void performRequestAsync(
+        String method,
+        String endpoint,
+        Map<String, String> params,
+        HttpEntity entity,
+        ResponseListener responseListener,
+        Header... headers
+    ) {
+      if (closed) {
+        throw new IllegalStateException("Client is closed");
+      }
+      List<String> ids = new ArrayList<>();
+      try {
+        String[] lines = EntityUtils.toString(entity, StandardCharsets.UTF_8).split("\n");
+        // Index operations: metadata line followed by the document
+        for (int i = 1; i < lines.length; i += 2) {
+          ids.add(new JsonParser().parse(lines[i]).getAsJsonObject().get("id").getAsString());
+        }
+      } catch (IOException ex) {
+        throw new IllegalStateException(ex);
+      }
+      requests.add(ids);
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+
+      executor.submit(() -> {
+        try {
+          Thread.sleep(responseDelayMillis);
+          Response response = createResponse(ids);
+          inFlight.decrementAndGet();
+          responseListener.onSuccess(response);
+        } catch (Exception ex) {
+          inFlight.decrementAndGet();
+          responseListener.onFailure(ex);
+        }
+        return null;
+      });
+    }
+
+    private Response createResponse(List<String> ids) throws IOException {
+      List<String> items = new ArrayList<>();
+      for (String id : ids) {
+        if (rejectedIds.contains(id)) {
+          items.add("{\"index\":{\"status\":400,\"error\":{\"reason\":\"rejected " + id + "\"}}}");
+        } else {
+          items.add("{\"index\":{\"status\":201}}");
+        }
+      }
+      String json = "{\"took\":1,\"errors\":" + ids.stream().anyMatch(rejectedIds::contains) +
+          ",\"items\":[" + StringUtils.join(items, ",") + "]}";
+      Response response = Mockito.mock(Response.class);
+      Mockito.when(response.getEntity()).thenReturn(new StringEntity(json, StandardCharsets.UTF_8));
+      return response;
+    }
+  }
+
+  private static ElasticsearchTargetConfig createConfig(int maxBulkRequestSizeMB, int maxConcurrentBulkRequests) {
+    ElasticsearchTargetConfig conf = new ElasticsearchTargetConfig();
+    conf.httpUris = Collections.singletonList("localhost:9200");
+    conf.timeDriver = "${time:now()}";
+    conf.timeZoneID = "UTC";
+    conf.indexTemplate = "i";
+    conf.typeTemplate = "t";
+    conf.docIdTemplate = "";
+    conf.parentIdTemplate = "";
+    conf.routingTemplate = "";
+    conf.charset = "UTF-8";
+    conf.defaultOperation = ElasticsearchOperationType.INDEX;
+    conf.useSecurity = false;
+    conf.securityConfig = new SecurityConfig();
+    conf.maxBulkRequestSizeMB = maxBulkRequestSizeMB;
+    conf.maxConcurrentBulkRequests = maxConcurrentBulkRequests;
+    return conf;
+  }
+
+  private static TargetRunner createRunner(ElasticsearchTargetConfig conf, FakeElasticsearch elasticsearch) {
+    ElasticsearchTarget target = new ElasticsearchTarget(conf) {
+      @Override
+      ElasticsearchStageDelegate createDelegate() {
+        return elasticsearch;
+      }
+    };
+    return new TargetRunner.Builder(ElasticSearchDTarget.class, target)
+        .setOnRecordError(OnRecordError.TO_ERROR)
+        .build();
+  }
+
+  private static List<Record> createRecords(int count, int textLength) {
+    String text = StringUtils.repeat("x", textLength);
+    List<Record> records = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      LinkedHashMap<String, Field> map = new LinkedHashMap<>();
+      map.put("id", Field.create(String.valueOf(i)));
+      map.put("text", Field.create(text));
+      Record record = RecordCreator.create();
+      record.set(Field.createListMap(map));
+      records.add(record);
+    }
+    return records;
+  }
+
+  private static Set<String> getIds(List<Record> records) {
+    Set<String> ids = new HashSet<>();
+    for (Record record : records) {
+      ids.add(record.get("/id").getValueAsString());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testSingleBulkRequest() throws Exception {
+    ElasticsearchTargetConfig conf = createConfig(1, 1);
+    FakeElasticsearch elasticsearch = new FakeElasticsearch(conf, Collections.emptySet(), 0);
+    TargetRunner runner = createRunner(conf, elasticsearch);
+    runner.runInit();
+    try {
+      runner.runWrite(createRecords(10, 10));
+      Assert.assertEquals(1, elasticsearch.requests.size());
+      Assert.assertEquals(10, elasticsearch.requests.get(0).size());
+      Assert.assertTrue(runner.getErrorRecords().isEmpty());
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testSplitByMaxBulkRequestSize() throws Exception {
+    ElasticsearchTargetConfig conf = createConfig(1, 1);
+    FakeElasticsearch elasticsearch = new FakeElasticsearch(conf, Collections.emptySet(), 0);
+    TargetRunner runner = createRunner(conf, elasticsearch);
+    runner.runInit();
+    try {
+      // A request is sent once its body reaches 1MB, i.e. after 3 records of 400KB
+      runner.runWrite(createRecords(7, 400 * 1024));
+      Assert.assertEquals(3, elasticsearch.requests.size());
+      Assert.assertEquals(3, elasticsearch.requests.get(0).size());
+      Assert.assertEquals(3, elasticsearch.requests.get(1).size());
+      Assert.assertEquals(1, elasticsearch.requests.get(2).size());
+      // Requests are sent in order of the records
+      List<String> ids = new ArrayList<>();
+      elasticsearch.requests.forEach(ids::addAll);
+      Assert.assertEquals(ImmutableList.of("0", "1", "2", "3", "4", "5", "6"), ids);
+      Assert.assertTrue(runner.getErrorRecords().isEmpty());
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testMaxConcurrentBulkRequests() throws Exception {
+    ElasticsearchTargetConfig conf = createConfig(1, 2);
+    FakeElasticsearch elasticsearch = new FakeElasticsearch(conf, Collections.emptySet(), 100);
+    TargetRunner runner = createRunner(conf, elasticsearch);
+    runner.runInit();
+    try {
+      runner.runWrite(createRecords(12, 400 * 1024));
+      Assert.assertEquals(4, elasticsearch.requests.size());
+      // The second request is sent without waiting for the first one, a third one has to wait
+      Assert.assertEquals(2, elasticsearch.maxInFlight.get());
+      // All requests completed before write returned
+      Assert.assertEquals(0, elasticsearch.inFlight.get());
+      Assert.assertTrue(runner.getErrorRecords().isEmpty());
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testItemErrorsOfSplitRequests() throws Exception {
+    ElasticsearchTargetConfig conf = createConfig(1, 2);
+    Set<String> rejected = ImmutableSet.of("1", "3", "5", "6");
+    FakeElasticsearch elasticsearch = new FakeElasticsearch(conf, rejected, 10);
+    TargetRunner runner = createRunner(conf, elasticsearch);
+    runner.runInit();
+    try {
+      runner.runWrite(createRecords(7, 400 * 1024));
+      Assert.assertEquals(3, elasticsearch.requests.size());
+      // Items are mapped back to the records of their own request
+      List<Record> errorRecords = runner.getErrorRecords();
+      Assert.assertEquals(rejected, getIds(errorRecords));
+      for (Record record : errorRecords) {
+        Assert.assertEquals(Errors.ELASTICSEARCH_16.name(), record.getHeader().getErrorCode());
+      }
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testRequestNotSent() throws Exception {
+    ElasticsearchTargetConfig conf = createConfig(1, 1);
+    FakeElasticsearch elasticsearch = new FakeElasticsearch(conf, Collections.emptySet(), 0);
+    TargetRunner runner = createRunner(conf, elasticsearch);
+    runner.runInit();
+    try {
+      elasticsearch.closed = true;
+      runner.runWrite(createRecords(7, 400 * 1024));
+      Assert.assertEquals(7, runner.getErrorRecords().size());
+      Assert.assertEquals(Errors.ELASTICSEARCH_17.name(), runner.getErrorRecords().get(0).getHeader().getErrorCode());
+
+      // Permits of the requests that were not sent have been released
+      runner.clearErrors();
+      elasticsearch.closed = false;
+      runner.runWrite(createRecords(7, 400 * 1024));
+      Assert.assertEquals(3, elasticsearch.requests.size());
+      Assert.assertTrue(runner.getErrorRecords().isEmpty());
+    } finally {
+      runner.runDestroy();
+    }
+  }
+}
@@ -24,7 +24,7 @@ import com.streamsets.pipeline.api.StageDef;
 import com.streamsets.pipeline.configurablestage.DProcessor;
 
 @StageDef(
-    version = 3,
+    version = 4,
     label = "HBase Lookup",
     description = "Performs KV lookups to enrich records",
     icon = "hbase.png",
@@ -16,7 +16,6 @@
 package com.streamsets.pipeline.stage.processor.hbase;
 
 import com.google.common.base.CharMatcher;
-import com.google.common.base.Optional;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -62,6 +61,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 public class HBaseLookupProcessor extends BaseProcessor {
@@ -225,7 +225,7 @@ public class HBaseLookupProcessor extends BaseProcessor {
             e
         ));
       }
-      cache = LookupUtils.buildCache(store, conf.cache);
+      cache = LookupUtils.buildCache(store, conf.cache, Optional.empty(), getContext());
 
       cacheCleaner = new CacheCleaner(cache, "HBaseLookupProcessor", 10 * 60 * 1000);
     }
@@ -309,7 +309,11 @@ public class HBaseLookupProcessor extends BaseProcessor {
           Pair<String, HBaseColumn> key = getKey(record, parameter);
 
           if (key != null && !key.getKey().trim().isEmpty()) {
-            Optional<String> value = HBaseUtil.getUGI().doAs((PrivilegedExceptionAction<Optional<String>>) () -> cache.getUnchecked(key));
+            // Values of all keys were already fetched above, no need to go through the cache (that might be disabled)
+            Optional<String> value = values.get(key);
+            if (value == null) {
+              value = HBaseUtil.getUGI().doAs((PrivilegedExceptionAction<Optional<String>>) () -> cache.getUnchecked(key));
+            }
             updateRecord(record, parameter, key, value);
           } else {
             handleEmptyKey(record, key);
@@ -40,6 +40,12 @@ public class HBaseProcessorUpgrader implements StageUpgrader {
         // fall through
       case 2:
         upgradeV2toV3(configs);
+        if (toVersion == 3) {
+          break;
+        }
+        // fall through
+      case 3:
+        upgradeV3toV4(configs);
         break;
       default:
         throw new IllegalStateException(Utils.format("Unexpected fromVersion {}", fromVersion));
@@ -77,4 +83,8 @@ public class HBaseProcessorUpgrader implements StageUpgrader {
       configs.remove(oldZnodeConfig);
     }
   }
+
+  private static void upgradeV3toV4(List<Config> configs) {
+    configs.add(new Config("conf.cache.missingValueExpirationTime", -1));
+  }
 }
@@ -15,12 +15,10 @@
  */
 package com.streamsets.pipeline.stage.processor.hbase;
 
-import com.google.common.base.Optional;
-import com.google.common.cache.CacheLoader;
-import com.google.common.collect.Lists;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.lib.hbase.common.Errors;
 import com.streamsets.pipeline.lib.hbase.common.HBaseColumn;
+import com.streamsets.pipeline.stage.processor.kv.BatchLookupLoader;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.HTable;
@@ -33,13 +31,15 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Optional;
 
-public class HBaseStore extends CacheLoader<Pair<String, HBaseColumn>, Optional<String>> {
+public class HBaseStore extends BatchLookupLoader<Pair<String, HBaseColumn>, String> {
   private static final Logger LOG = LoggerFactory.getLogger(HBaseStore.class);
   private HTable hTable;
 
@@ -63,19 +63,25 @@ public class HBaseStore extends CacheLoader<Pair<String, HBaseColumn>, Optional<
   }
 
   @Override
-  public Optional<String> load(Pair<String, HBaseColumn> key) throws Exception {
-    return get(key);
+  protected Object getPartition(Pair<String, HBaseColumn> key) {
+    // The HBase client already splits a multi-get per region server and runs the parts in parallel, hence
+    // sending all keys in a single multi-get
+    return null;
   }
 
   @Override
-  public Map<Pair<String, HBaseColumn>, Optional<String>> loadAll(Iterable<? extends Pair<String, HBaseColumn>> keys) throws Exception {
-    ArrayList<Pair<String, HBaseColumn>> keyList = Lists.newArrayList(keys);
-    List<Optional<String>> values = get(keyList);
+  protected Map<Pair<String, HBaseColumn>, Optional<String>> loadPartition(
+      List<Pair<String, HBaseColumn>> keys
+  ) throws Exception {
+    if (keys.size() == 1) {
+      return Collections.singletonMap(keys.get(0), get(keys.get(0)));
+    }
+    List<Optional<String>> values = get(keys);
 
-    Iterator<? extends Pair<String, HBaseColumn>> keyIterator = keyList.iterator();
+    Iterator<Pair<String, HBaseColumn>> keyIterator = keys.iterator();
     Iterator<Optional<String>> valueIterator = values.iterator();
 
-    Map<Pair<String, HBaseColumn>, Optional<String>> result = new HashMap<>(keyList.size());
+    Map<Pair<String, HBaseColumn>, Optional<String>> result = new HashMap<>(keys.size());
     while (keyIterator.hasNext() && valueIterator.hasNext()) {
       result.put(keyIterator.next(), valueIterator.next());
     }
@@ -84,7 +90,7 @@ public class HBaseStore extends CacheLoader<Pair<String, HBaseColumn>, Optional<
 
   public Optional<String> get(Pair<String, HBaseColumn> key) throws Exception {
     if(key.getKey().isEmpty()) {
-      return Optional.absent();
+      return Optional.empty();
     }
     Get g = new Get(Bytes.toBytes(key.getKey()));
     if(key.getValue().getCf() != null && key.getValue().getQualifier() != null) {
@@ -96,7 +102,7 @@ public class HBaseStore extends CacheLoader<Pair<String, HBaseColumn>, Optional<
     Result result = hTable.get(g);
 
     String value = getValue(key.getValue(), result);
-    return Optional.fromNullable(value);
+    return Optional.ofNullable(value);
   }
 
   public List<Optional<String>> get(List<Pair<String, HBaseColumn>> keys) throws Exception {
@@ -123,7 +129,7 @@ public class HBaseStore extends CacheLoader<Pair<String, HBaseColumn>, Optional<
       HBaseColumn hBaseColumn = key.getValue();
 
       String value = getValue(hBaseColumn, result);
-      values.add(Optional.fromNullable(value));
+      values.add(Optional.ofNullable(value));
       index++;
     }
     return values;
@@ -15,7 +15,6 @@
  */
 package com.streamsets.pipeline.stage.processor.hbase;
 
-import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.OnRecordError;
@@ -58,6 +57,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertArrayEquals;
@@ -277,7 +277,7 @@ public class HBaseProcessorIT {
       Optional.of("value1"),
       Optional.of("value2"),
       Optional.of("value3"),
-      Optional.<String>absent()
+      Optional.<String>empty()
     );
 
     HBaseLookupConfig config = getDefaultConfig();
@@ -317,7 +317,7 @@ public class HBaseProcessorIT {
 
   @Test(timeout = 60000)
   public void testGetKeyWithInvalidTimeStamp() throws Exception {
-    final Optional<String> expected = Optional.absent();
+    final Optional<String> expected = Optional.empty();
     HBaseLookupConfig config = getDefaultConfig();
     config.cache.enabled = false;
     context.isPreview();
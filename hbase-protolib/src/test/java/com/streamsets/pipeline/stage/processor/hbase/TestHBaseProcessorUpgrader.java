@@ -80,4 +80,16 @@ public class TestHBaseProcessorUpgrader {
     assertEquals("conf.hBaseConnectionConfig.zookeeperParentZNode", configs.get(0).getName());
 
   }
+
+  @Test
+  public void testV3toV4() throws Exception {
+    List<Config> configs = new ArrayList<>();
+
+    StageUpgrader hbaseProcessorUpgrader = new HBaseProcessorUpgrader();
+    hbaseProcessorUpgrader.upgrade("a", "b", "c", 3, 4, configs);
+
+    assertEquals(1, configs.size());
+    assertEquals("conf.cache.missingValueExpirationTime", configs.get(0).getName());
+    assertEquals(-1, configs.get(0).getValue());
+  }
 }
@@ -121,6 +121,14 @@ public class HdfsTarget extends BaseTarget {
               }
             }
             hdfsTargetConfigBean.getCurrentWriters().flushAll();
+            if (hdfsTargetConfigBean.getLateWriters() != null) {
+              hdfsTargetConfigBean.getLateWriters().awaitPendingWrites();
+            }
+            // Records that failed to be serialized by the writer pool
+            for (OnRecordErrorException ex : hdfsTargetConfigBean.drainRecordWriteErrors()) {
+              errorRecordHandler.onError(ex);
+            }
+            hdfsTargetConfigBean.updateWritersGauge();
           } else {
             emptyBatch();
           }
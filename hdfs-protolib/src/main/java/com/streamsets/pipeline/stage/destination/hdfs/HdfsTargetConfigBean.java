@@ -16,6 +16,7 @@
 package com.streamsets.pipeline.stage.destination.hdfs;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
 import com.google.common.annotations.VisibleForTesting;
 import com.streamsets.datacollector.security.HadoopSecurityUtil;
@@ -24,6 +25,7 @@ import com.streamsets.pipeline.api.ConfigDefBean;
 import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.Target;
+import com.streamsets.pipeline.api.base.OnRecordErrorException;
 import com.streamsets.pipeline.api.ValueChooserModel;
 import com.streamsets.pipeline.api.el.ELEval;
 import com.streamsets.pipeline.api.el.ELEvalException;
@@ -37,6 +39,7 @@ import com.streamsets.pipeline.lib.el.TimeEL;
 import com.streamsets.pipeline.lib.el.TimeNowEL;
 import com.streamsets.pipeline.stage.destination.hdfs.writer.ActiveRecordWriters;
 import com.streamsets.pipeline.stage.destination.hdfs.writer.RecordWriterManager;
+import com.streamsets.pipeline.stage.destination.hdfs.writer.RecordWriterPool;
 import com.streamsets.pipeline.stage.destination.lib.DataGeneratorFormatConfig;
 import com.streamsets.pipeline.lib.hdfs.common.Errors;
 import com.streamsets.pipeline.lib.hdfs.common.HdfsBaseConfigBean;
@@ -55,8 +58,10 @@ import java.io.IOException;
 import java.net.URI;
 import java.security.PrivilegedExceptionAction;
 import java.time.ZoneId;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -353,6 +358,19 @@ public class HdfsTargetConfigBean extends HdfsBaseConfigBean {
   )
   public boolean hdfsPermissionCheck;
 
+  @ConfigDef(
+    required = false,
+    type = ConfigDef.Type.NUMBER,
+    defaultValue = "0",
+    label = "Writer Threads",
+    description = "Number of threads serializing and compressing records, files are then written in parallel while " +
+        "records of each file keep their order. Use 0 to write on the pipeline thread. Not used for whole files.",
+    displayPosition = 235,
+    group = "OUTPUT_FILES",
+    min = 0
+  )
+  public int writerThreads = 0;
+
   //Optional if empty file is created with default umask.
   @ConfigDef(
       required = false,
@@ -395,6 +413,8 @@ public class HdfsTargetConfigBean extends HdfsBaseConfigBean {
   private Meter toHdfsRecordsMeter;
   private Counter lateRecordsCounter;
   private Meter lateRecordsMeter;
+  private RecordWriterPool writerPool;
+  private Map<String, Object> writersGauge;
 
   //public API
 
@@ -664,6 +684,16 @@ public class HdfsTargetConfigBean extends HdfsBaseConfigBean {
       toHdfsRecordsMeter = context.createMeter("toHdfsRecords");
       lateRecordsCounter = context.createCounter("lateRecords");
       lateRecordsMeter = context.createMeter("lateRecords");
+      writersGauge = context.createGauge("Record Writers").getValue();
+
+      if (writerThreads > 0 && dataFormat != DataFormat.WHOLE_FILE) {
+        writerPool = new RecordWriterPool(writerThreads);
+        getCurrentWriters().setWriterPool(writerPool);
+        if (getLateWriters() != null) {
+          getLateWriters().setWriterPool(writerPool);
+        }
+      }
+      updateWritersGauge();
     }
 
     if (issues.isEmpty()) {
@@ -715,6 +745,10 @@ public class HdfsTargetConfigBean extends HdfsBaseConfigBean {
               lateWriters.getWriterManager().issueCachedEvents();
             }
           } finally {
+            if (writerPool != null) {
+              writerPool.shutdown();
+              writerPool = null;
+            }
             if(fs != null) {
               fs.close();
               fs = null;
@@ -781,6 +815,24 @@ public class HdfsTargetConfigBean extends HdfsBaseConfigBean {
     return lateRecordsMeter;
   }
 
+  /**
+   * Returns errors of records that the writer pool failed to write since the last call.
+   */
+  List<OnRecordErrorException> drainRecordWriteErrors() {
+    return writerPool == null ? Collections.emptyList() : writerPool.drainRecordErrors();
+  }
+
+  void updateWritersGauge() {
+    int openFiles = currentWriters.getOpenWritersCount();
+    if (lateWriters != null) {
+      openFiles += lateWriters.getOpenWritersCount();
+    }
+    writersGauge.put("Open Files", openFiles);
+    writersGauge.put("Queued Records", writerPool == null ? 0 : writerPool.getQueuedRecords());
+    writersGauge.put("Last Flush Bytes", currentWriters.getLastFlushBytes());
+    writersGauge.put("Flush Latency (ms)", currentWriters.getLastFlushMillis());
+  }
+
   String getTimeDriver() {
     return timeDriver;
   }
@@ -75,6 +75,9 @@ public class ActiveRecordWriters {
   @VisibleForTesting
   Map<String, RecordWriter> writers;
   private DelayQueue<DelayedRecordWriter> cutOffQueue;
+  private RecordWriterPool writerPool;
+  private long lastFlushBytes;
+  private long lastFlushMillis;
 
   public ActiveRecordWriters(RecordWriterManager manager) {
     writers = new HashMap<>();
@@ -82,6 +85,13 @@ public class ActiveRecordWriters {
     this.manager = manager;
   }
 
+  /**
+   * Hands serialization of records of all writers opened from now on over to given pool.
+   */
+  public void setWriterPool(RecordWriterPool writerPool) {
+    this.writerPool = writerPool;
+  }
+
   public void commitOldFiles(FileSystem fs) throws IOException, StageException {
     manager.commitOldFiles(fs);
   }
@@ -127,6 +137,7 @@ public class ActiveRecordWriters {
           LOG.trace("Got '{}'", writer.getPath());
         }
         writer.setActiveRecordWriters(this);
+        writer.setWriterPool(writerPool);
 
         //We are fine no lock on writer needed.
         synchronized(this) {
@@ -147,6 +158,24 @@ public class ActiveRecordWriters {
     return cutOffQueue.size();
   }
 
+  public synchronized int getOpenWritersCount() {
+    return writers == null ? 0 : writers.size();
+  }
+
+  /**
+   * Returns number of bytes written out by the last {@link #flushAll()}.
+   */
+  public synchronized long getLastFlushBytes() {
+    return lastFlushBytes;
+  }
+
+  /**
+   * Returns duration of the last {@link #flushAll()} in milliseconds.
+   */
+  public synchronized long getLastFlushMillis() {
+    return lastFlushMillis;
+  }
+
   //The whole function is synchronized because
   //the locks always have to taken in the following order
   //1. ActiveRecordWriters and 2. RecordWriter (if we need both of them)
@@ -173,10 +202,13 @@ public class ActiveRecordWriters {
     if (IS_TRACE_ENABLED) {
       LOG.trace("Flush all '{}'", toString());
     }
+    long start = System.currentTimeMillis();
+    long bytes = 0;
     for (RecordWriter writer : writers.values()) {
       if (!writer.isClosed()) {
         try {
           writer.flush();
+          bytes += writer.getLastFlushedBytes();
         } catch (IOException ex) {
           String msg = Utils.format("Flush failed on file : '{}'", writer.getPath().toString());
           LOG.error(msg);
@@ -184,6 +216,21 @@ public class ActiveRecordWriters {
         }
       }
     }
+    lastFlushBytes = bytes;
+    lastFlushMillis = System.currentTimeMillis() - start;
+  }
+
+  /**
+   * Waits until records handed over to the writer pool are written, without flushing the files.
+   */
+  public synchronized void awaitPendingWrites() throws StageException {
+    for (RecordWriter writer : writers.values()) {
+      try {
+        writer.awaitPendingWrites();
+      } catch (IOException ex) {
+        throw new StageException(Errors.HADOOPFS_58, writer.getPath().toString(), ex);
+      }
+    }
   }
 
   public synchronized void closeAll() throws StageException{
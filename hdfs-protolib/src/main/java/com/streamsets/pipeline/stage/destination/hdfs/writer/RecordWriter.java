@@ -36,9 +36,12 @@ import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -70,6 +73,15 @@ public class RecordWriter {
   private ActiveRecordWriters writers = null;
   private boolean batchContainsData = false;
   private volatile boolean renamed = false;
+  private long lengthAtLastFlush = 0;
+  private long lastFlushedBytes = 0;
+
+  // When set, records are serialized by the pool, chained one after another to keep their order
+  private RecordWriterPool writerPool = null;
+  private volatile CompletableFuture<Void> pendingWrites = CompletableFuture.completedFuture(null);
+  private volatile IOException asyncWriteFailure = null;
+  // length of the file after the last record written by the pool, the pool threads publish it for the cut-off checks
+  private volatile long writtenLength = 0;
 
   private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
   private ScheduledThreadPoolExecutor idleCloseExecutor = new ScheduledThreadPoolExecutor(1,
@@ -131,6 +143,10 @@ public class RecordWriter {
     this.writers = writers;
   }
 
+  void setWriterPool(RecordWriterPool writerPool) {
+    this.writerPool = writerPool;
+  }
+
   void closeLock() {
     closeLock.writeLock().lock();
   }
@@ -146,28 +162,82 @@ public class RecordWriter {
       if (IS_TRACE_ENABLED) {
         LOG.trace("Path[{}] - Writing ['{}']", path, record.getHeader().getSourceId());
       }
+      throwIfAsyncWriteFailed();
       batchContainsData = true;
-      if (generator != null) {
-        generator.write(record);
-      } else if (seqWriter != null) {
-        RecordEL.setRecordInContext(elVars, record);
-        key.set(keyElEval.eval(elVars, keyEL, String.class));
-        ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
-        DataGenerator dg = generatorFactory.getGenerator(baos);
-        dg.write(record);
-        dg.close();
-        value.set(new String(baos.toByteArray(), StandardCharsets.UTF_8));
-        seqWriter.append(key, value);
-      } else {
+      if (generator == null && seqWriter == null) {
         throw new IOException(Utils.format("RecordWriter '{}' is closed", path));
       }
+      if (writerPool != null) {
+        writerPool.recordQueued();
+        pendingWrites = pendingWrites.thenRunAsync(() -> writeQueued(record), writerPool.getExecutor());
+      } else {
+        writeRecord(record);
+      }
       recordCount++;
     } finally {
       closeLock.readLock().unlock();
     }
   }
 
+  private void writeRecord(Record record) throws IOException, StageException {
+    if (generator != null) {
+      generator.write(record);
+    } else {
+      RecordEL.setRecordInContext(elVars, record);
+      key.set(keyElEval.eval(elVars, keyEL, String.class));
+      ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+      DataGenerator dg = generatorFactory.getGenerator(baos);
+      dg.write(record);
+      dg.close();
+      value.set(new String(baos.toByteArray(), StandardCharsets.UTF_8));
+      seqWriter.append(key, value);
+    }
+  }
+
+  // Runs in the writer pool. Must not take the close lock as close() waits for pending writes while holding it.
+  private void writeQueued(Record record) {
+    try {
+      if (asyncWriteFailure == null) {
+        writeRecord(record);
+        writtenLength = readLength();
+      }
+    } catch (IOException ex) {
+      asyncWriteFailure = ex;
+    } catch (StageException ex) {
+      writerPool.recordFailed(record, ex);
+    } catch (RuntimeException ex) {
+      asyncWriteFailure = new IOException(ex.toString(), ex);
+    } finally {
+      writerPool.recordWritten();
+    }
+  }
+
+  /**
+   * Waits until all records handed over to the writer pool are written.
+   */
+  void awaitPendingWrites() throws IOException {
+    try {
+      pendingWrites.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(Utils.format("Interrupted while writing to '{}'", path));
+    } catch (ExecutionException ex) {
+      throw new IOException(ex.getCause().toString(), ex.getCause());
+    }
+    throwIfAsyncWriteFailed();
+  }
+
+  private void throwIfAsyncWriteFailed() throws IOException {
+    if (asyncWriteFailure != null) {
+      throw new IOException(
+          Utils.format("Writing to '{}' failed: {}", path, asyncWriteFailure.toString()),
+          asyncWriteFailure
+      );
+    }
+  }
+
   public void flush() throws IOException {
+    awaitPendingWrites();
     // This grabs write lock, so do it before getting read lock
     scheduleIdleClose();
     closeLock.readLock().lock();
@@ -185,6 +255,11 @@ public class RecordWriter {
       } else if (seqWriter != null) {
         seqWriter.hflush();
       }
+      long length = readLength();
+      lastFlushedBytes = length - lengthAtLastFlush;
+      lengthAtLastFlush = length;
+      // pending writes have been awaited, no pool thread is writing
+      writtenLength = length;
     } finally {
       // reset this flag so we flush only when there is data.
       batchContainsData = false;
@@ -193,8 +268,16 @@ public class RecordWriter {
   }
 
   // due to buffering of underlying streams, the reported length may be less than the actual one up to the
-  // buffer size.
+  // buffer size. When records are written by the writer pool, the records still queued are not accounted yet.
   public long getLength() throws IOException {
+    if (writerPool != null) {
+      // the underlying streams are being written by the pool threads, use the length they published
+      return writtenLength;
+    }
+    return readLength();
+  }
+
+  private long readLength() throws IOException {
     long length = -1;
     if (generator != null) {
       length = textOutputStream.getByteCount();
@@ -208,11 +291,19 @@ public class RecordWriter {
     return recordCount;
   }
 
+  /**
+   * Returns number of bytes that were written out by the last flush.
+   */
+  public long getLastFlushedBytes() {
+    return lastFlushedBytes;
+  }
+
   public void close() throws IOException, StageException {
     close(false);
   }
 
   private void close(boolean idleClosed) throws IOException, StageException {
+    IOException writeFailure = null;
     closeLock.writeLock().lock();
     LOG.debug("Path[{}] - Closing", path);
     try {
@@ -222,6 +313,14 @@ public class RecordWriter {
         return;
       }
 
+      // Records handed over to the writer pool must be written before the file is closed, the pool threads
+      // don't take the close lock so it's safe to wait for them while holding it
+      try {
+        awaitPendingWrites();
+      } catch (IOException ex) {
+        writeFailure = ex;
+      }
+
       if (generator != null) {
         generator.close();
       } else if (seqWriter != null) {
@@ -239,6 +338,9 @@ public class RecordWriter {
       //Gracefully Shutdown the thread, so rename goes through without glitch.
       idleCloseExecutor.shutdown();
     }
+    if (writeFailure != null) {
+      throw writeFailure;
+    }
   }
 
   public void setIdleTimeout(long timeout) {
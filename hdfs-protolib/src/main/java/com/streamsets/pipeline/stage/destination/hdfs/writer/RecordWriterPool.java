@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.hdfs.writer;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.api.base.OnRecordErrorException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of threads serializing (and compressing) records on behalf of record writers, so that files with
+ * many partitions are written in parallel rather than one record after another on the pipeline thread.
+ *
+ * Each record writer hands its records over to the pool in a chain, hence records of the same file are still
+ * written in order. Records that fail to be serialized are collected here to be sent to error by the stage.
+ */
+public class RecordWriterPool {
+  private final ExecutorService executor;
+  private final Queue<OnRecordErrorException> recordErrors = new ConcurrentLinkedQueue<>();
+  private final AtomicLong queuedRecords = new AtomicLong();
+
+  public RecordWriterPool(int threads) {
+    executor = Executors.newFixedThreadPool(
+        threads,
+        new ThreadFactoryBuilder().setNameFormat("Record Writer Thread %d").setDaemon(true).build()
+    );
+  }
+
+  Executor getExecutor() {
+    return executor;
+  }
+
+  void recordQueued() {
+    queuedRecords.incrementAndGet();
+  }
+
+  void recordWritten() {
+    queuedRecords.decrementAndGet();
+  }
+
+  void recordFailed(Record record, StageException ex) {
+    recordErrors.add(new OnRecordErrorException(record, ex.getErrorCode(), ex.getParams()));
+  }
+
+  /**
+   * Returns number of records handed over to the pool that weren't written yet.
+   */
+  public long getQueuedRecords() {
+    return queuedRecords.get();
+  }
+
+  /**
+   * Returns and forgets errors of records that failed to be written since the last call.
+   */
+  public List<OnRecordErrorException> drainRecordErrors() {
+    List<OnRecordErrorException> errors = new ArrayList<>();
+    OnRecordErrorException error = recordErrors.poll();
+    while (error != null) {
+      errors.add(error);
+      error = recordErrors.poll();
+    }
+    return errors;
+  }
+
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
@@ -45,6 +45,7 @@ import static com.streamsets.pipeline.config.OriginAvroSchemaSource.SOURCE;
 @ConfigGroups(Groups.class)
 @HideConfigs(value = {
     "conf.allowLateDirectory",
+    "conf.watchForNewFiles",
     "conf.dataFormatConfig.verifyChecksum",
     "conf.dataFormatConfig.avroSchemaSource"
 })
@@ -147,6 +147,40 @@ public class TestRecordWriter {
     }
   }
 
+  @Test
+  public void testTextFileWithWriterPool() throws Exception {
+    FileSystem fs = getRawLocalFileSystem();
+    RecordWriterPool pool = new RecordWriterPool(4);
+    try {
+      Path file = new Path(getTestDir(), "pooled.txt");
+      OutputStream os = fs.create(file, false);
+      RecordWriter writer = new RecordWriter(file, 10000, os, new DummyDataGeneratorFactory(null), null);
+      writer.setWriterPool(pool);
+      for (int i = 0; i < 1000; i++) {
+        Record record = RecordCreator.create();
+        record.set(Field.create(String.valueOf(i)));
+        writer.write(record);
+      }
+      Assert.assertEquals(1000, writer.getRecords());
+      writer.flush();
+      Assert.assertEquals(0, pool.getQueuedRecords());
+      Assert.assertEquals(writer.getLength(), writer.getLastFlushedBytes());
+      Assert.assertTrue(pool.drainRecordErrors().isEmpty());
+      writer.close();
+      Assert.assertTrue(writer.isClosed());
+
+      BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(file)));
+      for (int i = 0; i < 1000; i++) {
+        Assert.assertEquals(String.valueOf(i), reader.readLine());
+      }
+      Assert.assertNull(reader.readLine());
+      reader.close();
+    } finally {
+      pool.shutdown();
+      fs.close();
+    }
+  }
+
   private void testSequenceFile(boolean useUUIDAsKey) throws Exception {
     String keyEL = (useUUIDAsKey) ? "${uuid()}" : "${record:value('/')}";
     FileSystem fs = getRawLocalFileSystem();
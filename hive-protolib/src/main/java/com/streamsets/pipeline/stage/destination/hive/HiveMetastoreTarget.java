@@ -15,6 +15,7 @@
  */
 package com.streamsets.pipeline.stage.destination.hive;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
@@ -39,9 +40,11 @@ import com.streamsets.pipeline.stage.lib.hive.cache.TypeInfoCacheSupport;
 import com.streamsets.pipeline.stage.lib.hive.exceptions.HiveStageCheckedException;
 import com.streamsets.pipeline.stage.lib.hive.typesupport.HiveTypeInfo;
 import com.streamsets.pipeline.stage.processor.hive.HMPDataFormat;
+import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -49,6 +52,7 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
@@ -61,6 +65,9 @@ public class HiveMetastoreTarget extends BaseTarget {
   private static final String EXTERNAL = "External";
   private static final Joiner JOINER = Joiner.on(".");
   private static final String KEY_LOCKS = "table-locks";
+  // Upper bound of partitions added by a single query
+  @VisibleForTesting
+  static final int MAX_PARTITIONS_PER_QUERY = 100;
 
   private final HMSTargetConfigBean conf;
 
@@ -69,6 +76,30 @@ public class HiveMetastoreTarget extends BaseTarget {
   private HMSCache hmsCache;
   private LoadingCache<String, Lock> tableLocks;
 
+  // New partitions seen in the current batch that are not yet added to the metastore, grouped by table
+  private final Map<String, List<PendingPartition>> pendingPartitions = new LinkedHashMap<>();
+
+  private static class PendingPartition {
+    private final Record metadataRecord;
+    private final LinkedHashMap<String, String> partitionValMap;
+    private final PartitionInfoCacheSupport.PartitionValues partitionValues;
+    private final String location;
+    private final Map<String, String> headers;
+
+    private PendingPartition(
+        Record metadataRecord,
+        LinkedHashMap<String, String> partitionValMap,
+        String location,
+        Map<String, String> headers
+    ) {
+      this.metadataRecord = metadataRecord;
+      this.partitionValMap = partitionValMap;
+      this.partitionValues = new PartitionInfoCacheSupport.PartitionValues(partitionValMap);
+      this.location = location;
+      this.headers = headers;
+    }
+  }
+
   public HiveMetastoreTarget(HMSTargetConfigBean conf) {
     this.conf = conf;
   }
@@ -125,6 +156,15 @@ public class HiveMetastoreTarget extends BaseTarget {
 
   @Override
   public void write(Batch batch) throws StageException {
+    try {
+      processBatch(batch);
+    } finally {
+      // Partitions not added because of an error must not be carried over to the next batch
+      pendingPartitions.clear();
+    }
+  }
+
+  private void processBatch(Batch batch) throws StageException {
     Iterator<Record> recordIterator = batch.getRecords();
     while (recordIterator.hasNext()) {
       Record metadataRecord = recordIterator.next();
@@ -182,6 +222,8 @@ public class HiveMetastoreTarget extends BaseTarget {
         }
 
         if (HiveMetastoreUtil.isSchemaChangeRecord(metadataRecord)) {
+          // Partitions seen before the schema change have to be added first
+          addPendingPartitions(qualifiedTableName);
           handleSchemaChange(
               metadataRecord,
               location,
@@ -207,6 +249,27 @@ public class HiveMetastoreTarget extends BaseTarget {
         }
       }
     }
+
+    for (String qualifiedTableName : new ArrayList<>(pendingPartitions.keySet())) {
+      Lock tableLock;
+      try {
+        tableLock = tableLocks.get(qualifiedTableName);
+      } catch (ExecutionException e) {
+        LOG.error("Can't retrieve lock for table: {}", e);
+        for (PendingPartition partition : pendingPartitions.remove(qualifiedTableName)) {
+          defaultErrorRecordHandler.onError(
+              new OnRecordErrorException(partition.metadataRecord, Errors.HIVE_01, e.toString())
+          );
+        }
+        continue;
+      }
+      tableLock.lock();
+      try {
+        addPendingPartitions(qualifiedTableName);
+      } finally {
+        tableLock.unlock();
+      }
+    }
   }
 
   @Override
@@ -398,32 +461,144 @@ public class HiveMetastoreTarget extends BaseTarget {
 
     partitionInfoDiff = (cachedPartitionInfo != null)? cachedPartitionInfo.getDiff(partitionInfoDiff) : partitionInfoDiff;
     if (!partitionInfoDiff.isEmpty()) {
-      hiveQueryExecutor.executeAlterTableAddPartitionQuery(
+      // New partitions are added in bulk at the end of the batch
+      List<PendingPartition> tablePartitions =
+          pendingPartitions.computeIfAbsent(qualifiedTableName, key -> new ArrayList<>());
+      for (PendingPartition partition : tablePartitions) {
+        if (partition.partitionValues.equals(partitionValues)) {
+          if (!partition.location.equals(location)) {
+            throw new HiveStageCheckedException(Errors.HIVE_31, location, partition.location);
+          }
+          return;
+        }
+      }
+      tablePartitions.add(new PendingPartition(metadataRecord, partitionValMap, location, headers));
+      if (tablePartitions.size() >= MAX_PARTITIONS_PER_QUERY) {
+        addPendingPartitions(qualifiedTableName);
+      }
+    }
+  }
+
+  /**
+   * Adds all pending partitions of given table to the metastore. Caller must hold lock of the table.
+   *
+   * All partitions are added by a single query, if it fails, they are added one by one, so that only the records of
+   * the failing partitions are sent to error.
+   */
+  private void addPendingPartitions(String qualifiedTableName) throws StageException {
+    List<PendingPartition> partitions = pendingPartitions.remove(qualifiedTableName);
+    if (partitions == null) {
+      return;
+    }
+
+    TypeInfoCacheSupport.TypeInfo cachedTypeInfo = hmsCache.getOrLoad(
+        HMSCacheType.TYPE_INFO,
+        qualifiedTableName,
+        queryExecutor
+    );
+    if (cachedTypeInfo == null) {
+      throw new StageException(Errors.HIVE_25, qualifiedTableName);
+    }
+
+    // The cache might have been reloaded in the meantime with partitions added by someone else
+    PartitionInfoCacheSupport.PartitionInfo cachedPartitionInfo = HiveMetastoreUtil.getCacheInfo(
+        hmsCache,
+        HMSCacheType.PARTITION_VALUE_INFO,
+        qualifiedTableName,
+        queryExecutor
+    );
+    if (cachedPartitionInfo != null) {
+      List<PendingPartition> newPartitions = new ArrayList<>(partitions.size());
+      for (PendingPartition partition : partitions) {
+        try {
+          if (!cachedPartitionInfo.getDiff(Collections.singletonMap(partition.partitionValues, partition.location)).isEmpty()) {
+            newPartitions.add(partition);
+          }
+        } catch (HiveStageCheckedException e) {
+          LOG.error("Error processing record: {}", e);
+          defaultErrorRecordHandler.onError(
+              new OnRecordErrorException(partition.metadataRecord, e.getErrorCode(), e.getParams())
+          );
+        }
+      }
+      partitions = newPartitions;
+    }
+    if (partitions.isEmpty()) {
+      return;
+    }
+
+    try {
+      queryExecutor.executeAlterTableAddPartitionsQuery(
           qualifiedTableName,
-          partitionValMap,
-          cachedTypeInfo.getPartitionTypeInfo(),
-          location
+          partitions.stream()
+              .map(partition -> Pair.of(partition.partitionValMap, partition.location))
+              .collect(Collectors.toList()),
+          cachedTypeInfo.getPartitionTypeInfo()
       );
-      if (cachedPartitionInfo != null) {
-        cachedPartitionInfo.updateState(partitionInfoDiff);
-      } else {
-        hmsCache.put(
-            hmsCacheType,
-            qualifiedTableName,
-            new PartitionInfoCacheSupport.PartitionInfo(partitionInfoDiff, queryExecutor, qualifiedTableName)
+      for (PendingPartition partition : partitions) {
+        partitionAdded(qualifiedTableName, partition);
+      }
+    } catch (HiveStageCheckedException e) {
+      if (partitions.size() == 1) {
+        LOG.error("Error processing record: {}", e);
+        defaultErrorRecordHandler.onError(
+            new OnRecordErrorException(partitions.get(0).metadataRecord, e.getErrorCode(), e.getParams())
         );
+        return;
       }
 
-      EventRecord event = HiveMetastoreEvents.NEW_PARTITION.create(getContext())
-        .with("table", qualifiedTableName)
-        .withStringMap("partition", Collections.<String, Object>unmodifiableMap(partitionValMap))
-        .create();
-      if (!conf.isHeadersEmpty()) {
-        for ( Map.Entry<String, String> entry : headers.entrySet()) {
-          event.getHeader().setAttribute(entry.getKey(), entry.getValue());
+      LOG.warn("Can't add {} partitions to table {} at once, adding them one by one: {}",
+          partitions.size(),
+          qualifiedTableName,
+          e.toString()
+      );
+      for (PendingPartition partition : partitions) {
+        try {
+          queryExecutor.executeAlterTableAddPartitionQuery(
+              qualifiedTableName,
+              partition.partitionValMap,
+              cachedTypeInfo.getPartitionTypeInfo(),
+              partition.location
+          );
+          partitionAdded(qualifiedTableName, partition);
+        } catch (HiveStageCheckedException ex) {
+          LOG.error("Error processing record: {}", ex);
+          defaultErrorRecordHandler.onError(
+              new OnRecordErrorException(partition.metadataRecord, ex.getErrorCode(), ex.getParams())
+          );
         }
       }
-      getContext().toEvent(event);
     }
   }
+
+  private void partitionAdded(String qualifiedTableName, PendingPartition partition) throws StageException {
+    HMSCacheType hmsCacheType = HMSCacheType.PARTITION_VALUE_INFO;
+    Map<PartitionInfoCacheSupport.PartitionValues, String> partitionInfoDiff = new HashMap<>();
+    partitionInfoDiff.put(partition.partitionValues, partition.location);
+
+    PartitionInfoCacheSupport.PartitionInfo cachedPartitionInfo = hmsCache.getIfPresent(
+        hmsCacheType,
+        qualifiedTableName
+    );
+    if (cachedPartitionInfo != null) {
+      cachedPartitionInfo.updateState(partitionInfoDiff);
+    } else {
+      hmsCache.put(
+          hmsCacheType,
+          qualifiedTableName,
+          new PartitionInfoCacheSupport.PartitionInfo(partitionInfoDiff, queryExecutor, qualifiedTableName)
+      );
+    }
+
+    EventRecord event = HiveMetastoreEvents.NEW_PARTITION.create(getContext())
+      .with("table", qualifiedTableName)
+      .withStringMap("partition", Collections.<String, Object>unmodifiableMap(partition.partitionValMap))
+      .create();
+    if (!conf.isHeadersEmpty()) {
+      for ( Map.Entry<String, String> entry : partition.headers.entrySet()) {
+        event.getHeader().setAttribute(entry.getKey(), entry.getValue());
+      }
+    }
+    getContext().toEvent(event);
+  }
 }
@@ -652,23 +652,7 @@ public final class HiveMetastoreUtil {
       if (StringUtils.isEmpty(pair.getKey())) {
         throw new HiveStageCheckedException(Errors.HIVE_01, "Field name is empty");
       }
-      Field currField = pair.getValue();
-      switch(currField.getType()) {
-        case SHORT:
-          currField = Field.create(Field.Type.INTEGER, currField.getValue());
-          break;
-        case CHAR:
-          currField = Field.create(currField.getValueAsString());
-          break;
-        case DATETIME:
-          currField = Field.create(Field.Type.STRING, currField.getValue() == null ? null : datetimeFormat.get().format(currField.getValueAsDate()));
-          break;
-        case TIME:
-          currField = Field.create(Field.Type.STRING, currField.getValue() == null ? null : timeFormat.get().format(currField.getValueAsTime()));
-          break;
-        default:
-          break;
-      }
+      Field currField = normalizeField(pair.getValue());
 
       // Set current field in the context - used by subsequent ELs (decimal resolution, comments, ...)
       FieldPathEL.setFieldInContext(variables, pair.getKey());
@@ -700,6 +684,59 @@ public final class HiveMetastoreUtil {
     return columns;
   }
 
+  /**
+   * Converts field to the type that is actually stored in Hive (e.g. SHORT is stored as INTEGER).
+   */
+  private static Field normalizeField(Field field) {
+    switch(field.getType()) {
+      case SHORT:
+        return Field.create(Field.Type.INTEGER, field.getValue());
+      case CHAR:
+        return Field.create(field.getValueAsString());
+      case DATETIME:
+        return Field.create(Field.Type.STRING, field.getValue() == null ? null : datetimeFormat.get().format(field.getValueAsDate()));
+      case TIME:
+        return Field.create(Field.Type.STRING, field.getValue() == null ? null : timeFormat.get().format(field.getValueAsTime()));
+      default:
+        return field;
+    }
+  }
+
+  /**
+   * Applies the same field conversions as {@link #convertRecordToHMSType} without resolving the column types. Used
+   * for records whose shape was already validated against the table.
+   */
+  public static void normalizeRecordFields(Record record) {
+    for (Map.Entry<String, Field> pair : record.get().getValueAsMap().entrySet()) {
+      Field field = pair.getValue();
+      Field normalized = normalizeField(field);
+      if (normalized != field) {
+        pair.setValue(normalized);
+      }
+    }
+  }
+
+  /**
+   * Returns fingerprint of the record shape - qualified table name together with name and type of every column.
+   *
+   * Two records with the same fingerprint resolve to the same table columns, unless the column types depend on
+   * the record content (decimals), for such records and records that can't be stored in Hive null is returned.
+   */
+  public static String getSchemaFingerprint(String qualifiedTableName, Record record) {
+    if(!record.get().getType().isOneOf(Field.Type.MAP, Field.Type.LIST_MAP) || record.get().getValue() == null) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder(qualifiedTableName);
+    for (Map.Entry<String, Field> pair : record.get().getValueAsMap().entrySet()) {
+      Field.Type type = pair.getValue().getType();
+      if (type == Field.Type.DECIMAL) {
+        return null;
+      }
+      sb.append('\u0000').append(pair.getKey()).append(':').append(type.ordinal());
+    }
+    return sb.toString();
+  }
+
   /**
    * Checks if partition value contains unsupported character.
    * @param value String to check
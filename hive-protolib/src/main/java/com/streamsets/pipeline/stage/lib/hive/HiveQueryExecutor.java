@@ -33,8 +33,10 @@ import org.slf4j.LoggerFactory;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -52,7 +54,8 @@ public final class HiveQueryExecutor {
   private static final String SHOW_TABLES = "SHOW TABLES in %s like '%s'";
   private static final String PARTITIONED_BY = "PARTITIONED BY";
   private static final String ADD_COLUMNS = "ADD COLUMNS";
-  private static final String ADD_PARTITION = "ADD PARTITION";
+  private static final String ADD = "ADD";
+  private static final String PARTITION = "PARTITION";
   private static final String SHOW_PARTITIONS = "SHOW PARTITIONS %s";
   private static final String SHOW_TBLPROPERTIES = "SHOW TBLPROPERTIES %s";
   private static final String PARTITION_FIELD_EQUALS_NON_QUOTES_VAL = "`%s`=%s";
@@ -246,24 +249,28 @@ public final class HiveQueryExecutor {
 
   private static String buildPartitionAdditionQuery(
       String qualifiedTableName,
-      LinkedHashMap<String, String> partitionColumnValMap,
-      Map<String, HiveTypeInfo> partitionTypeMap,
-      String partitionPath
+      List<Pair<LinkedHashMap<String, String>, String>> partitions,
+      Map<String, HiveTypeInfo> partitionTypeMap
   ) {
     StringBuilder sb = new StringBuilder();
     sb.append(String.format(ALTER_TABLE, qualifiedTableName));
     sb.append(HiveMetastoreUtil.SPACE);
-    sb.append(ADD_PARTITION);
-    sb.append(HiveMetastoreUtil.SPACE);
-    sb.append(HiveMetastoreUtil.OPEN_BRACKET);
-    buildPartitionNameValuePair(sb, partitionColumnValMap, partitionTypeMap);
-    sb.append(HiveMetastoreUtil.CLOSE_BRACKET);
-    sb.append(HiveMetastoreUtil.SPACE);
-    sb.append(LOCATION);
-    sb.append(HiveMetastoreUtil.SPACE);
-    sb.append(HiveMetastoreUtil.SINGLE_QUOTE);
-    sb.append(partitionPath);
-    sb.append(HiveMetastoreUtil.SINGLE_QUOTE);
+    sb.append(ADD);
+    // Hive accepts multiple partition specifications in one statement, one after another
+    for (Pair<LinkedHashMap<String, String>, String> partition : partitions) {
+      sb.append(HiveMetastoreUtil.SPACE);
+      sb.append(PARTITION);
+      sb.append(HiveMetastoreUtil.SPACE);
+      sb.append(HiveMetastoreUtil.OPEN_BRACKET);
+      buildPartitionNameValuePair(sb, partition.getLeft(), partitionTypeMap);
+      sb.append(HiveMetastoreUtil.CLOSE_BRACKET);
+      sb.append(HiveMetastoreUtil.SPACE);
+      sb.append(LOCATION);
+      sb.append(HiveMetastoreUtil.SPACE);
+      sb.append(HiveMetastoreUtil.SINGLE_QUOTE);
+      sb.append(partition.getRight());
+      sb.append(HiveMetastoreUtil.SINGLE_QUOTE);
+    }
     return sb.toString();
   }
 
@@ -382,7 +389,26 @@ public final class HiveQueryExecutor {
       Map<String, HiveTypeInfo> partitionTypeMap,
       String partitionPath
   ) throws StageException {
-    String sql = buildPartitionAdditionQuery(qualifiedTableName, partitionNameValueMap, partitionTypeMap, partitionPath);
+    executeAlterTableAddPartitionsQuery(
+        qualifiedTableName,
+        Collections.singletonList(Pair.of(partitionNameValueMap, partitionPath)),
+        partitionTypeMap
+    );
+  }
+
+  /**
+   * Adds all given partitions with a single Alter Table query.
+   * @param qualifiedTableName qualified table name.
+   * @param partitions pairs of partition values and partition location.
+   * @param partitionTypeMap types of the partition columns.
+   * @throws StageException in case of any {@link SQLException}
+   */
+  public void executeAlterTableAddPartitionsQuery(
+      String qualifiedTableName,
+      List<Pair<LinkedHashMap<String, String>, String>> partitions,
+      Map<String, HiveTypeInfo> partitionTypeMap
+  ) throws StageException {
+    String sql = buildPartitionAdditionQuery(qualifiedTableName, partitions, partitionTypeMap);
     execute(sql);
   }
 
@@ -15,7 +15,9 @@
  */
 package com.streamsets.pipeline.stage.processor.hive;
 
+import com.codahale.metrics.Meter;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -77,6 +79,7 @@ public class HiveMetadataProcessor extends RecordProcessor {
   private static final String TEMP_AVRO_DIR_NAME = "/.avro";
   private static final String ATTRIBUTE_EXPRESSION = "metadataHeaderAttributeConfigs";
   private static final String KEY_HMS_CACHE = "hms-cache";
+  private static final String KEY_FINGERPRINT_CACHE = "schema-fingerprint-cache";
 
   protected static final String HDFS_HEADER_ROLL = "roll";
   protected static final String HDFS_HEADER_AVROSCHEMA = "avroSchema";
@@ -118,6 +121,15 @@ public class HiveMetadataProcessor extends RecordProcessor {
   // The HMS cache is holding all info about tables
   private HMSCache cache;
 
+  // Record shapes (see HiveMetastoreUtil.getSchemaFingerprint) that are known to match table structure without any
+  // drift. The value is the table structure the shape was validated against, if the table structure gets reloaded
+  // from the metastore, the shape has to be validated again.
+  private Cache<String, TypeInfoCacheSupport.TypeInfo> fingerprintCache;
+  // Fingerprints can be used only if the column comments don't depend on the record
+  private boolean fingerprintEnabled;
+  private Meter fingerprintHitMeter;
+  private Meter fingerprintMissMeter;
+
   private ErrorRecordHandler errorRecordHandler;
   private HiveMetadataProcessorELEvals elEvals = new HiveMetadataProcessorELEvals();
   private HiveQueryExecutor queryExecutor;
@@ -182,6 +194,7 @@ public class HiveMetadataProcessor extends RecordProcessor {
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   protected List<ConfigIssue> init() {
     List<ConfigIssue> issues =  super.init();
     hiveConfigBean.init(getContext(), "hiveConfigBean", issues);
@@ -270,7 +283,21 @@ public class HiveMetadataProcessor extends RecordProcessor {
 
             runnerSharedMap.put(KEY_HMS_CACHE, cache);
           }
+
+          fingerprintCache = (Cache<String, TypeInfoCacheSupport.TypeInfo>) runnerSharedMap.computeIfAbsent(
+              KEY_FINGERPRINT_CACHE,
+              key -> {
+                CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+                if (hiveConfigBean.maxCacheSize > 0) {
+                  builder.maximumSize(hiveConfigBean.maxCacheSize);
+                }
+                return builder.build();
+              }
+          );
         }
+        fingerprintEnabled = !StringUtils.contains(commentExpression, "${");
+        fingerprintHitMeter = getContext().createMeter("Schema Fingerprint Cache Hits");
+        fingerprintMissMeter = getContext().createMeter("Schema Fingerprint Cache Misses");
 
         databaseCache = CacheBuilder
           .newBuilder()
@@ -415,20 +442,16 @@ public class HiveMetadataProcessor extends RecordProcessor {
         throw new HiveStageCheckedException(Errors.HIVE_METADATA_02, targetPath);
       }
 
-        // Obtain the record structure from current record
-      LinkedHashMap<String, HiveTypeInfo> recordStructure = HiveMetastoreUtil.convertRecordToHMSType(
-          record,
-          elEvals.scaleEL,
-          elEvals.precisionEL,
-          elEvals.commentEL,
-          decimalDefaultsConfig.scaleExpression,
-          decimalDefaultsConfig.precisionExpression,
-          commentExpression,
-          variables
-      );
+      // Records of already validated shape don't need to resolve their structure nor compare it with the table
+      String fingerprint = fingerprintEnabled ? HiveMetastoreUtil.getSchemaFingerprint(qualifiedName, record) : null;
+      TypeInfoCacheSupport.TypeInfo knownShape = fingerprint == null ? null : fingerprintCache.getIfPresent(fingerprint);
 
-      if (recordStructure.isEmpty()) {  // If record has no data to process, No-op
-        return;
+      LinkedHashMap<String, HiveTypeInfo> recordStructure = null;
+      if (knownShape == null) {
+        recordStructure = resolveRecordStructure(record, variables);
+        if (recordStructure.isEmpty()) {  // If record has no data to process, No-op
+          return;
+        }
       }
 
       TBLPropertiesInfoCacheSupport.TBLPropertiesInfo tblPropertiesInfo = HiveMetastoreUtil.getCacheInfo(
@@ -458,6 +481,23 @@ public class HiveMetadataProcessor extends RecordProcessor {
           queryExecutor
       );
 
+      if (knownShape != null && knownShape != tableCache) {
+        // Table structure was reloaded since the shape was validated
+        fingerprintCache.invalidate(fingerprint);
+        knownShape = null;
+        recordStructure = resolveRecordStructure(record, variables);
+        if (recordStructure.isEmpty()) {
+          return;
+        }
+      }
+
+      if (knownShape != null) {
+        fingerprintHitMeter.mark();
+        HiveMetastoreUtil.normalizeRecordFields(record);
+      } else if (fingerprint != null) {
+        fingerprintMissMeter.mark();
+      }
+
       if (tableCache != null) {
         //Checks number and name of partitions.
         HiveMetastoreUtil.validatePartitionInformation(tableCache, partitionValMap, qualifiedName);
@@ -478,12 +518,14 @@ public class HiveMetadataProcessor extends RecordProcessor {
           }
         }
         // Validate that the columns from record itself does not clash with partition columns
-        for(String columnName : recordStructure.keySet()) {
-          if(cachedPartitionTypeInfoMap.containsKey(columnName)) {
-             throw new HiveStageCheckedException(
-                com.streamsets.pipeline.stage.lib.hive.Errors.HIVE_40,
-                columnName
-            );
+        if (recordStructure != null) {
+          for (String columnName : recordStructure.keySet()) {
+            if (cachedPartitionTypeInfoMap.containsKey(columnName)) {
+              throw new HiveStageCheckedException(
+                  com.streamsets.pipeline.stage.lib.hive.Errors.HIVE_40,
+                  columnName
+              );
+            }
           }
         }
       }
@@ -506,11 +548,15 @@ public class HiveMetadataProcessor extends RecordProcessor {
         finalStructure.putAll(tableCache.getColumnTypeInfo());
 
         // If there is any diff (any new columns), we will append them at the end of the table
-        LinkedHashMap<String, HiveTypeInfo> columnDiff = tableCache.getDiff(recordStructure);
-        if(!columnDiff.isEmpty()) {
-          LOG.trace("Detected drift for table {} - new columns: {}", qualifiedName, StringUtils.join(columnDiff.keySet(), ","));
-          schemaDrift = true;
-          finalStructure.putAll(columnDiff);
+        if (knownShape == null) {
+          LinkedHashMap<String, HiveTypeInfo> columnDiff = tableCache.getDiff(recordStructure);
+          if (!columnDiff.isEmpty()) {
+            LOG.trace("Detected drift for table {} - new columns: {}", qualifiedName, StringUtils.join(columnDiff.keySet(), ","));
+            schemaDrift = true;
+            finalStructure.putAll(columnDiff);
+          } else if (fingerprint != null) {
+            fingerprintCache.put(fingerprint, tableCache);
+          }
         }
       } else {
         LOG.trace("{} is a new table", qualifiedName);
@@ -596,6 +642,22 @@ public class HiveMetadataProcessor extends RecordProcessor {
     }
   }
 
+  private LinkedHashMap<String, HiveTypeInfo> resolveRecordStructure(
+      Record record,
+      ELVars variables
+  ) throws StageException {
+    return HiveMetastoreUtil.convertRecordToHMSType(
+        record,
+        elEvals.scaleEL,
+        elEvals.precisionEL,
+        elEvals.commentEL,
+        decimalDefaultsConfig.scaleExpression,
+        decimalDefaultsConfig.precisionExpression,
+        commentExpression,
+        variables
+    );
+  }
+
   private void validateNames(String dbName, String tableName) throws HiveStageCheckedException {
     if (!HiveMetastoreUtil.validateObjectName(dbName)){
       throw new HiveStageCheckedException(Errors.HIVE_METADATA_03, HIVE_DB_NAME, dbName);
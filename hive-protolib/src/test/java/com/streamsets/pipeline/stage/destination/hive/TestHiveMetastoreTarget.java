@@ -15,6 +15,7 @@
  */
 package com.streamsets.pipeline.stage.destination.hive;
 
+import com.google.common.collect.ImmutableList;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.OnRecordError;
 import com.streamsets.pipeline.api.Record;
@@ -37,13 +38,17 @@ import com.streamsets.pipeline.stage.lib.hive.cache.HMSCacheType;
 import com.streamsets.pipeline.stage.lib.hive.cache.PartitionInfoCacheSupport;
 import com.streamsets.pipeline.stage.lib.hive.cache.TBLPropertiesInfoCacheSupport;
 import com.streamsets.pipeline.stage.lib.hive.cache.TypeInfoCacheSupport;
+import com.streamsets.pipeline.stage.lib.hive.exceptions.HiveStageCheckedException;
 import com.streamsets.pipeline.stage.lib.hive.typesupport.HiveType;
 import com.streamsets.pipeline.stage.lib.hive.typesupport.HiveTypeInfo;
 import com.streamsets.pipeline.stage.processor.hive.HMPDataFormat;
+import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
 import org.mockito.internal.util.reflection.Whitebox;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.api.support.membermodification.MemberMatcher;
@@ -106,6 +111,7 @@ public class TestHiveMetastoreTarget {
     PowerMockito.suppress(MemberMatcher.method(HiveQueryExecutor.class, "executeCreateTableQuery"));
     PowerMockito.suppress(MemberMatcher.method(HiveQueryExecutor.class, "executeAlterTableAddColumnsQuery"));
     PowerMockito.suppress(MemberMatcher.method(HiveQueryExecutor.class, "executeAlterTableAddPartitionQuery"));
+    PowerMockito.suppress(MemberMatcher.method(HiveQueryExecutor.class, "executeAlterTableAddPartitionsQuery"));
   }
 
   private LinkedHashMap<String, HiveTypeInfo> generatePartitionTypeInfo() {
@@ -162,6 +168,18 @@ public class TestHiveMetastoreTarget {
     return r;
   }
 
+  private Record createPartitionAdditionRecord(String partitionValue) throws StageException {
+    Record r = RecordCreator.create();
+    r.set(HiveMetastoreUtil.newPartitionMetadataFieldBuilder(
+        "default",
+        "sample",
+        generatePartitionValueInfo(partitionValue),
+        "/user/hive/warehouse/sample/dt=" + partitionValue,
+        HMPDataFormat.AVRO
+    ));
+    return r;
+  }
+
   private List<Record> generateRecordWithMissingField(
       String missingField,
       HiveMetastoreUtil.MetadataRecordType metadataRecordType
@@ -515,4 +533,114 @@ public class TestHiveMetastoreTarget {
     );
     targetRunner.runDestroy();
   }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testPartitionsAddedInBulk() throws Exception {
+    TestHMSCache.setMockForHMSCacheLoader(
+        generateColumnTypeInfo(),
+        generatePartitionTypeInfo(),
+        TestHMSCache.EMPTY_PARTITION_INFO,
+        false,
+        true
+    );
+    HiveQueryExecutor queryExecutor = PowerMockito.mock(HiveQueryExecutor.class);
+    PowerMockito.whenNew(HiveQueryExecutor.class).withAnyArguments().thenReturn(queryExecutor);
+
+    HiveMetastoreTarget target = new HiveMetastoreTargetBuilder().build();
+    TargetRunner targetRunner = new TargetRunner.Builder(HiveMetastoreDTarget.class, target).build();
+    targetRunner.runInit();
+
+    int partitionCount = 2 * HiveMetastoreTarget.MAX_PARTITIONS_PER_QUERY + 50;
+    List<Record> records = new ArrayList<>();
+    for (int i = 0; i < partitionCount; i++) {
+      records.add(createPartitionAdditionRecord(String.valueOf(i)));
+    }
+    // The same partition again is not added twice
+    records.add(createPartitionAdditionRecord("0"));
+    targetRunner.runWrite(records);
+
+    ArgumentCaptor<List> partitions = ArgumentCaptor.forClass(List.class);
+    Mockito.verify(queryExecutor, Mockito.times(3)).executeAlterTableAddPartitionsQuery(
+        Mockito.eq("`default`.`sample`"),
+        partitions.capture(),
+        Mockito.eq(generatePartitionTypeInfo())
+    );
+    Assert.assertEquals(HiveMetastoreTarget.MAX_PARTITIONS_PER_QUERY, partitions.getAllValues().get(0).size());
+    Assert.assertEquals(HiveMetastoreTarget.MAX_PARTITIONS_PER_QUERY, partitions.getAllValues().get(1).size());
+    Assert.assertEquals(50, partitions.getAllValues().get(2).size());
+    Pair<LinkedHashMap<String, String>, String> first =
+        (Pair<LinkedHashMap<String, String>, String>) partitions.getAllValues().get(0).get(0);
+    Assert.assertEquals(generatePartitionValueInfo("0"), first.getLeft());
+    Assert.assertEquals("/user/hive/warehouse/sample/dt=0", first.getRight());
+
+    Mockito.verify(queryExecutor, Mockito.never()).executeAlterTableAddPartitionQuery(
+        Mockito.anyString(),
+        Mockito.any(LinkedHashMap.class),
+        Mockito.anyMap(),
+        Mockito.anyString()
+    );
+    Assert.assertEquals(partitionCount, targetRunner.getEventRecords().size());
+    Assert.assertTrue(targetRunner.getErrorRecords().isEmpty());
+    targetRunner.runDestroy();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testPartitionsAddedOneByOneAfterBulkFailure() throws Exception {
+    TestHMSCache.setMockForHMSCacheLoader(
+        generateColumnTypeInfo(),
+        generatePartitionTypeInfo(),
+        TestHMSCache.EMPTY_PARTITION_INFO,
+        false,
+        true
+    );
+    HiveQueryExecutor queryExecutor = PowerMockito.mock(HiveQueryExecutor.class);
+    PowerMockito.whenNew(HiveQueryExecutor.class).withAnyArguments().thenReturn(queryExecutor);
+    Mockito.doThrow(new HiveStageCheckedException(Errors.HIVE_20, "", "bulk failure"))
+        .when(queryExecutor)
+        .executeAlterTableAddPartitionsQuery(Mockito.anyString(), Mockito.anyList(), Mockito.anyMap());
+    Mockito.doThrow(new HiveStageCheckedException(Errors.HIVE_20, "", "invalid partition"))
+        .when(queryExecutor)
+        .executeAlterTableAddPartitionQuery(
+            Mockito.anyString(),
+            Mockito.eq(generatePartitionValueInfo("invalid")),
+            Mockito.anyMap(),
+            Mockito.anyString()
+        );
+
+    HiveMetastoreTarget target = new HiveMetastoreTargetBuilder().build();
+    TargetRunner targetRunner = new TargetRunner.Builder(HiveMetastoreDTarget.class, target)
+        .setOnRecordError(OnRecordError.TO_ERROR)
+        .build();
+    targetRunner.runInit();
+
+    Record invalid = createPartitionAdditionRecord("invalid");
+    targetRunner.runWrite(ImmutableList.of(
+        createPartitionAdditionRecord("a"),
+        invalid,
+        createPartitionAdditionRecord("b")
+    ));
+
+    Mockito.verify(queryExecutor, Mockito.times(1))
+        .executeAlterTableAddPartitionsQuery(Mockito.anyString(), Mockito.anyList(), Mockito.anyMap());
+    Mockito.verify(queryExecutor, Mockito.times(3)).executeAlterTableAddPartitionQuery(
+        Mockito.eq("`default`.`sample`"),
+        Mockito.any(LinkedHashMap.class),
+        Mockito.anyMap(),
+        Mockito.anyString()
+    );
+    // Only the record of the failing partition goes to error
+    List<Record> errorRecords = targetRunner.getErrorRecords();
+    Assert.assertEquals(1, errorRecords.size());
+    Assert.assertEquals(Errors.HIVE_20.name(), errorRecords.get(0).getHeader().getErrorCode());
+    Assert.assertEquals(invalid.get(), errorRecords.get(0).get());
+    Assert.assertEquals(2, targetRunner.getEventRecords().size());
+
+    HMSCache hmsCache = (HMSCache) Whitebox.getInternalState(target, "hmsCache");
+    PartitionInfoCacheSupport.PartitionInfo partitionInfo =
+        hmsCache.getIfPresent(HMSCacheType.PARTITION_VALUE_INFO, "`default`.`sample`");
+    Assert.assertEquals(2, partitionInfo.getPartitions().size());
+    targetRunner.runDestroy();
+  }
 }
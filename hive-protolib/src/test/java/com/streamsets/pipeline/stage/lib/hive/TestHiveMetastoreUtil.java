@@ -187,6 +187,56 @@ public class TestHiveMetastoreUtil {
     Assert.assertEquals(f4.getValueAsDecimal().toString(), decimalVal.toString());
   }
 
+  @Test
+  public void testSchemaFingerprint() {
+    Record record = RecordCreator.create();
+    Map<String, Field> map = new LinkedHashMap<>();
+    map.put("id", Field.create(1));
+    map.put("name", Field.create("a"));
+    record.set(Field.create(map));
+    String fingerprint = HiveMetastoreUtil.getSchemaFingerprint("`default`.`tbl`", record);
+    Assert.assertNotNull(fingerprint);
+
+    // Same shape with different values
+    Record other = RecordCreator.create();
+    map = new LinkedHashMap<>();
+    map.put("id", Field.create(2));
+    map.put("name", Field.create("b"));
+    other.set(Field.create(map));
+    Assert.assertEquals(fingerprint, HiveMetastoreUtil.getSchemaFingerprint("`default`.`tbl`", other));
+    Assert.assertNotEquals(fingerprint, HiveMetastoreUtil.getSchemaFingerprint("`default`.`other`", other));
+
+    // Different type of a column
+    map.put("id", Field.create(2L));
+    other.set(Field.create(map));
+    Assert.assertNotEquals(fingerprint, HiveMetastoreUtil.getSchemaFingerprint("`default`.`tbl`", other));
+
+    // Decimal columns depend on record content
+    map.put("id", Field.create(new BigDecimal("1.5")));
+    other.set(Field.create(map));
+    Assert.assertNull(HiveMetastoreUtil.getSchemaFingerprint("`default`.`tbl`", other));
+
+    other.set(Field.create(Field.Type.LIST, Collections.emptyList()));
+    Assert.assertNull(HiveMetastoreUtil.getSchemaFingerprint("`default`.`tbl`", other));
+  }
+
+  @Test
+  public void testNormalizeRecordFields() {
+    Record record = RecordCreator.create();
+    Map<String, Field> map = new LinkedHashMap<>();
+    map.put("short", Field.create((short) 1));
+    map.put("char", Field.create('c'));
+    map.put("string", Field.create("s"));
+    record.set(Field.create(map));
+
+    HiveMetastoreUtil.normalizeRecordFields(record);
+    Assert.assertEquals(Field.Type.INTEGER, record.get("/short").getType());
+    Assert.assertEquals(1, record.get("/short").getValueAsInteger());
+    Assert.assertEquals(Field.Type.STRING, record.get("/char").getType());
+    Assert.assertEquals("c", record.get("/char").getValueAsString());
+    Assert.assertEquals(Field.Type.STRING, record.get("/string").getType());
+  }
+
   @Test
   public void testUnsupportedColumnValue() {
     Assert.assertTrue(HiveMetastoreUtil.hasUnsupportedChar("/"));
@@ -213,8 +213,11 @@ public final class MultithreadedTableProvider {
 
         lastPartition.getStartingPartitionOffsets().forEach(
             (col, off) -> {
-              String basedOnStartOffset = lastPartition.generateNextPartitionOffset(col, off);
-              nextStartingOffsets.put(col, basedOnStartOffset);
+              String lastMaxOffset = lastPartition.getMaxPartitionOffsets().get(col);
+              nextStartingOffsets.put(
+                  col,
+                  lastMaxOffset != null ? lastMaxOffset : lastPartition.generateNextPartitionOffset(col, off)
+              );
             }
         );
 
@@ -699,7 +702,11 @@ public final class MultithreadedTableProvider {
 
     final boolean noMoreData = recordCount == 0 || resultSetEndReached;
 
+    tableRuntimeContext.addRecordsRead(recordCount);
     if (noMoreData) {
+      if (!tableRuntimeContext.isMarkedNoMoreData()) {
+        recordPartitionDensity(tableRuntimeContext);
+      }
       tableRuntimeContext.setMarkedNoMoreData(true);
     }
 
@@ -728,6 +735,30 @@ public final class MultithreadedTableProvider {
     }
   }
 
+  /**
+   * Feeds the number of rows read from a partition that just completed into the adaptive partition size of its
+   * table. Partitions resumed from stored offsets are skipped since part of their rows was read by a previous run.
+   */
+  @VisibleForTesting
+  void recordPartitionDensity(TableRuntimeContext partition) {
+    final TableContext tableContext = partition.getSourceTableContext();
+    if (!partition.isPartitioned()
+        || !tableContext.isAdaptivePartitionSize()
+        || !partition.getInitialStoredOffsets().isEmpty()) {
+      return;
+    }
+    for (String column : tableContext.getOffsetColumns()) {
+      final String start = partition.getStartingPartitionOffsets().get(column);
+      final String max = partition.getMaxPartitionOffsets().get(column);
+      if (start != null && max != null) {
+        tableContext.recordPartitionDensity(
+            partition.getRecordsRead(),
+            TableContextUtil.getOffsetRange(tableContext, column, start, max)
+        );
+      }
+    }
+  }
+
   /**
    * Used by the main thread {@link TableJdbcSource} to check whether all
    * tables have marked no more data
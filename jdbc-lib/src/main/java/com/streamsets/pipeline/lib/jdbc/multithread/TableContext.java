@@ -33,6 +33,12 @@ public class TableContext {
 
   private static final Logger LOG = LoggerFactory.getLogger(TableContext.class);
 
+  /**
+   * Bounds how far the adaptive partition size can move away from the configured partition size (in either
+   * direction), so that a few unusually dense or empty partitions can't produce degenerate partitions.
+   */
+  private static final double MAX_PARTITION_SIZE_FACTOR = 1000;
+
   private final String schema;
   private final String tableName;
   private final LinkedHashMap<String, Integer> offsetColumnToType = new LinkedHashMap<>();
@@ -43,6 +49,9 @@ public class TableContext {
   private final int maxNumActivePartitions;
   private final String extraOffsetColumnConditions;
   private final boolean partitionable;
+  private final long targetRowsPerPartition;
+  // rows per unit of the offset column seen in completed partitions, negative until the first one completes
+  private double observedDensity = -1;
   private Map<String, String> offsetColumnToStartOffset = new HashMap<>();
   // optionally store all column labels and types
   private Map<String, Integer> columnToType = new LinkedHashMap<>();
@@ -58,6 +67,34 @@ public class TableContext {
       PartitioningMode partitioningMode,
       int maxNumActivePartitions,
       String extraOffsetColumnConditions
+  ) {
+    this(
+        schema,
+        tableName,
+        offsetColumnToType,
+        offsetColumnToStartOffset,
+        offsetColumnToPartitionOffsetAdjustments,
+        offsetColumnToMinValues,
+        enableNonIncremental,
+        partitioningMode,
+        maxNumActivePartitions,
+        extraOffsetColumnConditions,
+        0
+    );
+  }
+
+  public TableContext(
+      String schema,
+      String tableName,
+      LinkedHashMap<String, Integer> offsetColumnToType,
+      Map<String, String> offsetColumnToStartOffset,
+      Map<String, String> offsetColumnToPartitionOffsetAdjustments,
+      Map<String, String> offsetColumnToMinValues,
+      boolean enableNonIncremental,
+      PartitioningMode partitioningMode,
+      int maxNumActivePartitions,
+      String extraOffsetColumnConditions,
+      long targetRowsPerPartition
   ) {
     this.schema = schema;
     this.tableName = tableName;
@@ -74,6 +111,7 @@ public class TableContext {
     this.enableNonIncremental = enableNonIncremental;
     this.partitioningMode = partitioningMode;
     this.maxNumActivePartitions = maxNumActivePartitions;
+    this.targetRowsPerPartition = targetRowsPerPartition;
     if (offsetColumnToPartitionOffsetAdjustments != null) {
       this.offsetColumnToPartitionOffsetAdjustments.putAll(offsetColumnToPartitionOffsetAdjustments);
     }
@@ -116,6 +154,53 @@ public class TableContext {
     return offsetColumnToPartitionOffsetAdjustments;
   }
 
+  public long getTargetRowsPerPartition() {
+    return targetRowsPerPartition;
+  }
+
+  public boolean isAdaptivePartitionSize() {
+    return targetRowsPerPartition > 0;
+  }
+
+  /**
+   * Returns the size (range of offset column values) of the next partition for the given column.
+   *
+   * Unless adaptive partition sizing is enabled and some partition has already completed, this is the configured
+   * partition size. Otherwise the size is chosen so that the partition contains about {@link #targetRowsPerPartition}
+   * rows given the density of values seen so far.
+   */
+  public synchronized String getPartitionSize(String column) {
+    final String configuredSize = offsetColumnToPartitionOffsetAdjustments.get(column);
+    if (!isAdaptivePartitionSize() || observedDensity < 0 || configuredSize == null) {
+      return configuredSize;
+    }
+    final double configured = Double.parseDouble(configuredSize);
+    double size = observedDensity > 0 ? targetRowsPerPartition / observedDensity : Double.MAX_VALUE;
+    size = Math.max(configured / MAX_PARTITION_SIZE_FACTOR, Math.min(configured * MAX_PARTITION_SIZE_FACTOR, size));
+    return TableContextUtil.formatPartitionSize(getOffsetColumnType(column), size);
+  }
+
+  /**
+   * Records the number of rows read from a completed partition that covered the given range of offset values.
+   * Recent partitions have more weight since data in neighbouring ranges tend to have similar density.
+   */
+  public synchronized void recordPartitionDensity(long rows, double range) {
+    if (range <= 0) {
+      return;
+    }
+    final double density = rows / range;
+    observedDensity = observedDensity < 0 ? density : (observedDensity + density) / 2;
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(
+          "Table {} partition with {} rows over a range of {}, density is now {} rows per unit",
+          getQualifiedName(),
+          rows,
+          range,
+          observedDensity
+      );
+    }
+  }
+
   public Map<String, String> getOffsetColumnToMinValues() {
     return Collections.unmodifiableMap(offsetColumnToMinValues);
   }
@@ -252,7 +252,8 @@ public final class TableContextUtil {
         tableConfigBean.enableNonIncremental,
         tableConfigBean.partitioningMode,
         tableConfigBean.maxNumActivePartitions,
-        tableConfigBean.extraOffsetColumnConditions
+        tableConfigBean.extraOffsetColumnConditions,
+        tableConfigBean.targetRowsPerPartition
     );
   }
 
@@ -505,14 +506,14 @@ public final class TableContextUtil {
       String column,
       String offset
   ) {
-    final String partitionSize = tableContext.getOffsetColumnToPartitionOffsetAdjustments().get(column);
+    final String partitionSize = tableContext.getPartitionSize(column);
     switch (tableContext.getOffsetColumnToType().get(column)) {
       case Types.TINYINT:
       case Types.SMALLINT:
       case Types.INTEGER:
         final int int1 = Integer.parseInt(offset);
         final int int2 = Integer.parseInt(partitionSize);
-        return String.valueOf(int1 + int2);
+        return String.valueOf(saturatedAdd(int1, int2));
       case Types.TIMESTAMP:
         final Timestamp timestamp1 = getTimestampForOffsetValue(offset);
         final long timestampAdj = Long.parseLong(partitionSize);
@@ -524,7 +525,7 @@ public final class TableContextUtil {
       case Types.DATE:
         final long long1 = Long.parseLong(offset);
         final long long2 = Long.parseLong(partitionSize);
-        return String.valueOf(long1 + long2);
+        return String.valueOf(saturatedAdd(long1, long2));
       case Types.FLOAT:
       case Types.REAL:
         final float float1 = Float.parseFloat(offset);
@@ -543,6 +544,78 @@ public final class TableContextUtil {
     return null;
   }
 
+  /**
+   * Adds the partition size to the offset, capping at the bounds of the column type instead of overflowing (adaptive
+   * partition sizes can grow large enough for a sparse table to run past the maximum key).
+   */
+  private static int saturatedAdd(int offset, int partitionSize) {
+    try {
+      return Math.addExact(offset, partitionSize);
+    } catch (ArithmeticException e) {
+      return partitionSize > 0 ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+    }
+  }
+
+  private static long saturatedAdd(long offset, long partitionSize) {
+    try {
+      return Math.addExact(offset, partitionSize);
+    } catch (ArithmeticException e) {
+      return partitionSize > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+    }
+  }
+
+  /**
+   * Returns the range of values between two offsets of the given column, i.e. the partition size that would generate
+   * the second offset from the first one.
+   */
+  public static double getOffsetRange(TableContext tableContext, String column, String from, String to) {
+    switch (tableContext.getOffsetColumnToType().get(column)) {
+      case Types.TINYINT:
+      case Types.SMALLINT:
+      case Types.INTEGER:
+      case Types.BIGINT:
+      case Types.TIME:
+      case Types.DATE:
+        return Long.parseLong(to) - Long.parseLong(from);
+      case Types.TIMESTAMP:
+        return getTimestampForOffsetValue(to).getTime() - getTimestampForOffsetValue(from).getTime();
+      case Types.FLOAT:
+      case Types.REAL:
+      case Types.DOUBLE:
+        return Double.parseDouble(to) - Double.parseDouble(from);
+      case Types.NUMERIC:
+      case Types.DECIMAL:
+        return new BigDecimal(to).subtract(new BigDecimal(from)).doubleValue();
+    }
+    return -1;
+  }
+
+  /**
+   * Formats partition size so that it can be used by {@link #generateNextPartitionOffset(TableContext, String, String)}
+   * for a column of the given type. Integral types always advance by at least one.
+   */
+  public static String formatPartitionSize(int sqlType, double size) {
+    switch (sqlType) {
+      case Types.TINYINT:
+      case Types.SMALLINT:
+      case Types.INTEGER:
+        return String.valueOf(Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(size))));
+      case Types.TIMESTAMP:
+      case Types.BIGINT:
+      case Types.TIME:
+      case Types.DATE:
+        return String.valueOf(Math.max(1, Math.round(size)));
+      case Types.FLOAT:
+      case Types.REAL:
+        return String.valueOf((float) size);
+      case Types.NUMERIC:
+      case Types.DECIMAL:
+        return BigDecimal.valueOf(size).toPlainString();
+      default:
+        return String.valueOf(size);
+    }
+  }
+
   public static String getOffsetValueForTimestamp(Timestamp timestamp) {
     return getOffsetValueForTimestampParts(timestamp.getTime(), timestamp.getNanos());
   }
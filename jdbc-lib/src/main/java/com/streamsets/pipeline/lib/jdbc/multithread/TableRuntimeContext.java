@@ -62,6 +62,8 @@ public class TableRuntimeContext {
 
   private boolean resultSetProduced = false;
 
+  private long recordsRead = 0;
+
   private Map<String, String> firstRecordedOffsets;
   private boolean firstRecordedOffsetsPassed = false;
 
@@ -477,8 +479,12 @@ public class TableRuntimeContext {
 
     lastPartition.startingPartitionOffsets.forEach(
         (col, off) -> {
-          String basedOnStartOffset = lastPartition.generateNextPartitionOffset(col, off);
-          nextStartingOffsets.put(col, basedOnStartOffset);
+          // partitions are contiguous, but don't necessarily have the same size (see adaptive partition size)
+          String lastMaxOffset = lastPartition.maxPartitionOffsets.get(col);
+          nextStartingOffsets.put(
+              col,
+              lastMaxOffset != null ? lastMaxOffset : lastPartition.generateNextPartitionOffset(col, off)
+          );
         }
     );
 
@@ -591,6 +597,14 @@ public class TableRuntimeContext {
     this.resultSetProduced = resultSetProduced;
   }
 
+  public long getRecordsRead() {
+    return recordsRead;
+  }
+
+  public void addRecordsRead(int recordCount) {
+    recordsRead += recordCount;
+  }
+
   public boolean isFirstRecordedOffsetsPassed() {
     return firstRecordedOffsetsPassed;
   }
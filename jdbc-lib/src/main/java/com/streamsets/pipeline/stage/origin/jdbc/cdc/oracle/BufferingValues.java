@@ -20,7 +20,8 @@ import com.streamsets.pipeline.api.Label;
 public enum  BufferingValues implements Label {
 
   IN_MEMORY("In Memory"),
-  ON_DISK("On Disk");
+  ON_DISK("On Disk"),
+  SPILLABLE("In Memory, Spill to Disk");
 
   private final String label;
 
@@ -108,6 +108,21 @@ public class OracleCDCConfigBean {
   @ValueChooserModel(BufferingChooserValues.class)
   public BufferingValues bufferLocation;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      label = "Max Buffer Memory (MB)",
+      description = "Maximum memory used by the records of all buffered transactions. Once exceeded, transactions " +
+          "that are not receiving new changes are spilled to disk",
+      displayPosition = 95,
+      group = "CDC",
+      defaultValue = "256",
+      min = 1,
+      dependsOn = "bufferLocation",
+      triggeredByValue = "SPILLABLE"
+  )
+  public int maxBufferMemory;
+
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.BOOLEAN,
@@ -16,6 +16,7 @@
 package com.streamsets.pipeline.stage.origin.jdbc.cdc.oracle;
 
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Throwables;
@@ -185,6 +186,7 @@ public class OracleCDCSource extends BaseSource {
 
   private boolean sentInitialSchemaEvent = false;
   private File txnBufferLocation;
+  private SpillableTransactionBuffer transactionBuffer;
 
   private PreparedStatement selectFromLogMnrContents;
   private static final int MISSING_LOG_FILE = 1291;
@@ -206,6 +208,7 @@ public class OracleCDCSource extends BaseSource {
   private boolean useLocalBuffering;
 
   private Gauge<Map<String, Object>> delay;
+  private Timer commitToEmitTimer;
   private CallableStatement startLogMnrSCNToDate;
 
   private enum DDL_EVENT {
@@ -571,7 +574,10 @@ public class OracleCDCSource extends BaseSource {
               if (op == ROLLBACK_CODE || scnDecimal.compareTo(lastCommitSCN) < 0) {
                 bufferedRecordsLock.lock();
                 try {
-                  bufferedRecords.remove(key);
+                  HashQueue<RecordSequence> records = bufferedRecords.remove(key);
+                  if (records != null) {
+                    records.close();
+                  }
                 } finally {
                   bufferedRecordsLock.unlock();
                 }
@@ -795,6 +801,7 @@ public class OracleCDCSource extends BaseSource {
   ) throws StageException, ParseException, InterruptedException {
     TransactionIdKey key = new TransactionIdKey(xid);
     int seq = 0;
+    Timer.Context commitToEmit = commitToEmitTimer.time();
     bufferedRecordsLock.lock();
     try {
       HashQueue<RecordSequence> records = bufferedRecords.getOrDefault(key, EMPTY_LINKED_HASHSET);
@@ -836,6 +843,7 @@ public class OracleCDCSource extends BaseSource {
       bufferedRecords.remove(key);
     } finally {
       bufferedRecordsLock.unlock();
+      commitToEmit.stop();
     }
     return seq;
   }
@@ -1217,7 +1225,7 @@ public class OracleCDCSource extends BaseSource {
       }
     }
 
-    if (useLocalBuffering && configBean.bufferLocation == BufferingValues.ON_DISK) {
+    if (useLocalBuffering && configBean.bufferLocation != BufferingValues.IN_MEMORY) {
       File tmpDir = new File(System.getProperty("java.io.tmpdir"));
       String relativePath =
           getContext().getSdcId() + "/" + getContext().getPipelineId() + "/" +
@@ -1231,6 +1239,13 @@ public class OracleCDCSource extends BaseSource {
         }
         Files.createDirectories(txnBufferLocation.toPath());
         LOG.info("Created " + txnBufferLocation.toString());
+        if (configBean.bufferLocation == BufferingValues.SPILLABLE) {
+          transactionBuffer = new SpillableTransactionBuffer(
+              txnBufferLocation,
+              configBean.maxBufferMemory * 1024L * 1024L,
+              getContext()
+          );
+        }
       } catch (IOException ex) {
         Throwables.propagate(ex);
       }
@@ -1249,6 +1264,7 @@ public class OracleCDCSource extends BaseSource {
     }
     version = useLocalBuffering ? VERSION_UNCOMMITTED : VERSION_STR;
     delay = getContext().createGauge("Read Lag (seconds)");
+    commitToEmitTimer = getContext().createTimer("Commit To Emit Latency");
     return issues;
   }
 
@@ -1510,6 +1526,9 @@ public class OracleCDCSource extends BaseSource {
     bufferedRecordsLock.lock();
     try {
       this.bufferedRecords.forEach((x, y) -> y.close());
+      if (transactionBuffer != null) {
+        transactionBuffer.close();
+      }
     } finally {
       bufferedRecordsLock.unlock();
     }
@@ -1660,6 +1679,7 @@ public class OracleCDCSource extends BaseSource {
             }
           }
           txnDiscarded.incrementAndGet();
+          entry.getValue().close();
           iter.remove();
         }
       }
@@ -1724,8 +1744,14 @@ public class OracleCDCSource extends BaseSource {
 
   private HashQueue<RecordSequence> createTransactionBuffer(String txnId) {
     try {
-      return configBean.bufferLocation == BufferingValues.IN_MEMORY ? new InMemoryHashQueue<>() :
-          new FileBackedHashQueue<>(new File(txnBufferLocation, txnId));
+      switch (configBean.bufferLocation) {
+        case IN_MEMORY:
+          return new InMemoryHashQueue<>();
+        case SPILLABLE:
+          return transactionBuffer.newTransaction();
+        default:
+          return new FileBackedHashQueue<>(new File(txnBufferLocation, txnId));
+      }
     } catch (IOException ex) {
       LOG.error("Error while creating transaction buffer", ex);
       throw new RuntimeException(ex);
@@ -58,7 +58,13 @@ public class OracleCDCSourceUpgrader implements StageUpgrader {
         }
         // fall through
       case 5:
-        return upgradeV5ToV6(configs);
+        configs = upgradeV5ToV6(configs);
+        if (toVersion == 6) {
+          return configs;
+        }
+        // fall through
+      case 6:
+        return upgradeV6ToV7(configs);
 
       default:
         throw new IllegalStateException(Utils.format("Unexpected fromVersion {}", fromVersion));
@@ -134,4 +140,9 @@ public class OracleCDCSourceUpgrader implements StageUpgrader {
 
     return configs;
   }
+
+  private static List<Config> upgradeV6ToV7(List<Config> configs) {
+    configs.add(new Config("oracleCDCConfigBean.maxBufferMemory", 256));
+    return configs;
+  }
 }
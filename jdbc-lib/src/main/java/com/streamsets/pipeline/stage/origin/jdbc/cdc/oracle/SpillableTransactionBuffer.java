@@ -0,0 +1,570 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.jdbc.cdc.oracle;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.google.common.base.Preconditions;
+import com.streamsets.pipeline.api.Stage;
+import org.apache.commons.io.FileUtils;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Transaction buffer shared by all open transactions with a bound on the memory used by the buffered records.
+ *
+ * Records of each transaction are kept in memory in chunks. Once the records of all transactions exceed the memory
+ * limit, transactions that haven't received any new record for the longest time have their in-memory chunks spilled
+ * to a log of compressed segment files. Spilled chunks are read back when the transaction is committed. A segment file
+ * is deleted once none of its chunks is needed anymore.
+ *
+ * Only a small part of each spilled chunk (the first record and keys of the records) stays in memory, hence long
+ * running transactions don't exhaust the heap.
+ *
+ * This class is not thread safe, callers are expected to synchronize access (the origin does so using its
+ * bufferedRecordsLock).
+ */
+class SpillableTransactionBuffer implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(SpillableTransactionBuffer.class);
+
+  static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+  // Rough estimate of the memory used by a record besides the strings it references
+  private static final int RECORD_OVERHEAD = 200;
+  private static final int ENTRY_OVERHEAD = 64;
+
+  private final File directory;
+  private final long memoryLimit;
+  private final long segmentSize;
+
+  // Open transactions, the one which received a record most recently last
+  private final LinkedHashMap<TransactionQueue, Boolean> transactions = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<Integer, Segment> segments = new HashMap<>();
+  private Segment currentSegment;
+  private int nextSegmentId;
+
+  private long memoryUsed;
+  private long spilledBytes;
+  private long bufferedRecords;
+
+  private final Meter spilledRecordsMeter;
+  private final Map<String, Object> bufferGauge;
+
+  SpillableTransactionBuffer(File directory, long memoryLimit, Stage.Context context) {
+    this(directory, memoryLimit, DEFAULT_SEGMENT_SIZE, context);
+  }
+
+  @SuppressWarnings("unchecked")
+  SpillableTransactionBuffer(File directory, long memoryLimit, long segmentSize, Stage.Context context) {
+    Preconditions.checkArgument(memoryLimit >= 0, "Memory limit can't be negative");
+    this.directory = directory;
+    this.memoryLimit = memoryLimit;
+    this.segmentSize = segmentSize;
+    this.spilledRecordsMeter = context.createMeter("Spilled Records");
+    Gauge<Map<String, Object>> gauge = context.createGauge("Transaction Buffer");
+    this.bufferGauge = gauge.getValue();
+    updateGauge();
+  }
+
+  /**
+   * Creates buffer for a new transaction.
+   */
+  HashQueue<RecordSequence> newTransaction() {
+    TransactionQueue queue = new TransactionQueue();
+    transactions.put(queue, Boolean.TRUE);
+    updateGauge();
+    return queue;
+  }
+
+  long getMemoryUsed() {
+    return memoryUsed;
+  }
+
+  long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  int getSegmentCount() {
+    return segments.size();
+  }
+
+  /**
+   * Closes all transactions and removes all segment files.
+   */
+  @Override
+  public void close() {
+    new ArrayList<>(transactions.keySet()).forEach(TransactionQueue::close);
+    for (Segment segment : segments.values()) {
+      segment.delete();
+    }
+    segments.clear();
+    currentSegment = null;
+    try {
+      FileUtils.deleteDirectory(directory);
+    } catch (IOException ex) {
+      LOG.warn("Can't delete transaction buffer directory {}", directory, ex);
+    }
+  }
+
+  /**
+   * Spill transactions, least recently used first, until the records kept in memory fit into the limit. The given
+   * transaction is spilled only if allowed and if it still exceeds the limit after spilling all the other ones.
+   */
+  private void spillIfNeeded(TransactionQueue active, boolean spillActive) {
+    if (memoryUsed > memoryLimit) {
+      for (TransactionQueue queue : transactions.keySet()) {
+        if (memoryUsed <= memoryLimit) {
+          break;
+        }
+        if (queue != active) {
+          queue.spill();
+        }
+      }
+      if (memoryUsed > memoryLimit && spillActive) {
+        active.spill();
+      }
+    }
+    updateGauge();
+  }
+
+  private void updateGauge() {
+    bufferGauge.put("Transactions", transactions.size());
+    bufferGauge.put("Buffered Records", bufferedRecords);
+    bufferGauge.put("In Memory (bytes)", memoryUsed);
+    bufferGauge.put("Spilled (bytes)", spilledBytes);
+  }
+
+  private static long estimateSize(RecordSequence record) {
+    long size = RECORD_OVERHEAD + sizeOf(record.sqlString) + sizeOf(record.rsId);
+    if (record.headers != null) {
+      for (Map.Entry<String, String> header : record.headers.entrySet()) {
+        size += ENTRY_OVERHEAD + sizeOf(header.getKey()) + sizeOf(header.getValue());
+      }
+    }
+    return size;
+  }
+
+  private static long sizeOf(String value) {
+    return value == null ? 0 : 2L * value.length();
+  }
+
+  private ChunkRef write(List<RecordSequence> records) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream out = new ObjectOutputStream(
+          new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_SPEED))
+      )) {
+        out.writeObject(new ArrayList<>(records));
+      }
+
+      if (currentSegment == null || currentSegment.size >= segmentSize) {
+        if (currentSegment != null && currentSegment.liveChunks == 0) {
+          segments.remove(currentSegment.id).delete();
+        }
+        currentSegment = new Segment(nextSegmentId++);
+        segments.put(currentSegment.id, currentSegment);
+      }
+      ChunkRef ref = currentSegment.append(bytes.toByteArray());
+      spilledBytes += ref.length;
+      spilledRecordsMeter.mark(records.size());
+      return ref;
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Can't spill transaction to " + directory, ex);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<RecordSequence> read(ChunkRef ref) {
+    try {
+      ByteBuffer buffer = ByteBuffer.allocate(ref.length);
+      Segment segment = segments.get(ref.segment);
+      while (buffer.hasRemaining()) {
+        if (segment.channel.read(buffer, ref.position + buffer.position()) < 0) {
+          throw new IOException("Unexpected end of segment " + segment.file);
+        }
+      }
+      try (ObjectInputStream in = new ObjectInputStream(
+          new InflaterInputStream(new ByteArrayInputStream(buffer.array()))
+      )) {
+        return (List<RecordSequence>) in.readObject();
+      }
+    } catch (IOException | ClassNotFoundException ex) {
+      throw new IllegalStateException("Can't read spilled transaction from " + directory, ex);
+    }
+  }
+
+  private void release(ChunkRef ref) {
+    spilledBytes -= ref.length;
+    Segment segment = segments.get(ref.segment);
+    segment.liveChunks--;
+    if (segment.liveChunks == 0 && segment != currentSegment) {
+      segments.remove(segment.id);
+      segment.delete();
+    }
+  }
+
+  private static class ChunkRef {
+    final int segment;
+    final long position;
+    final int length;
+
+    ChunkRef(int segment, long position, int length) {
+      this.segment = segment;
+      this.position = position;
+      this.length = length;
+    }
+  }
+
+  private class Segment {
+    final int id;
+    final File file;
+    final FileChannel channel;
+    long size;
+    int liveChunks;
+
+    Segment(int id) throws IOException {
+      this.id = id;
+      this.file = new File(directory, "segment-" + id);
+      this.channel = FileChannel.open(
+          file.toPath(),
+          StandardOpenOption.CREATE_NEW,
+          StandardOpenOption.READ,
+          StandardOpenOption.WRITE
+      );
+    }
+
+    ChunkRef append(byte[] data) throws IOException {
+      ByteBuffer buffer = ByteBuffer.wrap(data);
+      long position = size;
+      while (buffer.hasRemaining()) {
+        channel.write(buffer, position + buffer.position());
+      }
+      size += data.length;
+      liveChunks++;
+      return new ChunkRef(id, position, data.length);
+    }
+
+    void delete() {
+      try {
+        channel.close();
+        Files.deleteIfExists(file.toPath());
+      } catch (IOException ex) {
+        LOG.warn("Can't delete transaction buffer segment {}", file, ex);
+      }
+    }
+  }
+
+  /**
+   * Part of a transaction, either held in memory or spilled to a segment.
+   */
+  private static class Chunk {
+    ArrayDeque<RecordSequence> records;
+    ChunkRef ref;
+    // First record of the chunk, kept even if the chunk is spilled so that peek() doesn't have to read it back
+    RecordSequence first;
+    int size;
+    long memory;
+  }
+
+  private class TransactionQueue implements HashQueue<RecordSequence> {
+    private final ArrayDeque<Chunk> chunks = new ArrayDeque<>();
+    private final Set<RsIdSsn> keys = new HashSet<>();
+    private RecordSequence tail;
+    private int size;
+    private boolean closed;
+
+    @Override
+    public RecordSequence tail() {
+      return tail;
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return size == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      RecordSequence incoming = (RecordSequence) o;
+      return keys.contains(new RsIdSsn(incoming.rsId, incoming.ssn.toString()));
+    }
+
+    @Override
+    public boolean add(RecordSequence record) {
+      Preconditions.checkState(!closed, "Transaction buffer is closed");
+      if (!keys.add(new RsIdSsn(record.rsId, record.ssn.toString()))) {
+        return false;
+      }
+      Chunk chunk = chunks.peekLast();
+      if (chunk == null || chunk.records == null) {
+        chunk = new Chunk();
+        chunk.records = new ArrayDeque<>();
+        chunk.first = record;
+        chunks.addLast(chunk);
+      }
+      long recordMemory = estimateSize(record);
+      chunk.records.addLast(record);
+      chunk.size++;
+      chunk.memory += recordMemory;
+      memoryUsed += recordMemory;
+      bufferedRecords++;
+      size++;
+      tail = record;
+
+      // Mark as most recently used
+      transactions.get(this);
+      spillIfNeeded(this, true);
+      return true;
+    }
+
+    @Override
+    public boolean offer(RecordSequence record) {
+      return add(record);
+    }
+
+    @Override
+    public RecordSequence remove() {
+      if (size == 0) {
+        throw new NoSuchElementException();
+      }
+      Chunk chunk = chunks.peekFirst();
+      if (chunk.records == null) {
+        load(chunk);
+      }
+      RecordSequence record = chunk.records.pollFirst();
+      long recordMemory = estimateSize(record);
+      chunk.memory -= recordMemory;
+      chunk.size--;
+      memoryUsed -= recordMemory;
+      if (chunk.size == 0) {
+        chunks.pollFirst();
+      } else {
+        chunk.first = chunk.records.peekFirst();
+      }
+      keys.remove(new RsIdSsn(record.rsId, record.ssn.toString()));
+      bufferedRecords--;
+      size--;
+      if (size == 0) {
+        tail = null;
+      }
+      updateGauge();
+      return record;
+    }
+
+    @Override
+    public RecordSequence poll() {
+      return isEmpty() ? null : remove();
+    }
+
+    @Override
+    public RecordSequence element() {
+      if (size == 0) {
+        throw new NoSuchElementException();
+      }
+      return chunks.peekFirst().first;
+    }
+
+    @Override
+    public RecordSequence peek() {
+      return isEmpty() ? null : element();
+    }
+
+    @NotNull
+    @Override
+    public Iterator<RecordSequence> iterator() {
+      return new TransactionIterator();
+    }
+
+    @NotNull
+    @Override
+    public Object[] toArray() {
+      List<RecordSequence> all = new ArrayList<>(size);
+      forEach(all::add);
+      return all.toArray();
+    }
+
+    @NotNull
+    @Override
+    public <T> T[] toArray(@NotNull T[] a) {
+      List<RecordSequence> all = new ArrayList<>(size);
+      forEach(all::add);
+      return all.toArray(a);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean containsAll(@NotNull Collection<?> c) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addAll(@NotNull Collection<? extends RecordSequence> c) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAll(@NotNull Collection<?> c) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean retainAll(@NotNull Collection<?> c) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+      for (Chunk chunk : chunks) {
+        if (chunk.ref != null) {
+          release(chunk.ref);
+        }
+        memoryUsed -= chunk.memory;
+        bufferedRecords -= chunk.size;
+      }
+      chunks.clear();
+      keys.clear();
+      size = 0;
+      tail = null;
+      updateGauge();
+    }
+
+    @Override
+    public void close() {
+      if (!closed) {
+        clear();
+        transactions.remove(this);
+        closed = true;
+        updateGauge();
+      }
+    }
+
+    @Override
+    public void completeInserts() {
+      // no op
+    }
+
+    /**
+     * Writes all in-memory chunks of this transaction to the segment log.
+     */
+    private void spill() {
+      for (Chunk chunk : chunks) {
+        if (chunk.records != null) {
+          chunk.ref = write(new ArrayList<>(chunk.records));
+          chunk.records = null;
+          memoryUsed -= chunk.memory;
+          chunk.memory = 0;
+        }
+      }
+    }
+
+    private void load(Chunk chunk) {
+      chunk.records = new ArrayDeque<>(read(chunk.ref));
+      release(chunk.ref);
+      chunk.ref = null;
+      for (RecordSequence record : chunk.records) {
+        chunk.memory += estimateSize(record);
+      }
+      memoryUsed += chunk.memory;
+      // This transaction is being drained, spilling it again would only mean reading the same records twice
+      transactions.get(this);
+      spillIfNeeded(this, false);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this);
+    }
+
+    /**
+     * Iterates over all records, spilled chunks are read back only for the duration of the iteration over them.
+     *
+     * Only removing the first record of the transaction is supported, which is what the origin needs.
+     */
+    private class TransactionIterator implements Iterator<RecordSequence> {
+      private final Iterator<Chunk> chunkIterator = new ArrayList<>(chunks).iterator();
+      private Iterator<RecordSequence> recordIterator = Collections.emptyIterator();
+      private RecordSequence last;
+
+      @Override
+      public boolean hasNext() {
+        while (!recordIterator.hasNext() && chunkIterator.hasNext()) {
+          Chunk chunk = chunkIterator.next();
+          recordIterator = chunk.records == null ? read(chunk.ref).iterator() : new ArrayList<>(chunk.records).iterator();
+        }
+        return recordIterator.hasNext();
+      }
+
+      @Override
+      public RecordSequence next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        last = recordIterator.next();
+        return last;
+      }
+
+      @Override
+      public void remove() {
+        Preconditions.checkState(last != null && last.equals(peek()), "Only the first record can be removed");
+        TransactionQueue.this.remove();
+        last = null;
+      }
+    }
+  }
+}
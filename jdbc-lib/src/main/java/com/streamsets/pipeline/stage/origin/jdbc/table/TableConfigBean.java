@@ -33,6 +33,8 @@ public final class TableConfigBean {
   public static final String PARTITIONING_MODE_FIELD = "partitioningMode";
   public static final String MAX_NUM_ACTIVE_PARTITIONS_FIELD = "maxNumActivePartitions";
   public static final String PARTITION_SIZE_FIELD = "partitionSize";
+  public static final String TARGET_ROWS_PER_PARTITION_FIELD = "targetRowsPerPartition";
+  public static final long DEFAULT_TARGET_ROWS_PER_PARTITION = 0;
 
   public static final String PARTITIONING_MODE_DEFAULT_VALUE_STR = "DISABLED";
   public static final PartitioningMode PARTITIONING_MODE_DEFAULT_VALUE = PartitioningMode.valueOf(
@@ -153,6 +155,22 @@ public final class TableConfigBean {
   )
   public String partitionSize = DEFAULT_PARTITION_SIZE;
 
+  @ConfigDef(
+      required = false,
+      type = ConfigDef.Type.NUMBER,
+      label = "Target Rows per Partition",
+      description = "When greater than zero, the size of new partitions is adjusted to the density of offset column" +
+          " values seen in completed partitions, so that each partition holds roughly this number of rows. Partition" +
+          " Size is used until the first partition completes. Use 0 to always use Partition Size.",
+      displayPosition = 95,
+      defaultValue = "" + DEFAULT_TARGET_ROWS_PER_PARTITION,
+      group = "TABLE",
+      dependsOn = "partitioningMode",
+      triggeredByValue = {"BEST_EFFORT", "REQUIRED"},
+      min = 0
+  )
+  public long targetRowsPerPartition = DEFAULT_TARGET_ROWS_PER_PARTITION;
+
   @ConfigDef(
       required = false,
       type = ConfigDef.Type.NUMBER,
@@ -37,7 +37,7 @@ import com.streamsets.pipeline.stage.processor.kv.CacheConfig;
 import java.util.List;
 
 @StageDef(
-    version = 3,
+    version = 5,
     label = "JDBC Lookup",
     description = "Lookup values via JDBC to enrich records.",
     icon = "rdbms.png",
@@ -117,6 +117,18 @@ public class JdbcLookupDProcessor extends DProcessor {
   )
   public int maxBlobSize;
 
+  @ConfigDef(
+      required = false,
+      type = ConfigDef.Type.BOOLEAN,
+      defaultValue = "false",
+      label = "Batch Lookups",
+      description = "Looks up all records of a batch together. Each distinct query runs only once per batch and all " +
+          "queries missing in the cache are run over a single connection.",
+      displayPosition = 60,
+      group = "JDBC"
+  )
+  public boolean batchLookup;
+
   @ConfigDefBean()
   public HikariPoolConfigBean hikariConfigBean;
 
@@ -133,7 +145,8 @@ public class JdbcLookupDProcessor extends DProcessor {
       maxClobSize,
       maxBlobSize,
       hikariConfigBean,
-      cacheConfig
+      cacheConfig,
+      batchLookup
     );
   }
 }
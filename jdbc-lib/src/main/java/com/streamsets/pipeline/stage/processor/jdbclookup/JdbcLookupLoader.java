@@ -37,6 +37,7 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -72,16 +73,42 @@ public class JdbcLookupLoader extends CacheLoader<String, Optional<List<Map<Stri
 
   @Override
   public Optional<List<Map<String, Field>>> load(String key) throws Exception {
-    return lookupValuesForRecord(key);
+    try (Connection connection = dataSource.getConnection()) {
+      return lookupValuesForRecord(connection, key);
+    } catch (SQLException e) {
+      LOG.error(JdbcErrors.JDBC_02.getMessage(), key, e);
+      throw new OnRecordErrorException(JdbcErrors.JDBC_02, key, e.getMessage());
+    }
+  }
+
+  /**
+   * Loads all given queries using a single connection rather than borrowing one from the pool for each query.
+   */
+  @Override
+  public Map<String, Optional<List<Map<String, Field>>>> loadAll(Iterable<? extends String> keys) throws Exception {
+    Map<String, Optional<List<Map<String, Field>>>> values = new HashMap<>();
+    String preparedQuery = null;
+    try (Connection connection = dataSource.getConnection()) {
+      for (String key : keys) {
+        preparedQuery = key;
+        values.put(key, lookupValuesForRecord(connection, key));
+      }
+    } catch (SQLException e) {
+      LOG.error(JdbcErrors.JDBC_02.getMessage(), preparedQuery, e);
+      throw new OnRecordErrorException(JdbcErrors.JDBC_02, preparedQuery, e.getMessage());
+    }
+    return values;
   }
 
-  private Optional<List<Map<String, Field>>> lookupValuesForRecord(String preparedQuery) throws StageException {
+  private Optional<List<Map<String, Field>>> lookupValuesForRecord(
+    Connection connection,
+    String preparedQuery
+  ) throws StageException {
     LOG.debug("Executing SQL:  {}", preparedQuery);
     List<Map<String, Field>> lookupItems = new ArrayList<>();
 
     Timer.Context t = selectTimer.time();
     try (
-      Connection connection = dataSource.getConnection();
        Statement stmt = connection.createStatement();
        ResultSet resultSet = stmt.executeQuery(preparedQuery)
     ) {
@@ -15,6 +15,7 @@
  */
 package com.streamsets.pipeline.stage.processor.jdbclookup;
 
+import com.codahale.metrics.Histogram;
 import com.google.common.base.Throwables;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
@@ -49,10 +50,15 @@ import org.joda.time.format.DateTimeFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 import static com.streamsets.pipeline.lib.jdbc.JdbcUtil.closeQuietly;
@@ -78,6 +84,7 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
   private final int maxClobSize;
   private final int maxBlobSize;
   private final HikariPoolConfigBean hikariConfigBean;
+  private final boolean batchLookup;
 
   private ErrorRecordHandler errorRecordHandler;
   private HikariDataSource dataSource = null;
@@ -89,6 +96,7 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
   private Optional<List<Map<String, Field>>> defaultValue;
   private CacheCleaner cacheCleaner;
   private final MissingValuesBehavior missingValuesBehavior;
+  private Histogram batchMissesHistogram;
 
   public JdbcLookupProcessor(
       String query,
@@ -98,7 +106,8 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
       int maxClobSize,
       int maxBlobSize,
       HikariPoolConfigBean hikariConfigBean,
-      CacheConfig cacheConfig
+      CacheConfig cacheConfig,
+      boolean batchLookup
   ) {
     this.query = query;
     this.columnMappings = columnMappings;
@@ -108,6 +117,7 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
     this.maxBlobSize = maxBlobSize;
     this.hikariConfigBean = hikariConfigBean;
     this.cacheConfig = cacheConfig;
+    this.batchLookup = batchLookup;
   }
 
   /** {@inheritDoc} */
@@ -138,6 +148,9 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
     if (issues.isEmpty()) {
       cache = buildCache();
       cacheCleaner = new CacheCleaner(cache, "JdbcLookupProcessor", 10 * 60 * 1000);
+      if (batchLookup) {
+        batchMissesHistogram = getContext().createHistogram("Cache Misses Per Batch");
+      }
     }
     // If issues is not empty, the UI will inform the user of each configuration issue in the list.
     return issues;
@@ -228,54 +241,77 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
       // No records - take the opportunity to clean up the cache so that we don't hold on to memory indefinitely
       cacheCleaner.periodicCleanUp();
     }
-    super.process(batch, batchMaker);
+    if (batchLookup) {
+      processBatchLookup(batch, batchMaker);
+    } else {
+      super.process(batch, batchMaker);
+    }
   }
 
-  /** {@inheritDoc} */
-  @Override
-  protected void process(Record record, SingleLaneBatchMaker batchMaker) throws StageException {
+  /**
+   * Resolves lookups of the whole batch at once: every distinct query is resolved only once and all queries that are
+   * not cached are loaded together before the results are applied to the records.
+   */
+  private void processBatchLookup(Batch batch, SingleLaneBatchMaker batchMaker) throws StageException {
+    List<Record> records = new ArrayList<>();
+    List<String> preparedQueries = new ArrayList<>();
+    Iterator<Record> it = batch.getRecords();
+    while (it.hasNext()) {
+      Record record = it.next();
+      try {
+        preparedQueries.add(prepareQuery(record));
+        records.add(record);
+      } catch (OnRecordErrorException error) {
+        errorRecordHandler.onError(error);
+      }
+    }
+
+    Set<String> distinctQueries = new LinkedHashSet<>(preparedQueries);
+    batchMissesHistogram.update(distinctQueries.size() - cache.getAllPresent(distinctQueries).size());
+
+    Map<String, Optional<List<Map<String, Field>>>> entries;
     try {
-      ELVars elVars = getContext().createELVars();
-      RecordEL.setRecordInContext(elVars, record);
-      String preparedQuery = queryEval.eval(elVars, query, String.class);
-      Optional<List<Map<String, Field>>> entry = cache.get(preparedQuery);
-
-      if (!entry.isPresent()) {
-        // No results
-        switch (missingValuesBehavior) {
-          case SEND_TO_ERROR:
-            LOG.error(JdbcErrors.JDBC_04.getMessage(), preparedQuery);
-            errorRecordHandler.onError(new OnRecordErrorException(record, JdbcErrors.JDBC_04, preparedQuery));
-            break;
-          case PASS_RECORD_ON:
-            batchMaker.addRecord(record);
-            break;
-          default:
-            throw new IllegalStateException("Unknown missing value behavior: " + missingValuesBehavior);
+      entries = cache.getAll(distinctQueries);
+    } catch (ExecutionException e) {
+      if (!(e.getCause() instanceof OnRecordErrorException)) {
+        Throwables.propagateIfPossible(e.getCause(), StageException.class);
+        throw new IllegalStateException(e); // The cache loader shouldn't throw anything that isn't a StageException.
+      }
+      // One of the queries has failed, look up the records one by one so that only the affected records are sent
+      // to error
+      LOG.debug("Batch lookup failed, falling back to looking up records one by one", e.getCause());
+      entries = Collections.emptyMap();
+    }
+
+    for (int i = 0; i < records.size(); i++) {
+      Record record = records.get(i);
+      String preparedQuery = preparedQueries.get(i);
+      try {
+        Optional<List<Map<String, Field>>> entry = entries.get(preparedQuery);
+        if (entry == null) {
+          entry = cache.get(preparedQuery);
         }
-      } else {
-        List<Map<String, Field>> values = entry.get();
-        switch (multipleValuesBehavior) {
-          case FIRST_ONLY:
-            setFieldsInRecord(record, values.get(0));
-            batchMaker.addRecord(record);
-            break;
-          case SPLIT_INTO_MULTIPLE_RECORDS:
-            for(Map<String, Field> lookupItem : values) {
-              Record newRecord = getContext().cloneRecord(record);
-              setFieldsInRecord(newRecord, lookupItem);
-              batchMaker.addRecord(newRecord);
-            }
-            break;
-          default:
-            throw new IllegalStateException("Unknown multiple value behavior: " + multipleValuesBehavior);
+        processLookupResult(record, preparedQuery, entry, batchMaker);
+      } catch (ExecutionException e) {
+        if (!(e.getCause() instanceof OnRecordErrorException)) {
+          Throwables.propagateIfPossible(e.getCause(), StageException.class);
+          throw new IllegalStateException(e); // The cache loader shouldn't throw anything that isn't a StageException.
         }
-
+        // The query of this record has failed, only this record goes to error
+        OnRecordErrorException error = (OnRecordErrorException) e.getCause();
+        errorRecordHandler.onError(new OnRecordErrorException(record, error.getErrorCode(), error.getParams()));
+      } catch (OnRecordErrorException error) { // NOSONAR
+        errorRecordHandler.onError(new OnRecordErrorException(record, error.getErrorCode(), error.getParams()));
       }
+    }
+  }
 
-    } catch (ELEvalException e) {
-      LOG.error(JdbcErrors.JDBC_01.getMessage(), query, e);
-      throw new OnRecordErrorException(record, JdbcErrors.JDBC_01, query);
+  /** {@inheritDoc} */
+  @Override
+  protected void process(Record record, SingleLaneBatchMaker batchMaker) throws StageException {
+    String preparedQuery = prepareQuery(record);
+    try {
+      processLookupResult(record, preparedQuery, cache.get(preparedQuery), batchMaker);
     } catch (ExecutionException e) {
       Throwables.propagateIfPossible(e.getCause(), StageException.class);
       throw new IllegalStateException(e); // The cache loader shouldn't throw anything that isn't a StageException.
@@ -284,6 +320,56 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
     }
   }
 
+  private String prepareQuery(Record record) throws OnRecordErrorException {
+    try {
+      ELVars elVars = getContext().createELVars();
+      RecordEL.setRecordInContext(elVars, record);
+      return queryEval.eval(elVars, query, String.class);
+    } catch (ELEvalException e) {
+      LOG.error(JdbcErrors.JDBC_01.getMessage(), query, e);
+      throw new OnRecordErrorException(record, JdbcErrors.JDBC_01, query);
+    }
+  }
+
+  private void processLookupResult(
+      Record record,
+      String preparedQuery,
+      Optional<List<Map<String, Field>>> entry,
+      SingleLaneBatchMaker batchMaker
+  ) throws StageException {
+    if (!entry.isPresent()) {
+      // No results
+      switch (missingValuesBehavior) {
+        case SEND_TO_ERROR:
+          LOG.error(JdbcErrors.JDBC_04.getMessage(), preparedQuery);
+          errorRecordHandler.onError(new OnRecordErrorException(record, JdbcErrors.JDBC_04, preparedQuery));
+          break;
+        case PASS_RECORD_ON:
+          batchMaker.addRecord(record);
+          break;
+        default:
+          throw new IllegalStateException("Unknown missing value behavior: " + missingValuesBehavior);
+      }
+    } else {
+      List<Map<String, Field>> values = entry.get();
+      switch (multipleValuesBehavior) {
+        case FIRST_ONLY:
+          setFieldsInRecord(record, values.get(0));
+          batchMaker.addRecord(record);
+          break;
+        case SPLIT_INTO_MULTIPLE_RECORDS:
+          for(Map<String, Field> lookupItem : values) {
+            Record newRecord = getContext().cloneRecord(record);
+            setFieldsInRecord(newRecord, lookupItem);
+            batchMaker.addRecord(newRecord);
+          }
+          break;
+        default:
+          throw new IllegalStateException("Unknown multiple value behavior: " + multipleValuesBehavior);
+      }
+    }
+  }
+
   private void setFieldsInRecord(Record record, Map<String, Field>fields) {
     for (Map.Entry<String, Field> entry : fields.entrySet()) {
       String columnName = entry.getKey();
@@ -40,9 +40,24 @@ public class JdbcLookupProcessorUpgrader implements StageUpgrader {
     switch (fromVersion) {
       case 1:
         upgradeV1ToV2(configs);
-        break;
+        if (toVersion == 2) {
+          break;
+        }
+        // fall through
       case 2:
         upgradeV2ToV3(configs);
+        if (toVersion == 3) {
+          break;
+        }
+        // fall through
+      case 3:
+        upgradeV3ToV4(configs);
+        if (toVersion == 4) {
+          break;
+        }
+        // fall through
+      case 4:
+        upgradeV4ToV5(configs);
         break;
       default:
         throw new IllegalStateException(Utils.format("Unexpected fromVersion {}", fromVersion));
@@ -62,4 +77,12 @@ public class JdbcLookupProcessorUpgrader implements StageUpgrader {
   private static void upgradeV2ToV3(List<Config> configs) {
     configs.add(new Config("missingValuesBehavior", MissingValuesBehavior.SEND_TO_ERROR));
   }
+
+  private static void upgradeV3ToV4(List<Config> configs) {
+    configs.add(new Config("batchLookup", false));
+  }
+
+  private static void upgradeV4ToV5(List<Config> configs) {
+    configs.add(new Config(Joiner.on(".").join(CACHE_CONFIG, "missingValueExpirationTime"), -1));
+  }
 }
@@ -182,6 +182,133 @@ public class TestMultithreadedTableProvider {
     // mark partition 3, then 2 as finished
   }
 
+  @Test
+  public void adaptivePartitionSize() throws InterruptedException {
+    int batchSize = 1000;
+    String offsetCol = "col";
+    int threadNumber = 0;
+
+    LinkedHashMap<String, Integer> offsetColumnToType = new LinkedHashMap<>();
+    offsetColumnToType.put(offsetCol, Types.INTEGER);
+    TableContext table1 = new TableContext(
+        "db",
+        "table1",
+        offsetColumnToType,
+        new HashMap<>(),
+        Collections.singletonMap(offsetCol, "100"),
+        Collections.singletonMap(offsetCol, "0"),
+        TableConfigBean.ENABLE_NON_INCREMENTAL_DEFAULT_VALUE,
+        PartitioningMode.BEST_EFFORT,
+        3,
+        null,
+        50
+    );
+    MultithreadedTableProvider provider = createTableProvider(
+        1,
+        table1,
+        BatchTableStrategy.PROCESS_ALL_AVAILABLE_ROWS_FROM_TABLE
+    );
+
+    // until a partition completes, the configured size is used
+    TableRuntimeContext part1 = provider.nextTable(threadNumber);
+    validatePartition(part1, 1, table1, false, false, false, false, offsetCol, "100");
+    assertThat(table1.getPartitionSize(offsetCol), equalTo("100"));
+
+    // 200 rows in a range of 100 means that 50 rows fit into a range of 25
+    provider.reportDataOrNoMoreData(part1, 150, batchSize, false);
+    provider.reportDataOrNoMoreData(part1, 50, batchSize, true);
+    assertThat(part1.getRecordsRead(), equalTo(200L));
+    assertThat(table1.getPartitionSize(offsetCol), equalTo("25"));
+
+    // density is recorded only the first time a partition is marked as finished
+    provider.reportDataOrNoMoreData(part1, 0, batchSize, true);
+    assertThat(table1.getPartitionSize(offsetCol), equalTo("25"));
+    provider.releaseOwnedTable(part1, threadNumber);
+
+    // partitions that were already created keep their size, a new one starts where the last one ends
+    TableRuntimeContext part2 = provider.nextTable(threadNumber);
+    validatePartition(part2, 2, table1, false, false, true, false, offsetCol, "100");
+    TableRuntimeContext part4 = TableRuntimeContext.createNextPartition(
+        provider.getActiveRuntimeContexts().get(table1).last()
+    );
+    assertThat(part4.getStartingPartitionOffsets(), equalTo(Collections.singletonMap(offsetCol, "300")));
+    assertThat(part4.getMaxPartitionOffsets(), equalTo(Collections.singletonMap(offsetCol, "325")));
+
+    // sparse ranges produce bigger partitions
+    provider.reportDataOrNoMoreData(part2, 0, batchSize, true);
+    assertThat(table1.getPartitionSize(offsetCol), equalTo("50"));
+    TableRuntimeContext part5 = TableRuntimeContext.createNextPartition(part4);
+    assertThat(part5.getStartingPartitionOffsets(), equalTo(Collections.singletonMap(offsetCol, "325")));
+    assertThat(part5.getMaxPartitionOffsets(), equalTo(Collections.singletonMap(offsetCol, "375")));
+  }
+
+  @Test
+  public void adaptivePartitionSizeEmptyPartitions() throws InterruptedException {
+    String offsetCol = "col";
+    int threadNumber = 0;
+
+    LinkedHashMap<String, Integer> offsetColumnToType = new LinkedHashMap<>();
+    offsetColumnToType.put(offsetCol, Types.INTEGER);
+    TableContext table1 = new TableContext(
+        "db",
+        "table1",
+        offsetColumnToType,
+        new HashMap<>(),
+        Collections.singletonMap(offsetCol, "1000000"),
+        Collections.singletonMap(offsetCol, "2000000000"),
+        TableConfigBean.ENABLE_NON_INCREMENTAL_DEFAULT_VALUE,
+        PartitioningMode.BEST_EFFORT,
+        3,
+        null,
+        50
+    );
+    MultithreadedTableProvider provider = createTableProvider(
+        1,
+        table1,
+        BatchTableStrategy.PROCESS_ALL_AVAILABLE_ROWS_FROM_TABLE
+    );
+
+    // an empty partition makes the size grow to the maximum allowed by the configured size
+    TableRuntimeContext part1 = provider.nextTable(threadNumber);
+    provider.reportDataOrNoMoreData(part1, 0, 1000, true);
+    assertThat(table1.getPartitionSize(offsetCol), equalTo("1000000000"));
+    provider.releaseOwnedTable(part1, threadNumber);
+
+    // the next partition must stop at the maximum value of the column instead of wrapping around
+    TableRuntimeContext part4 = TableRuntimeContext.createNextPartition(
+        provider.getActiveRuntimeContexts().get(table1).last()
+    );
+    assertThat(part4.getStartingPartitionOffsets(), equalTo(Collections.singletonMap(offsetCol, "2003000000")));
+    assertThat(
+        part4.getMaxPartitionOffsets(),
+        equalTo(Collections.singletonMap(offsetCol, String.valueOf(Integer.MAX_VALUE)))
+    );
+
+    TableRuntimeContext part5 = TableRuntimeContext.createNextPartition(part4);
+    assertThat(
+        part5.getStartingPartitionOffsets(),
+        equalTo(Collections.singletonMap(offsetCol, String.valueOf(Integer.MAX_VALUE)))
+    );
+    assertThat(
+        part5.getMaxPartitionOffsets(),
+        equalTo(Collections.singletonMap(offsetCol, String.valueOf(Integer.MAX_VALUE)))
+    );
+  }
+
+  @Test
+  public void fixedPartitionSize() throws InterruptedException {
+    TableContext table1 = createTableContext("db", "table1", "col", "100", 3, true);
+    MultithreadedTableProvider provider = createTableProvider(
+        1,
+        table1,
+        BatchTableStrategy.PROCESS_ALL_AVAILABLE_ROWS_FROM_TABLE
+    );
+
+    TableRuntimeContext part1 = provider.nextTable(0);
+    provider.reportDataOrNoMoreData(part1, 200, 1000, true);
+    assertThat(table1.getPartitionSize("col"), equalTo("100"));
+  }
+
   @Test
   public void nonIncremental() throws InterruptedException {
 
@@ -75,4 +75,14 @@ public class TestOracleCDCSourceUpgrader {
     Assert.assertEquals(configs.get(0).getName(), "oracleCDCConfigBean.sendUnsupportedFields");
     Assert.assertEquals(configs.get(0).getValue(), false);
   }
+
+  @Test
+  public void upgradeV6TOV7() throws Exception {
+    List<Config> configs = new ArrayList<>(1);
+
+    configs = new OracleCDCSourceUpgrader().upgrade("a", "b", "v", 6, 7, configs);
+    Assert.assertEquals(1, configs.size());
+    Assert.assertEquals(configs.get(0).getName(), "oracleCDCConfigBean.maxBufferMemory");
+    Assert.assertEquals(configs.get(0).getValue(), 256);
+  }
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.jdbc.cdc.oracle;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.google.common.collect.ImmutableMap;
+import com.streamsets.pipeline.api.Stage;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class TestSpillableTransactionBuffer {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File directory;
+  private Meter spilledRecords;
+  private Map<String, Object> bufferGauge;
+  private SpillableTransactionBuffer buffer;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    directory = tempFolder.newFolder();
+    spilledRecords = new Meter();
+    bufferGauge = new ConcurrentHashMap<>();
+    Stage.Context context = Mockito.mock(Stage.Context.class);
+    Mockito.when(context.createMeter(Mockito.anyString())).thenReturn(spilledRecords);
+    Mockito.when(context.createGauge(Mockito.anyString())).thenReturn((Gauge<Map<String, Object>>) () -> bufferGauge);
+    // Enough memory for about 10 records
+    buffer = new SpillableTransactionBuffer(directory, 5000, 1024, context);
+  }
+
+  @After
+  public void tearDown() {
+    buffer.close();
+  }
+
+  private static RecordSequence record(String txn, int seq) {
+    Map<String, String> headers = new HashMap<>(ImmutableMap.of("oracle.cdc.xid", txn, "oracle.cdc.seq", "" + seq));
+    return new RecordSequence(
+        headers,
+        "INSERT INTO \"SYS\".\"TEST\"(\"ID\", \"NAME\") VALUES ('" + seq + "', 'name of record " + seq + "')",
+        seq,
+        1,
+        txn + "-" + seq,
+        BigDecimal.valueOf(seq),
+        LocalDateTime.now()
+    );
+  }
+
+  @Test
+  public void testInMemoryWithinLimit() {
+    HashQueue<RecordSequence> txn = buffer.newTransaction();
+    for (int i = 1; i <= 5; i++) {
+      Assert.assertTrue(txn.add(record("a", i)));
+    }
+    Assert.assertEquals(5, txn.size());
+    Assert.assertEquals(5, txn.tail().seq);
+    Assert.assertEquals(0, buffer.getSpilledBytes());
+    Assert.assertEquals(0, spilledRecords.getCount());
+    Assert.assertEquals(5L, bufferGauge.get("Buffered Records"));
+
+    // Duplicate records are ignored
+    Assert.assertTrue(txn.contains(record("a", 3)));
+    Assert.assertFalse(txn.add(record("a", 3)));
+
+    for (int i = 1; i <= 5; i++) {
+      Assert.assertEquals(i, txn.remove().seq);
+    }
+    Assert.assertTrue(txn.isEmpty());
+    Assert.assertNull(txn.tail());
+    Assert.assertEquals(0, buffer.getMemoryUsed());
+  }
+
+  @Test
+  public void testColdTransactionSpilled() {
+    HashQueue<RecordSequence> cold = buffer.newTransaction();
+    HashQueue<RecordSequence> hot = buffer.newTransaction();
+    for (int i = 1; i <= 5; i++) {
+      cold.add(record("cold", i));
+    }
+    for (int i = 1; i <= 5; i++) {
+      hot.add(record("hot", i));
+    }
+
+    // The transaction that didn't receive changes for the longest time went to disk first
+    Assert.assertEquals(5, spilledRecords.getCount());
+    Assert.assertTrue(buffer.getSpilledBytes() > 0);
+    Assert.assertTrue(buffer.getMemoryUsed() <= 5000);
+    Assert.assertEquals(10L, bufferGauge.get("Buffered Records"));
+    Assert.assertEquals(1, cold.peek().seq);
+    Assert.assertTrue(cold.contains(record("cold", 2)));
+
+    // Spilled records are read back in the original order with all their data
+    for (int i = 1; i <= 5; i++) {
+      RecordSequence record = cold.remove();
+      Assert.assertEquals(i, record.seq);
+      Assert.assertEquals("cold-" + i, record.rsId);
+      Assert.assertEquals(BigDecimal.valueOf(i), record.ssn);
+      Assert.assertEquals("cold", record.headers.get("oracle.cdc.xid"));
+    }
+    Assert.assertTrue(cold.isEmpty());
+    cold.close();
+
+    for (int i = 1; i <= 5; i++) {
+      Assert.assertEquals(i, hot.remove().seq);
+    }
+    hot.close();
+    Assert.assertEquals(0, buffer.getSpilledBytes());
+    Assert.assertEquals(0, buffer.getMemoryUsed());
+    Assert.assertEquals(0, bufferGauge.get("Transactions"));
+  }
+
+  @Test
+  public void testLargeTransactionSpillsItself() {
+    HashQueue<RecordSequence> txn = buffer.newTransaction();
+    for (int i = 1; i <= 100; i++) {
+      txn.add(record("big", i));
+    }
+    Assert.assertTrue(buffer.getMemoryUsed() <= 5000);
+    Assert.assertTrue(spilledRecords.getCount() > 80);
+    // Small segments are rolled over
+    Assert.assertTrue(buffer.getSegmentCount() > 1);
+    Assert.assertEquals(100, txn.size());
+    Assert.assertEquals(100, txn.tail().seq);
+
+    // Iteration doesn't change the transaction, only the first record can be removed through the iterator
+    int expected = 1;
+    for (RecordSequence record : txn) {
+      Assert.assertEquals(expected++, record.seq);
+    }
+    Assert.assertEquals(101, expected);
+    Iterator<RecordSequence> it = txn.iterator();
+    while (it.hasNext() && it.next().seq <= 30) {
+      it.remove();
+    }
+    Assert.assertEquals(70, txn.size());
+    Assert.assertEquals(31, txn.peek().seq);
+
+    txn.close();
+    Assert.assertEquals(0, buffer.getSpilledBytes());
+    Assert.assertTrue(buffer.getSegmentCount() <= 1);
+  }
+
+  @Test
+  public void testCloseRemovesFiles() {
+    HashQueue<RecordSequence> txn = buffer.newTransaction();
+    for (int i = 1; i <= 50; i++) {
+      txn.add(record("a", i));
+    }
+    Assert.assertTrue(directory.list().length > 0);
+    buffer.close();
+    Assert.assertFalse(directory.exists());
+  }
+}
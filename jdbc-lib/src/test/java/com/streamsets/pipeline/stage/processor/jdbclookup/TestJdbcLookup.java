@@ -259,6 +259,103 @@ public class TestJdbcLookup {
     Assert.assertEquals(3, outputRecords.get(2).get("[2]").getValueAsInteger());
   }
 
+  @Test
+  public void testBatchLookup() throws Exception {
+    List<JdbcFieldColumnMapping> columnMappings = ImmutableList.of(new JdbcFieldColumnMapping("P_ID", "[2]"));
+
+    JdbcLookupDProcessor processor = createProcessor();
+
+    ProcessorRunner processorRunner = new ProcessorRunner.Builder(JdbcLookupDProcessor.class, processor)
+        .addConfiguration("query", listQuery)
+        .addConfiguration("columnMappings", columnMappings)
+        .addConfiguration("multipleValuesBehavior", MultipleValuesBehavior.FIRST_ONLY)
+        .addConfiguration("missingValuesBehavior", MissingValuesBehavior.SEND_TO_ERROR)
+        .addConfiguration("maxClobSize", 1000)
+        .addConfiguration("maxBlobSize", 1000)
+        .addConfiguration("batchLookup", true)
+        .setOnRecordError(OnRecordError.TO_ERROR)
+        .addOutputLane("lane")
+        .build();
+
+    List<Record> records = new ArrayList<>();
+    for (String[] name : new String[][] {
+        {"Adam", "Kunicki"},
+        {"Jon", "Natkins"},
+        {"Pat", "Patterson"},
+        {"Adam", "Kunicki"}
+    }) {
+      Record record = RecordCreator.create();
+      List<Field> fields = new ArrayList<>();
+      fields.add(Field.create(name[0]));
+      fields.add(Field.create(name[1]));
+      record.set(Field.create(fields));
+      records.add(record);
+    }
+
+    processorRunner.runInit();
+    try {
+      List<Record> outputRecords = processorRunner.runProcess(records).getRecords().get("lane");
+
+      // Records keep their order, the one without any matching row goes to error
+      Assert.assertEquals(3, outputRecords.size());
+      Assert.assertEquals(1, outputRecords.get(0).get("[2]").getValueAsInteger());
+      Assert.assertEquals(2, outputRecords.get(1).get("[2]").getValueAsInteger());
+      Assert.assertEquals(1, outputRecords.get(2).get("[2]").getValueAsInteger());
+      Assert.assertEquals(1, processorRunner.getErrorRecords().size());
+      Assert.assertEquals("Pat", processorRunner.getErrorRecords().get(0).get("[0]").getValueAsString());
+    } finally {
+      processorRunner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testBatchLookupFailedQuery() throws Exception {
+    List<JdbcFieldColumnMapping> columnMappings = ImmutableList.of(new JdbcFieldColumnMapping("P_ID", "[2]"));
+
+    JdbcLookupDProcessor processor = createProcessor();
+
+    ProcessorRunner processorRunner = new ProcessorRunner.Builder(JdbcLookupDProcessor.class, processor)
+        .addConfiguration("query", listQuery)
+        .addConfiguration("columnMappings", columnMappings)
+        .addConfiguration("multipleValuesBehavior", MultipleValuesBehavior.FIRST_ONLY)
+        .addConfiguration("missingValuesBehavior", MissingValuesBehavior.SEND_TO_ERROR)
+        .addConfiguration("maxClobSize", 1000)
+        .addConfiguration("maxBlobSize", 1000)
+        .addConfiguration("batchLookup", true)
+        .setOnRecordError(OnRecordError.TO_ERROR)
+        .addOutputLane("lane")
+        .build();
+
+    List<Record> records = new ArrayList<>();
+    for (String[] name : new String[][] {
+        {"Adam", "Kunicki"},
+        // Breaks the SQL syntax of the query
+        {"Pat", "O'Brien"},
+        {"Jon", "Natkins"}
+    }) {
+      Record record = RecordCreator.create();
+      List<Field> fields = new ArrayList<>();
+      fields.add(Field.create(name[0]));
+      fields.add(Field.create(name[1]));
+      record.set(Field.create(fields));
+      records.add(record);
+    }
+
+    processorRunner.runInit();
+    try {
+      List<Record> outputRecords = processorRunner.runProcess(records).getRecords().get("lane");
+
+      // Only the record with the failed query goes to error
+      Assert.assertEquals(2, outputRecords.size());
+      Assert.assertEquals(1, outputRecords.get(0).get("[2]").getValueAsInteger());
+      Assert.assertEquals(2, outputRecords.get(1).get("[2]").getValueAsInteger());
+      Assert.assertEquals(1, processorRunner.getErrorRecords().size());
+      Assert.assertEquals("Pat", processorRunner.getErrorRecords().get(0).get("[0]").getValueAsString());
+    } finally {
+      processorRunner.runDestroy();
+    }
+  }
+
   @Test
   public void testMultiRecordMissingRow() throws Exception {
     thrown.expect(OnRecordErrorException.class);
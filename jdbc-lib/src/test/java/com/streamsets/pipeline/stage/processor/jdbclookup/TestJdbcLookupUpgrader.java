@@ -56,4 +56,39 @@ public class TestJdbcLookupUpgrader {
 
     UpgraderTestUtils.assertExists(upgradedConfigs, "missingValuesBehavior", MissingValuesBehavior.SEND_TO_ERROR);
   }
+
+  @Test
+  public void testUpgradeV3toV4() throws StageException {
+    List<Config> configs = new ArrayList<>();
+
+    JdbcLookupProcessorUpgrader upgrader = new JdbcLookupProcessorUpgrader();
+    List<Config> upgradedConfigs = upgrader.upgrade("lib", "stage", "stageInst", 3, 4, configs);
+
+    UpgraderTestUtils.assertExists(upgradedConfigs, "batchLookup", false);
+  }
+
+  @Test
+  public void testUpgradeV4toV5() throws StageException {
+    List<Config> configs = new ArrayList<>();
+
+    JdbcLookupProcessorUpgrader upgrader = new JdbcLookupProcessorUpgrader();
+    List<Config> upgradedConfigs = upgrader.upgrade("lib", "stage", "stageInst", 4, 5, configs);
+
+    UpgraderTestUtils.assertExists(upgradedConfigs, "cacheConfig.missingValueExpirationTime", -1);
+  }
+
+  @Test
+  public void testUpgradeV1toV5() throws StageException {
+    List<Config> configs = new ArrayList<>();
+
+    JdbcLookupProcessorUpgrader upgrader = new JdbcLookupProcessorUpgrader();
+    List<Config> upgradedConfigs = upgrader.upgrade("lib", "stage", "stageInst", 1, 5, configs);
+
+    UpgraderTestUtils.assertAllExist(upgradedConfigs,
+        "cacheConfig.enabled",
+        "missingValuesBehavior",
+        "batchLookup",
+        "cacheConfig.missingValueExpirationTime"
+    );
+  }
 }
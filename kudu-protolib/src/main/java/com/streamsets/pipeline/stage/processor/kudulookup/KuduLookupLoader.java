@@ -20,11 +20,12 @@ import com.codahale.metrics.Meter;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.stumbleupon.async.Deferred;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.base.OnRecordErrorException;
-import com.streamsets.pipeline.stage.common.MissingValuesBehavior;
+import com.streamsets.pipeline.stage.processor.kv.BatchLookupLoader;
 import com.streamsets.pipeline.stage.lib.kudu.Errors;
 import com.streamsets.pipeline.stage.lib.kudu.KuduUtils;
 import com.streamsets.pipeline.api.impl.Utils;
@@ -46,10 +47,13 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 
-public class KuduLookupLoader extends CacheLoader<KuduLookupKey, List<Map<String, Field>>> {
+public class KuduLookupLoader extends BatchLookupLoader<KuduLookupKey, List<Map<String, Field>>> {
   private static final Logger LOG = LoggerFactory.getLogger(KuduLookupLoader.class);
+  // Upper bound of scanners open at the same time, each of them holds a scanner on the tablet server
+  static final int MAX_CONCURRENT_SCANNERS = 64;
 
   private final AsyncKuduClient kuduClient;
   private final Meter selectMeter;
@@ -103,101 +107,151 @@ public class KuduLookupLoader extends CacheLoader<KuduLookupKey, List<Map<String
   }
 
   @Override
-  public List<Map<String, Field>> load(KuduLookupKey key) throws Exception {
-    List<Map<String, Field>> lookupItems = new ArrayList<>();
-    AsyncKuduScanner scanner = null;
+  protected Object getPartition(KuduLookupKey key) {
+    return key.tableName;
+  }
+
+  /**
+   * Looks up given keys of the same table. Scans of up to {@link #MAX_CONCURRENT_SCANNERS} keys are started at once,
+   * the asynchronous client runs them against their tablets concurrently.
+   */
+  @Override
+  protected Map<KuduLookupKey, Optional<List<Map<String, Field>>>> loadPartition(List<KuduLookupKey> keys)
+      throws Exception {
+    Map<KuduLookupKey, Optional<List<Map<String, Field>>>> values = new HashMap<>(keys.size());
+    int maxScanners = Math.min(keys.size(), MAX_CONCURRENT_SCANNERS);
+    List<AsyncKuduScanner> scanners = new ArrayList<>(maxScanners);
+    List<Deferred<RowResultIterator>> firstRows = new ArrayList<>(maxScanners);
     Timer.Context t = selectTimer.time();
 
-    KuduTable kuduTable = null;
+    KuduTable kuduTable = getTable(keys.get(0).tableName);
     try {
-      kuduTable = tableCache.get(key.tableName);
+      for (int start = 0; start < keys.size(); start += maxScanners) {
+        List<KuduLookupKey> window = keys.subList(start, Math.min(start + maxScanners, keys.size()));
+        for (KuduLookupKey key : window) {
+          // Scanner is not reusable. Need to build per key.
+          AsyncKuduScanner scanner = buildScanner(key, kuduTable);
+          scanners.add(scanner);
+          firstRows.add(scanner.nextRows());
+        }
+        for (int i = 0; i < window.size(); i++) {
+          List<Map<String, Field>> lookupItems = readRows(scanners.get(i), firstRows.get(i), kuduTable.getSchema());
+          values.put(window.get(i), lookupItems.isEmpty() ? Optional.empty() : Optional.of(lookupItems));
+        }
+        closeScanners(scanners);
+        firstRows.clear();
+      }
+    } catch (KuduException e) {
+      // Exception executing query
+      LOG.error(Errors.KUDU_03.getMessage(), e.toString(), e);
+      throw new StageException(Errors.KUDU_03, e.toString(), e);
+    } finally {
+      closeScanners(scanners);
+      // If the timer wasn't stopped due to exception yet, stop it now
+      if(t != null) {
+        t.stop();
+      }
+      selectMeter.mark(keys.size());
+    }
+    return values;
+  }
+
+  private static void closeScanners(List<AsyncKuduScanner> scanners) {
+    for (AsyncKuduScanner scanner : scanners) {
+      scanner.close();
+    }
+    scanners.clear();
+  }
+
+  /**
+   * Returns values to use for records without any matching row: the configured default values, if any.
+   */
+  public List<Map<String, Field>> getDefaultValues(String tableName) throws StageException {
+    Schema schema = getTable(tableName).getSchema();
+    Map<String, Field> addDefaults = new HashMap<>();
+    for (Map.Entry<String, String> output: outputColumnToField.entrySet()) {
+      ColumnSchema columnSchema = schema.getColumn(output.getKey());
+      if (!outputDefault.get(output.getKey()).isEmpty()) {
+        addDefaults.put(output.getValue(), Field.create(
+            KuduUtils.convertFromKuduType(columnSchema.getType()),
+            outputDefault.get(output.getKey())
+            )
+        );
+      }
+    }
+    List<Map<String, Field>> lookupItems = new ArrayList<>(1);
+    lookupItems.add(addDefaults);
+    return lookupItems;
+  }
+
+  private KuduTable getTable(String tableName) throws StageException {
+    try {
+      return tableCache.get(tableName);
     } catch (ExecutionException ex) {
       throw new OnRecordErrorException(Errors.KUDU_03, ex.getMessage(), ex);
     }
+  }
 
-    // Scanner is not reusable. Need to build per record.
+  private AsyncKuduScanner buildScanner(KuduLookupKey key, KuduTable kuduTable) throws StageException {
     AsyncKuduScanner.AsyncKuduScannerBuilder scannerBuilder = kuduClient.newScannerBuilder(kuduTable)
         .setProjectedColumnNames(projectColumns);
+    // Set key columns to scanner if specified in Key Column Mapping.
+    // We removed the restriction that requires primary keys here.
+    for (String keyColumn : keyColumns) {
+      addPredicate(key.columns.get(keyColumn), scannerBuilder, kuduTable, keyColumn);
+    }
     try {
-      Schema schema = kuduTable.getSchema();
-      // Set key columns to scanner if specified in Key Column Mapping.
-      // We removed the restriction that requires primary keys here.
-      for (String keyColumn : keyColumns) {
-        addPredicate(key.columns.get(keyColumn), scannerBuilder, kuduTable, keyColumn);
-      }
-      try {
-        scanner = scannerBuilder.build();
-      } catch (IllegalArgumentException ex) {
-        // Thrown here if mapping config has columns that don't exist in the table. Worth stopping pipeline
-        throw new StageException(Errors.KUDU_02, ex);
-      }
+      return scannerBuilder.build();
+    } catch (IllegalArgumentException ex) {
+      // Thrown here if mapping config has columns that don't exist in the table. Worth stopping pipeline
+      throw new StageException(Errors.KUDU_02, ex);
+    }
+  }
 
-      while (scanner.hasMoreRows()) {
-        RowResultIterator results = scanner.nextRows().join();
-        while (results.hasNext()) {
-          RowResult result = results.next();
-          if (LOG.isDebugEnabled()) {
-            LOG.debug("Found row: {}", result.toStringLongFormat());
-          }
-          LinkedHashMap<String, Field> fields = new LinkedHashMap<>(outputColumnToField.size());
-          for (Map.Entry<String, String> column : outputColumnToField.entrySet()) {
-            Field field = null;
-            Type type = null;
-            String columnName = column.getKey();
-            if (result.isNull(columnName)){
-              // No record in necessary column. Apply default value or send to error
-              if (conf.ignoreMissing) {
-                // Apply default value only when default value is configured
-                if (!outputDefault.get(columnName).isEmpty()) {
-                  ColumnSchema columnSchema = schema.getColumn(columnName);
-                  field = Field.create(
-                      KuduUtils.convertFromKuduType(columnSchema.getType()),
-                      outputDefault.get(columnName)
-                  );
-                }
-              } else {
-                // Can't ignore missing value thus send to error
-                throw new OnRecordErrorException(Errors.KUDU_35, columnName);
+  private List<Map<String, Field>> readRows(
+      AsyncKuduScanner scanner,
+      Deferred<RowResultIterator> firstRows,
+      Schema schema
+  ) throws Exception {
+    List<Map<String, Field>> lookupItems = new ArrayList<>();
+    RowResultIterator results = firstRows.join();
+    while (results != null) {
+      while (results.hasNext()) {
+        RowResult result = results.next();
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("Found row: {}", result.toStringLongFormat());
+        }
+        LinkedHashMap<String, Field> fields = new LinkedHashMap<>(outputColumnToField.size());
+        for (Map.Entry<String, String> column : outputColumnToField.entrySet()) {
+          Field field = null;
+          Type type = null;
+          String columnName = column.getKey();
+          if (result.isNull(columnName)){
+            // No record in necessary column. Apply default value or send to error
+            if (conf.ignoreMissing) {
+              // Apply default value only when default value is configured
+              if (!outputDefault.get(columnName).isEmpty()) {
+                ColumnSchema columnSchema = schema.getColumn(columnName);
+                field = Field.create(
+                    KuduUtils.convertFromKuduType(columnSchema.getType()),
+                    outputDefault.get(columnName)
+                );
               }
             } else {
-              type = result.getColumnType(column.getKey());
-              field = KuduUtils.createField(result, columnName, type);
-            }
-            if (field != null) {
-              fields.put(column.getValue(), field);
+              // Can't ignore missing value thus send to error
+              throw new OnRecordErrorException(Errors.KUDU_35, columnName);
             }
+          } else {
+            type = result.getColumnType(column.getKey());
+            field = KuduUtils.createField(result, columnName, type);
           }
-          lookupItems.add(fields);
-        }
-      }
-      // No data found. Apply default if 'pass to next stage' is set and default value is configured
-      if (lookupItems.isEmpty() && conf.missingLookupBehavior == MissingValuesBehavior.PASS_RECORD_ON) {
-        Map<String, Field> addDefaults = new HashMap<>();
-        for (Map.Entry<String, String> output: outputColumnToField.entrySet()) {
-          ColumnSchema columnSchema = schema.getColumn(output.getKey());
-          if (!outputDefault.get(output.getKey()).isEmpty()) {
-            addDefaults.put(output.getValue(), Field.create(
-                KuduUtils.convertFromKuduType(columnSchema.getType()),
-                outputDefault.get(output.getKey())
-                )
-            );
+          if (field != null) {
+            fields.put(column.getValue(), field);
           }
         }
-        lookupItems.add(addDefaults);
-      }
-    } catch (KuduException e) {
-      // Exception executing query
-      LOG.error(Errors.KUDU_03.getMessage(), e.toString(), e);
-      throw new StageException(Errors.KUDU_03, e.toString(), e);
-    } finally {
-      if (scanner != null) {
-        scanner.close();
-      }
-      // If the timer wasn't stopped due to exception yet, stop it now
-      if(t != null) {
-        t.stop();
+        lookupItems.add(fields);
       }
-      selectMeter.mark();
+      results = scanner.hasMoreRows() ? scanner.nextRows().join() : null;
     }
     return lookupItems;
   }
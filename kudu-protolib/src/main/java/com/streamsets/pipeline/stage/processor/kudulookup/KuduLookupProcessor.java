@@ -17,6 +17,7 @@ package com.streamsets.pipeline.stage.processor.kudulookup;
 
 import com.google.common.base.Throwables;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.streamsets.pipeline.api.Batch;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Record;
@@ -43,10 +44,15 @@ import org.apache.kudu.client.OperationResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.HashMap;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 public class KuduLookupProcessor extends SingleLaneRecordProcessor {
@@ -69,8 +75,10 @@ public class KuduLookupProcessor extends SingleLaneRecordProcessor {
   private ELEval tableNameEval;
   private ELVars tableNameVars;
 
-  private LoadingCache<KuduLookupKey, List<Map<String, Field>>> cache;
+  private LoadingCache<KuduLookupKey, Optional<List<Map<String, Field>>>> cache;
   private CacheCleaner cacheCleaner;
+  // Values of all keys of the batch being processed
+  private Map<KuduLookupKey, Optional<List<Map<String, Field>>>> batchValues = Collections.emptyMap();
 
   public KuduLookupProcessor(KuduLookupConfig conf) {
     this.conf = conf;
@@ -156,7 +164,7 @@ public class KuduLookupProcessor extends SingleLaneRecordProcessor {
 
     if (issues.isEmpty()) {
       store = new KuduLookupLoader(getContext(), kuduClient, keyColumns, columnToField, conf);
-      cache = LookupUtils.buildCache(store, conf.cache);
+      cache = LookupUtils.buildCache(store, conf.cache, Optional.empty(), getContext());
       cacheCleaner = new CacheCleaner(cache, "KuduLookupProcessor", 10 * 60 * 1000);
     }
     return issues;
@@ -196,32 +204,71 @@ public class KuduLookupProcessor extends SingleLaneRecordProcessor {
       // No records - take the opportunity to clean up the cache so that we don't hold on to memory indefinitely
       cacheCleaner.periodicCleanUp();
     }
-    super.process(batch, batchMaker);
+    batchValues = lookupBatch(batch);
+    try {
+      super.process(batch, batchMaker);
+    } finally {
+      batchValues = Collections.emptyMap();
+    }
   }
 
-  /** {@inheritDoc} */
-  @Override
-  protected void process(Record record, SingleLaneProcessor.SingleLaneBatchMaker batchMaker) throws StageException {
+  /**
+   * Looks up distinct keys of all records of the batch at once. Failures are not reported here, records are then
+   * looked up one by one so that errors are attributed to the records causing them.
+   */
+  private Map<KuduLookupKey, Optional<List<Map<String, Field>>>> lookupBatch(Batch batch) {
+    Set<KuduLookupKey> keys = new LinkedHashSet<>();
+    Iterator<Record> records = batch.getRecords();
+    while (records.hasNext()) {
+      Record record = records.next();
+      try {
+        keys.add(generateLookupKey(record, getTableName(record)));
+      } catch (StageException e) { // NOSONAR
+        // Reported once the record itself is processed
+      }
+    }
+    if (keys.size() < 2) {
+      return Collections.emptyMap();
+    }
+
+    try {
+      return cache.getAll(keys);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      LOG.debug("Batch lookup failed, looking up records one by one: {}", e.toString(), e);
+      return Collections.emptyMap();
+    }
+  }
+
+  private String getTableName(Record record) throws StageException {
     RecordEL.setRecordInContext(tableNameVars, record);
     String tableName = tableNameEval.eval(tableNameVars, conf.kuduTableTemplate, String.class);
     if (!conf.caseSensitive) {
       tableName = tableName.toLowerCase();
     }
+    return tableName;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  protected void process(Record record, SingleLaneProcessor.SingleLaneBatchMaker batchMaker) throws StageException {
+    String tableName = getTableName(record);
     LOG.trace("Processing record:{}  TableName={}", record.toString(), tableName);
 
     try {
       try {
         KuduLookupKey key = generateLookupKey(record, tableName);
-        List<Map<String, Field>> values = cache.get(key);
-        if (values.isEmpty()) {
+        Optional<List<Map<String, Field>>> lookupValues = batchValues.get(key);
+        if (lookupValues == null) {
+          lookupValues = cache.get(key);
+        }
+        if (!lookupValues.isPresent() && conf.missingLookupBehavior == MissingValuesBehavior.SEND_TO_ERROR) {
           // No record found
-          if (conf.missingLookupBehavior == MissingValuesBehavior.SEND_TO_ERROR) {
-            errorRecordHandler.onError(new OnRecordErrorException(record, Errors.KUDU_31));
-          } else {
-            // Configured to 'Send to next stage' and 'pass as it is'
-            batchMaker.addRecord(record);
-          }
+          errorRecordHandler.onError(new OnRecordErrorException(record, Errors.KUDU_31));
         } else {
+          // Configured to 'Send to next stage', apply default values if there are any
+          List<Map<String, Field>> values = lookupValues.isPresent()
+              ? lookupValues.get()
+              : store.getDefaultValues(tableName);
           switch (conf.multipleValuesBehavior) {
             case FIRST_ONLY:
               setFieldsInRecord(record, values.get(0));
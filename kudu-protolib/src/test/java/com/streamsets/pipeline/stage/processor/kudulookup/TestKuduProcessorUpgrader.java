@@ -36,4 +36,15 @@ public class TestKuduProcessorUpgrader {
     Assert.assertEquals("conf.missingLookupBehavior", addedConf1.getName());
     Assert.assertEquals(MissingValuesBehavior.SEND_TO_ERROR, addedConf1.getValue());
   }
+
+  @Test
+  public void testUpgradeV2toV3() throws StageException {
+    List<Config> configs = new ArrayList<>();
+    KuduProcessorUpgrader upgrader = new KuduProcessorUpgrader();
+    List<Config> upgradedConfigs = upgrader.upgrade("lib", "stage", "stageInst", 2, 3, configs);
+    Assert.assertEquals(1, upgradedConfigs.size());
+    Config addedConf1 = upgradedConfigs.get(0);
+    Assert.assertEquals("conf.cache.missingValueExpirationTime", addedConf1.getName());
+    Assert.assertEquals(-1, addedConf1.getValue());
+  }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.kv;
+
+import com.google.common.cache.CacheLoader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cache loader that looks up all keys requested at once (e.g. all distinct keys of a batch) with a single multi-get
+ * per partition of the underlying store, such as a Kudu table. Stores whose client already runs a multi-get in
+ * parallel are expected to do so within {@link #loadPartition(List)}.
+ *
+ * Missing values are returned as empty optionals so that they can be remembered by {@link OptionalLoadingCache}.
+ */
+public abstract class BatchLookupLoader<Key, Value> extends CacheLoader<Key, Optional<Value>> {
+
+  /**
+   * Returns partition of the store that holds given key. Keys of the same partition are loaded together.
+   */
+  protected abstract Object getPartition(Key key) throws Exception;
+
+  /**
+   * Loads values of given keys that all belong to the same partition. Keys without value can be left out of the
+   * returned map.
+   */
+  protected abstract Map<Key, Optional<Value>> loadPartition(List<Key> keys) throws Exception;
+
+  @Override
+  public Optional<Value> load(Key key) throws Exception {
+    Optional<Value> value = loadPartition(Collections.singletonList(key)).get(key);
+    return value == null ? Optional.empty() : value;
+  }
+
+  @Override
+  public Map<Key, Optional<Value>> loadAll(Iterable<? extends Key> keys) throws Exception {
+    Map<Object, List<Key>> partitions = new LinkedHashMap<>();
+    for (Key key : keys) {
+      partitions.computeIfAbsent(getPartition(key), partition -> new ArrayList<>()).add(key);
+    }
+
+    Map<Key, Optional<Value>> values = new HashMap<>();
+    for (List<Key> partitionKeys : partitions.values()) {
+      values.putAll(loadPartition(partitionKeys));
+    }
+
+    // Cache requires a value for every requested key
+    for (Key key : keys) {
+      values.putIfAbsent(key, Optional.empty());
+    }
+    return values;
+  }
+}
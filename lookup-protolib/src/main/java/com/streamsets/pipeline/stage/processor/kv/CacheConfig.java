@@ -100,4 +100,22 @@ public class CacheConfig {
       group = "#0"
   )
   public boolean retryOnCacheMiss = false;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      label = "Missing Value Expiration Time",
+      min = -1,
+      defaultValue = "-1",
+      description = "Time after a look up that didn't find any value is retried, in the configured time unit. Lets" +
+        " missing values expire sooner (or later) than found values. Default value is -1 which uses the expiration" +
+        " time and eviction policy of found values.",
+      displayPosition = 160,
+      dependencies = {
+          @Dependency(configName = "enabled", triggeredByValues = "true"),
+          @Dependency(configName = "retryOnCacheMiss", triggeredByValues = "false")
+      },
+      group = "#0"
+  )
+  public long missingValueExpirationTime = -1;
 }
@@ -15,9 +15,11 @@
  */
 package com.streamsets.pipeline.stage.processor.kv;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.impl.Utils;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -44,18 +46,38 @@ public class LookupUtils {
 
   @NotNull
   @SuppressWarnings("unchecked")
-  public static<Key, Value> LoadingCache<Key, Optional<Value>> buildCache(
+  public static<Key, Value> OptionalLoadingCache<Key, Value> buildCache(
     CacheLoader<Key, Optional<Value>> cacheLoader,
     CacheConfig conf,
     Optional<Value> defaultValue
   ) {
+    LoadingCache<Key, Optional<Value>> cache = createBuilder(conf).build(cacheLoader);
+    Cache<Key, Boolean> missingValues = null;
+    if(!conf.retryOnCacheMiss) {
+      missingValues = createMissingValuesBuilder(conf).build();
+    }
     return new OptionalLoadingCache(
       !conf.retryOnCacheMiss,
-      createBuilder(conf).build(cacheLoader),
+      cache,
+      missingValues,
       defaultValue
     );
   }
 
+  /**
+   * Same as {@link #buildCache(CacheLoader, CacheConfig, Optional)}, additionally reporting cache hits, misses and
+   * hits of remembered missing values as meters of the given stage.
+   */
+  @NotNull
+  public static<Key, Value> OptionalLoadingCache<Key, Value> buildCache(
+    CacheLoader<Key, Optional<Value>> cacheLoader,
+    CacheConfig conf,
+    Optional<Value> defaultValue,
+    Stage.Context context
+  ) {
+    return LookupUtils.<Key, Value>buildCache(cacheLoader, conf, defaultValue).withMetrics(context);
+  }
+
   private static CacheBuilder createBuilder(CacheConfig conf) {
     CacheBuilder cacheBuilder = CacheBuilder.newBuilder();
 
@@ -100,4 +122,16 @@ public class LookupUtils {
 
     return cacheBuilder;
   }
+
+  // Must be called after createBuilder() as that one normalizes the maximal size
+  private static CacheBuilder createMissingValuesBuilder(CacheConfig conf) {
+    if(conf.missingValueExpirationTime < 0) {
+      return createBuilder(conf);
+    }
+
+    // Missing values always expire after write, looking them up shouldn't postpone the retry
+    return CacheBuilder.newBuilder()
+        .maximumSize(conf.maxSize)
+        .expireAfterWrite(conf.missingValueExpirationTime, conf.timeUnit);
+  }
 }
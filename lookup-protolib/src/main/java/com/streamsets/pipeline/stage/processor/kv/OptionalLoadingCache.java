@@ -15,13 +15,19 @@
  */
 package com.streamsets.pipeline.stage.processor.kv;
 
+import com.codahale.metrics.Meter;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
+import com.streamsets.pipeline.api.Stage;
 
 import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
@@ -30,23 +36,50 @@ import java.util.concurrent.ExecutionException;
  * Wrapper for LoadingCache that enables implementation of cache miss and returning static
  * default values. The default values are always removed from the cache and hence values for
  * them will be looked up each time.
+ *
+ * Missing values can optionally be remembered in a separate cache that only holds the keys, which
+ * allows them to expire independently of the found values.
  */
 public class OptionalLoadingCache<Key, Value> implements LoadingCache<Key, Optional<Value>> {
 
   private final boolean cacheMissingValues;
   private final LoadingCache<Key, Optional<Value>> delegate;
+  private final Cache<Key, Boolean> missingValues;
   private final Optional<Value> defaultValue;
+  private Meter hitMeter;
+  private Meter missMeter;
+  private Meter negativeHitMeter;
 
   public OptionalLoadingCache(
     boolean cacheMissingValues,
     LoadingCache<Key, Optional<Value>> loadingCache,
     Optional<Value> defaultValue
+  ) {
+    this(cacheMissingValues, loadingCache, null, defaultValue);
+  }
+
+  public OptionalLoadingCache(
+    boolean cacheMissingValues,
+    LoadingCache<Key, Optional<Value>> loadingCache,
+    @Nullable Cache<Key, Boolean> missingValues,
+    Optional<Value> defaultValue
   ) {
     this.cacheMissingValues = cacheMissingValues;
     this.delegate = loadingCache;
+    this.missingValues = missingValues;
     this.defaultValue = defaultValue;
   }
 
+  /**
+   * Reports cache hits, misses and hits of remembered missing values as meters of given stage.
+   */
+  public OptionalLoadingCache<Key, Value> withMetrics(Stage.Context context) {
+    hitMeter = context.createMeter("Lookup Cache Hits");
+    missMeter = context.createMeter("Lookup Cache Misses");
+    negativeHitMeter = context.createMeter("Lookup Cache Negative Hits");
+    return this;
+  }
+
   // Internal method to ensure that we return and not cache the default value if needed
   private Optional<Value> valueOrDefault(Key key, Optional<Value> value) {
     // If value is present simply return it
@@ -54,28 +87,87 @@ public class OptionalLoadingCache<Key, Value> implements LoadingCache<Key, Optio
       return value;
     }
 
-    if(!cacheMissingValues) {
+    if(missingValues != null) {
+      // Missing values are only remembered by the (compact) missing values cache
+      delegate.invalidate(key);
+      if(cacheMissingValues) {
+        missingValues.put(key, Boolean.TRUE);
+      }
+    } else if(!cacheMissingValues) {
       delegate.invalidate(key);
     }
 
     return defaultValue;
   }
 
+  private boolean isKnownMissing(Object key) {
+    if(missingValues != null && missingValues.getIfPresent(key) != null) {
+      mark(negativeHitMeter);
+      return true;
+    }
+    return false;
+  }
+
+  private void recordLookup(Key key) {
+    if(hitMeter == null) {
+      return;
+    }
+    Optional<Value> cached = delegate.getIfPresent(key);
+    if(cached == null) {
+      mark(missMeter);
+    } else if(cached.isPresent()) {
+      mark(hitMeter);
+    } else {
+      mark(negativeHitMeter);
+    }
+  }
+
+  private static void mark(Meter meter) {
+    if(meter != null) {
+      meter.mark();
+    }
+  }
+
   @Override
   public Optional<Value> get(Key key) throws ExecutionException {
+    if(isKnownMissing(key)) {
+      return defaultValue;
+    }
+    recordLookup(key);
     return valueOrDefault(key, delegate.get(key));
   }
 
   @Override
   public Optional<Value> getUnchecked(Key key) {
+    if(isKnownMissing(key)) {
+      return defaultValue;
+    }
+    recordLookup(key);
     return valueOrDefault(key, delegate.getUnchecked(key));
   }
 
   @Override
   public ImmutableMap<Key, Optional<Value>> getAll(Iterable<? extends Key> keys) throws ExecutionException {
-    throw new UnsupportedOperationException("getAll");
+    Map<Key, Optional<Value>> result = new LinkedHashMap<>();
+    Set<Key> toLoad = new LinkedHashSet<>();
+    for (Key key : keys) {
+      if(result.containsKey(key) || toLoad.contains(key)) {
+        continue;
+      }
+      if(isKnownMissing(key)) {
+        result.put(key, defaultValue);
+      } else {
+        recordLookup(key);
+        toLoad.add(key);
+      }
+    }
+    if(!toLoad.isEmpty()) {
+      for (Map.Entry<Key, Optional<Value>> entry : delegate.getAll(toLoad).entrySet()) {
+        result.put(entry.getKey(), valueOrDefault(entry.getKey(), entry.getValue()));
+      }
+    }
+    return ImmutableMap.copyOf(result);
   }
-
   @Override
   public Optional<Value> apply(Key key) {
     return getUnchecked(key);
@@ -95,47 +187,76 @@ public class OptionalLoadingCache<Key, Value> implements LoadingCache<Key, Optio
   @Nullable
   @Override
   public Optional<Value> getIfPresent(Object key) {
+    if(missingValues != null && missingValues.getIfPresent(key) != null) {
+      return defaultValue;
+    }
     return delegate.getIfPresent(key);
   }
 
   @Override
   public Optional<Value> get(Key key, Callable<? extends Optional<Value>> valueLoader) throws ExecutionException {
+    if(isKnownMissing(key)) {
+      return defaultValue;
+    }
     return valueOrDefault(key, delegate.get(key, valueLoader));
   }
 
   @Override
   public ImmutableMap<Key, Optional<Value>> getAllPresent(Iterable<?> keys) {
-    return delegate.getAllPresent(keys);
+    if(missingValues == null) {
+      return delegate.getAllPresent(keys);
+    }
+    // Keys remembered as missing are present as well, with the default value
+    Map<Key, Optional<Value>> result = new LinkedHashMap<>(delegate.getAllPresent(keys));
+    for (Key key : missingValues.getAllPresent(keys).keySet()) {
+      result.putIfAbsent(key, defaultValue);
+    }
+    return ImmutableMap.copyOf(result);
   }
 
   @Override
   public void put(Key key, Optional<Value> value) {
+    if(missingValues != null) {
+      missingValues.invalidate(key);
+    }
     delegate.put(key, value);
   }
 
   @Override
   public void putAll(Map<? extends Key, ? extends Optional<Value>> m) {
+    if(missingValues != null) {
+      missingValues.invalidateAll(m.keySet());
+    }
     delegate.putAll(m);
   }
 
   @Override
   public void invalidate(Object key) {
+    if(missingValues != null) {
+      missingValues.invalidate(key);
+    }
     delegate.invalidate(key);
   }
 
   @Override
   public void invalidateAll(Iterable<?> keys) {
+    if(missingValues != null) {
+      missingValues.invalidateAll(keys);
+    }
     delegate.invalidateAll(keys);
   }
 
   @Override
   public void invalidateAll() {
+    if(missingValues != null) {
+      missingValues.invalidateAll();
+    }
     delegate.invalidateAll();
   }
 
   @Override
   public long size() {
-    return delegate.size();
+    return delegate.size() + (missingValues == null ? 0 : missingValues.size());
   }
 
   @Override
@@ -145,6 +266,9 @@ public class OptionalLoadingCache<Key, Value> implements LoadingCache<Key, Optio
 
   @Override
   public void cleanUp() {
+    if(missingValues != null) {
+      missingValues.cleanUp();
+    }
     delegate.cleanUp();
   }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.kv;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+public class TestBatchLookupLoader {
+
+  /**
+   * Store holding even numbers only, partitioned by the number of tens.
+   */
+  private static class EvenNumbersLoader extends BatchLookupLoader<Integer, String> {
+    private final List<List<Integer>> loadedPartitions = new ArrayList<>();
+
+    @Override
+    protected Object getPartition(Integer key) {
+      return key / 10;
+    }
+
+    @Override
+    protected Map<Integer, Optional<String>> loadPartition(List<Integer> keys) {
+      loadedPartitions.add(keys);
+      Map<Integer, Optional<String>> values = new HashMap<>();
+      for (Integer key : keys) {
+        if (key % 2 == 0) {
+          values.put(key, Optional.of("v" + key));
+        }
+      }
+      return values;
+    }
+  }
+
+  private static CacheConfig createCacheConfig(long missingValueExpirationTime) {
+    CacheConfig conf = new CacheConfig();
+    conf.enabled = true;
+    conf.evictionPolicyType = EvictionPolicyType.EXPIRE_AFTER_WRITE;
+    conf.expirationTime = 1;
+    conf.timeUnit = TimeUnit.HOURS;
+    conf.missingValueExpirationTime = missingValueExpirationTime;
+    return conf;
+  }
+
+  @Test
+  public void testLoadAllByPartition() throws Exception {
+    EvenNumbersLoader loader = new EvenNumbersLoader();
+    OptionalLoadingCache<Integer, String> cache = LookupUtils.buildCache(
+        loader,
+        createCacheConfig(-1),
+        Optional.of("default")
+    );
+
+    Map<Integer, Optional<String>> values = cache.getAll(ImmutableList.of(1, 2, 12, 2, 13, 1));
+    Assert.assertEquals(4, values.size());
+    Assert.assertEquals(Optional.of("default"), values.get(1));
+    Assert.assertEquals(Optional.of("v2"), values.get(2));
+    Assert.assertEquals(Optional.of("v12"), values.get(12));
+    Assert.assertEquals(Optional.of("default"), values.get(13));
+
+    // One multi-get per partition, each key looked up once
+    Assert.assertEquals(2, loader.loadedPartitions.size());
+    Assert.assertTrue(loader.loadedPartitions.contains(ImmutableList.of(1, 2)));
+    Assert.assertTrue(loader.loadedPartitions.contains(ImmutableList.of(12, 13)));
+
+    // Both found and missing values are cached
+    Assert.assertEquals(Optional.of("v12"), cache.get(12));
+    Assert.assertEquals(Optional.of("default"), cache.get(13));
+    Assert.assertEquals(2, loader.loadedPartitions.size());
+  }
+
+  @Test
+  public void testMissingValuesExpireSeparately() throws Exception {
+    EvenNumbersLoader loader = new EvenNumbersLoader();
+    OptionalLoadingCache<Integer, String> cache = LookupUtils.buildCache(
+        loader,
+        createCacheConfig(0),
+        Optional.empty()
+    );
+
+    Assert.assertEquals(Optional.of("v2"), cache.get(2));
+    Assert.assertEquals(Optional.empty(), cache.get(3));
+    Assert.assertEquals(2, loader.loadedPartitions.size());
+
+    // Missing value has already expired and is looked up again, found value is still cached
+    Assert.assertEquals(Optional.of("v2"), cache.get(2));
+    Assert.assertEquals(Optional.empty(), cache.get(3));
+    Assert.assertEquals(3, loader.loadedPartitions.size());
+    Assert.assertEquals(ImmutableList.of(3), loader.loadedPartitions.get(2));
+  }
+
+  @Test
+  public void testGetAllPresentIncludesMissingValues() throws Exception {
+    EvenNumbersLoader loader = new EvenNumbersLoader();
+    OptionalLoadingCache<Integer, String> cache = LookupUtils.buildCache(
+        loader,
+        createCacheConfig(-1),
+        Optional.of("default")
+    );
+
+    cache.getAll(ImmutableList.of(2, 3));
+    Map<Integer, Optional<String>> values = cache.getAllPresent(ImmutableList.of(2, 3, 4));
+    Assert.assertEquals(2, values.size());
+    Assert.assertEquals(Optional.of("v2"), values.get(2));
+    Assert.assertEquals(Optional.of("default"), values.get(3));
+  }
+
+  @Test
+  public void testRetryOnCacheMiss() throws Exception {
+    EvenNumbersLoader loader = new EvenNumbersLoader();
+    CacheConfig conf = createCacheConfig(-1);
+    conf.retryOnCacheMiss = true;
+    OptionalLoadingCache<Integer, String> cache = LookupUtils.buildCache(loader, conf, Optional.empty());
+
+    cache.get(3);
+    cache.get(3);
+    Assert.assertEquals(2, loader.loadedPartitions.size());
+    Assert.assertEquals(0, cache.size());
+  }
+}
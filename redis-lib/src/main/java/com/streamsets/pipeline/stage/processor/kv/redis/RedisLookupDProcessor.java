@@ -32,9 +32,10 @@ import com.streamsets.pipeline.configurablestage.DProcessor;
 )
 @ConfigGroups(Groups.class)
 @GenerateResourceBundle
-@HideConfigs(
-  "conf.cache.retryOnCacheMiss"
-)
+@HideConfigs({
+  "conf.cache.retryOnCacheMiss",
+  "conf.cache.missingValueExpirationTime"
+})
 public class RedisLookupDProcessor extends DProcessor {
 
   @ConfigDefBean(groups = {"LOOKUP", "REDIS"})
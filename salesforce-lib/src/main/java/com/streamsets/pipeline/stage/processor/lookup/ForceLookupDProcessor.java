@@ -36,7 +36,8 @@ import com.streamsets.pipeline.lib.salesforce.ForceLookupConfigBean;
 @HideConfigs({
   "forceConfig.useCompression",
   "forceConfig.showTrace",
-  "forceConfig.cacheConfig.retryOnCacheMiss"
+  "forceConfig.cacheConfig.retryOnCacheMiss",
+  "forceConfig.cacheConfig.missingValueExpirationTime"
 })
 public class ForceLookupDProcessor extends DProcessor {
   @ConfigDefBean